@@ -3,6 +3,7 @@ import org.gradle.api.tasks.testing.logging.TestExceptionFormat
 plugins {
     id("java")
     id("io.freefair.lombok") version "8.3"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "org.example"
@@ -15,8 +16,12 @@ repositories {
 dependencies {
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     testImplementation("org.mockito:mockito-core:5.5.0")
     testImplementation("org.assertj:assertj-core:3.24.2")
+    testImplementation("com.h2database:h2:2.2.224")
+
+    jmh("com.h2database:h2:2.2.224")
 }
 
 tasks.test {
@@ -26,4 +31,43 @@ tasks.test {
         exceptionFormat = TestExceptionFormat.FULL
         showCauses = true
     }
-}
\ No newline at end of file
+}
+
+// Load generator for the booking flow, kept out of the main jar: gradle loadTest --args="--threadMode=VIRTUAL"
+val loadtest by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations["loadtestImplementation"].extendsFrom(configurations.implementation.get())
+
+dependencies {
+    "loadtestImplementation"("com.h2database:h2:2.2.224")
+}
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the booking load generator against an embedded database."
+    classpath = loadtest.runtimeClasspath
+    mainClass.set("com.travelagencies.loadtest.BookingLoadGenerator")
+
+    // Virtual threads need a newer runtime than the build targets, e.g. -PloadTestJavaVersion=21
+    (findProperty("loadTestJavaVersion") as String?)?.let { version ->
+        javaLauncher.set(javaToolchains.launcherFor { languageVersion.set(JavaLanguageVersion.of(version)) })
+    }
+}
+
+jmh {
+    // JSON keeps every run machine-readable, so results can be diffed against a saved baseline.
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+
+    // Runs a subset, e.g. gradle jmh -PjmhIncludes=BookingFlowBenchmark
+    (findProperty("jmhIncludes") as String?)?.let { includes.set(listOf(it)) }
+
+    // Forks the benchmarks on another runtime, e.g. -PjmhJavaVersion=21 for the virtual thread benchmarks
+    (findProperty("jmhJavaVersion") as String?)?.let { version ->
+        jvm.set(javaToolchains.launcherFor { languageVersion.set(JavaLanguageVersion.of(version)) }
+                .map { it.executablePath.asFile.absolutePath })
+    }
+}
@@ -0,0 +1,107 @@
+package com.travelagencies.cache;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.models.Activity;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Releases a burst of concurrent callers at the same activity id while nothing is cached, the way a launch
+ * of a popular activity does. The {@code queries} counter divided by {@code bursts} gives the database
+ * queries per burst. Without coalescing it equals the number of callers. With coalescing it stays at a handful
+ * however many callers there are: only callers that wake up after a load already finished start another one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SingleFlightBenchmark {
+
+    private static final int ACTIVITY_ID = 1;
+
+    @Param({"1", "16", "64", "256"})
+    public int callers;
+
+    @Param({"true", "false"})
+    public boolean coalesce;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private ActivityDao activityDao;
+    private EntityCache<Activity> activityCache;
+    private ExecutorService executor;
+    private final LongAdder queries = new LongAdder();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long queries;
+        public long bursts;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("single_flight_benchmark");
+        database.execute("DELETE FROM destinations", "DELETE FROM activities",
+                "INSERT INTO destinations (destination_id, name) VALUES (1, 'Goa')",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "VALUES (" + ACTIVITY_ID + ", 1, 'Surfing', 'Launch day', 20.0, 500)");
+
+        connectionPool = database.newConnectionPool(16);
+        activityDao = new ActivityDao(connectionPool);
+        activityCache = new EntityCache<>(EntityCacheConfig.builder()
+                .enabled(false)
+                .coalesceLoads(coalesce)
+                .build(), CatalogCache::copyActivity);
+        executor = Executors.newFixedThreadPool(callers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public void burst(Counters counters) throws InterruptedException, ExecutionException {
+        long queriesBefore = queries.sum();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Optional<Activity>>> results = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return activityCache.get(ACTIVITY_ID, this::load);
+            }));
+        }
+
+        start.countDown();
+        for (Future<Optional<Activity>> result : results) {
+            result.get().orElseThrow();
+        }
+
+        counters.queries += queries.sum() - queriesBefore;
+        counters.bursts++;
+    }
+
+    private Optional<Activity> load(int activityId) {
+        queries.increment();
+        return activityDao.getById(activityId);
+    }
+}
@@ -0,0 +1,230 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.models.TravelPackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures every DAO operation on its own against a catalog and booking history of realistic shape, to catch
+ * regressions in a single query or in the assembly of its result. Writes leave the row counts unchanged, so the
+ * numbers do not drift over the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DaoOperationsBenchmark {
+
+    private static final int DESTINATIONS = 20;
+    private static final int ACTIVITIES_PER_DESTINATION = 10;
+    private static final int ACTIVITIES = DESTINATIONS * ACTIVITIES_PER_DESTINATION;
+    private static final int PASSENGERS = 1_000;
+    private static final int BOOKINGS_PER_PASSENGER = 20;
+    private static final int BOOKINGS = PASSENGERS * BOOKINGS_PER_PASSENGER;
+    private static final int TRAVEL_PACKAGES = 10;
+    private static final int DESTINATIONS_PER_PACKAGE = 5;
+    private static final int BATCH_LOOKUP_SIZE = 50;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+
+    private DestinationDao destinationDao;
+    private ActivityDao activityDao;
+    private PassengerDao passengerDao;
+    private BookingDao bookingDao;
+    private TravelPackageDao travelPackageDao;
+
+    private Destination destination;
+    private Activity activity;
+    private Passenger passenger;
+    private Booking booking;
+    private final AtomicInteger nextBookingId = new AtomicInteger(BOOKINGS);
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("dao_operations_benchmark");
+        database.execute("DELETE FROM destinations", "DELETE FROM activities", "DELETE FROM passengers",
+                "DELETE FROM bookings", "DELETE FROM passenger_bookings", "DELETE FROM travel_packages",
+                "DELETE FROM package_destinations", "DELETE FROM id_sequences",
+                "INSERT INTO destinations (destination_id, name) " +
+                        "SELECT X, CONCAT('Destination ', X) FROM SYSTEM_RANGE(1, " + DESTINATIONS + ")",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "SELECT X, MOD(X - 1, " + DESTINATIONS + ") + 1, CONCAT('Activity ', X), " +
+                        "'A guided activity with a fairly long description', 25.0, MOD(X, 3) * 10 " +
+                        "FROM SYSTEM_RANGE(1, " + ACTIVITIES + ")",
+                "INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                        "SELECT X, CONCAT('Passenger ', X), '9999988888', 'GOLD', 1000.0 " +
+                        "FROM SYSTEM_RANGE(1, " + PASSENGERS + ")",
+                "INSERT INTO bookings (booking_id, passenger_id, destination_id, activity_id, booking_status) " +
+                        "SELECT X, MOD(X - 1, " + PASSENGERS + ") + 1, MOD(X - 1, " + DESTINATIONS + ") + 1, " +
+                        "MOD(X - 1, " + ACTIVITIES + ") + 1, 'CONFIRMED' FROM SYSTEM_RANGE(1, " + BOOKINGS + ")",
+                "INSERT INTO passenger_bookings (booking_id, passenger_id) " +
+                        "SELECT X, MOD(X - 1, " + PASSENGERS + ") + 1 FROM SYSTEM_RANGE(1, " + BOOKINGS + ")",
+                "INSERT INTO travel_packages (package_id, name, description, capacity) " +
+                        "SELECT X, CONCAT('Package ', X), 'A round trip', 40 " +
+                        "FROM SYSTEM_RANGE(1, " + TRAVEL_PACKAGES + ")",
+                "INSERT INTO package_destinations (package_id, destination_id) " +
+                        "SELECT P.X, MOD(P.X + D.X - 2, " + DESTINATIONS + ") + 1 " +
+                        "FROM SYSTEM_RANGE(1, " + TRAVEL_PACKAGES + ") P, " +
+                        "SYSTEM_RANGE(1, " + DESTINATIONS_PER_PACKAGE + ") D");
+
+        connectionPool = database.newConnectionPool(1);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+        destinationDao = new DestinationDao(connectionPool, idGenerator);
+        activityDao = new ActivityDao(connectionPool, idGenerator);
+        passengerDao = new PassengerDao(connectionPool, idGenerator);
+        bookingDao = new BookingDao(connectionPool, idGenerator);
+        travelPackageDao = new TravelPackageDao(connectionPool, idGenerator);
+
+        destination = destinationDao.getById(1).orElseThrow();
+        activity = activityDao.getById(1).orElseThrow();
+        passenger = passengerDao.getById(1).orElseThrow();
+        booking = bookingDao.getById(1).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<Destination> destinationGetById() {
+        return destinationDao.getById(randomId(DESTINATIONS));
+    }
+
+    @Benchmark
+    public Map<Integer, Destination> destinationGetByIds() {
+        return destinationDao.getByIds(randomIds(DESTINATIONS));
+    }
+
+    @Benchmark
+    public void destinationUpdate() {
+        destinationDao.update(destination);
+    }
+
+    @Benchmark
+    public Optional<Activity> activityGetById() {
+        return activityDao.getById(randomId(ACTIVITIES));
+    }
+
+    @Benchmark
+    public Map<Integer, Activity> activityGetByIds() {
+        return activityDao.getByIds(randomIds(ACTIVITIES));
+    }
+
+    @Benchmark
+    public List<Activity> activitiesByDestinationId() {
+        return activityDao.getActivitiesByDestinationId(randomId(DESTINATIONS));
+    }
+
+    @Benchmark
+    public List<Activity> activitiesWithAvailableSpace() {
+        return activityDao.getActivitiesWithAvailableSpace();
+    }
+
+    @Benchmark
+    public void activityUpdate() {
+        activityDao.update(activity);
+    }
+
+    @Benchmark
+    public boolean activityReserveAndReleaseCapacity() {
+        int activityId = randomId(ACTIVITIES);
+        return activityDao.reserveCapacity(activityId, 1) && activityDao.releaseCapacity(activityId, 1);
+    }
+
+    @Benchmark
+    public Optional<Passenger> passengerGetByIdShallow() {
+        return passengerDao.getById(randomId(PASSENGERS));
+    }
+
+    @Benchmark
+    public Optional<Passenger> passengerGetByIdWithBookings() {
+        return passengerDao.getById(randomId(PASSENGERS), PassengerFetchPlan.WITH_BOOKINGS);
+    }
+
+    @Benchmark
+    public Map<Integer, Passenger> passengerGetByIds() {
+        return passengerDao.getByIds(randomIds(PASSENGERS), PassengerFetchPlan.WITH_BOOKINGS);
+    }
+
+    @Benchmark
+    public void passengerUpdate() {
+        passengerDao.update(passenger);
+    }
+
+    @Benchmark
+    public Optional<Booking> bookingGetById() {
+        return bookingDao.getById(randomId(BOOKINGS));
+    }
+
+    @Benchmark
+    public Map<Integer, Booking> bookingGetByIds() {
+        return bookingDao.getByIds(randomIds(BOOKINGS));
+    }
+
+    @Benchmark
+    public void bookingUpdate() {
+        bookingDao.update(booking);
+    }
+
+    @Benchmark
+    public void bookingSaveAndDelete() {
+        Booking newBooking = Booking.builder()
+                .bookingId(nextBookingId.incrementAndGet())
+                .passengerId(1)
+                .destinationId(1)
+                .activityId(1)
+                .bookingStatus(BookingStatus.PENDING)
+                .build();
+        bookingDao.save(newBooking);
+        bookingDao.delete(newBooking);
+    }
+
+    @Benchmark
+    public int bookingGenerateId() {
+        return bookingDao.generateBookingId();
+    }
+
+    @Benchmark
+    public Optional<TravelPackage> travelPackageGetById() {
+        return travelPackageDao.getById(randomId(TRAVEL_PACKAGES));
+    }
+
+    @Benchmark
+    public Map<Integer, TravelPackage> travelPackageGetByIds() {
+        return travelPackageDao.getByIds(randomIds(TRAVEL_PACKAGES));
+    }
+
+    private static int randomId(int count) {
+        return ThreadLocalRandom.current().nextInt(1, count + 1);
+    }
+
+    private static List<Integer> randomIds(int count) {
+        List<Integer> ids = new ArrayList<>(BATCH_LOOKUP_SIZE);
+        for (int i = 0; i < Math.min(BATCH_LOOKUP_SIZE, count); i++) {
+            ids.add(randomId(count));
+        }
+        return ids;
+    }
+}
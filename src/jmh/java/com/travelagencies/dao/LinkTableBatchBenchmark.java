@@ -0,0 +1,76 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Passenger;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PassengerDao#update(Passenger)} as the booking history grows.
+ * Each update costs 2 + ceil(bookings / batchSize) round trips, so {@code batchSize = 1} reproduces
+ * the former one-statement-per-row behaviour.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LinkTableBatchBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int bookings;
+
+    @Param({"1", "100"})
+    public int batchSize;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private PassengerDao passengerDao;
+    private Passenger passenger;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("link_table_batch_benchmark");
+        database.execute("DELETE FROM passengers", "DELETE FROM passenger_bookings",
+                "INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                        "VALUES (1, 'Frequent Traveller', '9999988888', 'GOLD', 1000.0)");
+
+        connectionPool = database.newConnectionPool(1);
+        passengerDao = new PassengerDao(connectionPool, batchSize);
+
+        passenger = Passenger.builder()
+                .passengerId(1)
+                .passengerName("Frequent Traveller")
+                .passengerMobile("9999988888")
+                .passengerType(PassengerType.GOLD)
+                .balance(1000.0)
+                .build();
+        for (int bookingId = 1; bookingId <= bookings; bookingId++) {
+            passenger.getBookingList().add(Booking.builder()
+                    .bookingId(bookingId)
+                    .passengerId(1)
+                    .destinationId(1)
+                    .activityId(1)
+                    .bookingStatus(BookingStatus.CONFIRMED)
+                    .build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public void updatePassenger() {
+        passengerDao.update(passenger);
+    }
+}
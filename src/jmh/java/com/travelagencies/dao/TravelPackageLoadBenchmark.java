@@ -0,0 +1,131 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.TravelPackage;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TravelPackageDao#getById(int)} on synthetic packages of growing size against
+ * the former single LEFT JOIN query, which returned one wide row per destination and activity and
+ * searched the destination list linearly for every row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TravelPackageLoadBenchmark {
+
+    private static final int PACKAGE_ID = 1;
+
+    private static final String JOINED_PACKAGE_QUERY = "SELECT tp.name AS package_name, " +
+            "tp.description AS package_description, tp.capacity, pd.destination_id, d.name AS destination_name, " +
+            "a.activity_id, a.name AS activity_name, a.description AS activity_description, " +
+            "a.cost AS activity_cost, a.capacity AS activity_capacity " +
+            "FROM travel_packages tp " +
+            "LEFT JOIN package_destinations pd ON tp.package_id = pd.package_id " +
+            "LEFT JOIN destinations d ON pd.destination_id = d.destination_id " +
+            "LEFT JOIN activities a ON d.destination_id = a.destination_id " +
+            "WHERE tp.package_id = ?";
+
+    @Param({"5", "20", "100"})
+    public int destinations;
+
+    @Param({"10", "50"})
+    public int activitiesPerDestination;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private TravelPackageDao travelPackageDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("travel_package_load_benchmark");
+        database.execute("DELETE FROM travel_packages", "DELETE FROM package_destinations",
+                "DELETE FROM destinations", "DELETE FROM activities",
+                "INSERT INTO travel_packages (package_id, name, description, capacity) " +
+                        "VALUES (" + PACKAGE_ID + ", 'Grand Tour', 'Every destination we offer', 40)",
+                "INSERT INTO destinations (destination_id, name) " +
+                        "SELECT X, CONCAT('Destination ', X) FROM SYSTEM_RANGE(1, " + destinations + ")",
+                "INSERT INTO package_destinations (package_id, destination_id) " +
+                        "SELECT " + PACKAGE_ID + ", X FROM SYSTEM_RANGE(1, " + destinations + ")",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "SELECT X, MOD(X - 1, " + destinations + ") + 1, CONCAT('Activity ', X), " +
+                        "'A guided activity with a fairly long description', 25.0, 20 " +
+                        "FROM SYSTEM_RANGE(1, " + destinations * activitiesPerDestination + ")");
+
+        connectionPool = database.newConnectionPool(1);
+        travelPackageDao = new TravelPackageDao(connectionPool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public TravelPackage loadPerLevel() {
+        return travelPackageDao.getById(PACKAGE_ID).orElseThrow();
+    }
+
+    @Benchmark
+    public TravelPackage loadJoined() throws SQLException {
+        try (Connection connection = connectionPool.getConnection();
+             PreparedStatement preparedStatement = connection.prepareStatement(JOINED_PACKAGE_QUERY)) {
+            preparedStatement.setInt(1, PACKAGE_ID);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                TravelPackage travelPackage = null;
+                while (resultSet.next()) {
+                    if (travelPackage == null) {
+                        travelPackage = TravelPackage.builder()
+                                .packageId(PACKAGE_ID)
+                                .name(resultSet.getString("package_name"))
+                                .description(resultSet.getString("package_description"))
+                                .capacity(resultSet.getInt("capacity"))
+                                .build();
+                    }
+
+                    int destinationId = resultSet.getInt("destination_id");
+                    boolean destinationExists = travelPackage.getDestinations()
+                            .stream()
+                            .anyMatch(destination -> destination.getDestinationId() == destinationId);
+                    if (!destinationExists) {
+                        travelPackage.getDestinations().add(Destination.builder()
+                                .destinationId(destinationId)
+                                .name(resultSet.getString("destination_name"))
+                                .activities(new ArrayList<>())
+                                .build());
+                    }
+
+                    Activity activity = Activity.builder()
+                            .activityId(resultSet.getInt("activity_id"))
+                            .name(resultSet.getString("activity_name"))
+                            .description(resultSet.getString("activity_description"))
+                            .cost(resultSet.getDouble("activity_cost"))
+                            .capacity(resultSet.getInt("activity_capacity"))
+                            .build();
+                    travelPackage.getDestinations()
+                            .stream()
+                            .filter(destination -> destination.getDestinationId() == destinationId)
+                            .findFirst()
+                            .ifPresent(destination -> destination.getActivities().add(activity));
+                }
+
+                return travelPackage;
+            }
+        }
+    }
+}
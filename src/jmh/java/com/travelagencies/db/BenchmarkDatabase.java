@@ -0,0 +1,58 @@
+package com.travelagencies.db;
+
+import org.h2.tools.Server;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An H2 database in MySQL mode, served over TCP so that opening a connection pays a real socket
+ * and authentication handshake, the way it does against the production MySQL server.
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    private final Server server;
+    private final DataSource unpooledDataSource;
+
+    public BenchmarkDatabase(String name) throws SQLException {
+        this.server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        String jdbcUrl = String.format("jdbc:h2:tcp://localhost:%s/mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                server.getPort(), name);
+        this.unpooledDataSource = new DriverManagerDataSource(jdbcUrl, "sa", "");
+
+        execute("RUNSCRIPT FROM 'classpath:db/schema.sql'");
+    }
+
+    /**
+     * Returns a DataSource that opens a new physical connection on every call.
+     */
+    public DataSource getUnpooledDataSource() {
+        return unpooledDataSource;
+    }
+
+    /**
+     * Creates a new pool over this database, the caller owns and closes it.
+     */
+    public ConnectionPool newConnectionPool(int maximumPoolSize) {
+        return new ConnectionPool(unpooledDataSource, ConnectionPoolConfig.builder()
+                .maximumPoolSize(maximumPoolSize)
+                .minimumIdle(maximumPoolSize)
+                .build());
+    }
+
+    public void execute(String... statements) throws SQLException {
+        try (Connection connection = unpooledDataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop();
+    }
+}
@@ -0,0 +1,59 @@
+package com.travelagencies.db;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.models.Activity;
+import org.openjdk.jmh.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link ActivityDao#getById(int)} latency when every call opens a physical connection
+ * against borrowing one from a {@link ConnectionPool}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionPoolBenchmark {
+
+    @Param({"pooled", "unpooled"})
+    public String mode;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private ActivityDao activityDao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("connection_pool_benchmark");
+        database.execute(
+                "INSERT INTO destinations (destination_id, name) VALUES (1, 'Goa')",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "VALUES (1, 1, 'Scuba', 'Reef dive', 120.0, 20)");
+
+        DataSource dataSource = database.getUnpooledDataSource();
+        if ("pooled".equals(mode)) {
+            connectionPool = database.newConnectionPool(4);
+            dataSource = connectionPool;
+        }
+        activityDao = new ActivityDao(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<Activity> getActivityById() {
+        return activityDao.getById(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.async.AsyncExecutorConfig;
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AsyncBookingService#createBooking(int, int, int)} throughput when a caller fans out
+ * {@link #FAN_OUT} bookings at once and waits for all of them, on platform and on virtual threads. Both modes
+ * admit the same number of bookings to the database at a time, so the difference is the cost of parking the
+ * waiting ones. VIRTUAL needs a Java 21 runtime: {@code gradle jmh -PjmhIncludes=AsyncBookingBenchmark
+ * -PjmhJavaVersion=21}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncBookingBenchmark {
+
+    private static final int PASSENGERS = 256;
+    private static final int ACTIVITIES = 16;
+    private static final int FAN_OUT = 1_000;
+    private static final int MAX_CONCURRENCY = 16;
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public AsyncExecutorConfig.ThreadMode threadMode;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private AsyncExecutor executor;
+    private AsyncBookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("async_booking_benchmark");
+
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM passengers");
+        statements.add("DELETE FROM activities");
+        for (int passengerId = 1; passengerId <= PASSENGERS; passengerId++) {
+            statements.add(String.format("INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                    "VALUES (%s, 'Passenger %s', '9999988888', 'GOLD', 1000000000.0)", passengerId, passengerId));
+        }
+        for (int activityId = 1; activityId <= ACTIVITIES; activityId++) {
+            statements.add(String.format("INSERT INTO activities (activity_id, destination_id, name, description, " +
+                    "cost, capacity) VALUES (%s, 1, 'Activity %s', 'Benchmark', 10.0, 1000000000)", activityId, activityId));
+        }
+        database.execute(statements.toArray(new String[0]));
+
+        // Room for every admitted booking to briefly take a second connection to lease ids.
+        connectionPool = database.newConnectionPool(2 * MAX_CONCURRENCY);
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+        BookingService syncService = new BookingService(
+                new BookingDao(transactionManager.getDataSource(), idGenerator),
+                new PassengerDao(transactionManager.getDataSource(), idGenerator),
+                new ActivityDao(transactionManager.getDataSource(), idGenerator),
+                transactionManager);
+
+        // The platform pool is sized like a typical request thread pool, far below the fan-out.
+        executor = new AsyncExecutor(AsyncExecutorConfig.builder()
+                .threadMode(threadMode)
+                .maxConcurrency(MAX_CONCURRENCY)
+                .platformThreads(200)
+                .build());
+        bookingService = new AsyncBookingService(syncService, executor);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearBookings() throws SQLException {
+        // Keeps the passengers' booking histories from growing across iterations.
+        database.execute("DELETE FROM bookings", "DELETE FROM passenger_bookings");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.close();
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FAN_OUT)
+    public void createBookings() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CompletableFuture<?>[] bookings = new CompletableFuture<?>[FAN_OUT];
+        for (int i = 0; i < FAN_OUT; i++) {
+            bookings[i] = bookingService.createBooking(random.nextInt(1, PASSENGERS + 1),
+                    random.nextInt(1, ACTIVITIES + 1), 1);
+        }
+        CompletableFuture.allOf(bookings).join();
+    }
+}
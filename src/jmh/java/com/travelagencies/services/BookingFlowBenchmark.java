@@ -0,0 +1,243 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the full booking flow, {@link BookingService#createBooking(int, int, int)} followed by cancelling the
+ * booking with {@link BookingService#updateBookingStatus(int, BookingStatus)}, at 1, 4 and 16 threads.
+ * {@code backend = jdbc} runs it on the DAOs over H2, {@code backend = memory} on the in-memory repositories,
+ * which isolates the cost of the service layer itself. Cancelling returns the seat and the balance, so the
+ * passengers and activities stay in the same state throughout the run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingFlowBenchmark {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int PASSENGERS = 256;
+    private static final int ACTIVITIES = 16;
+
+    @Param({"jdbc", "memory"})
+    public String backend;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private RecordingBookingRepository bookingRepository;
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        if ("jdbc".equals(backend)) {
+            setUpJdbc();
+        } else {
+            setUpInMemory();
+        }
+    }
+
+    private void setUpJdbc() throws SQLException {
+        database = new BenchmarkDatabase("booking_flow_benchmark");
+
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM passengers");
+        statements.add("DELETE FROM activities");
+        statements.add("DELETE FROM bookings");
+        statements.add("DELETE FROM passenger_bookings");
+        statements.add(String.format("INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                "SELECT X, CONCAT('Passenger ', X), '9999988888', 'GOLD', 1000000.0 FROM SYSTEM_RANGE(1, %s)", PASSENGERS));
+        statements.add(String.format("INSERT INTO activities (activity_id, destination_id, name, description, cost, " +
+                "capacity) SELECT X, %s, CONCAT('Activity ', X), 'Benchmark', 10.0, 1000000 FROM SYSTEM_RANGE(1, %s)",
+                DESTINATION_ID, ACTIVITIES));
+        database.execute(statements.toArray(new String[0]));
+
+        // Each booking holds one connection for its transaction and may briefly need a second to lease ids.
+        connectionPool = database.newConnectionPool(32);
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+
+        bookingRepository = new RecordingBookingRepository(new BookingDao(transactionManager.getDataSource(), idGenerator));
+        bookingService = new BookingService(bookingRepository,
+                new PassengerDao(transactionManager.getDataSource(), idGenerator),
+                new ActivityDao(transactionManager.getDataSource(), idGenerator),
+                transactionManager);
+    }
+
+    private void setUpInMemory() {
+        InMemoryDatabase inMemoryDatabase = new InMemoryDatabase();
+        InMemoryPassengerRepository passengerRepository = new InMemoryPassengerRepository(inMemoryDatabase);
+        InMemoryActivityRepository activityRepository = new InMemoryActivityRepository(inMemoryDatabase);
+
+        Destination destination = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new InMemoryDestinationRepository(inMemoryDatabase).save(destination);
+        for (int passengerId = 1; passengerId <= PASSENGERS; passengerId++) {
+            passengerRepository.save(Passenger.builder()
+                    .passengerId(passengerId)
+                    .passengerName("Passenger " + passengerId)
+                    .passengerMobile("9999988888")
+                    .passengerType(PassengerType.GOLD)
+                    .balance(1000000.0)
+                    .build());
+        }
+        for (int activityId = 1; activityId <= ACTIVITIES; activityId++) {
+            activityRepository.save(Activity.builder()
+                    .activityId(activityId)
+                    .name("Activity " + activityId)
+                    .description("Benchmark")
+                    .cost(10.0)
+                    .capacity(1000000)
+                    .destination(destination)
+                    .build());
+        }
+
+        bookingRepository = new RecordingBookingRepository(new InMemoryBookingRepository(inMemoryDatabase));
+        bookingService = new BookingService(bookingRepository, passengerRepository, activityRepository,
+                inMemoryDatabase.getTransactionManager());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (connectionPool != null) {
+            connectionPool.close();
+            database.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void bookAndCancel_1Thread() {
+        bookAndCancel();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void bookAndCancel_4Threads() {
+        bookAndCancel();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void bookAndCancel_16Threads() {
+        bookAndCancel();
+    }
+
+    private void bookAndCancel() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        bookingService.createBooking(random.nextInt(1, PASSENGERS + 1), random.nextInt(1, ACTIVITIES + 1), DESTINATION_ID);
+        bookingService.updateBookingStatus(bookingRepository.lastSavedBookingId(), BookingStatus.CANCELLED);
+    }
+
+    /**
+     * Remembers the id of the booking each thread saved last, so the benchmark can cancel what it just booked.
+     */
+    private static class RecordingBookingRepository implements BookingRepository {
+
+        private final BookingRepository delegate;
+        private final ThreadLocal<Integer> lastSavedBookingId = new ThreadLocal<>();
+
+        RecordingBookingRepository(BookingRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        int lastSavedBookingId() {
+            return lastSavedBookingId.get();
+        }
+
+        @Override
+        public void save(Booking booking) {
+            delegate.save(booking);
+            lastSavedBookingId.set(booking.getBookingId());
+        }
+
+        @Override
+        public void update(Booking booking) {
+            delegate.update(booking);
+        }
+
+        @Override
+        public void delete(Booking booking) {
+            delegate.delete(booking);
+        }
+
+        @Override
+        public Optional<Booking> getById(int id) {
+            return delegate.getById(id);
+        }
+
+        @Override
+        public void saveAll(Collection<Booking> bookings) {
+            delegate.saveAll(bookings);
+        }
+
+        @Override
+        public void updateAll(Collection<Booking> bookings) {
+            delegate.updateAll(bookings);
+        }
+
+        @Override
+        public void deleteAll(Collection<Booking> bookings) {
+            delegate.deleteAll(bookings);
+        }
+
+        @Override
+        public Map<Integer, Booking> getByIds(Collection<Integer> ids) {
+            return delegate.getByIds(ids);
+        }
+
+        @Override
+        public Optional<Booking> getByIdForUpdate(int id) {
+            return delegate.getByIdForUpdate(id);
+        }
+
+        @Override
+        public Map<Integer, Booking> getByIdsForUpdate(Collection<Integer> ids) {
+            return delegate.getByIdsForUpdate(ids);
+        }
+
+        @Override
+        public Stream<Booking> streamNotCancelledByActivityId(int activityId, int afterBookingId) {
+            return delegate.streamNotCancelledByActivityId(activityId, afterBookingId);
+        }
+
+        @Override
+        public Stream<Booking> streamNotCancelledByDestinationId(int destinationId, int afterBookingId) {
+            return delegate.streamNotCancelledByDestinationId(destinationId, afterBookingId);
+        }
+
+        @Override
+        public int generateBookingId() {
+            return delegate.generateBookingId();
+        }
+    }
+}
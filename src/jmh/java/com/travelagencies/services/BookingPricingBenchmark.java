@@ -0,0 +1,34 @@
+package com.travelagencies.services;
+
+import com.travelagencies.enums.PassengerType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pricing helpers every booking and cancellation goes through, per passenger type.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingPricingBenchmark {
+
+    @Param({"STANDARD", "GOLD", "PREMIUM"})
+    public PassengerType passengerType;
+
+    // Not final, so the JIT cannot fold the prices into constants.
+    private double activityCost = 149.99;
+
+    @Benchmark
+    public double bookingCost() {
+        return BookingPricing.bookingCost(passengerType, activityCost);
+    }
+
+    @Benchmark
+    public double refundAmount() {
+        return BookingPricing.refundAmount(passengerType, activityCost);
+    }
+}
@@ -0,0 +1,88 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures concurrent {@link BookingService#createBooking(int, int, int)} throughput.
+ * With {@code blockSize = 1} every booking leases its id in a separate round trip and transaction,
+ * which is roughly the cost of the former per-entity id query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class BookingThroughputBenchmark {
+
+    private static final int PASSENGERS = 256;
+    private static final int ACTIVITIES = 16;
+
+    @Param({"1", "50"})
+    public int blockSize;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("booking_throughput_benchmark");
+
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM passengers");
+        statements.add("DELETE FROM activities");
+        for (int passengerId = 1; passengerId <= PASSENGERS; passengerId++) {
+            statements.add(String.format("INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                    "VALUES (%s, 'Passenger %s', '9999988888', 'GOLD', 1000000000.0)", passengerId, passengerId));
+        }
+        for (int activityId = 1; activityId <= ACTIVITIES; activityId++) {
+            statements.add(String.format("INSERT INTO activities (activity_id, destination_id, name, description, " +
+                    "cost, capacity) VALUES (%s, 1, 'Activity %s', 'Benchmark', 10.0, 1000000000)", activityId, activityId));
+        }
+        database.execute(statements.toArray(new String[0]));
+
+        // Each booking holds one connection for its transaction and may briefly need a second to lease ids.
+        connectionPool = database.newConnectionPool(16);
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool, blockSize);
+
+        bookingService = new BookingService(
+                new BookingDao(transactionManager.getDataSource(), idGenerator),
+                new PassengerDao(transactionManager.getDataSource(), idGenerator),
+                new ActivityDao(transactionManager.getDataSource(), idGenerator),
+                transactionManager);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearBookings() throws SQLException {
+        // Keeps the passengers' booking histories from growing across iterations.
+        database.execute("DELETE FROM bookings", "DELETE FROM passenger_bookings");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public void createBooking() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        bookingService.createBooking(random.nextInt(1, PASSENGERS + 1), random.nextInt(1, ACTIVITIES + 1), 1);
+    }
+}
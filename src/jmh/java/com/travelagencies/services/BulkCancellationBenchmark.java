@@ -0,0 +1,97 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.enums.BookingStatus;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares cancelling every booking of an activity with {@link BulkCancellationService} against calling
+ * {@link BookingService#updateBookingStatus(int, BookingStatus)} once per booking.
+ * Each invocation starts from the same freshly inserted bookings, ten per passenger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkCancellationBenchmark {
+
+    private static final int ACTIVITY_ID = 1;
+    private static final int BOOKINGS_PER_PASSENGER = 10;
+
+    @Param({"5000"})
+    public int bookings;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private BookingService bookingService;
+    private BulkCancellationService bulkCancellationService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("bulk_cancellation_benchmark");
+
+        connectionPool = database.newConnectionPool(4);
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+        BookingDao bookingDao = new BookingDao(transactionManager.getDataSource(), idGenerator);
+        PassengerDao passengerDao = new PassengerDao(transactionManager.getDataSource(), idGenerator);
+        ActivityDao activityDao = new ActivityDao(transactionManager.getDataSource(), idGenerator);
+
+        bookingService = new BookingService(bookingDao, passengerDao, activityDao, transactionManager);
+        bulkCancellationService = new BulkCancellationService(bookingDao, passengerDao, activityDao, transactionManager);
+    }
+
+    @Setup(Level.Invocation)
+    public void insertBookings() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM passengers");
+        statements.add("DELETE FROM activities");
+        statements.add("DELETE FROM bookings");
+        statements.add("DELETE FROM passenger_bookings");
+        statements.add(String.format("INSERT INTO activities (activity_id, destination_id, name, description, cost, " +
+                "capacity) VALUES (%s, 1, 'Activity', 'Benchmark', 10.0, 0)", ACTIVITY_ID));
+        for (int passengerId = 1; passengerId <= bookings / BOOKINGS_PER_PASSENGER; passengerId++) {
+            statements.add(String.format("INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                    "VALUES (%s, 'Passenger %s', '9999988888', 'GOLD', 0.0)", passengerId, passengerId));
+        }
+        for (int bookingId = 1; bookingId <= bookings; bookingId++) {
+            int passengerId = (bookingId - 1) / BOOKINGS_PER_PASSENGER + 1;
+            statements.add(String.format("INSERT INTO bookings (booking_id, passenger_id, destination_id, activity_id, " +
+                    "booking_status) VALUES (%s, %s, 1, %s, 'CONFIRMED')", bookingId, passengerId, ACTIVITY_ID));
+            statements.add(String.format("INSERT INTO passenger_bookings (booking_id, passenger_id) VALUES (%s, %s)",
+                    bookingId, passengerId));
+        }
+        database.execute(statements.toArray(new String[0]));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public BulkCancellationProgress bulkCancellation() {
+        return bulkCancellationService.cancelActivityBookings(ACTIVITY_ID);
+    }
+
+    @Benchmark
+    public void cancelOneByOne() {
+        for (int bookingId = 1; bookingId <= bookings; bookingId++) {
+            bookingService.updateBookingStatus(bookingId, BookingStatus.CANCELLED);
+        }
+    }
+}
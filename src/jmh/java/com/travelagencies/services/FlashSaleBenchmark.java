@@ -0,0 +1,136 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.models.Booking;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a flash sale, many more requests than seats for one activity from many threads at once, booked through
+ * a {@link BookingScheduler} against calling {@link BookingService#createBooking(int, int, int)} directly, one
+ * transaction per request contending for the activity's row. Every request comes from its own passenger, and each
+ * invocation starts from the same seats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FlashSaleBenchmark {
+
+    private static final int ACTIVITY_ID = 1;
+    private static final int CLIENT_THREADS = 16;
+
+    @Param({"500"})
+    public int seats;
+
+    @Param({"2000"})
+    public int requests;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private BookingService bookingService;
+    private BookingScheduler scheduler;
+    private ExecutorService clients;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("flash_sale_benchmark");
+
+        // Room for a transaction per client thread and lane plus the id generator's connection next to each.
+        connectionPool = database.newConnectionPool(2 * (CLIENT_THREADS + Runtime.getRuntime().availableProcessors()));
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+        BookingDao bookingDao = new BookingDao(transactionManager.getDataSource(), idGenerator);
+        PassengerDao passengerDao = new PassengerDao(transactionManager.getDataSource(), idGenerator);
+        ActivityDao activityDao = new ActivityDao(transactionManager.getDataSource(), idGenerator);
+
+        bookingService = new BookingService(bookingDao, passengerDao, activityDao, transactionManager);
+        scheduler = new BookingScheduler(bookingDao, passengerDao, activityDao, transactionManager,
+                BookingSchedulerConfig.builder().queueCapacity(requests).build());
+        clients = Executors.newFixedThreadPool(CLIENT_THREADS);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetSale() throws SQLException {
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM passengers");
+        statements.add("DELETE FROM activities");
+        statements.add("DELETE FROM bookings");
+        statements.add("DELETE FROM passenger_bookings");
+        statements.add(String.format("INSERT INTO activities (activity_id, destination_id, name, description, cost, " +
+                "capacity) VALUES (%s, 1, 'Activity', 'Benchmark', 10.0, %s)", ACTIVITY_ID, seats));
+        for (int passengerId = 1; passengerId <= requests; passengerId++) {
+            statements.add(String.format("INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                    "VALUES (%s, 'Passenger %s', '9999988888', 'GOLD', 1000000000.0)", passengerId, passengerId));
+        }
+        database.execute(statements.toArray(new String[0]));
+        scheduler.invalidate(ACTIVITY_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        clients.shutdownNow();
+        scheduler.close();
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public int directBookings() throws Exception {
+        List<Future<Boolean>> results = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            int passengerId = i + 1;
+            results.add(clients.submit(() -> {
+                try {
+                    bookingService.createBooking(passengerId, ACTIVITY_ID, 1);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }));
+        }
+        int booked = 0;
+        for (Future<Boolean> result : results) {
+            booked += result.get() ? 1 : 0;
+        }
+        return booked;
+    }
+
+    @Benchmark
+    public int scheduledBookings() throws Exception {
+        List<Future<CompletableFuture<Booking>>> results = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            int passengerId = i + 1;
+            results.add(clients.submit(() -> scheduler.createBooking(passengerId, ACTIVITY_ID, 1)));
+        }
+        int booked = 0;
+        for (Future<CompletableFuture<Booking>> result : results) {
+            try {
+                result.get().get();
+                booked++;
+            } catch (ExecutionException e) {
+                if (!(e.getCause() instanceof IllegalArgumentException)) {
+                    throw e;
+                }
+            }
+        }
+        return booked;
+    }
+}
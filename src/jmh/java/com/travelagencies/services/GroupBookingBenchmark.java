@@ -0,0 +1,91 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.BenchmarkDatabase;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares booking one activity for a whole group with {@link BookingService#createGroupBooking(List, int, int)},
+ * one transaction with batched writes, against calling {@link BookingService#createBooking(int, int, int)} once per
+ * passenger, one transaction each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupBookingBenchmark {
+
+    private static final int ACTIVITY_ID = 1;
+
+    @Param({"10", "40"})
+    public int groupSize;
+
+    private BenchmarkDatabase database;
+    private ConnectionPool connectionPool;
+    private BookingService bookingService;
+    private List<Integer> passengerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        database = new BenchmarkDatabase("group_booking_benchmark");
+
+        List<String> statements = new ArrayList<>();
+        statements.add("DELETE FROM passengers");
+        statements.add("DELETE FROM activities");
+        for (int passengerId = 1; passengerId <= groupSize; passengerId++) {
+            statements.add(String.format("INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                    "VALUES (%s, 'Passenger %s', '9999988888', 'GOLD', 1000000000.0)", passengerId, passengerId));
+        }
+        statements.add(String.format("INSERT INTO activities (activity_id, destination_id, name, description, cost, " +
+                "capacity) VALUES (%s, 1, 'Activity %s', 'Benchmark', 10.0, 1000000000)", ACTIVITY_ID, ACTIVITY_ID));
+        database.execute(statements.toArray(new String[0]));
+        passengerIds = IntStream.rangeClosed(1, groupSize).boxed().toList();
+
+        connectionPool = database.newConnectionPool(4);
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+
+        bookingService = new BookingService(
+                new BookingDao(transactionManager.getDataSource(), idGenerator),
+                new PassengerDao(transactionManager.getDataSource(), idGenerator),
+                new ActivityDao(transactionManager.getDataSource(), idGenerator),
+                transactionManager);
+    }
+
+    @Setup(Level.Iteration)
+    public void clearBookings() throws SQLException {
+        // Keeps the passengers' booking histories from growing across iterations.
+        database.execute("DELETE FROM bookings", "DELETE FROM passenger_bookings");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        connectionPool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public void groupBooking() {
+        bookingService.createGroupBooking(passengerIds, ACTIVITY_ID, 1);
+    }
+
+    @Benchmark
+    public void sequentialBookings() {
+        for (Integer passengerId : passengerIds) {
+            bookingService.createBooking(passengerId, ACTIVITY_ID, 1);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.travelagencies.loadtest;
+
+import com.travelagencies.dao.ActivityRepository;
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.PassengerRepository;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.services.BookingPricing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Checks, once the load has stopped, that no booking was lost, duplicated or charged twice:
+ * <ul>
+ *     <li>every activity's remaining capacity plus its pending and confirmed bookings equals its original capacity,</li>
+ *     <li>every passenger's balance equals the initial balance minus what their pending and confirmed bookings cost,</li>
+ *     <li>every passenger's booking list holds exactly their pending and confirmed bookings.</li>
+ * </ul>
+ */
+class BookingInvariants {
+
+    private static final double BALANCE_TOLERANCE = 1e-6;
+    private static final int MAX_REPORTED_VIOLATIONS = 20;
+
+    private final LoadTestConfig config;
+    private final ActivityRepository activityRepository;
+    private final PassengerRepository passengerRepository;
+    private final BookingRepository bookingRepository;
+
+    private int checkedBookings;
+    private int totalViolations;
+
+    BookingInvariants(LoadTestConfig config, ActivityRepository activityRepository,
+                      PassengerRepository passengerRepository, BookingRepository bookingRepository) {
+        this.config = config;
+        this.activityRepository = activityRepository;
+        this.passengerRepository = passengerRepository;
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Runs every check.
+     *
+     * @param createdBookingIds The ids of all bookings the load created, including ones cancelled since.
+     * @return Descriptions of the first violations found, empty if every invariant holds.
+     */
+    List<String> check(Collection<Integer> createdBookingIds) {
+        List<String> violations = new ArrayList<>();
+        totalViolations = 0;
+
+        Map<Integer, Activity> activities = activityRepository.getByIds(ids(config.getActivities()));
+        Map<Integer, Passenger> passengers = passengerRepository.getByIds(ids(config.getPassengers()),
+                PassengerFetchPlan.WITH_BOOKINGS);
+        Map<Integer, Booking> bookings = bookingRepository.getByIds(createdBookingIds);
+        checkedBookings = bookings.size();
+
+        Map<Integer, Integer> activeByActivity = new HashMap<>();
+        Map<Integer, List<Booking>> activeByPassenger = new HashMap<>();
+        for (Booking booking : bookings.values()) {
+            if (booking.getBookingStatus() != BookingStatus.CANCELLED) {
+                activeByActivity.merge(booking.getActivityId(), 1, Integer::sum);
+                activeByPassenger.computeIfAbsent(booking.getPassengerId(), key -> new ArrayList<>()).add(booking);
+            }
+        }
+
+        for (int activityId = 1; activityId <= config.getActivities(); activityId++) {
+            Activity activity = activities.get(activityId);
+            if (activity == null) {
+                report(violations, String.format("Activity %s is missing", activityId));
+                continue;
+            }
+
+            int active = activeByActivity.getOrDefault(activityId, 0);
+            if (activity.getCapacity() < 0 || activity.getCapacity() + active != config.getActivityCapacity()) {
+                report(violations, String.format("Activity %s has %s seats left and %s active bookings, expected %s in total",
+                        activityId, activity.getCapacity(), active, config.getActivityCapacity()));
+            }
+        }
+
+        for (int passengerId = 1; passengerId <= config.getPassengers(); passengerId++) {
+            Passenger passenger = passengers.get(passengerId);
+            if (passenger == null) {
+                report(violations, String.format("Passenger %s is missing", passengerId));
+                continue;
+            }
+
+            List<Booking> active = activeByPassenger.getOrDefault(passengerId, List.of());
+            double charged = 0;
+            for (Booking booking : active) {
+                charged += BookingPricing.bookingCost(passenger.getPassengerType(), config.getActivityCost());
+            }
+            double expectedBalance = config.getInitialBalance() - charged;
+            if (Math.abs(passenger.getBalance() - expectedBalance) > BALANCE_TOLERANCE * Math.max(1, expectedBalance)) {
+                report(violations, String.format("Passenger %s (%s) has a balance of %s, expected %s for %s active bookings",
+                        passengerId, passenger.getPassengerType(), passenger.getBalance(), expectedBalance, active.size()));
+            }
+
+            Set<Integer> listed = passenger.getBookingList().stream()
+                    .map(Booking::getBookingId)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            Set<Integer> expected = active.stream()
+                    .map(Booking::getBookingId)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            if (!listed.equals(expected) || listed.size() != passenger.getBookingList().size()) {
+                report(violations, String.format("Passenger %s lists bookings %s, expected %s",
+                        passengerId, passenger.getBookingList().stream().map(Booking::getBookingId).toList(), expected));
+            }
+        }
+
+        return violations;
+    }
+
+    int getCheckedBookings() {
+        return checkedBookings;
+    }
+
+    int getTotalViolations() {
+        return totalViolations;
+    }
+
+    private void report(List<String> violations, String violation) {
+        totalViolations++;
+        if (violations.size() < MAX_REPORTED_VIOLATIONS) {
+            violations.add(violation);
+        }
+    }
+
+    private static List<Integer> ids(int count) {
+        return IntStream.rangeClosed(1, count).boxed().toList();
+    }
+}
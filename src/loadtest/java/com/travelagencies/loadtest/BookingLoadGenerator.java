@@ -0,0 +1,488 @@
+package com.travelagencies.loadtest;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.controllers.BookingController;
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.ActivityRepository;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.DestinationDao;
+import com.travelagencies.dao.DestinationRepository;
+import com.travelagencies.dao.InstrumentedActivityRepository;
+import com.travelagencies.dao.InstrumentedBookingRepository;
+import com.travelagencies.dao.InstrumentedDestinationRepository;
+import com.travelagencies.dao.InstrumentedPassengerRepository;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.dao.PassengerRepository;
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.ConnectionPoolConfig;
+import com.travelagencies.db.DriverManagerDataSource;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.SlowQueryLog;
+import com.travelagencies.db.SlowQueryLogConfig;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.db.TransactionRunner;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.metrics.LatencyHistogram;
+import com.travelagencies.metrics.PrometheusExporter;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.services.BookingService;
+
+import javax.sql.DataSource;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Drives {@link BookingController#createBooking(int, int, int)} and
+ * {@link BookingController#updateBookingStatus(int, BookingStatus)} from many concurrent callers against a local
+ * database, then reports latency percentiles and throughput and checks the {@link BookingInvariants}.
+ * <p>
+ * Run it with {@code gradle loadTest --args="--threadMode=VIRTUAL --hotActivityShare=0.9"}, see
+ * {@link LoadTestConfig} for every option. The process exits with status 1 if an invariant is violated.
+ */
+public class BookingLoadGenerator {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int MAX_REPORTED_ERRORS = 5;
+
+    private final LoadTestConfig config;
+
+    private ActivityRepository activityRepository;
+    private PassengerRepository passengerRepository;
+    private DestinationRepository destinationRepository;
+    private RecordingBookingRepository bookingRepository;
+    private TransactionRunner transactionRunner;
+    private ConnectionPool connectionPool;
+    private SlowQueryLog slowQueryLog;
+    private BookingController bookingController;
+    private RepositoryMetrics repositoryMetrics;
+
+    private final Queue<Integer> openBookingIds = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> createdBookingIds = new ConcurrentLinkedQueue<>();
+    private final Queue<String> errorMessages = new ConcurrentLinkedQueue<>();
+
+    public BookingLoadGenerator(LoadTestConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        boolean invariantsHold = new BookingLoadGenerator(config).run(System.out);
+        System.exit(invariantsHold ? 0 : 1);
+    }
+
+    /**
+     * Sets up and seeds the backend, runs the warmup and the measured requests, and prints the report.
+     *
+     * @param out Where the report is printed.
+     * @return Whether every invariant holds after the run.
+     */
+    public boolean run(PrintStream out) throws SQLException, InterruptedException {
+        out.println("Config: " + config);
+        setUp();
+        try {
+            seed();
+
+            runRequests(config.getWarmupRequests(), config.getSeed(), new Statistics());
+
+            Statistics statistics = new Statistics();
+            long start = System.nanoTime();
+            runRequests(config.getRequests(), config.getSeed() + 1, statistics);
+            long elapsedNanos = System.nanoTime() - start;
+
+            statistics.print(out, elapsedNanos);
+            if (!errorMessages.isEmpty()) {
+                out.println("First errors:");
+                errorMessages.forEach(message -> out.println("  " + message));
+            }
+            if (repositoryMetrics != null) {
+                new PrometheusExporter(repositoryMetrics).writeTo(Path.of(config.getMetricsFile()));
+                out.println("Repository metrics written to " + config.getMetricsFile());
+            }
+            if (slowQueryLog != null) {
+                slowQueryLog.close();
+                out.printf("Slow queries: %s logged, %s dropped%n", slowQueryLog.getLoggedCount(),
+                        slowQueryLog.getDroppedCount());
+            }
+
+            BookingInvariants invariants = new BookingInvariants(config, activityRepository, passengerRepository,
+                    bookingRepository);
+            List<String> violations = invariants.check(createdBookingIds);
+            if (violations.isEmpty()) {
+                out.printf("Invariants hold for %s activities, %s passengers and %s bookings%n",
+                        config.getActivities(), config.getPassengers(), invariants.getCheckedBookings());
+                return true;
+            }
+            out.printf("%s invariant violations, the first ones:%n", invariants.getTotalViolations());
+            violations.forEach(violation -> out.println("  " + violation));
+            return false;
+        } finally {
+            if (slowQueryLog != null) {
+                slowQueryLog.close();
+            }
+            if (connectionPool != null) {
+                connectionPool.close();
+            }
+        }
+    }
+
+    private void setUp() throws SQLException {
+        BookingRepository delegate;
+        if (config.getBackend() == LoadTestConfig.Backend.H2) {
+            // Each run gets its own database, so nothing carries over between runs in the same JVM.
+            String jdbcUrl = String.format("jdbc:h2:mem:loadtest_%s;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                    System.nanoTime());
+            DataSource unpooledDataSource = new DriverManagerDataSource(jdbcUrl, "sa", "");
+            try (Connection connection = unpooledDataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("RUNSCRIPT FROM 'classpath:db/schema.sql'");
+            }
+
+            connectionPool = new ConnectionPool(unpooledDataSource, ConnectionPoolConfig.builder()
+                    .maximumPoolSize(config.getPoolSize())
+                    .minimumIdle(config.getPoolSize())
+                    .build());
+            DataSource pooledDataSource = connectionPool;
+            if (config.getSlowQueryMillis() != null) {
+                slowQueryLog = new SlowQueryLog(SlowQueryLogConfig.builder()
+                        .thresholdMillis(config.getSlowQueryMillis())
+                        .explainPlans(config.isExplainSlowQueries())
+                        .build());
+                pooledDataSource = slowQueryLog.wrap(connectionPool);
+            }
+            TransactionManager transactionManager = new TransactionManager(pooledDataSource);
+            IdGenerator idGenerator = new IdGenerator(pooledDataSource);
+            DataSource dataSource = transactionManager.getDataSource();
+
+            activityRepository = new ActivityDao(dataSource, idGenerator);
+            passengerRepository = new PassengerDao(dataSource, idGenerator);
+            destinationRepository = new DestinationDao(dataSource, idGenerator);
+            delegate = new BookingDao(dataSource, idGenerator);
+            transactionRunner = transactionManager;
+        } else {
+            InMemoryDatabase database = new InMemoryDatabase();
+            activityRepository = new InMemoryActivityRepository(database);
+            passengerRepository = new InMemoryPassengerRepository(database);
+            destinationRepository = new InMemoryDestinationRepository(database);
+            delegate = new InMemoryBookingRepository(database);
+            transactionRunner = database.getTransactionManager();
+        }
+
+        if (config.getMetricsFile() != null) {
+            repositoryMetrics = new RepositoryMetrics();
+            activityRepository = new InstrumentedActivityRepository(activityRepository, repositoryMetrics);
+            passengerRepository = new InstrumentedPassengerRepository(passengerRepository, repositoryMetrics);
+            destinationRepository = new InstrumentedDestinationRepository(destinationRepository, repositoryMetrics);
+            delegate = new InstrumentedBookingRepository(delegate, repositoryMetrics);
+        }
+
+        bookingRepository = new RecordingBookingRepository(delegate);
+        bookingController = new BookingController(new BookingService(bookingRepository, passengerRepository,
+                activityRepository, transactionRunner));
+    }
+
+    private void seed() {
+        Destination destination = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        destinationRepository.save(destination);
+
+        List<Activity> activities = new ArrayList<>(config.getActivities());
+        for (int activityId = 1; activityId <= config.getActivities(); activityId++) {
+            activities.add(Activity.builder()
+                    .activityId(activityId)
+                    .name("Activity " + activityId)
+                    .description("Load test")
+                    .cost(config.getActivityCost())
+                    .capacity(config.getActivityCapacity())
+                    .destination(destination)
+                    .build());
+        }
+        activityRepository.saveAll(activities);
+
+        Random random = new Random(config.getSeed());
+        List<Passenger> passengers = new ArrayList<>(config.getPassengers());
+        for (int passengerId = 1; passengerId <= config.getPassengers(); passengerId++) {
+            passengers.add(Passenger.builder()
+                    .passengerId(passengerId)
+                    .passengerName("Passenger " + passengerId)
+                    .passengerMobile("9999988888")
+                    .passengerType(randomPassengerType(random))
+                    .balance(config.getInitialBalance())
+                    .build());
+        }
+        passengerRepository.saveAll(passengers);
+    }
+
+    private PassengerType randomPassengerType(Random random) {
+        double roll = random.nextDouble();
+        if (roll < config.getStandardShare()) {
+            return PassengerType.STANDARD;
+        }
+        if (roll < config.getStandardShare() + config.getGoldShare()) {
+            return PassengerType.GOLD;
+        }
+        return PassengerType.PREMIUM;
+    }
+
+    private void runRequests(int requests, long seed, Statistics statistics) throws InterruptedException {
+        AtomicLong remaining = new AtomicLong(requests);
+        ExecutorService executor = newExecutor();
+        try {
+            List<Future<?>> workers = new ArrayList<>(config.getConcurrency());
+            for (int worker = 0; worker < config.getConcurrency(); worker++) {
+                SplittableRandom random = new SplittableRandom(seed * 31 + worker);
+                workers.add(executor.submit(() -> {
+                    while (remaining.getAndDecrement() > 0) {
+                        issueRequest(random, statistics);
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A load test worker failed", e.getCause());
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        if (config.getThreadMode() == LoadTestConfig.ThreadMode.PLATFORM) {
+            return Executors.newFixedThreadPool(config.getConcurrency());
+        }
+        return AsyncExecutor.newVirtualThreadPerTaskExecutor();
+    }
+
+    private void issueRequest(SplittableRandom random, Statistics statistics) {
+        double roll = random.nextDouble();
+        if (roll < config.getCancelShare()) {
+            Integer bookingId = openBookingIds.poll();
+            if (bookingId != null) {
+                statistics.cancel.time(() -> bookingController.updateBookingStatus(bookingId, BookingStatus.CANCELLED));
+                return;
+            }
+        } else if (roll < config.getCancelShare() + config.getConfirmShare()) {
+            Integer bookingId = openBookingIds.poll();
+            if (bookingId != null) {
+                statistics.confirm.time(() -> bookingController.updateBookingStatus(bookingId, BookingStatus.CONFIRMED));
+                // A confirmed booking can still be cancelled later.
+                openBookingIds.add(bookingId);
+                return;
+            }
+        }
+
+        int passengerId = random.nextInt(1, config.getPassengers() + 1);
+        int activityId = randomActivityId(random);
+        if (statistics.create.time(() -> bookingController.createBooking(passengerId, activityId, DESTINATION_ID))) {
+            int bookingId = bookingRepository.lastSavedBookingId();
+            createdBookingIds.add(bookingId);
+            openBookingIds.add(bookingId);
+        }
+    }
+
+    private int randomActivityId(SplittableRandom random) {
+        if (random.nextDouble() < config.getHotActivityShare()) {
+            return random.nextInt(1, config.getHotActivities() + 1);
+        }
+        return random.nextInt(1, config.getActivities() + 1);
+    }
+
+    /**
+     * Latencies and outcomes of one operation.
+     */
+    private class OperationStatistics {
+
+        private final String name;
+        private final LatencyHistogram histogram;
+        private final LatencyHistogram overall;
+        private final LongAdder succeeded = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+
+        OperationStatistics(String name, LatencyHistogram overall) {
+            this.name = name;
+            this.histogram = new LatencyHistogram();
+            this.overall = overall;
+        }
+
+        /**
+         * Runs and times the operation. Business rule violations, such as a full activity or an insufficient
+         * balance, count as rejected, anything else as failed.
+         *
+         * @return Whether the operation succeeded.
+         */
+        boolean time(Runnable operation) {
+            long start = System.nanoTime();
+            try {
+                operation.run();
+                succeeded.increment();
+                return true;
+            } catch (IllegalArgumentException e) {
+                rejected.increment();
+                return false;
+            } catch (RuntimeException e) {
+                failed.increment();
+                if (errorMessages.size() < MAX_REPORTED_ERRORS) {
+                    errorMessages.add(String.format("%s: %s", name, e));
+                }
+                return false;
+            } finally {
+                long latency = System.nanoTime() - start;
+                histogram.record(latency);
+                overall.record(latency);
+            }
+        }
+    }
+
+    private class Statistics {
+
+        private final LatencyHistogram overall = new LatencyHistogram();
+        private final OperationStatistics create = new OperationStatistics("create", overall);
+        private final OperationStatistics confirm = new OperationStatistics("confirm", overall);
+        private final OperationStatistics cancel = new OperationStatistics("cancel", overall);
+
+        void print(PrintStream out, long elapsedNanos) {
+            double elapsedSeconds = elapsedNanos / 1e9;
+            out.printf("%s requests on %s %s threads in %.2f s, %.1f requests/s%n", overall.getCount(),
+                    config.getConcurrency(), config.getThreadMode().name().toLowerCase(), elapsedSeconds,
+                    overall.getCount() / elapsedSeconds);
+            out.printf("%-9s %8s %8s %8s %8s %9s %9s %9s %9s %9s %9s%n", "operation", "count", "ok", "rejected",
+                    "failed", "mean(us)", "p50(us)", "p90(us)", "p99(us)", "p999(us)", "max(us)");
+            for (OperationStatistics operation : List.of(create, confirm, cancel)) {
+                printRow(out, operation.name, operation.histogram, operation.succeeded.sum(), operation.rejected.sum(),
+                        operation.failed.sum());
+            }
+            printRow(out, "all", overall,
+                    create.succeeded.sum() + confirm.succeeded.sum() + cancel.succeeded.sum(),
+                    create.rejected.sum() + confirm.rejected.sum() + cancel.rejected.sum(),
+                    create.failed.sum() + confirm.failed.sum() + cancel.failed.sum());
+        }
+
+        private void printRow(PrintStream out, String name, LatencyHistogram histogram, long succeeded, long rejected,
+                              long failed) {
+            out.printf("%-9s %8d %8d %8d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n", name, histogram.getCount(),
+                    succeeded, rejected, failed,
+                    histogram.getMeanNanos() / 1e3,
+                    histogram.getValueAtPercentile(50) / 1e3,
+                    histogram.getValueAtPercentile(90) / 1e3,
+                    histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3,
+                    histogram.getMaxNanos() / 1e3);
+        }
+    }
+
+    /**
+     * Remembers the id of the booking each caller saved last, since {@link BookingController#createBooking} does
+     * not return it.
+     */
+    private static class RecordingBookingRepository implements BookingRepository {
+
+        private final BookingRepository delegate;
+        private final ThreadLocal<Integer> lastSavedBookingId = new ThreadLocal<>();
+
+        RecordingBookingRepository(BookingRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        int lastSavedBookingId() {
+            return lastSavedBookingId.get();
+        }
+
+        @Override
+        public void save(Booking booking) {
+            delegate.save(booking);
+            lastSavedBookingId.set(booking.getBookingId());
+        }
+
+        @Override
+        public void update(Booking booking) {
+            delegate.update(booking);
+        }
+
+        @Override
+        public void delete(Booking booking) {
+            delegate.delete(booking);
+        }
+
+        @Override
+        public Optional<Booking> getById(int id) {
+            return delegate.getById(id);
+        }
+
+        @Override
+        public void saveAll(Collection<Booking> bookings) {
+            delegate.saveAll(bookings);
+        }
+
+        @Override
+        public void updateAll(Collection<Booking> bookings) {
+            delegate.updateAll(bookings);
+        }
+
+        @Override
+        public void deleteAll(Collection<Booking> bookings) {
+            delegate.deleteAll(bookings);
+        }
+
+        @Override
+        public Map<Integer, Booking> getByIds(Collection<Integer> ids) {
+            return delegate.getByIds(ids);
+        }
+
+        @Override
+        public Optional<Booking> getByIdForUpdate(int id) {
+            return delegate.getByIdForUpdate(id);
+        }
+
+        @Override
+        public Map<Integer, Booking> getByIdsForUpdate(Collection<Integer> ids) {
+            return delegate.getByIdsForUpdate(ids);
+        }
+
+        @Override
+        public Stream<Booking> streamNotCancelledByActivityId(int activityId, int afterBookingId) {
+            return delegate.streamNotCancelledByActivityId(activityId, afterBookingId);
+        }
+
+        @Override
+        public Stream<Booking> streamNotCancelledByDestinationId(int destinationId, int afterBookingId) {
+            return delegate.streamNotCancelledByDestinationId(destinationId, afterBookingId);
+        }
+
+        @Override
+        public int generateBookingId() {
+            return delegate.generateBookingId();
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.travelagencies.loadtest;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Workload of a {@link BookingLoadGenerator} run. Every field can be set on the command line as
+ * {@code --fieldName=value}, for example {@code --threadMode=VIRTUAL --hotActivityShare=0.9}.
+ */
+@Data
+@Builder
+public class LoadTestConfig {
+
+    public enum Backend {
+        /**
+         * The JDBC DAOs on an embedded H2 database in MySQL mode.
+         */
+        H2,
+        /**
+         * The in-memory repositories, which leaves only the service layer to measure.
+         */
+        MEMORY
+    }
+
+    public enum ThreadMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Builder.Default
+    private Backend backend = Backend.H2;
+
+    /**
+     * Virtual threads need a Java 21 runtime.
+     */
+    @Builder.Default
+    private ThreadMode threadMode = ThreadMode.PLATFORM;
+
+    /**
+     * Number of concurrent callers.
+     */
+    @Builder.Default
+    private int concurrency = 32;
+
+    /**
+     * Maximum number of database connections, only used by the H2 backend. Keep it above {@link #concurrency}:
+     * a booking holds a connection for its transaction and briefly needs a second one to lease booking ids, so a
+     * pool that only matches the callers starves while row locks are held.
+     */
+    @Builder.Default
+    private int poolSize = 48;
+
+    /**
+     * Requests issued before measuring starts, to warm up the JIT and the pool. Their writes are kept and checked.
+     */
+    @Builder.Default
+    private int warmupRequests = 2_000;
+
+    /**
+     * Requests measured, spread over all callers.
+     */
+    @Builder.Default
+    private int requests = 20_000;
+
+    @Builder.Default
+    private int passengers = 1_000;
+
+    @Builder.Default
+    private int activities = 50;
+
+    @Builder.Default
+    private int activityCapacity = 200;
+
+    @Builder.Default
+    private double activityCost = 25.0;
+
+    @Builder.Default
+    private double initialBalance = 500.0;
+
+    /**
+     * Share of STANDARD passengers, the rest are GOLD and PREMIUM.
+     */
+    @Builder.Default
+    private double standardShare = 0.6;
+
+    @Builder.Default
+    private double goldShare = 0.3;
+
+    /**
+     * Number of activities that receive {@link #hotActivityShare} of all bookings.
+     */
+    @Builder.Default
+    private int hotActivities = 1;
+
+    /**
+     * Share of bookings aimed at the hot activities, 0 spreads bookings evenly and 1 makes every caller fight
+     * over the same seats.
+     */
+    @Builder.Default
+    private double hotActivityShare = 0.0;
+
+    /**
+     * Share of requests that cancel an earlier booking instead of creating one.
+     */
+    @Builder.Default
+    private double cancelShare = 0.2;
+
+    /**
+     * Share of requests that confirm an earlier booking instead of creating one.
+     */
+    @Builder.Default
+    private double confirmShare = 0.1;
+
+    @Builder.Default
+    private long seed = 42;
+
+    /**
+     * If set, the repositories are instrumented and their metrics are written to this file in the Prometheus
+     * text format after the run.
+     */
+    private String metricsFile;
+
+    /**
+     * If set, statements that take at least this many milliseconds are written to standard error, only used by
+     * the H2 backend.
+     */
+    private Long slowQueryMillis;
+
+    /**
+     * Whether the slow query log also captures the plan of each slow statement shape.
+     */
+    @Builder.Default
+    private boolean explainSlowQueries = false;
+
+    /**
+     * Builds a config from {@code --fieldName=value} arguments, starting from the defaults.
+     *
+     * @param args The command line arguments.
+     * @return The resulting config.
+     * @throws IllegalArgumentException If an argument is malformed or names an unknown field.
+     */
+    public static LoadTestConfig fromArgs(String... args) {
+        LoadTestConfig config = LoadTestConfig.builder().build();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException(String.format("Expected --name=value but got: %s", arg));
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            SETTERS.getOrDefault(name, (c, v) -> {
+                throw new IllegalArgumentException(String.format("Unknown option: --%s", name));
+            }).set(config, value);
+        }
+
+        if (config.standardShare + config.goldShare > 1.0) {
+            throw new IllegalArgumentException("standardShare and goldShare must not add up to more than 1");
+        }
+        if (config.cancelShare + config.confirmShare > 1.0) {
+            throw new IllegalArgumentException("cancelShare and confirmShare must not add up to more than 1");
+        }
+        if (config.hotActivities > config.activities) {
+            throw new IllegalArgumentException("hotActivities must not exceed activities");
+        }
+        return config;
+    }
+
+    @FunctionalInterface
+    private interface Setter {
+        void set(LoadTestConfig config, String value);
+    }
+
+    private static final Map<String, Setter> SETTERS = Map.ofEntries(
+            Map.entry("backend", (c, v) -> c.setBackend(Backend.valueOf(v.toUpperCase()))),
+            Map.entry("threadMode", (c, v) -> c.setThreadMode(ThreadMode.valueOf(v.toUpperCase()))),
+            Map.entry("concurrency", (c, v) -> c.setConcurrency(Integer.parseInt(v))),
+            Map.entry("poolSize", (c, v) -> c.setPoolSize(Integer.parseInt(v))),
+            Map.entry("warmupRequests", (c, v) -> c.setWarmupRequests(Integer.parseInt(v))),
+            Map.entry("requests", (c, v) -> c.setRequests(Integer.parseInt(v))),
+            Map.entry("passengers", (c, v) -> c.setPassengers(Integer.parseInt(v))),
+            Map.entry("activities", (c, v) -> c.setActivities(Integer.parseInt(v))),
+            Map.entry("activityCapacity", (c, v) -> c.setActivityCapacity(Integer.parseInt(v))),
+            Map.entry("activityCost", (c, v) -> c.setActivityCost(Double.parseDouble(v))),
+            Map.entry("initialBalance", (c, v) -> c.setInitialBalance(Double.parseDouble(v))),
+            Map.entry("standardShare", (c, v) -> c.setStandardShare(Double.parseDouble(v))),
+            Map.entry("goldShare", (c, v) -> c.setGoldShare(Double.parseDouble(v))),
+            Map.entry("hotActivities", (c, v) -> c.setHotActivities(Integer.parseInt(v))),
+            Map.entry("hotActivityShare", (c, v) -> c.setHotActivityShare(Double.parseDouble(v))),
+            Map.entry("cancelShare", (c, v) -> c.setCancelShare(Double.parseDouble(v))),
+            Map.entry("confirmShare", (c, v) -> c.setConfirmShare(Double.parseDouble(v))),
+            Map.entry("seed", (c, v) -> c.setSeed(Long.parseLong(v))),
+            Map.entry("metricsFile", LoadTestConfig::setMetricsFile),
+            Map.entry("slowQueryMillis", (c, v) -> c.setSlowQueryMillis(Long.parseLong(v))),
+            Map.entry("explainSlowQueries", (c, v) -> c.setExplainSlowQueries(Boolean.parseBoolean(v))));
+}
@@ -0,0 +1,144 @@
+package com.travelagencies.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking service calls in the background and completes a {@link CompletableFuture} with their result.
+ * Every task runs on its own virtual thread, or on a fixed platform pool on runtimes without them, and takes one
+ * of {@link AsyncExecutorConfig#getMaxConcurrency()} permits while it runs. Callers can submit thousands of tasks
+ * at once: the ones without a permit wait on the semaphore, which costs a virtual thread next to nothing, and the
+ * database never sees more concurrent work than the permits allow.
+ */
+public class AsyncExecutor implements AutoCloseable {
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final AsyncExecutorConfig config;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    public AsyncExecutor(AsyncExecutorConfig config) {
+        if (config.getMaxConcurrency() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("maxConcurrency must be at least 1: %s", config.getMaxConcurrency()));
+        }
+        if (config.getThreadMode() == AsyncExecutorConfig.ThreadMode.PLATFORM && config.getPlatformThreads() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("platformThreads must be at least 1: %s", config.getPlatformThreads()));
+        }
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxConcurrency(), true);
+        this.executor = config.getThreadMode() == AsyncExecutorConfig.ThreadMode.VIRTUAL
+                ? newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(config.getPlatformThreads(), platformThreadFactory(config));
+    }
+
+    public AsyncExecutorConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Runs the call in the background.
+     *
+     * @return A future completed with the call's result, or exceptionally with what it threw.
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(() -> {
+            acquirePermit();
+            try {
+                return call.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs the call in the background.
+     *
+     * @return A future completed when the call returns, or exceptionally with what it threw.
+     */
+    public CompletableFuture<Void> run(Runnable call) {
+        return supply(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the number of tasks currently holding a permit.
+     */
+    public int getActiveTasks() {
+        return config.getMaxConcurrency() - permits.availablePermits();
+    }
+
+    /**
+     * Returns an estimate of the tasks waiting for a permit.
+     */
+    public int getWaitingTasks() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Stops accepting tasks and waits for the submitted ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns whether the runtime supports virtual threads.
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()}.
+     *
+     * @throws IllegalStateException If the runtime has no virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        // The build targets Java 17, so virtual threads are looked up at runtime rather than linked against.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("Virtual threads need a Java 21 runtime, this is Java %s",
+                    Runtime.version().feature()), e);
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a permit", e);
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory(AsyncExecutorConfig config) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, config.getThreadNamePrefix() + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.travelagencies.async;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tuning knobs for an {@link AsyncExecutor}.
+ */
+@Data
+@Builder
+public class AsyncExecutorConfig {
+
+    public enum ThreadMode {
+        /**
+         * One virtual thread per task. Needs a Java 21 runtime.
+         */
+        VIRTUAL,
+        /**
+         * A fixed pool of {@link #platformThreads} platform threads.
+         */
+        PLATFORM
+    }
+
+    /**
+     * Defaults to virtual threads when the runtime has them.
+     */
+    @Builder.Default
+    private ThreadMode threadMode =
+            AsyncExecutor.isVirtualThreadsAvailable() ? ThreadMode.VIRTUAL : ThreadMode.PLATFORM;
+
+    /**
+     * Tasks allowed to run at the same time; the rest wait for a permit. Keep it at or below the connection pool
+     * size, so that waiting happens here, cheaply, instead of in the pool's borrow timeout.
+     */
+    @Builder.Default
+    private int maxConcurrency = 10;
+
+    /**
+     * Size of the pool in {@link ThreadMode#PLATFORM} mode.
+     */
+    @Builder.Default
+    private int platformThreads = 200;
+
+    /**
+     * Prefix of the platform thread names; virtual threads are unnamed.
+     */
+    @Builder.Default
+    private String threadNamePrefix = "async-";
+}
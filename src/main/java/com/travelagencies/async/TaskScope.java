@@ -0,0 +1,183 @@
+package com.travelagencies.async;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent pieces of one operation concurrently with the calling thread, following the rules of structured
+ * concurrency: subtasks never outlive the scope, the first failure fails the scope and cancels the subtasks that
+ * have not started yet, and closing the scope waits for the ones still running. A running subtask is not
+ * interrupted, since JDBC drivers may close a connection whose thread is interrupted; it is left to finish and its
+ * result is dropped.
+ * <p>
+ * A subtask the executor has not started by the time its result is needed runs on the calling thread instead, so
+ * a busy executor never makes the caller wait longer than doing the work itself. Without an executor every
+ * subtask runs that way, in the order the results are asked for.
+ *
+ * <pre>{@code
+ * try (TaskScope scope = new TaskScope(executor)) {
+ *     TaskScope.Subtask<Optional<Activity>> activity = scope.fork(() -> activityDao.getById(activityId));
+ *     Passenger passenger = passengerDao.getByIdForUpdate(passengerId).orElseThrow();
+ *     ... activity.get() ...
+ * }
+ * }</pre>
+ */
+public class TaskScope implements AutoCloseable {
+
+    private final Executor executor;
+    // Read by the subtask that fails first, to cancel the others.
+    private final List<Subtask<?>> subtasks = new CopyOnWriteArrayList<>();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    /**
+     * @param executor Where subtasks run, or null to run each one on the calling thread when its result is needed.
+     */
+    public TaskScope(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a subtask.
+     *
+     * @param task The work, which must not depend on state bound to the calling thread, such as its transaction.
+     * @return A handle to the subtask's result.
+     */
+    public <T> Subtask<T> fork(Supplier<T> task) {
+        Subtask<T> subtask = new Subtask<>(task);
+        subtasks.add(subtask);
+        if (firstFailure.get() != null) {
+            subtask.cancel();
+        } else if (executor != null) {
+            try {
+                executor.execute(subtask::run);
+            } catch (RejectedExecutionException e) {
+                // Left pending, it runs on the calling thread when its result is needed.
+            }
+        }
+        return subtask;
+    }
+
+    /**
+     * Waits for every subtask and throws the first failure, if any.
+     */
+    public void join() {
+        for (Subtask<?> subtask : subtasks) {
+            subtask.runOrAwait();
+        }
+        rethrow(firstFailure.get());
+    }
+
+    /**
+     * Cancels the subtasks that have not started and waits for the running ones to finish.
+     */
+    @Override
+    public void close() {
+        subtasks.forEach(Subtask::cancel);
+        boolean interrupted = false;
+        for (Subtask<?> subtask : subtasks) {
+            while (true) {
+                try {
+                    subtask.done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void failed(Subtask<?> failedSubtask, Throwable failure) {
+        if (firstFailure.compareAndSet(null, failure)) {
+            for (Subtask<?> subtask : subtasks) {
+                if (subtask != failedSubtask) {
+                    subtask.cancel();
+                }
+            }
+        }
+    }
+
+    private static void rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+    }
+
+    /**
+     * The result of a forked task.
+     */
+    public final class Subtask<T> {
+
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int FINISHED = 2;
+        private static final int CANCELLED = 3;
+
+        private final Supplier<T> task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private T result;
+        private Throwable failure;
+
+        private Subtask(Supplier<T> task) {
+            this.task = task;
+        }
+
+        /**
+         * Returns the task's result, running the task on the calling thread if it has not started yet.
+         *
+         * @throws CancellationException If the task was cancelled because another subtask failed first.
+         */
+        public T get() {
+            runOrAwait();
+            if (state.get() == CANCELLED) {
+                throw new CancellationException("Cancelled after another subtask failed");
+            }
+            rethrow(failure);
+            return result;
+        }
+
+        private void run() {
+            if (!state.compareAndSet(PENDING, RUNNING)) {
+                return;
+            }
+            try {
+                result = task.get();
+            } catch (RuntimeException | Error e) {
+                failure = e;
+                failed(this, e);
+            } finally {
+                state.set(FINISHED);
+                done.countDown();
+            }
+        }
+
+        private void runOrAwait() {
+            run();
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a subtask", e);
+            }
+        }
+
+        private void cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.travelagencies.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread-safe Bloom filter over integer ids. {@link #mightContain(int)} never returns false for an id that
+ * was {@link #put(int)}, and returns true for an id that was not with roughly the configured probability
+ * as long as no more than the expected number of ids were added.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Constructs a BloomFilter sized for the given number of ids.
+     *
+     * @param expectedInsertions The number of ids the filter is sized for.
+     * @param falsePositiveRate  The probability of reporting an absent id as possibly present, between 0 and 1.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException(String.format("expectedInsertions must be positive: %s",
+                    expectedInsertions));
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException(String.format("falsePositiveRate must be between 0 and 1: %s",
+                    falsePositiveRate));
+        }
+
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE, (bits + 63) / 64);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Adds an id to the filter.
+     *
+     * @param id The id to add.
+     */
+    public void put(int id) {
+        long hash = mix(id);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(firstHash + (long) i * secondHash, bitCount);
+            words.accumulateAndGet((int) (bit >>> 6), 1L << bit, (word, mask) -> word | mask);
+        }
+    }
+
+    /**
+     * Returns whether the id may have been added.
+     *
+     * @param id The id to check.
+     * @return false only if the id was certainly never added.
+     */
+    public boolean mightContain(int id) {
+        long hash = mix(id);
+        int firstHash = (int) hash;
+        int secondHash = (int) (hash >>> 32);
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(firstHash + (long) i * secondHash, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Spreads sequential ids over the whole 64-bit range (the finalizer of MurmurHash3).
+     */
+    private static long mix(int id) {
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
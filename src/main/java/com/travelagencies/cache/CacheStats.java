@@ -0,0 +1,38 @@
+package com.travelagencies.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time snapshot of an {@link EntityCache}'s size and counters.
+ */
+@Data
+@Builder
+public class CacheStats {
+
+    private int size;
+
+    private long hitCount;
+
+    private long missCount;
+
+    private long evictionCount;
+
+    private long expirationCount;
+
+    private long invalidationCount;
+
+    private long coalescedLoadCount;
+
+    private long loadTimeoutCount;
+
+    /**
+     * Returns the share of lookups that were served from the cache.
+     *
+     * @return A ratio between 0 and 1, or 0 if there were no lookups yet.
+     */
+    public double getHitRate() {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+}
@@ -0,0 +1,179 @@
+package com.travelagencies.cache;
+
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.ChangeTrackingList;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.TravelPackage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Caches the rarely changing catalog: destinations, activities and travel packages.
+ *
+ * Activities embed their destination and travel packages embed destinations with their activities, so a change
+ * to one entity also drops the cached entities that embed it. The caching DAOs report their writes here as
+ * soon as they have been executed and, inside a unit of work, once more after it has committed or rolled back,
+ * which drops a row a concurrent reader cached while the write was still uncommitted.
+ */
+public class CatalogCache {
+
+    private final EntityCache<Destination> destinations;
+    private final EntityCache<Activity> activities;
+    private final EntityCache<TravelPackage> travelPackages;
+
+    /**
+     * Constructs a CatalogCache with the default settings for every entity.
+     */
+    public CatalogCache() {
+        this(CatalogCacheConfig.builder().build());
+    }
+
+    /**
+     * Constructs a CatalogCache.
+     *
+     * @param config The size bound, expiry and on/off switch of each entity's cache.
+     */
+    public CatalogCache(CatalogCacheConfig config) {
+        this.destinations = new EntityCache<>(config.getDestinations(), CatalogCache::copyDestination);
+        this.activities = new EntityCache<>(config.getActivities(), CatalogCache::copyActivity);
+        this.travelPackages = new EntityCache<>(config.getTravelPackages(), CatalogCache::copyTravelPackage);
+    }
+
+    public EntityCache<Destination> getDestinations() {
+        return destinations;
+    }
+
+    public EntityCache<Activity> getActivities() {
+        return activities;
+    }
+
+    public EntityCache<TravelPackage> getTravelPackages() {
+        return travelPackages;
+    }
+
+    /**
+     * Drops the given destinations and every cached activity or travel package that embeds one of them.
+     *
+     * @param destinationIds The ids of the updated or deleted destinations.
+     */
+    public void destinationsChanged(Collection<Integer> destinationIds) {
+        Set<Integer> changedIds = new HashSet<>(destinationIds);
+
+        destinations.invalidateAll(changedIds);
+        activities.invalidateIf(activity -> activity.getDestination() != null
+                && changedIds.contains(activity.getDestination().getDestinationId()));
+        travelPackages.invalidateIf(travelPackage -> travelPackage.getDestinations().stream()
+                .anyMatch(destination -> changedIds.contains(destination.getDestinationId())));
+    }
+
+    /**
+     * Drops the given activities and every cached travel package that lists them, or that lists the destination
+     * an activity was added or moved to.
+     *
+     * @param changedActivities The saved, updated or deleted activities.
+     */
+    public void activitiesChanged(Collection<Activity> changedActivities) {
+        Set<Integer> activityIds = new HashSet<>();
+        Set<Integer> destinationIds = new HashSet<>();
+        for (Activity activity : changedActivities) {
+            activityIds.add(activity.getActivityId());
+            if (activity.getDestination() != null) {
+                destinationIds.add(activity.getDestination().getDestinationId());
+            }
+        }
+
+        invalidateActivities(activityIds, destinationIds);
+    }
+
+    /**
+     * Drops the given activities and every cached travel package that lists them, for writes that changed
+     * columns of the activities but left each of them at its destination.
+     *
+     * @param activityIds The ids of the updated activities.
+     */
+    public void activityIdsChanged(Collection<Integer> activityIds) {
+        invalidateActivities(new HashSet<>(activityIds), Set.of());
+    }
+
+    private void invalidateActivities(Set<Integer> activityIds, Set<Integer> destinationIds) {
+        activities.invalidateAll(activityIds);
+        travelPackages.invalidateIf(travelPackage -> travelPackage.getDestinations().stream()
+                .anyMatch(destination -> destinationIds.contains(destination.getDestinationId())
+                        || destination.getActivities() != null && destination.getActivities().stream()
+                        .anyMatch(activity -> activityIds.contains(activity.getActivityId()))));
+    }
+
+    /**
+     * Drops the given travel packages.
+     *
+     * @param packageIds The ids of the updated or deleted travel packages.
+     */
+    public void travelPackagesChanged(Collection<Integer> packageIds) {
+        travelPackages.invalidateAll(packageIds);
+    }
+
+    /**
+     * Enables or disables all three entity caches.
+     *
+     * @param enabled Whether reads should be served from the cache.
+     */
+    public void setEnabled(boolean enabled) {
+        destinations.setEnabled(enabled);
+        activities.setEnabled(enabled);
+        travelPackages.setEnabled(enabled);
+    }
+
+    /**
+     * Copies a destination and its activities. The DAOs never load an activity that points back at the destination
+     * listing it, so the copied graph is a tree.
+     */
+    static Destination copyDestination(Destination destination) {
+        if (destination == null) {
+            return null;
+        }
+
+        List<Activity> activities = null;
+        if (destination.getActivities() != null) {
+            activities = new ArrayList<>();
+            for (Activity activity : destination.getActivities()) {
+                activities.add(copyActivity(activity));
+            }
+        }
+
+        return Destination.builder()
+                .destinationId(destination.getDestinationId())
+                .name(destination.getName())
+                .activities(activities)
+                .build();
+    }
+
+    static Activity copyActivity(Activity activity) {
+        return Activity.builder()
+                .activityId(activity.getActivityId())
+                .name(activity.getName())
+                .description(activity.getDescription())
+                .cost(activity.getCost())
+                .capacity(activity.getCapacity())
+                .destination(copyDestination(activity.getDestination()))
+                .build();
+    }
+
+    static TravelPackage copyTravelPackage(TravelPackage travelPackage) {
+        List<Destination> destinations = new ArrayList<>();
+        for (Destination destination : travelPackage.getDestinations()) {
+            destinations.add(copyDestination(destination));
+        }
+
+        return TravelPackage.builder()
+                .packageId(travelPackage.getPackageId())
+                .name(travelPackage.getName())
+                .description(travelPackage.getDescription())
+                .capacity(travelPackage.getCapacity())
+                .destinations(new ChangeTrackingList<>(destinations, Destination::getDestinationId))
+                .build();
+    }
+}
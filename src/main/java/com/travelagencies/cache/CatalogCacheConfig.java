@@ -0,0 +1,21 @@
+package com.travelagencies.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Per-entity settings of a {@link CatalogCache}.
+ */
+@Data
+@Builder
+public class CatalogCacheConfig {
+
+    @Builder.Default
+    private EntityCacheConfig destinations = EntityCacheConfig.builder().build();
+
+    @Builder.Default
+    private EntityCacheConfig activities = EntityCacheConfig.builder().build();
+
+    @Builder.Default
+    private EntityCacheConfig travelPackages = EntityCacheConfig.builder().build();
+}
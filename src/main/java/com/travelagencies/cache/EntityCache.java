@@ -0,0 +1,330 @@
+package com.travelagencies.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+/**
+ * A bounded, read-through cache of entities keyed by their integer id.
+ *
+ * Entries are evicted in least-recently-used order once {@link EntityCacheConfig#getMaximumSize()} is reached,
+ * and expire {@link EntityCacheConfig#getExpireAfterWriteMillis()} after they were loaded. The cache never hands
+ * out the instance it stores: values are copied on the way in and on the way out, so callers may freely mutate
+ * what they get back.
+ *
+ * Concurrent misses for the same id share one load unless {@link EntityCacheConfig#isCoalesceLoads()} is off,
+ * which also applies while the cache itself is disabled. A load that races with an invalidation is not cached,
+ * and callers arriving after the invalidation do not join it, so a write that invalidates while a reader is
+ * still loading the old row cannot be overwritten by that reader.
+ *
+ * @param <V> The cached entity type.
+ */
+public class EntityCache<V> {
+
+    private final int maximumSize;
+    private final long expireAfterWriteNanos;
+    private final UnaryOperator<V> copier;
+    private final LongSupplier nanoClock;
+    private final SingleFlight<V> singleFlight;
+
+    private final LinkedHashMap<Integer, Entry<V>> entries;
+    private long invalidationStamp;
+    private volatile boolean enabled;
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+    private final LongAdder invalidationCount = new LongAdder();
+
+    /**
+     * Constructs an EntityCache.
+     *
+     * @param config The size bound, expiry and initial on/off switch.
+     * @param copier Returns an independent copy of an entity, deep enough that mutating the copy never
+     *               affects the original.
+     */
+    public EntityCache(EntityCacheConfig config, UnaryOperator<V> copier) {
+        this(config, copier, System::nanoTime);
+    }
+
+    EntityCache(EntityCacheConfig config, UnaryOperator<V> copier, LongSupplier nanoClock) {
+        if (config.getMaximumSize() <= 0) {
+            throw new IllegalArgumentException(String.format("maximumSize must be positive: %s",
+                    config.getMaximumSize()));
+        }
+
+        this.maximumSize = config.getMaximumSize();
+        this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(config.getExpireAfterWriteMillis());
+        this.copier = copier;
+        this.nanoClock = nanoClock;
+        this.enabled = config.isEnabled();
+        this.singleFlight = config.isCoalesceLoads() ? new SingleFlight<>(config.getLoadTimeoutMillis(), copier) : null;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry<V>> eldest) {
+                if (size() > maximumSize) {
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the entity with the given id, loading and caching it on a miss.
+     *
+     * @param id     The entity id.
+     * @param loader Loads the entity from the database.
+     * @return A copy of the cached entity, or whatever the loader returned.
+     */
+    public Optional<V> get(int id, IntFunction<Optional<V>> loader) {
+        if (!enabled) {
+            return load(id, loader);
+        }
+
+        long stamp;
+        synchronized (entries) {
+            V cached = lookup(id);
+            if (cached != null) {
+                return Optional.of(cached);
+            }
+            stamp = invalidationStamp;
+        }
+
+        Optional<V> loaded = load(id, loader);
+        loaded.ifPresent(value -> put(id, value, stamp));
+        return loaded;
+    }
+
+    /**
+     * Returns the entities with the given ids, loading only the ones that are not cached.
+     * Bulk loads are not coalesced, they already cost one query per chunk.
+     *
+     * @param ids    The entity ids.
+     * @param loader Loads the missing entities from the database, keyed by id.
+     * @return Copies of the found entities keyed by id, in the order of the requested ids.
+     */
+    public Map<Integer, V> getAll(Collection<Integer> ids, Function<Collection<Integer>, Map<Integer, V>> loader) {
+        if (!enabled) {
+            return loader.apply(ids);
+        }
+
+        Set<Integer> requestedIds = new LinkedHashSet<>(ids);
+        Map<Integer, V> found = new LinkedHashMap<>();
+        List<Integer> missingIds = new ArrayList<>();
+        long stamp;
+
+        synchronized (entries) {
+            for (Integer id : requestedIds) {
+                V cached = lookup(id);
+                if (cached != null) {
+                    found.put(id, cached);
+                } else {
+                    missingIds.add(id);
+                }
+            }
+            stamp = invalidationStamp;
+        }
+
+        if (missingIds.isEmpty()) {
+            return found;
+        }
+
+        Map<Integer, V> loaded = loader.apply(missingIds);
+        loaded.forEach((id, value) -> put(id, value, stamp));
+
+        Map<Integer, V> result = new LinkedHashMap<>();
+        for (Integer id : requestedIds) {
+            V value = found.containsKey(id) ? found.get(id) : loaded.get(id);
+            if (value != null) {
+                result.put(id, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Applies a change to the cached entity in place, if it is cached. Used to mirror a write whose outcome
+     * is known without reloading the row.
+     *
+     * @param id     The entity id.
+     * @param update Mutates the cached entity.
+     */
+    public void updateIfPresent(int id, Consumer<V> update) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(id);
+            if (entry != null) {
+                update.accept(entry.value());
+            }
+        }
+    }
+
+    /**
+     * Removes the entity with the given id.
+     *
+     * @param id The entity id.
+     */
+    public void invalidate(int id) {
+        synchronized (entries) {
+            invalidationStamp++;
+            forget(id);
+            if (entries.remove(id) != null) {
+                invalidationCount.increment();
+            }
+        }
+    }
+
+    /**
+     * Removes the entities with the given ids.
+     *
+     * @param ids The entity ids.
+     */
+    public void invalidateAll(Collection<Integer> ids) {
+        synchronized (entries) {
+            invalidationStamp++;
+            for (Integer id : ids) {
+                forget(id);
+                if (entries.remove(id) != null) {
+                    invalidationCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every cached entity that matches the predicate, for example those that embed a changed entity.
+     *
+     * @param predicate Selects the entities to remove.
+     */
+    public void invalidateIf(Predicate<V> predicate) {
+        synchronized (entries) {
+            invalidationStamp++;
+            forgetAll();
+            Iterator<Entry<V>> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (predicate.test(iterator.next().value())) {
+                    iterator.remove();
+                    invalidationCount.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every cached entity.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidationStamp++;
+            forgetAll();
+            invalidationCount.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Turns the cache on or off. Turning it off drops the cached entities, so turning it back on
+     * never serves anything that was cached before.
+     *
+     * @param enabled Whether reads should be served from the cache.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            invalidateAll();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a snapshot of the cache's counters.
+     *
+     * @return The current statistics.
+     */
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        return CacheStats.builder()
+                .size(size)
+                .hitCount(hitCount.sum())
+                .missCount(missCount.sum())
+                .evictionCount(evictionCount.sum())
+                .expirationCount(expirationCount.sum())
+                .invalidationCount(invalidationCount.sum())
+                .coalescedLoadCount(singleFlight == null ? 0 : singleFlight.getCoalescedCount())
+                .loadTimeoutCount(singleFlight == null ? 0 : singleFlight.getTimeoutCount())
+                .build();
+    }
+
+    private Optional<V> load(int id, IntFunction<Optional<V>> loader) {
+        return singleFlight == null ? loader.apply(id) : singleFlight.load(id, loader);
+    }
+
+    private void forget(int id) {
+        if (singleFlight != null) {
+            singleFlight.forget(id);
+        }
+    }
+
+    private void forgetAll() {
+        if (singleFlight != null) {
+            singleFlight.forgetAll();
+        }
+    }
+
+    private V lookup(int id) {
+        Entry<V> entry = entries.get(id);
+        if (entry != null && isExpired(entry)) {
+            entries.remove(id);
+            expirationCount.increment();
+            entry = null;
+        }
+
+        if (entry == null) {
+            missCount.increment();
+            return null;
+        }
+
+        hitCount.increment();
+        return copier.apply(entry.value());
+    }
+
+    private void put(int id, V value, long stamp) {
+        V copy = copier.apply(value);
+
+        synchronized (entries) {
+            if (enabled && stamp == invalidationStamp) {
+                entries.put(id, new Entry<>(copy, nanoClock.getAsLong()));
+            }
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return expireAfterWriteNanos > 0 && nanoClock.getAsLong() - entry.loadedAtNanos() >= expireAfterWriteNanos;
+    }
+
+    private record Entry<V>(V value, long loadedAtNanos) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.travelagencies.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tuning knobs for an {@link EntityCache}.
+ * All durations are expressed in milliseconds, a value of zero disables the related check.
+ */
+@Data
+@Builder
+public class EntityCacheConfig {
+
+    /**
+     * Whether the cache starts enabled. A disabled cache passes every read through to the database.
+     */
+    @Builder.Default
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on the number of cached entities, the least recently used one is evicted beyond it.
+     */
+    @Builder.Default
+    private int maximumSize = 1_000;
+
+    /**
+     * How long an entity is served from the cache after it was loaded.
+     */
+    @Builder.Default
+    private long expireAfterWriteMillis = 300_000;
+
+    /**
+     * Whether concurrent misses for the same id share one database load, see {@link SingleFlight}.
+     */
+    @Builder.Default
+    private boolean coalesceLoads = true;
+
+    /**
+     * How long a caller waits for a load that another caller started for the same id.
+     */
+    @Builder.Default
+    private long loadTimeoutMillis = 5_000;
+}
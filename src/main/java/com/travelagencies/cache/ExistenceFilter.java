@@ -0,0 +1,252 @@
+package com.travelagencies.cache;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Tells DAOs which ids certainly do not exist, so lookups of those ids are answered without any JDBC work.
+ *
+ * Two checks are combined. Ids that were looked up and not found are remembered for a short TTL. And with
+ * {@link ExistenceFilterConfig#isSingleWriter()}, a {@link BloomFilter} over every id in the table is filled by
+ * {@link #load} at startup and by the DAO save paths afterwards, and an id it has never seen is certainly absent.
+ * The Bloom filter only knows about ids that were loaded or saved through this process, so with several nodes
+ * writing the table it stays off and an id another node inserted is at worst reported absent for the TTL.
+ *
+ * The save paths add an id to the Bloom filter as soon as its insert has run, so the transaction that inserted
+ * it can read it back; should that transaction roll back, the id is merely a false positive. Everything else is
+ * recorded once the insert has committed. A lookup that was already running by then may still miss the row, so
+ * {@link #recordAbsent(int, long)} ignores misses of lookups that overlapped a commit of the same id.
+ */
+public class ExistenceFilter {
+
+    /**
+     * Ids are spread over this many slots remembering when one of their ids was last recorded present.
+     */
+    private static final int PRESENCE_SLOTS = 1024;
+
+    private final boolean enabled;
+    private final boolean singleWriter;
+    private final BloomFilter bloomFilter;
+    private final long negativeTtlNanos;
+    private final int negativeCacheMaximumSize;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<Integer, Long> absentUntilNanos = new ConcurrentHashMap<>();
+    private final AtomicLong presenceSequence = new AtomicLong();
+    private final AtomicLongArray lastPresentSequences = new AtomicLongArray(PRESENCE_SLOTS);
+    private volatile boolean loaded;
+
+    private final LongAdder loadedIds = new LongAdder();
+    private final LongAdder filterRejections = new LongAdder();
+    private final LongAdder negativeCacheRejections = new LongAdder();
+    private final LongAdder lookupsPassed = new LongAdder();
+
+    /**
+     * Constructs an ExistenceFilter. It rejects nothing but recently missed ids until {@link #load} is called.
+     *
+     * @param config The Bloom filter sizing and negative cache settings.
+     */
+    public ExistenceFilter(ExistenceFilterConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    ExistenceFilter(ExistenceFilterConfig config, LongSupplier nanoClock) {
+        this.enabled = config.isEnabled();
+        this.singleWriter = config.isSingleWriter();
+        this.bloomFilter = config.isEnabled() && config.isSingleWriter()
+                ? new BloomFilter(config.getExpectedIds(), config.getFalsePositiveRate())
+                : null;
+        this.negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(config.getNegativeTtlMillis());
+        this.negativeCacheMaximumSize = config.getNegativeCacheMaximumSize();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns a filter that reports every id as possibly present, used by DAOs constructed without one.
+     *
+     * @return A disabled ExistenceFilter.
+     */
+    public static ExistenceFilter disabled() {
+        return new ExistenceFilter(ExistenceFilterConfig.builder().enabled(false).build());
+    }
+
+    /**
+     * Adds every id currently in the table to the Bloom filter, after which it starts rejecting unknown ids.
+     * Ids saved while the table is being read are recorded by the DAOs and are not lost.
+     * Does nothing unless the filter is configured as the table's single writer.
+     *
+     * @param dataSource The source of database connections.
+     * @param tableName  The table holding the entity.
+     * @param idColumn   The table's integer id column.
+     */
+    public void load(DataSource dataSource, String tableName, String idColumn) {
+        if (!enabled || !singleWriter) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     String.format("SELECT %s FROM %s", idColumn, tableName))) {
+            statement.setFetchSize(10_000);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    bloomFilter.put(resultSet.getInt(1));
+                    loadedIds.increment();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(String.format("Could not load the ids of %s", tableName), e);
+        }
+
+        loaded = true;
+    }
+
+    /**
+     * Returns whether the id certainly does not exist, in which case the caller can skip the database.
+     *
+     * @param id The entity id about to be looked up.
+     * @return true if the id was never saved, or was looked up and not found within the TTL.
+     */
+    public boolean isKnownAbsent(int id) {
+        if (!enabled) {
+            return false;
+        }
+
+        if (loaded && !bloomFilter.mightContain(id)) {
+            filterRejections.increment();
+            return true;
+        }
+
+        Long absentUntil = absentUntilNanos.get(id);
+        if (absentUntil != null) {
+            if (nanoClock.getAsLong() - absentUntil < 0) {
+                negativeCacheRejections.increment();
+                return true;
+            }
+            absentUntilNanos.remove(id, absentUntil);
+        }
+
+        lookupsPassed.increment();
+        return false;
+    }
+
+    /**
+     * Returns the ids that may exist, in their original order.
+     *
+     * @param ids The entity ids about to be looked up.
+     * @return The ids for which {@link #isKnownAbsent(int)} is false.
+     */
+    public List<Integer> retainPossiblyPresent(Collection<Integer> ids) {
+        if (!enabled) {
+            return new ArrayList<>(ids);
+        }
+
+        List<Integer> possiblyPresent = new ArrayList<>();
+        for (Integer id : ids) {
+            if (!isKnownAbsent(id)) {
+                possiblyPresent.add(id);
+            }
+        }
+        return possiblyPresent;
+    }
+
+    /**
+     * Records that an entity with this id was inserted, possibly by a transaction that has not committed yet.
+     * Called by DAOs right after the insert, followed by {@link #recordPresent(int)} once it has committed.
+     *
+     * @param id The inserted entity's id.
+     */
+    public void recordInserted(int id) {
+        if (!enabled) {
+            return;
+        }
+
+        if (singleWriter) {
+            bloomFilter.put(id);
+        }
+        absentUntilNanos.remove(id);
+    }
+
+    /**
+     * Records that an entity with this id was saved. Called by DAOs once the insert has committed; also adds the id
+     * to the Bloom filter, so callers that skipped {@link #recordInserted(int)} lose nothing.
+     *
+     * @param id The saved entity's id.
+     */
+    public void recordPresent(int id) {
+        if (!enabled) {
+            return;
+        }
+
+        if (singleWriter) {
+            bloomFilter.put(id);
+        }
+        long sequence = presenceSequence.incrementAndGet();
+        lastPresentSequences.accumulateAndGet(slot(id), sequence, Math::max);
+        absentUntilNanos.remove(id);
+    }
+
+    /**
+     * Marks the start of a database lookup, to be handed to {@link #recordAbsent(int, long)} for the ids it missed.
+     *
+     * @return The current presence sequence.
+     */
+    public long lookupStarted() {
+        return presenceSequence.get();
+    }
+
+    /**
+     * Records that a lookup of this id found nothing, so it is rejected for the TTL. The miss is dropped if the id
+     * may have been recorded present while the lookup ran, since the lookup might not have seen that row yet.
+     *
+     * @param id            The id that was not found.
+     * @param lookupStarted The value of {@link #lookupStarted()} taken before the lookup was sent.
+     */
+    public void recordAbsent(int id, long lookupStarted) {
+        if (!enabled || negativeTtlNanos == 0 || lastPresentSequences.get(slot(id)) > lookupStarted) {
+            return;
+        }
+
+        long now = nanoClock.getAsLong();
+        if (absentUntilNanos.size() >= negativeCacheMaximumSize) {
+            absentUntilNanos.values().removeIf(absentUntil -> now - absentUntil >= 0);
+            if (absentUntilNanos.size() >= negativeCacheMaximumSize) {
+                return;
+            }
+        }
+        absentUntilNanos.put(id, now + negativeTtlNanos);
+    }
+
+    private static int slot(int id) {
+        return Math.floorMod(id, PRESENCE_SLOTS);
+    }
+
+    /**
+     * Returns a snapshot of the filter's counters.
+     *
+     * @return The current statistics.
+     */
+    public ExistenceFilterStats stats() {
+        return ExistenceFilterStats.builder()
+                .loaded(loaded)
+                .loadedIds(loadedIds.sum())
+                .negativeCacheSize(absentUntilNanos.size())
+                .filterRejections(filterRejections.sum())
+                .negativeCacheRejections(negativeCacheRejections.sum())
+                .lookupsPassed(lookupsPassed.sum())
+                .build();
+    }
+}
@@ -0,0 +1,51 @@
+package com.travelagencies.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tuning knobs for an {@link ExistenceFilter}.
+ * All durations are expressed in milliseconds.
+ */
+@Data
+@Builder
+public class ExistenceFilterConfig {
+
+    /**
+     * Whether lookups are checked at all. A disabled filter reports every id as possibly present.
+     */
+    @Builder.Default
+    private boolean enabled = true;
+
+    /**
+     * Whether this process is the only one inserting rows into the table. Only then can the Bloom filter, which
+     * knows nothing about rows other nodes insert, reject ids; otherwise it is neither loaded nor consulted and
+     * only the negative cache applies.
+     */
+    @Builder.Default
+    private boolean singleWriter = false;
+
+    /**
+     * The number of ids the Bloom filter is sized for. More ids only raise the false positive rate.
+     */
+    @Builder.Default
+    private long expectedIds = 1_000_000;
+
+    /**
+     * The share of absent ids the Bloom filter lets through to the database.
+     */
+    @Builder.Default
+    private double falsePositiveRate = 0.01;
+
+    /**
+     * How long an id that was looked up and not found is rejected without asking the database again.
+     */
+    @Builder.Default
+    private long negativeTtlMillis = 5_000;
+
+    /**
+     * Upper bound on the number of ids remembered as not found.
+     */
+    @Builder.Default
+    private int negativeCacheMaximumSize = 10_000;
+}
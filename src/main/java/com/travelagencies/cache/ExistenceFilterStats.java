@@ -0,0 +1,24 @@
+package com.travelagencies.cache;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time snapshot of an {@link ExistenceFilter}'s counters.
+ */
+@Data
+@Builder
+public class ExistenceFilterStats {
+
+    private boolean loaded;
+
+    private long loadedIds;
+
+    private int negativeCacheSize;
+
+    private long filterRejections;
+
+    private long negativeCacheRejections;
+
+    private long lookupsPassed;
+}
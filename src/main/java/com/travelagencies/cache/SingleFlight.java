@@ -0,0 +1,138 @@
+package com.travelagencies.cache;
+
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, callers that arrive while it is
+ * in flight wait for its result instead of querying the database themselves.
+ *
+ * Each key has its own flight, so a slow key never delays another one. A waiting caller gives up after the
+ * configured timeout with an {@link IllegalStateException}, the load itself keeps running for the caller that
+ * started it. Waiters receive copies of the loaded entity, so no two callers share a mutable instance.
+ *
+ * @param <V> The loaded entity type.
+ */
+public class SingleFlight<V> {
+
+    private final long timeoutMillis;
+    private final UnaryOperator<V> copier;
+    private final ConcurrentHashMap<Integer, CompletableFuture<Optional<V>>> flights = new ConcurrentHashMap<>();
+
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * Constructs a SingleFlight.
+     *
+     * @param timeoutMillis How long a caller waits for a load started by another caller.
+     * @param copier        Returns an independent copy of an entity, handed to every waiting caller.
+     */
+    public SingleFlight(long timeoutMillis, UnaryOperator<V> copier) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException(String.format("timeoutMillis must be positive: %s", timeoutMillis));
+        }
+
+        this.timeoutMillis = timeoutMillis;
+        this.copier = copier;
+    }
+
+    /**
+     * Loads the entity with the given key, or waits for the load that is already in flight for it.
+     *
+     * @param key    The entity id.
+     * @param loader Loads the entity from the database.
+     * @return What the loader returned, copied for callers that joined an in-flight load.
+     */
+    public Optional<V> load(int key, IntFunction<Optional<V>> loader) {
+        CompletableFuture<Optional<V>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> inFlight = flights.putIfAbsent(key, flight);
+
+        if (inFlight != null) {
+            coalescedCount.increment();
+            return await(key, inFlight).map(copier);
+        }
+
+        loadCount.increment();
+        try {
+            Optional<V> loaded = loader.apply(key);
+            flight.complete(loaded);
+            return loaded;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    /**
+     * Detaches the in-flight load of a key, so that callers arriving after a write start a fresh load
+     * instead of joining one that may have read the old row.
+     *
+     * @param key The entity id.
+     */
+    public void forget(int key) {
+        flights.remove(key);
+    }
+
+    /**
+     * Detaches every in-flight load.
+     */
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    /**
+     * Returns how many loads actually ran.
+     */
+    public long getLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * Returns how many calls joined a load in flight instead of running their own, i.e. the loads saved.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    /**
+     * Returns how many waiting calls gave up before the load they joined completed.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    private Optional<V> await(int key, CompletableFuture<Optional<V>> flight) {
+        try {
+            return flight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeoutCount.increment();
+            throw new IllegalStateException(String.format("Timed out after %s ms waiting for the load of key %s",
+                    timeoutMillis, key), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for the load of key %s", key), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(String.format("Load of key %s failed", key), e.getCause());
+        } catch (CancellationException e) {
+            throw new IllegalStateException(String.format("Load of key %s was cancelled", key), e);
+        }
+    }
+}
@@ -4,6 +4,10 @@ import com.travelagencies.models.Activity;
 import com.travelagencies.models.Destination;
 import com.travelagencies.services.ActivityService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller class for managing activities within the application.
  * This class acts as an interface between the web layer and the service layer
@@ -63,4 +67,41 @@ public class ActivityController {
     public void updateActivityCost(int activityId, double newCost) {
         activityService.updateActivityCost(activityId, newCost);
     }
+
+    /**
+     * Creates several activities in one batch. Each activity is assigned a new unique identifier.
+     *
+     * @param activities The activities to create, each associated with its destination.
+     */
+    public void createActivities(List<Activity> activities) {
+        activityService.createActivities(activities);
+    }
+
+    /**
+     * Retrieves details of several activities by their unique identifiers.
+     *
+     * @param activityIds The unique identifiers of the activities to retrieve.
+     * @return The activities keyed by their unique identifiers.
+     */
+    public Map<Integer, Activity> getActivitiesDetails(Collection<Integer> activityIds) {
+        return activityService.getActivitiesDetails(activityIds);
+    }
+
+    /**
+     * Updates the maximum capacity of several activities.
+     *
+     * @param newCapacities The new maximum capacities keyed by activity identifier.
+     */
+    public void updateActivitiesCapacity(Map<Integer, Integer> newCapacities) {
+        activityService.updateActivitiesCapacity(newCapacities);
+    }
+
+    /**
+     * Updates the cost of participating in several activities, e.g. when repricing a catalogue.
+     *
+     * @param newCosts The new costs keyed by activity identifier.
+     */
+    public void updateActivitiesCost(Map<Integer, Double> newCosts) {
+        activityService.updateActivitiesCost(newCosts);
+    }
 }
@@ -0,0 +1,84 @@
+package com.travelagencies.controllers;
+
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.services.AsyncActivityService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link ActivityController}, which delegates to an {@link AsyncActivityService} and never
+ * blocks the caller.
+ */
+public class AsyncActivityController {
+    private final AsyncActivityService asyncActivityService;
+
+    /**
+     * Constructs an AsyncActivityController with the provided AsyncActivityService.
+     *
+     * @param asyncActivityService The service responsible for the asynchronous calls.
+     */
+    public AsyncActivityController(AsyncActivityService asyncActivityService) {
+        this.asyncActivityService = asyncActivityService;
+    }
+
+    /**
+     * Runs {@link ActivityController#createActivity(String, String, double, int, Destination)} asynchronously.
+     */
+    public CompletableFuture<Void> createActivity(String name, String description, double cost, int capacity,
+                                                  Destination destination) {
+        return asyncActivityService.createActivity(name, description, cost, capacity, destination);
+    }
+
+    /**
+     * Runs {@link ActivityController#getActivityDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Activity> getActivityDetails(int activityId) {
+        return asyncActivityService.getActivityDetails(activityId);
+    }
+
+    /**
+     * Runs {@link ActivityController#updateActivityCapacity(int, int)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivityCapacity(int activityId, int newCapacity) {
+        return asyncActivityService.updateActivityCapacity(activityId, newCapacity);
+    }
+
+    /**
+     * Runs {@link ActivityController#updateActivityCost(int, double)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivityCost(int activityId, double newCost) {
+        return asyncActivityService.updateActivityCost(activityId, newCost);
+    }
+
+    /**
+     * Runs {@link ActivityController#createActivities(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createActivities(List<Activity> activities) {
+        return asyncActivityService.createActivities(activities);
+    }
+
+    /**
+     * Runs {@link ActivityController#getActivitiesDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Activity>> getActivitiesDetails(Collection<Integer> activityIds) {
+        return asyncActivityService.getActivitiesDetails(activityIds);
+    }
+
+    /**
+     * Runs {@link ActivityController#updateActivitiesCapacity(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivitiesCapacity(Map<Integer, Integer> newCapacities) {
+        return asyncActivityService.updateActivitiesCapacity(newCapacities);
+    }
+
+    /**
+     * Runs {@link ActivityController#updateActivitiesCost(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivitiesCost(Map<Integer, Double> newCosts) {
+        return asyncActivityService.updateActivitiesCost(newCosts);
+    }
+}
@@ -0,0 +1,63 @@
+package com.travelagencies.controllers;
+
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.models.Booking;
+import com.travelagencies.services.AsyncBookingService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link BookingController}, which delegates to an {@link AsyncBookingService} and never
+ * blocks the caller.
+ */
+public class AsyncBookingController {
+    private final AsyncBookingService asyncBookingService;
+
+    /**
+     * Constructs an AsyncBookingController with the provided AsyncBookingService.
+     *
+     * @param asyncBookingService The service responsible for the asynchronous calls.
+     */
+    public AsyncBookingController(AsyncBookingService asyncBookingService) {
+        this.asyncBookingService = asyncBookingService;
+    }
+
+    /**
+     * Runs {@link BookingController#createBooking(int, int, int)} asynchronously.
+     */
+    public CompletableFuture<Void> createBooking(int passengerId, int activityId, int destinationId) {
+        return asyncBookingService.createBooking(passengerId, activityId, destinationId);
+    }
+
+    /**
+     * Runs {@link BookingController#createGroupBooking(List, int, int)} asynchronously.
+     */
+    public CompletableFuture<List<Booking>> createGroupBooking(List<Integer> passengerIds, int activityId,
+                                                               int destinationId) {
+        return asyncBookingService.createGroupBooking(passengerIds, activityId, destinationId);
+    }
+
+    /**
+     * Runs {@link BookingController#updateBookingStatus(int, BookingStatus)} asynchronously.
+     */
+    public CompletableFuture<Void> updateBookingStatus(int bookingId, BookingStatus newStatus) {
+        return asyncBookingService.updateBookingStatus(bookingId, newStatus);
+    }
+
+    /**
+     * Runs {@link BookingController#getBookingDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Booking> getBookingDetails(int bookingId) {
+        return asyncBookingService.getBookingDetails(bookingId);
+    }
+
+    /**
+     * Runs {@link BookingController#getBookingsDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Booking>> getBookingsDetails(Collection<Integer> bookingIds) {
+        return asyncBookingService.getBookingsDetails(bookingIds);
+    }
+}
@@ -0,0 +1,68 @@
+package com.travelagencies.controllers;
+
+import com.travelagencies.models.Destination;
+import com.travelagencies.services.AsyncDestinationService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link DestinationController}, which delegates to an {@link AsyncDestinationService} and
+ * never blocks the caller.
+ */
+public class AsyncDestinationController {
+    private final AsyncDestinationService asyncDestinationService;
+
+    /**
+     * Constructs an AsyncDestinationController with the provided AsyncDestinationService.
+     *
+     * @param asyncDestinationService The service responsible for the asynchronous calls.
+     */
+    public AsyncDestinationController(AsyncDestinationService asyncDestinationService) {
+        this.asyncDestinationService = asyncDestinationService;
+    }
+
+    /**
+     * Runs {@link DestinationController#createDestination(String)} asynchronously.
+     */
+    public CompletableFuture<Void> createDestination(String name) {
+        return asyncDestinationService.createDestination(name);
+    }
+
+    /**
+     * Runs {@link DestinationController#getDestinationDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Destination> getDestinationDetails(int destinationId) {
+        return asyncDestinationService.getDestinationDetails(destinationId);
+    }
+
+    /**
+     * Runs {@link DestinationController#updateDestinationName(int, String)} asynchronously.
+     */
+    public CompletableFuture<Void> updateDestinationName(int destinationId, String newName) {
+        return asyncDestinationService.updateDestinationName(destinationId, newName);
+    }
+
+    /**
+     * Runs {@link DestinationController#createDestinations(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createDestinations(List<String> names) {
+        return asyncDestinationService.createDestinations(names);
+    }
+
+    /**
+     * Runs {@link DestinationController#getDestinationsDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Destination>> getDestinationsDetails(Collection<Integer> destinationIds) {
+        return asyncDestinationService.getDestinationsDetails(destinationIds);
+    }
+
+    /**
+     * Runs {@link DestinationController#updateDestinationNames(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateDestinationNames(Map<Integer, String> newNames) {
+        return asyncDestinationService.updateDestinationNames(newNames);
+    }
+}
@@ -0,0 +1,70 @@
+package com.travelagencies.controllers;
+
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.services.AsyncPassengerService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link PassengerController}, which delegates to an {@link AsyncPassengerService} and never
+ * blocks the caller.
+ */
+public class AsyncPassengerController {
+    private final AsyncPassengerService asyncPassengerService;
+
+    /**
+     * Constructs an AsyncPassengerController with the provided AsyncPassengerService.
+     *
+     * @param asyncPassengerService The service responsible for the asynchronous calls.
+     */
+    public AsyncPassengerController(AsyncPassengerService asyncPassengerService) {
+        this.asyncPassengerService = asyncPassengerService;
+    }
+
+    /**
+     * Runs {@link PassengerController#createPassenger(String, String, PassengerType, double)} asynchronously.
+     */
+    public CompletableFuture<Void> createPassenger(String passengerName, String mobile, PassengerType passengerType,
+                                                   double balance) {
+        return asyncPassengerService.createPassenger(passengerName, mobile, passengerType, balance);
+    }
+
+    /**
+     * Runs {@link PassengerController#updatePassengerBalance(int, double)} asynchronously.
+     */
+    public CompletableFuture<Void> updatePassengerBalance(int passengerId, double newBalance) {
+        return asyncPassengerService.updatePassengerBalance(passengerId, newBalance);
+    }
+
+    /**
+     * Runs {@link PassengerController#getPassengerDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Passenger> getPassengerDetails(int passengerId) {
+        return asyncPassengerService.getPassengerDetails(passengerId);
+    }
+
+    /**
+     * Runs {@link PassengerController#createPassengers(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createPassengers(List<Passenger> passengers) {
+        return asyncPassengerService.createPassengers(passengers);
+    }
+
+    /**
+     * Runs {@link PassengerController#updatePassengersBalance(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updatePassengersBalance(Map<Integer, Double> newBalances) {
+        return asyncPassengerService.updatePassengersBalance(newBalances);
+    }
+
+    /**
+     * Runs {@link PassengerController#getPassengersDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Passenger>> getPassengersDetails(Collection<Integer> passengerIds) {
+        return asyncPassengerService.getPassengersDetails(passengerIds);
+    }
+}
@@ -0,0 +1,75 @@
+package com.travelagencies.controllers;
+
+import com.travelagencies.models.TravelPackage;
+import com.travelagencies.services.AsyncTravelPackageService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link TravelPackageController}, which delegates to an {@link AsyncTravelPackageService} and
+ * never blocks the caller.
+ */
+public class AsyncTravelPackageController {
+    private final AsyncTravelPackageService asyncTravelPackageService;
+
+    /**
+     * Constructs an AsyncTravelPackageController with the provided AsyncTravelPackageService.
+     *
+     * @param asyncTravelPackageService The service responsible for the asynchronous calls.
+     */
+    public AsyncTravelPackageController(AsyncTravelPackageService asyncTravelPackageService) {
+        this.asyncTravelPackageService = asyncTravelPackageService;
+    }
+
+    /**
+     * Runs {@link TravelPackageController#createTravelPackage(String, String, int)} asynchronously.
+     */
+    public CompletableFuture<Void> createTravelPackage(String name, String description, int passengerCapacity) {
+        return asyncTravelPackageService.createTravelPackage(name, description, passengerCapacity);
+    }
+
+    /**
+     * Runs {@link TravelPackageController#getTravelPackageDetails(int)} asynchronously.
+     */
+    public CompletableFuture<TravelPackage> getTravelPackageDetails(int packageId) {
+        return asyncTravelPackageService.getTravelPackageDetails(packageId);
+    }
+
+    /**
+     * Runs {@link TravelPackageController#updateTravelPackageName(int, String)} asynchronously.
+     */
+    public CompletableFuture<Void> updateTravelPackageName(int packageId, String newName) {
+        return asyncTravelPackageService.updateTravelPackageName(packageId, newName);
+    }
+
+    /**
+     * Runs {@link TravelPackageController#updateTravelPackagePassengerCapacity(int, int)} asynchronously.
+     */
+    public CompletableFuture<Void> updateTravelPackagePassengerCapacity(int packageId, int newCapacity) {
+        return asyncTravelPackageService.updateTravelPackagePassengerCapacity(packageId, newCapacity);
+    }
+
+    /**
+     * Runs {@link TravelPackageController#createTravelPackages(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createTravelPackages(List<TravelPackage> travelPackages) {
+        return asyncTravelPackageService.createTravelPackages(travelPackages);
+    }
+
+    /**
+     * Runs {@link TravelPackageController#getTravelPackagesDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, TravelPackage>> getTravelPackagesDetails(Collection<Integer> packageIds) {
+        return asyncTravelPackageService.getTravelPackagesDetails(packageIds);
+    }
+
+    /**
+     * Runs {@link TravelPackageController#updateTravelPackagesPassengerCapacity(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateTravelPackagesPassengerCapacity(Map<Integer, Integer> newCapacities) {
+        return asyncTravelPackageService.updateTravelPackagesPassengerCapacity(newCapacities);
+    }
+}
@@ -4,6 +4,10 @@ import com.travelagencies.enums.BookingStatus;
 import com.travelagencies.models.Booking;
 import com.travelagencies.services.BookingService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller class responsible for handling booking-related operations.
  * This class delegates booking-related actions to the BookingService.
@@ -31,6 +35,18 @@ public class BookingController {
         bookingService.createBooking(passengerId, activityId, destinationId);
     }
 
+    /**
+     * Books one activity for a group of passengers, all of them or none.
+     *
+     * @param passengerIds  The unique identifiers of the passengers to book.
+     * @param activityId    The unique identifier of the activity being booked.
+     * @param destinationId The unique identifier of the destination where the activity takes place.
+     * @return The new bookings, in the order of the passenger identifiers.
+     */
+    public List<Booking> createGroupBooking(List<Integer> passengerIds, int activityId, int destinationId) {
+        return bookingService.createGroupBooking(passengerIds, activityId, destinationId);
+    }
+
     /**
      * Updates the status of a booking to the specified new status.
      *
@@ -50,4 +66,14 @@ public class BookingController {
     public Booking getBookingDetails(int bookingId) {
         return bookingService.getBookingDetails(bookingId);
     }
+
+    /**
+     * Retrieves details of several bookings by their unique identifiers.
+     *
+     * @param bookingIds The unique identifiers of the bookings to retrieve.
+     * @return The bookings keyed by their unique identifiers.
+     */
+    public Map<Integer, Booking> getBookingsDetails(Collection<Integer> bookingIds) {
+        return bookingService.getBookingsDetails(bookingIds);
+    }
 }
@@ -3,6 +3,10 @@ package com.travelagencies.controllers;
 import com.travelagencies.models.Destination;
 import com.travelagencies.services.DestinationService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller class responsible for managing destination-related operations.
  * This class delegates destination-related actions to the DestinationService.
@@ -47,4 +51,32 @@ public class DestinationController {
     public void updateDestinationName(int destinationId, String newName) {
         destinationService.updateDestinationName(destinationId, newName);
     }
+
+    /**
+     * Creates several destinations in one batch.
+     *
+     * @param names The names of the new destinations.
+     */
+    public void createDestinations(List<String> names) {
+        destinationService.createDestinations(names);
+    }
+
+    /**
+     * Retrieves details of several destinations by their unique identifiers.
+     *
+     * @param destinationIds The unique identifiers of the destinations to retrieve.
+     * @return The destinations keyed by their unique identifiers.
+     */
+    public Map<Integer, Destination> getDestinationsDetails(Collection<Integer> destinationIds) {
+        return destinationService.getDestinationsDetails(destinationIds);
+    }
+
+    /**
+     * Updates the names of several destinations.
+     *
+     * @param newNames The new names keyed by destination identifier.
+     */
+    public void updateDestinationNames(Map<Integer, String> newNames) {
+        destinationService.updateDestinationNames(newNames);
+    }
 }
@@ -4,6 +4,10 @@ import com.travelagencies.enums.PassengerType;
 import com.travelagencies.models.Passenger;
 import com.travelagencies.services.PassengerService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller class responsible for managing passenger-related operations.
  * This class delegates passenger-related actions to the PassengerService.
@@ -51,4 +55,32 @@ public class PassengerController {
     public Passenger getPassengerDetails(int passengerId) {
         return passengerService.getPassengerDetails(passengerId);
     }
+
+    /**
+     * Creates several passengers in one batch. Each passenger is assigned a new unique identifier.
+     *
+     * @param passengers The passengers to create.
+     */
+    public void createPassengers(List<Passenger> passengers) {
+        passengerService.createPassengers(passengers);
+    }
+
+    /**
+     * Updates the balance of several existing passengers.
+     *
+     * @param newBalances The new balances keyed by passenger identifier.
+     */
+    public void updatePassengersBalance(Map<Integer, Double> newBalances) {
+        passengerService.updatePassengersBalance(newBalances);
+    }
+
+    /**
+     * Retrieves details of several passengers by their unique identifiers.
+     *
+     * @param passengerIds The unique identifiers of the passengers to retrieve.
+     * @return The passengers keyed by their unique identifiers.
+     */
+    public Map<Integer, Passenger> getPassengersDetails(Collection<Integer> passengerIds) {
+        return passengerService.getPassengersDetails(passengerIds);
+    }
 }
@@ -3,6 +3,10 @@ package com.travelagencies.controllers;
 import com.travelagencies.models.TravelPackage;
 import com.travelagencies.services.TravelPackageService;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller class responsible for managing travel package-related operations.
  * This class delegates travel package-related actions to the TravelPackageService.
@@ -59,4 +63,32 @@ public class TravelPackageController {
     public void updateTravelPackagePassengerCapacity(int packageId, int newCapacity) {
         travelPackageService.updateTravelPackagePassengerCapacity(packageId, newCapacity);
     }
+
+    /**
+     * Creates several travel packages in one batch. Each package is assigned a new unique identifier.
+     *
+     * @param travelPackages The travel packages to create.
+     */
+    public void createTravelPackages(List<TravelPackage> travelPackages) {
+        travelPackageService.createTravelPackages(travelPackages);
+    }
+
+    /**
+     * Retrieves details of several travel packages by their unique identifiers.
+     *
+     * @param packageIds The unique identifiers of the travel packages to retrieve.
+     * @return The travel packages keyed by their unique identifiers.
+     */
+    public Map<Integer, TravelPackage> getTravelPackagesDetails(Collection<Integer> packageIds) {
+        return travelPackageService.getTravelPackagesDetails(packageIds);
+    }
+
+    /**
+     * Updates the passenger capacity of several travel packages.
+     *
+     * @param newCapacities The new passenger capacities keyed by package identifier.
+     */
+    public void updateTravelPackagesPassengerCapacity(Map<Integer, Integer> newCapacities) {
+        travelPackageService.updateTravelPackagesPassengerCapacity(newCapacities);
+    }
 }
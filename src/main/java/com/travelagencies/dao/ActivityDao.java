@@ -1,22 +1,71 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
 import com.travelagencies.models.Activity;
 import com.travelagencies.models.Destination;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * The ActivityRepository class provides methods for managing activities.
  * It interacts with a database, to perform CRUD operations on activity records.
  */
-public class ActivityDao implements Repository<Activity> {
+public class ActivityDao implements ActivityRepository {
 
-    private final String jdbcUrl = "jdbc:mysql://localhost:3306/travel_db";
-    private final String jdbcUsername = "username";
-    private final String jdbcPassword = "password";
+    /**
+     * Reads activities together with their destination. The destination_id is the joined destination's key, which
+     * the LEFT JOIN leaves null when the destination does not exist.
+     */
+    private static final String SELECT_ACTIVITIES_WITH_DESTINATION = "SELECT a.activity_id, a.name, a.description, " +
+            "a.cost, a.capacity, d.destination_id, d.name AS destination_name FROM activities a " +
+            "LEFT JOIN destinations d ON a.destination_id = d.destination_id ";
+
+    private final DataSource dataSource;
+    private final IdGenerator idGenerator;
+    private final ExistenceFilter existenceFilter;
+
+    /**
+     * Constructs a ActivityDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource The connection pool, which also leases the new ids; not a
+     *                   transaction-aware DataSource, which the IdGenerator rejects.
+     */
+    public ActivityDao(DataSource dataSource) {
+        this(dataSource, new IdGenerator(dataSource));
+    }
+
+    /**
+     * Constructs a ActivityDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new activity ids are taken from.
+     */
+    public ActivityDao(DataSource dataSource, IdGenerator idGenerator) {
+        this(dataSource, idGenerator, ExistenceFilter.disabled());
+    }
+
+    /**
+     * Constructs a ActivityDao that answers lookups of ids known not to exist without querying the database.
+     *
+     * @param dataSource      The (typically pooled) source of database connections.
+     * @param idGenerator     The generator that new activity ids are taken from.
+     * @param existenceFilter The filter of activity ids, kept up to date by the save paths.
+     */
+    public ActivityDao(DataSource dataSource, IdGenerator idGenerator, ExistenceFilter existenceFilter) {
+        this.dataSource = dataSource;
+        this.idGenerator = idGenerator;
+        this.existenceFilter = existenceFilter;
+    }
 
     /**
      * Creates a new activity record in the database.
@@ -25,7 +74,7 @@ public class ActivityDao implements Repository<Activity> {
      */
     @Override
     public void save(Activity activity) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String insertActivityQuery = "INSERT INTO activities (activity_id, destination_id, name, description, " +
                     "cost, capacity) VALUES (?, ?, ?, ?, ?, ?)";
 
@@ -39,6 +88,9 @@ public class ActivityDao implements Repository<Activity> {
                 preparedStatement.setInt(i++, activity.getCapacity());
                 preparedStatement.executeUpdate();
             }
+
+            existenceFilter.recordInserted(activity.getActivityId());
+            TransactionManager.afterCommit(connection, () -> existenceFilter.recordPresent(activity.getActivityId()));
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -51,7 +103,7 @@ public class ActivityDao implements Repository<Activity> {
      */
     @Override
     public void update(Activity activity) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String updateActivityQuery = "UPDATE activities SET destination_id = ?, name = ?, description = ?, " +
                     "cost = ?, capacity = ? WHERE activity_id = ?";
 
@@ -70,6 +122,112 @@ public class ActivityDao implements Repository<Activity> {
         }
     }
 
+    /**
+     * Atomically takes seats from an activity's remaining capacity.
+     * The decrement is guarded in the same statement, so concurrent callers can never drive capacity below zero.
+     *
+     * @param activityId The unique identifier of the activity.
+     * @param seats      The number of seats to reserve.
+     * @return true if the seats were reserved, false if the activity does not exist or has too few seats left.
+     */
+    @Override
+    public boolean reserveCapacity(int activityId, int seats) {
+        try (Connection connection = dataSource.getConnection()) {
+            String reserveCapacityQuery = "UPDATE activities SET capacity = capacity - ? " +
+                    "WHERE activity_id = ? AND capacity >= ?";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(reserveCapacityQuery)) {
+                int i = 1;
+                preparedStatement.setInt(i++, seats);
+                preparedStatement.setInt(i++, activityId);
+                preparedStatement.setInt(i++, seats);
+                return preparedStatement.executeUpdate() == 1;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Atomically gives seats back to an activity's remaining capacity.
+     *
+     * @param activityId The unique identifier of the activity.
+     * @param seats      The number of seats to release.
+     * @return true if the seats were released, false if the activity does not exist.
+     */
+    @Override
+    public boolean releaseCapacity(int activityId, int seats) {
+        try (Connection connection = dataSource.getConnection()) {
+            String releaseCapacityQuery = "UPDATE activities SET capacity = capacity + ? WHERE activity_id = ?";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(releaseCapacityQuery)) {
+                int i = 1;
+                preparedStatement.setInt(i++, seats);
+                preparedStatement.setInt(i++, activityId);
+                return preparedStatement.executeUpdate() == 1;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Sets the cost of activity records using batched updates of that single column.
+     *
+     * @param costs The new cost per activityId.
+     */
+    @Override
+    public void updateCosts(Map<Integer, Double> costs) {
+        if (costs.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String updateCostQuery = "UPDATE activities SET cost = ? WHERE activity_id = ?";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateCostQuery)) {
+                JdbcBatch.execute(preparedStatement, costs.entrySet(), JdbcBatch.DEFAULT_BATCH_SIZE, (batch, cost) -> {
+                    int i = 1;
+                    batch.setDouble(i++, cost.getValue());
+                    batch.setInt(i++, cost.getKey());
+                });
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Sets the remaining capacity of activity records using batched updates of that single column.
+     *
+     * @param capacities The new capacity per activityId.
+     */
+    @Override
+    public void updateCapacities(Map<Integer, Integer> capacities) {
+        if (capacities.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String updateCapacityQuery = "UPDATE activities SET capacity = ? WHERE activity_id = ?";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateCapacityQuery)) {
+                JdbcBatch.execute(preparedStatement, capacities.entrySet(), JdbcBatch.DEFAULT_BATCH_SIZE,
+                        (batch, capacity) -> {
+                            int i = 1;
+                            batch.setInt(i++, capacity.getValue());
+                            batch.setInt(i++, capacity.getKey());
+                        });
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Deletes an activity record from the database.
      *
@@ -77,7 +235,7 @@ public class ActivityDao implements Repository<Activity> {
      */
     @Override
     public void delete(Activity activity) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String deleteActivityQuery = "DELETE FROM activities WHERE activity_id = ?";
 
             try (PreparedStatement preparedStatement = connection.prepareStatement(deleteActivityQuery)) {
@@ -91,178 +249,234 @@ public class ActivityDao implements Repository<Activity> {
     }
 
     /**
-     * Retrieves an activity record by its unique identifier (activityId) from the database.
+     * Creates new activity records in the database using batched inserts.
      *
-     * @param id The unique identifier of the activity to retrieve.
-     * @return The activity object if found, or Optional.empty() if not found.
+     * @param activities The activity objects to be created.
      */
     @Override
-    public Optional<Activity> getById(int id) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String selectActivityByIdQuery = "SELECT destination_id, name, description, cost, capacity FROM activities WHERE activity_id = ?";
+    public void saveAll(Collection<Activity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivityByIdQuery)) {
-                int i = 1;
-                preparedStatement.setInt(i++, id);
+        try (Connection connection = dataSource.getConnection()) {
+            String insertActivityQuery = "INSERT INTO activities (activity_id, destination_id, name, description, " +
+                    "cost, capacity) VALUES (?, ?, ?, ?, ?, ?)";
 
-                try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                    if (resultSet.next()) {
-                        int destinationId = resultSet.getInt("destination_id");
-                        String name = resultSet.getString("name");
-                        String description = resultSet.getString("description");
-                        double cost = resultSet.getDouble("cost");
-                        int capacity = resultSet.getInt("capacity");
-
-                        Activity activity = Activity.builder()
-                                .activityId(id)
-                                .name(name)
-                                .description(description)
-                                .cost(cost)
-                                .capacity(capacity)
-                                .build();
-
-                        activity.setDestination(getDestinationById(destinationId));
-
-                        return Optional.of(activity);
-                    }
-                }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(insertActivityQuery)) {
+                JdbcBatch.execute(preparedStatement, activities, JdbcBatch.DEFAULT_BATCH_SIZE, (batch, activity) -> {
+                    int i = 1;
+                    batch.setInt(i++, activity.getActivityId());
+                    batch.setInt(i++, activity.getDestination().getDestinationId());
+                    batch.setString(i++, activity.getName());
+                    batch.setString(i++, activity.getDescription());
+                    batch.setDouble(i++, activity.getCost());
+                    batch.setInt(i++, activity.getCapacity());
+                });
+            }
+
+            for (Activity activity : activities) {
+                existenceFilter.recordInserted(activity.getActivityId());
             }
+            TransactionManager.afterCommit(connection, () -> {
+                for (Activity activity : activities) {
+                    existenceFilter.recordPresent(activity.getActivityId());
+                }
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
-
-        return Optional.empty();
     }
 
     /**
-     * Retrieves a list of activities associated with a specific destination from the database.
+     * Updates existing activity records in the database using batched updates.
      *
-     * @param destinationId The unique identifier of the destination.
-     * @return A list of activity objects associated with the destination.
+     * @param activities The updated activity objects.
      */
-    public List<Activity> getActivitiesByDestinationId(int destinationId) {
-        List<Activity> activities = new ArrayList<>();
-
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String selectActivitiesByDestinationQuery = "SELECT activity_id, name, description, cost, capacity " +
-                    "FROM activities WHERE destination_id = ?";
+    @Override
+    public void updateAll(Collection<Activity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivitiesByDestinationQuery)) {
-                int i = 1;
-                preparedStatement.setInt(i++, destinationId);
+        try (Connection connection = dataSource.getConnection()) {
+            String updateActivityQuery = "UPDATE activities SET destination_id = ?, name = ?, description = ?, " +
+                    "cost = ?, capacity = ? WHERE activity_id = ?";
 
-                try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                    while (resultSet.next()) {
-                        int activityId = resultSet.getInt("activity_id");
-                        String name = resultSet.getString("name");
-                        String description = resultSet.getString("description");
-                        double cost = resultSet.getDouble("cost");
-                        int capacity = resultSet.getInt("capacity");
-
-                        Activity activity = Activity.builder()
-                                .activityId(activityId)
-                                .name(name)
-                                .description(description)
-                                .cost(cost)
-                                .capacity(capacity)
-                                .build();
-
-                        activities.add(activity);
-                    }
-                }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateActivityQuery)) {
+                JdbcBatch.execute(preparedStatement, activities, JdbcBatch.DEFAULT_BATCH_SIZE, (batch, activity) -> {
+                    int i = 1;
+                    batch.setInt(i++, activity.getDestination().getDestinationId());
+                    batch.setString(i++, activity.getName());
+                    batch.setString(i++, activity.getDescription());
+                    batch.setDouble(i++, activity.getCost());
+                    batch.setInt(i++, activity.getCapacity());
+                    batch.setInt(i++, activity.getActivityId());
+                });
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+    }
 
-        return activities;
+    /**
+     * Deletes activity records from the database.
+     *
+     * @param activities The activities to be deleted.
+     */
+    @Override
+    public void deleteAll(Collection<Activity> activities) {
+        List<Integer> activityIds = new ArrayList<>();
+        for (Activity activity : activities) {
+            activityIds.add(activity.getActivityId());
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM activities WHERE activity_id IN (%s)", activityIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
-     * Retrieves a list of activities that still have available space.
+     * Retrieves activity records, together with their destinations, by their unique identifiers.
+     * Activities of the same destination share one Destination instance.
      *
-     * @return A list of {@link Activity} objects representing activities with available space.
-     * @throws SQLException If a database access error occurs.
+     * @param ids The unique identifiers of the activities to retrieve.
+     * @return The found activities keyed by activityId, in the order of the requested ids.
      */
-    public List<Activity> getActivitiesWithAvailableSpace() {
-        List<Activity> activitiesWithAvailableSpace = new ArrayList<>();
-
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String selectActivitiesQuery = "SELECT activity_id, name, description, cost, " +
-                    "capacity FROM activities WHERE capacity > 0";
-
-            try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivitiesQuery);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
-
-                while (resultSet.next()) {
-                    int activityId = resultSet.getInt("activity_id");
-                    String name = resultSet.getString("name");
-                    String description = resultSet.getString("description");
-                    double cost = resultSet.getDouble("cost");
-                    int capacity = resultSet.getInt("capacity");
-
-                    Activity activity = Activity.builder()
-                            .activityId(activityId)
-                            .name(name)
-                            .description(description)
-                            .cost(cost)
-                            .capacity(capacity)
-                            .build();
-
-                    activitiesWithAvailableSpace.add(activity);
+    @Override
+    public Map<Integer, Activity> getByIds(Collection<Integer> ids) {
+        Map<Integer, Activity> activities = new LinkedHashMap<>();
+        Map<Integer, Destination> destinations = new HashMap<>();
+        List<Integer> possiblyPresentIds = existenceFilter.retainPossiblyPresent(ids);
+        if (possiblyPresentIds.isEmpty()) {
+            return activities;
+        }
+
+        long lookupStarted = existenceFilter.lookupStarted();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<Integer> chunk : JdbcBatch.chunkIds(possiblyPresentIds)) {
+                String selectActivitiesByIdsQuery = SELECT_ACTIVITIES_WITH_DESTINATION +
+                        "WHERE a.activity_id IN (" + JdbcBatch.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivitiesByIdsQuery)) {
+                    JdbcBatch.bindIds(preparedStatement, 1, chunk);
+
+                    Map<Integer, Activity> found = new HashMap<>();
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Activity activity = readActivity(resultSet, destinations);
+                            found.put(activity.getActivityId(), activity);
+                        }
+                    }
+
+                    for (Integer id : chunk) {
+                        if (found.containsKey(id)) {
+                            activities.put(id, found.get(id));
+                        } else {
+                            existenceFilter.recordAbsent(id, lookupStarted);
+                        }
+                    }
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return activitiesWithAvailableSpace;
+        return activities;
     }
 
+    /**
+     * Retrieves an activity record by its unique identifier (activityId) from the database.
+     * The activity's destination is read in the same query.
+     *
+     * @param id The unique identifier of the activity to retrieve.
+     * @return The activity object if found, or Optional.empty() if not found.
+     */
+    @Override
+    public Optional<Activity> getById(int id) {
+        return getById(id, SELECT_ACTIVITIES_WITH_DESTINATION + "WHERE a.activity_id = ?");
+    }
 
     /**
-     * Generates a unique activity ID for a new activity record.
-     * This method generates a new unique identifier for activity records. The generated
-     * ID can be used when creating new activity objects to ensure that each activity has
-     * a distinct identifier.
+     * Retrieves an activity record and locks its row until the surrounding transaction ends.
+     * Only the activity row is locked, not the row of its destination.
+     * Only meaningful inside a {@link com.travelagencies.db.TransactionManager} unit of work.
      *
-     * @return A unique activityId as an integer.
+     * @param id The unique identifier of the activity to retrieve and lock.
+     * @return The activity object if found, or Optional.empty() if not found.
      */
-    public int generateActivityId() {
-        int generatedActivityId = -1;
+    @Override
+    public Optional<Activity> getByIdForUpdate(int id) {
+        return getById(id, SELECT_ACTIVITIES_WITH_DESTINATION + "WHERE a.activity_id = ? FOR UPDATE OF a");
+    }
 
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String sql = "INSERT INTO activities DEFAULT VALUES RETURNING activity_id";
+    private Optional<Activity> getById(int id, String selectActivityByIdQuery) {
+        if (existenceFilter.isKnownAbsent(id)) {
+            return Optional.empty();
+        }
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
+        long lookupStarted = existenceFilter.lookupStarted();
 
-                if (resultSet.next()) {
-                    generatedActivityId = resultSet.getInt("activity_id");
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivityByIdQuery)) {
+                int i = 1;
+                preparedStatement.setInt(i++, id);
+
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return Optional.of(readActivity(resultSet, new HashMap<>()));
+                    }
                 }
+
+                existenceFilter.recordAbsent(id, lookupStarted);
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return generatedActivityId;
+        return Optional.empty();
+    }
+
+    /**
+     * Retrieves a list of activities associated with a specific destination from the database.
+     * All returned activities share one Destination instance.
+     *
+     * @param destinationId The unique identifier of the destination.
+     * @return A list of activity objects associated with the destination.
+     */
+    @Override
+    public List<Activity> getActivitiesByDestinationId(int destinationId) {
+        return getActivities(SELECT_ACTIVITIES_WITH_DESTINATION + "WHERE a.destination_id = ?", destinationId);
+    }
+
+    /**
+     * Retrieves a list of activities that still have available space.
+     * Activities of the same destination share one Destination instance.
+     *
+     * @return A list of {@link Activity} objects representing activities with available space.
+     */
+    @Override
+    public List<Activity> getActivitiesWithAvailableSpace() {
+        return getActivities(SELECT_ACTIVITIES_WITH_DESTINATION + "WHERE a.capacity > 0");
     }
 
-    private Destination getDestinationById(int destinationId) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String selectDestinationByIdQuery = "SELECT name FROM destinations WHERE destination_id = ?";
+    private List<Activity> getActivities(String selectActivitiesQuery, int... parameters) {
+        List<Activity> activities = new ArrayList<>();
+        Map<Integer, Destination> destinations = new HashMap<>();
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(selectDestinationByIdQuery)) {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivitiesQuery)) {
                 int i = 1;
-                preparedStatement.setInt(i++, destinationId);
+                for (int parameter : parameters) {
+                    preparedStatement.setInt(i++, parameter);
+                }
 
                 try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                    if (resultSet.next()) {
-                        String name = resultSet.getString("name");
-                        return Destination.builder()
-                                .destinationId(destinationId)
-                                .name(name)
-                                .build();
+                    while (resultSet.next()) {
+                        activities.add(readActivity(resultSet, destinations));
                     }
                 }
             }
@@ -270,6 +484,47 @@ public class ActivityDao implements Repository<Activity> {
             e.printStackTrace();
         }
 
-        return null;
+        return activities;
+    }
+
+    /**
+     * Generates a unique activity ID for a new activity record.
+     * Ids are served from a block leased by the {@link IdGenerator}, so only one call per block
+     * reaches the database.
+     *
+     * @return A unique activity ID as an integer.
+     */
+    @Override
+    public int generateActivityId() {
+        return idGenerator.nextId("activities", "activity_id");
+    }
+
+    /**
+     * Maps the current row of a {@link #SELECT_ACTIVITIES_WITH_DESTINATION} query.
+     *
+     * @param destinations The destinations already built for this result set, reused so that activities of the
+     *                     same destination share one instance.
+     */
+    private static Activity readActivity(ResultSet resultSet, Map<Integer, Destination> destinations) throws SQLException {
+        int destinationId = resultSet.getInt("destination_id");
+        boolean destinationFound = !resultSet.wasNull();
+        String destinationName = resultSet.getString("destination_name");
+
+        Activity activity = Activity.builder()
+                .activityId(resultSet.getInt("activity_id"))
+                .name(resultSet.getString("name"))
+                .description(resultSet.getString("description"))
+                .cost(resultSet.getDouble("cost"))
+                .capacity(resultSet.getInt("capacity"))
+                .build();
+
+        if (destinationFound) {
+            activity.setDestination(destinations.computeIfAbsent(destinationId, key -> Destination.builder()
+                    .destinationId(key)
+                    .name(destinationName)
+                    .build()));
+        }
+
+        return activity;
     }
 }
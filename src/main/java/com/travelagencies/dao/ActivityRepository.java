@@ -0,0 +1,54 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.models.Activity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores activities and answers the activity queries the services need beyond plain CRUD.
+ */
+public interface ActivityRepository extends Repository<Activity> {
+
+    /**
+     * Atomically takes seats from an activity's remaining capacity, never driving it below zero.
+     *
+     * @return true if the seats were reserved, false if the activity does not exist or has too few seats left.
+     */
+    boolean reserveCapacity(int activityId, int seats);
+
+    /**
+     * Atomically gives seats back to an activity's remaining capacity.
+     *
+     * @return true if the seats were released, false if the activity does not exist.
+     */
+    boolean releaseCapacity(int activityId, int seats);
+
+    /**
+     * Sets the cost of each given activity, leaving every other column as it is. Unknown ids are skipped.
+     *
+     * @param costs The new cost per activityId.
+     */
+    void updateCosts(Map<Integer, Double> costs);
+
+    /**
+     * Sets the remaining capacity of each given activity, leaving every other column as it is. Unknown ids are
+     * skipped. Unlike {@link #reserveCapacity(int, int)} this overwrites the capacity, so it is meant for an
+     * explicit capacity change and not for booking seats.
+     *
+     * @param capacities The new capacity per activityId.
+     */
+    void updateCapacities(Map<Integer, Integer> capacities);
+
+    /**
+     * Retrieves an activity and locks it until the surrounding unit of work ends.
+     */
+    Optional<Activity> getByIdForUpdate(int id);
+
+    List<Activity> getActivitiesByDestinationId(int destinationId);
+
+    List<Activity> getActivitiesWithAvailableSpace();
+
+    int generateActivityId();
+}
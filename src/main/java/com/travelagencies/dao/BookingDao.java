@@ -1,10 +1,26 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
 import com.travelagencies.enums.BookingStatus;
 import com.travelagencies.models.Booking;
 
+import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Provides methods to access and manage booking records in the database.
@@ -12,11 +28,50 @@ import java.util.Optional;
  * operations related to booking records, including creation, retrieval, updating,
  * and deletion of booking records.
  */
-public class BookingDao implements Repository<Booking> {
+public class BookingDao implements BookingRepository {
 
-    private final String jdbcUrl = "jdbc:mysql://localhost:3306/travel_db";
-    private final String jdbcUsername = "username";
-    private final String jdbcPassword = "password";
+    /**
+     * Rows a booking stream asks the driver for per round trip. MySQL only honours it with useCursorFetch=true,
+     * and otherwise reads the whole result into memory when the stream is opened.
+     */
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+    private final IdGenerator idGenerator;
+    private final ExistenceFilter existenceFilter;
+
+    /**
+     * Constructs a BookingDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource The connection pool, which also leases the new ids; not a
+     *                   transaction-aware DataSource, which the IdGenerator rejects.
+     */
+    public BookingDao(DataSource dataSource) {
+        this(dataSource, new IdGenerator(dataSource));
+    }
+
+    /**
+     * Constructs a BookingDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new booking ids are taken from.
+     */
+    public BookingDao(DataSource dataSource, IdGenerator idGenerator) {
+        this(dataSource, idGenerator, ExistenceFilter.disabled());
+    }
+
+    /**
+     * Constructs a BookingDao that answers lookups of ids known not to exist without querying the database.
+     *
+     * @param dataSource      The (typically pooled) source of database connections.
+     * @param idGenerator     The generator that new booking ids are taken from.
+     * @param existenceFilter The filter of booking ids, kept up to date by the save paths.
+     */
+    public BookingDao(DataSource dataSource, IdGenerator idGenerator, ExistenceFilter existenceFilter) {
+        this.dataSource = dataSource;
+        this.idGenerator = idGenerator;
+        this.existenceFilter = existenceFilter;
+    }
 
     /**
      * Saves a new booking record to the database.
@@ -25,7 +80,7 @@ public class BookingDao implements Repository<Booking> {
      */
     @Override
     public void save(Booking booking) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String insertBookingQuery = "INSERT INTO bookings (booking_id, passenger_id, destination_id, activity_id, " +
                     "booking_status) VALUES (?, ?, ?, ?, ?)";
 
@@ -38,6 +93,9 @@ public class BookingDao implements Repository<Booking> {
                 statement.setString(i++, booking.getBookingStatus().name());
                 statement.executeUpdate();
             }
+
+            existenceFilter.recordInserted(booking.getBookingId());
+            TransactionManager.afterCommit(connection, () -> existenceFilter.recordPresent(booking.getBookingId()));
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -50,7 +108,7 @@ public class BookingDao implements Repository<Booking> {
      */
     @Override
     public void update(Booking booking) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String updateBookingQuery = "UPDATE bookings SET passenger_id = ?, destination_id = ?, " +
                     "activity_id = ?, booking_status = ? WHERE booking_id = ?";
 
@@ -75,7 +133,7 @@ public class BookingDao implements Repository<Booking> {
      */
     @Override
     public void delete(Booking booking) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String deleteBookingQuery = "DELETE FROM bookings WHERE booking_id = ?";
 
             try (PreparedStatement statement = connection.prepareStatement(deleteBookingQuery)) {
@@ -88,6 +146,179 @@ public class BookingDao implements Repository<Booking> {
         }
     }
 
+    /**
+     * Saves new booking records to the database using batched inserts.
+     *
+     * @param bookings The booking objects to be saved.
+     */
+    @Override
+    public void saveAll(Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String insertBookingQuery = "INSERT INTO bookings (booking_id, passenger_id, destination_id, activity_id, " +
+                    "booking_status) VALUES (?, ?, ?, ?, ?)";
+
+            try (PreparedStatement statement = connection.prepareStatement(insertBookingQuery)) {
+                JdbcBatch.execute(statement, bookings, JdbcBatch.DEFAULT_BATCH_SIZE, (batch, booking) -> {
+                    int i = 1;
+                    batch.setInt(i++, booking.getBookingId());
+                    batch.setInt(i++, booking.getPassengerId());
+                    batch.setInt(i++, booking.getDestinationId());
+                    batch.setInt(i++, booking.getActivityId());
+                    batch.setString(i++, booking.getBookingStatus().name());
+                });
+            }
+
+            for (Booking booking : bookings) {
+                existenceFilter.recordInserted(booking.getBookingId());
+            }
+            TransactionManager.afterCommit(connection, () -> {
+                for (Booking booking : bookings) {
+                    existenceFilter.recordPresent(booking.getBookingId());
+                }
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Updates existing booking records in the database using batched updates.
+     *
+     * @param bookings The updated booking objects.
+     */
+    @Override
+    public void updateAll(Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String updateBookingQuery = "UPDATE bookings SET passenger_id = ?, destination_id = ?, " +
+                    "activity_id = ?, booking_status = ? WHERE booking_id = ?";
+
+            try (PreparedStatement statement = connection.prepareStatement(updateBookingQuery)) {
+                JdbcBatch.execute(statement, bookings, JdbcBatch.DEFAULT_BATCH_SIZE, (batch, booking) -> {
+                    int i = 1;
+                    batch.setInt(i++, booking.getPassengerId());
+                    batch.setInt(i++, booking.getDestinationId());
+                    batch.setInt(i++, booking.getActivityId());
+                    batch.setString(i++, booking.getBookingStatus().name());
+                    batch.setInt(i++, booking.getBookingId());
+                });
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deletes booking records from the database.
+     *
+     * @param bookings The booking records to be deleted.
+     */
+    @Override
+    public void deleteAll(Collection<Booking> bookings) {
+        List<Integer> bookingIds = new ArrayList<>();
+        for (Booking booking : bookings) {
+            bookingIds.add(booking.getBookingId());
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM bookings WHERE booking_id IN (%s)", bookingIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retrieves booking records by their unique identifiers from the database.
+     *
+     * @param ids The unique identifiers of the bookings to retrieve.
+     * @return The found bookings keyed by bookingId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Booking> getByIds(Collection<Integer> ids) {
+        return getByIds(ids, false);
+    }
+
+    /**
+     * Retrieves a booking record and locks its row until the surrounding transaction ends.
+     * Only meaningful inside a {@link com.travelagencies.db.TransactionManager} unit of work.
+     *
+     * @param id The unique identifier of the booking to retrieve and lock.
+     * @return An Optional containing the Booking object if found, or an empty Optional otherwise.
+     */
+    @Override
+    public Optional<Booking> getByIdForUpdate(int id) {
+        return Optional.ofNullable(getByIds(List.of(id), true).get(id));
+    }
+
+    /**
+     * Retrieves booking records and locks their rows, chunk by chunk in ascending id order, until the surrounding
+     * transaction ends. Only meaningful inside a {@link com.travelagencies.db.TransactionManager} unit of work.
+     *
+     * @param ids The unique identifiers of the bookings to retrieve and lock.
+     * @return The found bookings keyed by bookingId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Booking> getByIdsForUpdate(Collection<Integer> ids) {
+        Map<Integer, Booking> locked = getByIds(new TreeSet<>(ids), true);
+        Map<Integer, Booking> bookings = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            Booking booking = locked.get(id);
+            if (booking != null) {
+                bookings.put(id, booking);
+            }
+        }
+        return bookings;
+    }
+
+    private Map<Integer, Booking> getByIds(Collection<Integer> ids, boolean forUpdate) {
+        Map<Integer, Booking> bookings = new LinkedHashMap<>();
+        List<Integer> possiblyPresentIds = existenceFilter.retainPossiblyPresent(ids);
+        if (possiblyPresentIds.isEmpty()) {
+            return bookings;
+        }
+
+        long lookupStarted = existenceFilter.lookupStarted();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<Integer> chunk : JdbcBatch.chunkIds(possiblyPresentIds)) {
+                String getBookingsByIdsQuery = "SELECT booking_id, passenger_id, destination_id, activity_id, " +
+                        "booking_status FROM bookings WHERE booking_id IN (" + JdbcBatch.placeholders(chunk.size()) +
+                        ")" + (forUpdate ? " ORDER BY booking_id FOR UPDATE" : "");
+
+                try (PreparedStatement statement = connection.prepareStatement(getBookingsByIdsQuery)) {
+                    JdbcBatch.bindIds(statement, 1, chunk);
+
+                    Map<Integer, Booking> found = new HashMap<>();
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            Booking booking = readBooking(resultSet);
+                            found.put(booking.getBookingId(), booking);
+                        }
+                    }
+
+                    for (Integer id : chunk) {
+                        if (found.containsKey(id)) {
+                            bookings.put(id, found.get(id));
+                        } else {
+                            existenceFilter.recordAbsent(id, lookupStarted);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return bookings;
+    }
+
     /**
      * Retrieves a booking record by its unique identifier from the database.
      *
@@ -96,7 +327,13 @@ public class BookingDao implements Repository<Booking> {
      */
     @Override
     public Optional<Booking> getById(int id) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        if (existenceFilter.isKnownAbsent(id)) {
+            return Optional.empty();
+        }
+
+        long lookupStarted = existenceFilter.lookupStarted();
+
+        try (Connection connection = dataSource.getConnection()) {
             String getBookingByIdQuery = "SELECT passenger_id, destination_id, activity_id, booking_status " +
                     "FROM bookings WHERE booking_id = ?";
 
@@ -121,6 +358,8 @@ public class BookingDao implements Repository<Booking> {
                         return Optional.of(booking);
                     }
                 }
+
+                existenceFilter.recordAbsent(id, lookupStarted);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -129,31 +368,136 @@ public class BookingDao implements Repository<Booking> {
         return Optional.empty();
     }
 
+    /**
+     * Streams the bookings of an activity that are not cancelled, in ascending booking id order.
+     * The rows are read from a cursor on a connection of the stream's own, which is given back when the stream
+     * is closed. Inside a transaction the stream reads on the transaction's connection instead.
+     *
+     * @param activityId     The unique identifier of the activity.
+     * @param afterBookingId Only bookings with a higher id are returned, 0 for all of them.
+     * @return The bookings, which must be closed.
+     * @throws IllegalStateException If the bookings cannot be read.
+     */
+    @Override
+    public Stream<Booking> streamNotCancelledByActivityId(int activityId, int afterBookingId) {
+        return streamNotCancelled("activity_id", activityId, afterBookingId);
+    }
+
+    /**
+     * Streams the bookings at a destination that are not cancelled, in ascending booking id order.
+     * The rows are read from a cursor on a connection of the stream's own, which is given back when the stream
+     * is closed. Inside a transaction the stream reads on the transaction's connection instead.
+     *
+     * @param destinationId  The unique identifier of the destination.
+     * @param afterBookingId Only bookings with a higher id are returned, 0 for all of them.
+     * @return The bookings, which must be closed.
+     * @throws IllegalStateException If the bookings cannot be read.
+     */
+    @Override
+    public Stream<Booking> streamNotCancelledByDestinationId(int destinationId, int afterBookingId) {
+        return streamNotCancelled("destination_id", destinationId, afterBookingId);
+    }
+
+    private Stream<Booking> streamNotCancelled(String column, int id, int afterBookingId) {
+        String streamBookingsQuery = "SELECT booking_id, passenger_id, destination_id, activity_id, booking_status " +
+                "FROM bookings WHERE " + column + " = ? AND booking_id > ? AND booking_status <> ? ORDER BY booking_id";
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = dataSource.getConnection();
+            statement = connection.prepareStatement(streamBookingsQuery, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            int i = 1;
+            statement.setInt(i++, id);
+            statement.setInt(i++, afterBookingId);
+            statement.setString(i++, BookingStatus.CANCELLED.name());
+
+            BookingCursor cursor = new BookingCursor(connection, statement, statement.executeQuery());
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            BookingCursor.closeAll(connection, statement, null);
+            throw new IllegalStateException(String.format("Could not stream the bookings with %s %s", column, id), e);
+        }
+    }
+
+    private static Booking readBooking(ResultSet resultSet) throws SQLException {
+        return Booking.builder()
+                .bookingId(resultSet.getInt("booking_id"))
+                .passengerId(resultSet.getInt("passenger_id"))
+                .destinationId(resultSet.getInt("destination_id"))
+                .activityId(resultSet.getInt("activity_id"))
+                .bookingStatus(BookingStatus.valueOf(resultSet.getString("booking_status")))
+                .build();
+    }
+
     /**
      * Generates a unique booking ID for a new booking record.
-     * This method generates a new unique identifier for booking records. The generated
-     * ID can be used when creating new booking objects to ensure that each booking has
-     * a distinct identifier.
+     * Ids are served from a block leased by the {@link IdGenerator}, so only one call per block
+     * reaches the database.
      *
-     * @return A unique bookingId as an integer.
+     * @return A unique booking ID as an integer.
      */
+    @Override
     public int generateBookingId() {
-        int generatedBookingId = -1;
+        return idGenerator.nextId("bookings", "booking_id");
+    }
 
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String sql = "INSERT INTO bookings DEFAULT VALUES RETURNING booking_id";
+    /**
+     * Reads one booking per {@link #tryAdvance} from an open result set, and owns the statement and connection
+     * the result set came from.
+     */
+    private static class BookingCursor extends Spliterators.AbstractSpliterator<Booking> {
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private boolean closed;
 
-                if (resultSet.next()) {
-                    generatedBookingId = resultSet.getInt("booking_id");
+        BookingCursor(Connection connection, PreparedStatement statement, ResultSet resultSet) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Booking> action) {
+            if (closed) {
+                return false;
+            }
+            try {
+                if (!resultSet.next()) {
+                    close();
+                    return false;
                 }
+                action.accept(readBooking(resultSet));
+                return true;
+            } catch (SQLException e) {
+                close();
+                throw new IllegalStateException("Could not read the next booking from the stream", e);
+            }
+        }
+
+        void close() {
+            if (!closed) {
+                closed = true;
+                closeAll(connection, statement, resultSet);
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
 
-        return generatedBookingId;
+        static void closeAll(Connection connection, Statement statement, ResultSet resultSet) {
+            for (AutoCloseable resource : new AutoCloseable[]{resultSet, statement, connection}) {
+                if (resource == null) {
+                    continue;
+                }
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+        }
     }
 }
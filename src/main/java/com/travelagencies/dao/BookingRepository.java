@@ -0,0 +1,43 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.models.Booking;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores bookings.
+ */
+public interface BookingRepository extends Repository<Booking> {
+
+    /**
+     * Retrieves a booking and locks it until the surrounding unit of work ends.
+     */
+    Optional<Booking> getByIdForUpdate(int id);
+
+    /**
+     * Retrieves bookings and locks them until the surrounding unit of work ends.
+     * Rows are locked in ascending id order, so two units of work locking overlapping sets cannot deadlock.
+     */
+    Map<Integer, Booking> getByIdsForUpdate(Collection<Integer> ids);
+
+    /**
+     * Streams the bookings of an activity that are not cancelled, in ascending booking id order.
+     * The stream reads from an open cursor and must be closed.
+     *
+     * @param afterBookingId Only bookings with a higher id are returned, 0 for all of them.
+     */
+    Stream<Booking> streamNotCancelledByActivityId(int activityId, int afterBookingId);
+
+    /**
+     * Streams the bookings at a destination that are not cancelled, in ascending booking id order.
+     * The stream reads from an open cursor and must be closed.
+     *
+     * @param afterBookingId Only bookings with a higher id are returned, 0 for all of them.
+     */
+    Stream<Booking> streamNotCancelledByDestinationId(int destinationId, int afterBookingId);
+
+    int generateBookingId();
+}
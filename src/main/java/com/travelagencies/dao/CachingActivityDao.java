@@ -0,0 +1,152 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.cache.CatalogCache;
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.models.Activity;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An {@link ActivityDao} that serves {@link #getById(int)} and {@link #getByIds(Collection)} from a
+ * {@link CatalogCache}. Writes go to the database first and then invalidate the affected cache entries, again
+ * once the unit of work they ran in has ended.
+ *
+ * Locking reads such as {@link #getByIdForUpdate(int)} and the list queries always go to the database.
+ * Reserving or releasing seats evicts the activity too, since the cached copy includes its capacity. Activities
+ * that are being booked therefore rarely stay cached, and the booking path's {@link #getById(int)} of them mostly
+ * goes to the database: the cache pays off for catalog reads of activities, not for bookings.
+ */
+public class CachingActivityDao extends ActivityDao {
+
+    private final DataSource dataSource;
+    private final CatalogCache catalogCache;
+
+    /**
+     * Constructs a CachingActivityDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource   The connection pool, which also leases the new ids; not a transaction-aware DataSource.
+     * @param catalogCache The cache shared with the other catalog DAOs.
+     */
+    public CachingActivityDao(DataSource dataSource, CatalogCache catalogCache) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Constructs a CachingActivityDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource   The (typically pooled) source of database connections.
+     * @param idGenerator  The generator that new activity ids are taken from.
+     * @param catalogCache The cache shared with the other catalog DAOs.
+     */
+    public CachingActivityDao(DataSource dataSource, IdGenerator idGenerator, CatalogCache catalogCache) {
+        super(dataSource, idGenerator);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Constructs a CachingActivityDao whose cache misses are first checked against an ExistenceFilter.
+     *
+     * @param dataSource      The (typically pooled) source of database connections.
+     * @param idGenerator     The generator that new activity ids are taken from.
+     * @param existenceFilter The filter of activity ids, kept up to date by the save paths.
+     * @param catalogCache    The cache shared with the other catalog DAOs.
+     */
+    public CachingActivityDao(DataSource dataSource, IdGenerator idGenerator, ExistenceFilter existenceFilter,
+                              CatalogCache catalogCache) {
+        super(dataSource, idGenerator, existenceFilter);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public void save(Activity activity) {
+        super.save(activity);
+        invalidate(() -> catalogCache.activitiesChanged(List.of(activity)));
+    }
+
+    @Override
+    public void update(Activity activity) {
+        super.update(activity);
+        invalidate(() -> catalogCache.activitiesChanged(List.of(activity)));
+    }
+
+    @Override
+    public boolean reserveCapacity(int activityId, int seats) {
+        boolean reserved = super.reserveCapacity(activityId, seats);
+        if (reserved) {
+            invalidate(() -> catalogCache.getActivities().invalidate(activityId));
+        }
+        return reserved;
+    }
+
+    @Override
+    public boolean releaseCapacity(int activityId, int seats) {
+        boolean released = super.releaseCapacity(activityId, seats);
+        if (released) {
+            invalidate(() -> catalogCache.getActivities().invalidate(activityId));
+        }
+        return released;
+    }
+
+    @Override
+    public void updateCosts(Map<Integer, Double> costs) {
+        super.updateCosts(costs);
+        invalidate(() -> catalogCache.activityIdsChanged(costs.keySet()));
+    }
+
+    @Override
+    public void updateCapacities(Map<Integer, Integer> capacities) {
+        super.updateCapacities(capacities);
+        invalidate(() -> catalogCache.activityIdsChanged(capacities.keySet()));
+    }
+
+    @Override
+    public void delete(Activity activity) {
+        super.delete(activity);
+        invalidate(() -> catalogCache.activitiesChanged(List.of(activity)));
+    }
+
+    @Override
+    public void saveAll(Collection<Activity> activities) {
+        super.saveAll(activities);
+        invalidate(() -> catalogCache.activitiesChanged(activities));
+    }
+
+    @Override
+    public void updateAll(Collection<Activity> activities) {
+        super.updateAll(activities);
+        invalidate(() -> catalogCache.activitiesChanged(activities));
+    }
+
+    @Override
+    public void deleteAll(Collection<Activity> activities) {
+        super.deleteAll(activities);
+        invalidate(() -> catalogCache.activitiesChanged(activities));
+    }
+
+    @Override
+    public Map<Integer, Activity> getByIds(Collection<Integer> ids) {
+        return catalogCache.getActivities().getAll(ids, super::getByIds);
+    }
+
+    @Override
+    public Optional<Activity> getById(int id) {
+        return catalogCache.getActivities().get(id, super::getById);
+    }
+
+    /**
+     * Evicts now and, inside a unit of work, again once it has committed or rolled back.
+     */
+    private void invalidate(Runnable invalidation) {
+        TransactionManager.nowAndAfterCompletion(dataSource, invalidation);
+    }
+}
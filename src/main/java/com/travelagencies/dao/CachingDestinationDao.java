@@ -0,0 +1,91 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.cache.CatalogCache;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.models.Destination;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A {@link DestinationDao} that serves {@link #getById(int)} and {@link #getByIds(Collection)} from a
+ * {@link CatalogCache}. Updates and deletes go to the database first and then invalidate the destination
+ * together with the cached activities and travel packages that embed it.
+ */
+public class CachingDestinationDao extends DestinationDao {
+
+    private final DataSource dataSource;
+    private final CatalogCache catalogCache;
+
+    /**
+     * Constructs a CachingDestinationDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource   The connection pool, which also leases the new ids; not a transaction-aware DataSource.
+     * @param catalogCache The cache shared with the other catalog DAOs.
+     */
+    public CachingDestinationDao(DataSource dataSource, CatalogCache catalogCache) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Constructs a CachingDestinationDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource   The (typically pooled) source of database connections.
+     * @param idGenerator  The generator that new destination ids are taken from.
+     * @param catalogCache The cache shared with the other catalog DAOs.
+     */
+    public CachingDestinationDao(DataSource dataSource, IdGenerator idGenerator, CatalogCache catalogCache) {
+        super(dataSource, idGenerator);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public void update(Destination destination) {
+        super.update(destination);
+        invalidate(() -> catalogCache.destinationsChanged(List.of(destination.getDestinationId())));
+    }
+
+    @Override
+    public void delete(Destination destination) {
+        super.delete(destination);
+        invalidate(() -> catalogCache.destinationsChanged(List.of(destination.getDestinationId())));
+    }
+
+    @Override
+    public void updateAll(Collection<Destination> destinations) {
+        super.updateAll(destinations);
+        List<Integer> ids = destinations.stream().map(Destination::getDestinationId).toList();
+        invalidate(() -> catalogCache.destinationsChanged(ids));
+    }
+
+    @Override
+    public void deleteAll(Collection<Destination> destinations) {
+        super.deleteAll(destinations);
+        List<Integer> ids = destinations.stream().map(Destination::getDestinationId).toList();
+        invalidate(() -> catalogCache.destinationsChanged(ids));
+    }
+
+    @Override
+    public Map<Integer, Destination> getByIds(Collection<Integer> ids) {
+        return catalogCache.getDestinations().getAll(ids, super::getByIds);
+    }
+
+    @Override
+    public Optional<Destination> getById(int id) {
+        return catalogCache.getDestinations().get(id, super::getById);
+    }
+
+    /**
+     * Evicts now and, inside a unit of work, again once it has committed or rolled back.
+     */
+    private void invalidate(Runnable invalidation) {
+        TransactionManager.nowAndAfterCompletion(dataSource, invalidation);
+    }
+}
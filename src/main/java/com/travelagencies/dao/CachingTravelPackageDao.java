@@ -0,0 +1,91 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.cache.CatalogCache;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.models.TravelPackage;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A {@link TravelPackageDao} that serves {@link #getById(int)} and {@link #getByIds(Collection)} from a
+ * {@link CatalogCache}, so a cached package is assembled without touching the database.
+ * Updates and deletes go to the database first and then invalidate the package.
+ */
+public class CachingTravelPackageDao extends TravelPackageDao {
+
+    private final DataSource dataSource;
+    private final CatalogCache catalogCache;
+
+    /**
+     * Constructs a CachingTravelPackageDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource   The connection pool, which also leases the new ids; not a transaction-aware DataSource.
+     * @param catalogCache The cache shared with the other catalog DAOs.
+     */
+    public CachingTravelPackageDao(DataSource dataSource, CatalogCache catalogCache) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    /**
+     * Constructs a CachingTravelPackageDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource   The (typically pooled) source of database connections.
+     * @param idGenerator  The generator that new package ids are taken from.
+     * @param catalogCache The cache shared with the other catalog DAOs.
+     */
+    public CachingTravelPackageDao(DataSource dataSource, IdGenerator idGenerator, CatalogCache catalogCache) {
+        super(dataSource, idGenerator);
+        this.dataSource = dataSource;
+        this.catalogCache = catalogCache;
+    }
+
+    @Override
+    public void update(TravelPackage travelPackage) {
+        super.update(travelPackage);
+        invalidate(() -> catalogCache.travelPackagesChanged(List.of(travelPackage.getPackageId())));
+    }
+
+    @Override
+    public void delete(TravelPackage travelPackage) {
+        super.delete(travelPackage);
+        invalidate(() -> catalogCache.travelPackagesChanged(List.of(travelPackage.getPackageId())));
+    }
+
+    @Override
+    public void updateAll(Collection<TravelPackage> travelPackages) {
+        super.updateAll(travelPackages);
+        List<Integer> ids = travelPackages.stream().map(TravelPackage::getPackageId).toList();
+        invalidate(() -> catalogCache.travelPackagesChanged(ids));
+    }
+
+    @Override
+    public void deleteAll(Collection<TravelPackage> travelPackages) {
+        super.deleteAll(travelPackages);
+        List<Integer> ids = travelPackages.stream().map(TravelPackage::getPackageId).toList();
+        invalidate(() -> catalogCache.travelPackagesChanged(ids));
+    }
+
+    @Override
+    public Map<Integer, TravelPackage> getByIds(Collection<Integer> ids) {
+        return catalogCache.getTravelPackages().getAll(ids, super::getByIds);
+    }
+
+    @Override
+    public Optional<TravelPackage> getById(int id) {
+        return catalogCache.getTravelPackages().get(id, super::getById);
+    }
+
+    /**
+     * Evicts now and, inside a unit of work, again once it has committed or rolled back.
+     */
+    private void invalidate(Runnable invalidation) {
+        TransactionManager.nowAndAfterCompletion(dataSource, invalidation);
+    }
+}
@@ -1,8 +1,16 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.db.IdGenerator;
 import com.travelagencies.models.Destination;
 
+import javax.sql.DataSource;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -12,11 +20,31 @@ import java.util.Optional;
  * operations related to destination records, including creation, retrieval, updating,
  * and deletion of destination records.
  */
-public class DestinationDao implements Repository<Destination> {
+public class DestinationDao implements DestinationRepository {
 
-    private final String jdbcUrl = "jdbc:mysql://localhost:3306/travel_db";
-    private final String jdbcUsername = "username";
-    private final String jdbcPassword = "password";
+    private final DataSource dataSource;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Constructs a DestinationDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource The connection pool, which also leases the new ids; not a
+     *                   transaction-aware DataSource, which the IdGenerator rejects.
+     */
+    public DestinationDao(DataSource dataSource) {
+        this(dataSource, new IdGenerator(dataSource));
+    }
+
+    /**
+     * Constructs a DestinationDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new destination ids are taken from.
+     */
+    public DestinationDao(DataSource dataSource, IdGenerator idGenerator) {
+        this.dataSource = dataSource;
+        this.idGenerator = idGenerator;
+    }
 
     /**
      * Saves a new destination record to the database.
@@ -25,7 +53,7 @@ public class DestinationDao implements Repository<Destination> {
      */
     @Override
     public void save(Destination destination) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String insertDestinationQuery = "INSERT INTO destinations (destination_id, name) VALUES (?, ?)";
 
             try (PreparedStatement preparedStatement = connection.prepareStatement(insertDestinationQuery)) {
@@ -46,7 +74,7 @@ public class DestinationDao implements Repository<Destination> {
      */
     @Override
     public void update(Destination destination) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String updateDestinationQuery = "UPDATE destinations SET name = ? WHERE destination_id = ?";
 
             try (PreparedStatement preparedStatement = connection.prepareStatement(updateDestinationQuery)) {
@@ -67,7 +95,7 @@ public class DestinationDao implements Repository<Destination> {
      */
     @Override
     public void delete(Destination destination) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String deleteDestinationQuery = "DELETE FROM destinations WHERE destination_id = ?";
 
             try (PreparedStatement preparedStatement = connection.prepareStatement(deleteDestinationQuery)) {
@@ -80,6 +108,123 @@ public class DestinationDao implements Repository<Destination> {
         }
     }
 
+    /**
+     * Saves new destination records to the database using batched inserts.
+     *
+     * @param destinations The destination objects to be saved.
+     */
+    @Override
+    public void saveAll(Collection<Destination> destinations) {
+        if (destinations.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String insertDestinationQuery = "INSERT INTO destinations (destination_id, name) VALUES (?, ?)";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(insertDestinationQuery)) {
+                JdbcBatch.execute(preparedStatement, destinations, JdbcBatch.DEFAULT_BATCH_SIZE, (batch, destination) -> {
+                    int i = 1;
+                    batch.setInt(i++, destination.getDestinationId());
+                    batch.setString(i++, destination.getName());
+                });
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Updates existing destination records in the database using batched updates.
+     *
+     * @param destinations The updated destination objects.
+     */
+    @Override
+    public void updateAll(Collection<Destination> destinations) {
+        if (destinations.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String updateDestinationQuery = "UPDATE destinations SET name = ? WHERE destination_id = ?";
+
+            try (PreparedStatement preparedStatement = connection.prepareStatement(updateDestinationQuery)) {
+                JdbcBatch.execute(preparedStatement, destinations, JdbcBatch.DEFAULT_BATCH_SIZE, (batch, destination) -> {
+                    int i = 1;
+                    batch.setString(i++, destination.getName());
+                    batch.setInt(i++, destination.getDestinationId());
+                });
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deletes destination records from the database.
+     *
+     * @param destinations The destination objects to be deleted.
+     */
+    @Override
+    public void deleteAll(Collection<Destination> destinations) {
+        List<Integer> destinationIds = new ArrayList<>();
+        for (Destination destination : destinations) {
+            destinationIds.add(destination.getDestinationId());
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM destinations WHERE destination_id IN (%s)",
+                    destinationIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retrieves destination records by their unique identifiers from the database.
+     *
+     * @param ids The unique identifiers of the destinations to retrieve.
+     * @return The found destinations keyed by destinationId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Destination> getByIds(Collection<Integer> ids) {
+        Map<Integer, Destination> destinations = new LinkedHashMap<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<Integer> chunk : JdbcBatch.chunkIds(ids)) {
+                String selectDestinationsByIdsQuery = "SELECT destination_id, name FROM destinations " +
+                        "WHERE destination_id IN (" + JdbcBatch.placeholders(chunk.size()) + ")";
+
+                try (PreparedStatement preparedStatement = connection.prepareStatement(selectDestinationsByIdsQuery)) {
+                    JdbcBatch.bindIds(preparedStatement, 1, chunk);
+
+                    Map<Integer, Destination> found = new HashMap<>();
+                    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                        while (resultSet.next()) {
+                            int destinationId = resultSet.getInt("destination_id");
+                            Destination destination = Destination.builder()
+                                    .destinationId(destinationId)
+                                    .name(resultSet.getString("name"))
+                                    .build();
+
+                            found.put(destinationId, destination);
+                        }
+                    }
+
+                    for (Integer id : chunk) {
+                        if (found.containsKey(id)) {
+                            destinations.put(id, found.get(id));
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return destinations;
+    }
+
     /**
      * Retrieves a destination record by its unique identifier from the database.
      *
@@ -88,7 +233,7 @@ public class DestinationDao implements Repository<Destination> {
      */
     @Override
     public Optional<Destination> getById(int id) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String selectDestinationByIdQuery = "SELECT name FROM destinations WHERE destination_id = ?";
 
             try (PreparedStatement preparedStatement = connection.prepareStatement(selectDestinationByIdQuery)) {
@@ -116,29 +261,13 @@ public class DestinationDao implements Repository<Destination> {
 
     /**
      * Generates a unique destination ID for a new destination record.
-     * This method generates a new unique identifier for destination records. The generated
-     * ID can be used when creating new destination objects to ensure that each destination
-     * has a distinct identifier.
+     * Ids are served from a block leased by the {@link IdGenerator}, so only one call per block
+     * reaches the database.
      *
      * @return A unique destination ID as an integer.
      */
+    @Override
     public int generateDestinationId() {
-        int generatedDestinationId = -1;
-
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String sql = "INSERT INTO destinations DEFAULT VALUES RETURNING destination_id";
-
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
-
-                if (resultSet.next()) {
-                    generatedDestinationId = resultSet.getInt("destination_id");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-
-        return generatedDestinationId;
+        return idGenerator.nextId("destinations", "destination_id");
     }
 }
@@ -0,0 +1,11 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.models.Destination;
+
+/**
+ * Stores destinations.
+ */
+public interface DestinationRepository extends Repository<Destination> {
+
+    int generateDestinationId();
+}
@@ -0,0 +1,79 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.metrics.OperationMetrics;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Activity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An {@link InstrumentedRepository} for activities, which also records the capacity and list queries.
+ */
+public class InstrumentedActivityRepository extends InstrumentedRepository<Activity> implements ActivityRepository {
+
+    private final ActivityRepository delegate;
+
+    private final OperationMetrics reserveCapacity;
+    private final OperationMetrics releaseCapacity;
+    private final OperationMetrics updateCosts;
+    private final OperationMetrics updateCapacities;
+    private final OperationMetrics getByIdForUpdate;
+    private final OperationMetrics getActivitiesByDestinationId;
+    private final OperationMetrics getActivitiesWithAvailableSpace;
+    private final OperationMetrics generateActivityId;
+
+    public InstrumentedActivityRepository(ActivityRepository delegate, RepositoryMetrics metrics) {
+        super(delegate, metrics, "activity");
+        this.delegate = delegate;
+        this.reserveCapacity = operation("reserveCapacity");
+        this.releaseCapacity = operation("releaseCapacity");
+        this.updateCosts = operation("updateCosts");
+        this.updateCapacities = operation("updateCapacities");
+        this.getByIdForUpdate = operation("getByIdForUpdate");
+        this.getActivitiesByDestinationId = operation("getActivitiesByDestinationId");
+        this.getActivitiesWithAvailableSpace = operation("getActivitiesWithAvailableSpace");
+        this.generateActivityId = operation("generateActivityId");
+    }
+
+    @Override
+    public boolean reserveCapacity(int activityId, int seats) {
+        return record(reserveCapacity, () -> delegate.reserveCapacity(activityId, seats), reserved -> reserved ? 1 : 0);
+    }
+
+    @Override
+    public boolean releaseCapacity(int activityId, int seats) {
+        return record(releaseCapacity, () -> delegate.releaseCapacity(activityId, seats), released -> released ? 1 : 0);
+    }
+
+    @Override
+    public void updateCosts(Map<Integer, Double> costs) {
+        record(updateCosts, () -> delegate.updateCosts(costs), costs.size());
+    }
+
+    @Override
+    public void updateCapacities(Map<Integer, Integer> capacities) {
+        record(updateCapacities, () -> delegate.updateCapacities(capacities), capacities.size());
+    }
+
+    @Override
+    public Optional<Activity> getByIdForUpdate(int id) {
+        return record(getByIdForUpdate, () -> delegate.getByIdForUpdate(id), InstrumentedRepository::rows);
+    }
+
+    @Override
+    public List<Activity> getActivitiesByDestinationId(int destinationId) {
+        return record(getActivitiesByDestinationId, () -> delegate.getActivitiesByDestinationId(destinationId), List::size);
+    }
+
+    @Override
+    public List<Activity> getActivitiesWithAvailableSpace() {
+        return record(getActivitiesWithAvailableSpace, delegate::getActivitiesWithAvailableSpace, List::size);
+    }
+
+    @Override
+    public int generateActivityId() {
+        return record(generateActivityId, delegate::generateActivityId, id -> 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.metrics.OperationMetrics;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Booking;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * An {@link InstrumentedRepository} for bookings, which also records id generation, locking reads and opening
+ * booking streams. A stream is recorded when it is opened, so the rows it reads later are not counted.
+ */
+public class InstrumentedBookingRepository extends InstrumentedRepository<Booking> implements BookingRepository {
+
+    private final BookingRepository delegate;
+
+    private final OperationMetrics getByIdForUpdate;
+    private final OperationMetrics getByIdsForUpdate;
+    private final OperationMetrics streamNotCancelledByActivityId;
+    private final OperationMetrics streamNotCancelledByDestinationId;
+    private final OperationMetrics generateBookingId;
+
+    public InstrumentedBookingRepository(BookingRepository delegate, RepositoryMetrics metrics) {
+        super(delegate, metrics, "booking");
+        this.delegate = delegate;
+        this.getByIdForUpdate = operation("getByIdForUpdate");
+        this.getByIdsForUpdate = operation("getByIdsForUpdate");
+        this.streamNotCancelledByActivityId = operation("streamNotCancelledByActivityId");
+        this.streamNotCancelledByDestinationId = operation("streamNotCancelledByDestinationId");
+        this.generateBookingId = operation("generateBookingId");
+    }
+
+    @Override
+    public Optional<Booking> getByIdForUpdate(int id) {
+        return record(getByIdForUpdate, () -> delegate.getByIdForUpdate(id), InstrumentedRepository::rows);
+    }
+
+    @Override
+    public Map<Integer, Booking> getByIdsForUpdate(Collection<Integer> ids) {
+        return record(getByIdsForUpdate, () -> delegate.getByIdsForUpdate(ids), Map::size);
+    }
+
+    @Override
+    public Stream<Booking> streamNotCancelledByActivityId(int activityId, int afterBookingId) {
+        return record(streamNotCancelledByActivityId,
+                () -> delegate.streamNotCancelledByActivityId(activityId, afterBookingId), bookings -> 0);
+    }
+
+    @Override
+    public Stream<Booking> streamNotCancelledByDestinationId(int destinationId, int afterBookingId) {
+        return record(streamNotCancelledByDestinationId,
+                () -> delegate.streamNotCancelledByDestinationId(destinationId, afterBookingId), bookings -> 0);
+    }
+
+    @Override
+    public int generateBookingId() {
+        return record(generateBookingId, delegate::generateBookingId, id -> 0);
+    }
+}
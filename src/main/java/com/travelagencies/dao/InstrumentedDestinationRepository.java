@@ -0,0 +1,27 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.metrics.OperationMetrics;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Destination;
+
+/**
+ * An {@link InstrumentedRepository} for destinations, which also records id generation.
+ */
+public class InstrumentedDestinationRepository extends InstrumentedRepository<Destination>
+        implements DestinationRepository {
+
+    private final DestinationRepository delegate;
+
+    private final OperationMetrics generateDestinationId;
+
+    public InstrumentedDestinationRepository(DestinationRepository delegate, RepositoryMetrics metrics) {
+        super(delegate, metrics, "destination");
+        this.delegate = delegate;
+        this.generateDestinationId = operation("generateDestinationId");
+    }
+
+    @Override
+    public int generateDestinationId() {
+        return record(generateDestinationId, delegate::generateDestinationId, id -> 0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.metrics.OperationMetrics;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Passenger;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An {@link InstrumentedRepository} for passengers. Lookups with {@link PassengerFetchPlan#WITH_BOOKINGS} are
+ * recorded as their own operations, e.g. {@code getById[WITH_BOOKINGS]}, since they cost a second query.
+ * The rows of a lookup count passengers, not their bookings.
+ */
+public class InstrumentedPassengerRepository extends InstrumentedRepository<Passenger> implements PassengerRepository {
+
+    private final PassengerRepository delegate;
+
+    private final Map<PassengerFetchPlan, OperationMetrics> getByIdByPlan = new EnumMap<>(PassengerFetchPlan.class);
+    private final Map<PassengerFetchPlan, OperationMetrics> getByIdsByPlan = new EnumMap<>(PassengerFetchPlan.class);
+    private final Map<PassengerFetchPlan, OperationMetrics> getByIdForUpdateByPlan =
+            new EnumMap<>(PassengerFetchPlan.class);
+    private final Map<PassengerFetchPlan, OperationMetrics> getByIdsForUpdateByPlan =
+            new EnumMap<>(PassengerFetchPlan.class);
+    private final OperationMetrics unlinkBookings;
+    private final OperationMetrics generatePassengerId;
+
+    public InstrumentedPassengerRepository(PassengerRepository delegate, RepositoryMetrics metrics) {
+        super(delegate, metrics, "passenger");
+        this.delegate = delegate;
+        for (PassengerFetchPlan fetchPlan : PassengerFetchPlan.values()) {
+            getByIdByPlan.put(fetchPlan, operation(operationName("getById", fetchPlan)));
+            getByIdsByPlan.put(fetchPlan, operation(operationName("getByIds", fetchPlan)));
+            getByIdForUpdateByPlan.put(fetchPlan, operation(operationName("getByIdForUpdate", fetchPlan)));
+            getByIdsForUpdateByPlan.put(fetchPlan, operation(operationName("getByIdsForUpdate", fetchPlan)));
+        }
+        this.unlinkBookings = operation("unlinkBookings");
+        this.generatePassengerId = operation("generatePassengerId");
+    }
+
+    @Override
+    public Optional<Passenger> getById(int id, PassengerFetchPlan fetchPlan) {
+        return record(getByIdByPlan.get(fetchPlan), () -> delegate.getById(id, fetchPlan), InstrumentedRepository::rows);
+    }
+
+    @Override
+    public Map<Integer, Passenger> getByIds(Collection<Integer> ids, PassengerFetchPlan fetchPlan) {
+        return record(getByIdsByPlan.get(fetchPlan), () -> delegate.getByIds(ids, fetchPlan), Map::size);
+    }
+
+    @Override
+    public Optional<Passenger> getByIdForUpdate(int id) {
+        return record(getByIdForUpdateByPlan.get(PassengerFetchPlan.SHALLOW), () -> delegate.getByIdForUpdate(id),
+                InstrumentedRepository::rows);
+    }
+
+    @Override
+    public Optional<Passenger> getByIdForUpdate(int id, PassengerFetchPlan fetchPlan) {
+        return record(getByIdForUpdateByPlan.get(fetchPlan), () -> delegate.getByIdForUpdate(id, fetchPlan),
+                InstrumentedRepository::rows);
+    }
+
+    @Override
+    public Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids) {
+        return record(getByIdsForUpdateByPlan.get(PassengerFetchPlan.SHALLOW), () -> delegate.getByIdsForUpdate(ids),
+                Map::size);
+    }
+
+    @Override
+    public Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids, PassengerFetchPlan fetchPlan) {
+        return record(getByIdsForUpdateByPlan.get(fetchPlan), () -> delegate.getByIdsForUpdate(ids, fetchPlan),
+                Map::size);
+    }
+
+    @Override
+    public void unlinkBookings(Collection<Booking> bookings) {
+        record(unlinkBookings, () -> delegate.unlinkBookings(bookings), bookings.size());
+    }
+
+    @Override
+    public int generatePassengerId() {
+        return record(generatePassengerId, delegate::generatePassengerId, id -> 0);
+    }
+
+    /**
+     * The shallow plan keeps the plain name, so it adds up with {@link #getById(int)} and {@link #getByIds}.
+     */
+    private static String operationName(String operation, PassengerFetchPlan fetchPlan) {
+        return fetchPlan == PassengerFetchPlan.SHALLOW ? operation : String.format("%s[%s]", operation, fetchPlan);
+    }
+}
@@ -0,0 +1,157 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.jfr.RepositoryEvent;
+import com.travelagencies.metrics.OperationMetrics;
+import com.travelagencies.metrics.RepositoryMetrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * A {@link Repository} decorator that records the call count, error count, rows and latency of every operation
+ * in {@link RepositoryMetrics}, under the given entity name, and emits a {@link RepositoryEvent} for every call
+ * while a Flight Recorder recording has it enabled. The subclasses instrument the extra methods of
+ * each entity's repository.
+ * <p>
+ * Only exceptions are counted as errors: a DAO that catches an {@link java.sql.SQLException} and prints it
+ * returns normally, and its call is counted as a success.
+ *
+ * @param <T> The entity type.
+ */
+public class InstrumentedRepository<T> implements Repository<T> {
+
+    private final Repository<T> delegate;
+    private final RepositoryMetrics metrics;
+    private final String entity;
+
+    private final OperationMetrics save;
+    private final OperationMetrics update;
+    private final OperationMetrics delete;
+    private final OperationMetrics getById;
+    private final OperationMetrics saveAll;
+    private final OperationMetrics updateAll;
+    private final OperationMetrics deleteAll;
+    private final OperationMetrics getByIds;
+
+    /**
+     * Constructs an InstrumentedRepository around the given repository.
+     *
+     * @param delegate The repository that does the work.
+     * @param metrics  The registry the operations are recorded in.
+     * @param entity   The entity label, e.g. {@code activity}.
+     */
+    public InstrumentedRepository(Repository<T> delegate, RepositoryMetrics metrics, String entity) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.entity = entity;
+        this.save = operation("save");
+        this.update = operation("update");
+        this.delete = operation("delete");
+        this.getById = operation("getById");
+        this.saveAll = operation("saveAll");
+        this.updateAll = operation("updateAll");
+        this.deleteAll = operation("deleteAll");
+        this.getByIds = operation("getByIds");
+    }
+
+    @Override
+    public void save(T item) {
+        record(save, () -> delegate.save(item), 1);
+    }
+
+    @Override
+    public void update(T item) {
+        record(update, () -> delegate.update(item), 1);
+    }
+
+    @Override
+    public void delete(T item) {
+        record(delete, () -> delegate.delete(item), 1);
+    }
+
+    @Override
+    public Optional<T> getById(int id) {
+        return record(getById, () -> delegate.getById(id), InstrumentedRepository::rows);
+    }
+
+    @Override
+    public void saveAll(Collection<T> items) {
+        record(saveAll, () -> delegate.saveAll(items), items.size());
+    }
+
+    @Override
+    public void updateAll(Collection<T> items) {
+        record(updateAll, () -> delegate.updateAll(items), items.size());
+    }
+
+    @Override
+    public void deleteAll(Collection<T> items) {
+        record(deleteAll, () -> delegate.deleteAll(items), items.size());
+    }
+
+    @Override
+    public Map<Integer, T> getByIds(Collection<Integer> ids) {
+        return record(getByIds, () -> delegate.getByIds(ids), Map::size);
+    }
+
+    /**
+     * Returns the recorder of one of this entity's operations.
+     */
+    protected OperationMetrics operation(String operation) {
+        return metrics.operation(entity, operation);
+    }
+
+    /**
+     * Runs and records a call that returns a result.
+     *
+     * @param operationMetrics The recorder of the operation.
+     * @param call             The call to the delegate.
+     * @param rows             Counts the rows in the result.
+     */
+    protected static <R> R record(OperationMetrics operationMetrics, Supplier<R> call, ToIntFunction<R> rows) {
+        RepositoryEvent event = new RepositoryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        R result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            operationMetrics.record(System.nanoTime() - start, 0, true);
+            event.complete(operationMetrics.getEntity(), operationMetrics.getOperation(), 0, true);
+            throw e;
+        }
+        int rowCount = rows.applyAsInt(result);
+        operationMetrics.record(System.nanoTime() - start, rowCount, false);
+        event.complete(operationMetrics.getEntity(), operationMetrics.getOperation(), rowCount, false);
+        return result;
+    }
+
+    /**
+     * Runs and records a write.
+     *
+     * @param operationMetrics The recorder of the operation.
+     * @param call             The call to the delegate.
+     * @param rows             The number of items written.
+     */
+    protected static void record(OperationMetrics operationMetrics, Runnable call, int rows) {
+        RepositoryEvent event = new RepositoryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            call.run();
+        } catch (RuntimeException | Error e) {
+            operationMetrics.record(System.nanoTime() - start, 0, true);
+            event.complete(operationMetrics.getEntity(), operationMetrics.getOperation(), 0, true);
+            throw e;
+        }
+        operationMetrics.record(System.nanoTime() - start, rows, false);
+        event.complete(operationMetrics.getEntity(), operationMetrics.getOperation(), rows, false);
+    }
+
+    protected static int rows(Optional<?> result) {
+        return result.isPresent() ? 1 : 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.metrics.OperationMetrics;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.TravelPackage;
+
+/**
+ * An {@link InstrumentedRepository} for travel packages, which also records id generation.
+ */
+public class InstrumentedTravelPackageRepository extends InstrumentedRepository<TravelPackage>
+        implements TravelPackageRepository {
+
+    private final TravelPackageRepository delegate;
+
+    private final OperationMetrics generatePackageId;
+
+    public InstrumentedTravelPackageRepository(TravelPackageRepository delegate, RepositoryMetrics metrics) {
+        super(delegate, metrics, "travel_package");
+        this.delegate = delegate;
+        this.generatePackageId = operation("generatePackageId");
+    }
+
+    @Override
+    public int generatePackageId() {
+        return record(generatePackageId, delegate::generatePackageId, id -> 0);
+    }
+}
@@ -0,0 +1,147 @@
+package com.travelagencies.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Helper for writing many rows through one reused PreparedStatement with addBatch/executeBatch,
+ * and for splitting id lookups into {@code IN (...)} lists of bounded size.
+ * Against MySQL, enable {@code rewriteBatchedStatements=true} on the JDBC URL so that each flushed batch
+ * travels as a single multi-row statement.
+ */
+final class JdbcBatch {
+
+    /**
+     * Default number of rows sent per executeBatch call.
+     */
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Maximum number of ids bound into one {@code IN (...)} list, which keeps statements well below
+     * driver and server parameter limits and lets the database reuse a small number of plan shapes.
+     */
+    static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
+    private JdbcBatch() {
+    }
+
+    /**
+     * Binds the parameters of one row onto a statement.
+     */
+    @FunctionalInterface
+    interface StatementBinder<T> {
+        void bind(PreparedStatement statement, T item) throws SQLException;
+    }
+
+    /**
+     * Adds one batch entry per item and flushes every {@code batchSize} entries.
+     *
+     * @param statement The statement to reuse for every row.
+     * @param items     The rows to write.
+     * @param batchSize The maximum number of rows per executeBatch call.
+     * @param binder    Binds one item's parameters onto the statement.
+     * @return The number of executeBatch calls, i.e. round trips, that were made.
+     */
+    static <T> int execute(PreparedStatement statement, Iterable<? extends T> items, int batchSize,
+                           StatementBinder<T> binder) throws SQLException {
+        int pending = 0;
+        int flushes = 0;
+
+        for (T item : items) {
+            binder.bind(statement, item);
+            statement.addBatch();
+
+            if (++pending == batchSize) {
+                statement.executeBatch();
+                pending = 0;
+                flushes++;
+            }
+        }
+
+        if (pending > 0) {
+            statement.executeBatch();
+            flushes++;
+        }
+
+        return flushes;
+    }
+
+    /**
+     * Splits ids into distinct, ordered chunks of at most {@link #IN_CLAUSE_CHUNK_SIZE} for {@code IN (...)} lists.
+     *
+     * @param ids The ids to look up, possibly with duplicates.
+     * @return The chunks, empty if there are no ids.
+     */
+    static List<List<Integer>> chunkIds(Collection<Integer> ids) {
+        return chunkIds(ids, IN_CLAUSE_CHUNK_SIZE);
+    }
+
+    /**
+     * Splits ids into distinct, ordered chunks of at most {@code chunkSize}.
+     *
+     * @param ids       The ids to look up, possibly with duplicates.
+     * @param chunkSize The maximum number of ids per chunk.
+     * @return The chunks, empty if there are no ids.
+     */
+    static List<List<Integer>> chunkIds(Collection<Integer> ids, int chunkSize) {
+        List<Integer> distinctIds = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            chunks.add(distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns {@code "?, ?, ..., ?"} with one placeholder per id, for use inside {@code IN (...)}.
+     */
+    static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Binds ids onto consecutive parameters starting at {@code firstIndex}.
+     *
+     * @return The index of the next unbound parameter.
+     */
+    static int bindIds(PreparedStatement statement, int firstIndex, List<Integer> ids) throws SQLException {
+        int i = firstIndex;
+        for (Integer id : ids) {
+            statement.setInt(i++, id);
+        }
+        return i;
+    }
+
+    /**
+     * Runs an update whose {@code %s} placeholder is replaced by an {@code IN} list, once per chunk of ids.
+     *
+     * @param connection    The connection to run the statements on.
+     * @param queryTemplate The statement, e.g. {@code "DELETE FROM bookings WHERE booking_id IN (%s)"}.
+     * @param ids           The ids to bind.
+     * @return The total number of affected rows.
+     */
+    static int executeUpdateInChunks(Connection connection, String queryTemplate, Collection<Integer> ids)
+            throws SQLException {
+        int affectedRows = 0;
+
+        for (List<Integer> chunk : chunkIds(ids)) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    String.format(queryTemplate, placeholders(chunk.size())))) {
+                bindIds(statement, 1, chunk);
+                affectedRows += statement.executeUpdate();
+            }
+        }
+
+        return affectedRows;
+    }
+}
@@ -1,14 +1,26 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
 import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
 import com.travelagencies.enums.PassengerType;
 import com.travelagencies.models.Booking;
+import com.travelagencies.models.ChangeTrackingList;
 import com.travelagencies.models.Passenger;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Provides methods to access and manage passenger records in the database.
@@ -16,11 +28,71 @@ import java.util.Optional;
  * operations related to passenger records, including creation, retrieval, updating,
  * and deletion of passenger records.
  */
-public class PassengerDao implements Repository<Passenger> {
+public class PassengerDao implements PassengerRepository {
 
-    private final String jdbcUrl = "jdbc:mysql://localhost:3306/travel_db";
-    private final String jdbcUsername = "username";
-    private final String jdbcPassword = "password";
+    private final DataSource dataSource;
+    private final IdGenerator idGenerator;
+    private final int batchSize;
+    private final ExistenceFilter existenceFilter;
+
+    /**
+     * Constructs a PassengerDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource The (typically pooled) source of database connections.
+     */
+    public PassengerDao(DataSource dataSource) {
+        this(dataSource, JdbcBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a PassengerDao with a custom JDBC batch size for passenger_bookings writes.
+     *
+     * @param dataSource The connection pool, which also leases the new ids; not a
+     *                   transaction-aware DataSource, which the IdGenerator rejects.
+     * @param batchSize  The maximum number of passenger_bookings rows sent per round trip.
+     */
+    public PassengerDao(DataSource dataSource, int batchSize) {
+        this(dataSource, new IdGenerator(dataSource), batchSize);
+    }
+
+    /**
+     * Constructs a PassengerDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new passenger ids are taken from.
+     */
+    public PassengerDao(DataSource dataSource, IdGenerator idGenerator) {
+        this(dataSource, idGenerator, JdbcBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a PassengerDao with a shared IdGenerator and a custom JDBC batch size for passenger_bookings writes.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new passenger ids are taken from.
+     * @param batchSize   The maximum number of passenger_bookings rows sent per round trip.
+     */
+    public PassengerDao(DataSource dataSource, IdGenerator idGenerator, int batchSize) {
+        this(dataSource, idGenerator, batchSize, ExistenceFilter.disabled());
+    }
+
+    /**
+     * Constructs a PassengerDao that answers lookups of ids known not to exist without querying the database.
+     *
+     * @param dataSource      The (typically pooled) source of database connections.
+     * @param idGenerator     The generator that new passenger ids are taken from.
+     * @param batchSize       The maximum number of passenger_bookings rows sent per round trip.
+     * @param existenceFilter The filter of passenger ids, kept up to date by the save paths.
+     */
+    public PassengerDao(DataSource dataSource, IdGenerator idGenerator, int batchSize, ExistenceFilter existenceFilter) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(String.format("batchSize must be positive: %s", batchSize));
+        }
+        this.dataSource = dataSource;
+        this.idGenerator = idGenerator;
+        this.batchSize = batchSize;
+        this.existenceFilter = existenceFilter;
+    }
 
     /**
      * Saves a new passenger record to the database.
@@ -29,7 +101,7 @@ public class PassengerDao implements Repository<Passenger> {
      */
     @Override
     public void save(Passenger passenger) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String insertPassengerQuery = "INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
                     "VALUES (?, ?, ?, ?, ?)";
             try (PreparedStatement statement = connection.prepareStatement(insertPassengerQuery)) {
@@ -41,16 +113,11 @@ public class PassengerDao implements Repository<Passenger> {
                 statement.setDouble(i++, passenger.getBalance());
                 statement.executeUpdate();
             }
+            existenceFilter.recordInserted(passenger.getPassengerId());
+            TransactionManager.afterCommit(connection, () -> existenceFilter.recordPresent(passenger.getPassengerId()));
 
-            String insertPassengerBookingsQuery = "INSERT INTO passenger_bookings (booking_id, passenger_id) VALUES (?, ?)";
-            for (Booking booking: passenger.getBookingList()) {
-                try (PreparedStatement statement = connection.prepareStatement(insertPassengerBookingsQuery)) {
-                    int i = 1;
-                    statement.setInt(i++, booking.getBookingId());
-                    statement.setInt(i++, passenger.getPassengerId());
-                    statement.executeUpdate();
-                }
-            }
+            insertBookingLinks(connection, passenger.getPassengerId(), passenger.getBookingList());
+            passenger.setBookingList(trackBookings(passenger.getBookingList()));
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -58,39 +125,26 @@ public class PassengerDao implements Repository<Passenger> {
 
     /**
      * Updates an existing passenger record in the database.
+     * Only the passenger_bookings links that were added or removed since the passenger was loaded are written.
      *
      * @param passenger The updated passenger object.
      */
     @Override
     public void update(Passenger passenger) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String updatePassengerQuery = "UPDATE passengers SET name = ?, mobile = ?, passenger_type = ?, balance = ? WHERE passenger_id = ?";
-            String deleteBookingsQuery = "DELETE FROM passenger_bookings where passenger_id = ?";
-            String insertBookingsQuery = "INSERT INTO passenger_bookings (booking_id, passenger_id) VALUES (?, ?)";
-
-            try (PreparedStatement updatePassengerStatement = connection.prepareStatement(updatePassengerQuery);
-                 PreparedStatement deleteBookingsStatement = connection.prepareStatement(deleteBookingsQuery);
-                 PreparedStatement insertBookingsStatement = connection.prepareStatement(insertBookingsQuery)) {
 
+            try (PreparedStatement updatePassengerStatement = connection.prepareStatement(updatePassengerQuery)) {
                 int i = 1;
                 updatePassengerStatement.setString(i++, passenger.getPassengerName());
                 updatePassengerStatement.setString(i++, passenger.getPassengerMobile());
                 updatePassengerStatement.setString(i++, passenger.getPassengerType().name());
                 updatePassengerStatement.setDouble(i++, passenger.getBalance());
-                updatePassengerStatement.setDouble(i++, passenger.getPassengerId());
+                updatePassengerStatement.setInt(i++, passenger.getPassengerId());
                 updatePassengerStatement.executeUpdate();
-
-                i = 1;
-                deleteBookingsStatement.setInt(i++, passenger.getPassengerId());
-                deleteBookingsStatement.executeUpdate();
-
-                i = 1;
-                for (Booking booking: passenger.getBookingList()) {
-                    insertBookingsStatement.setInt(i++, booking.getBookingId());
-                    insertBookingsStatement.setInt(i++, passenger.getPassengerId());
-                    insertBookingsStatement.executeUpdate();
-                }
             }
+
+            syncBookingLinks(connection, passenger);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -103,7 +157,7 @@ public class PassengerDao implements Repository<Passenger> {
      */
     @Override
     public void delete(Passenger passenger) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String deletePassengerQuery = "DELETE FROM passengers where passenger_id = ?";
             String deletePassengerBookingsQuery = "DELETE FROM passenger_bookings where passenger_id = ?";
 
@@ -121,18 +175,326 @@ public class PassengerDao implements Repository<Passenger> {
         }
     }
 
+    /**
+     * Saves new passenger records and their booking links using batched inserts.
+     *
+     * @param passengers The passenger objects to be saved.
+     */
+    @Override
+    public void saveAll(Collection<Passenger> passengers) {
+        if (passengers.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String insertPassengerQuery = "INSERT INTO passengers (passenger_id, name, mobile, passenger_type, balance) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement statement = connection.prepareStatement(insertPassengerQuery)) {
+                JdbcBatch.execute(statement, passengers, batchSize, (batch, passenger) -> {
+                    int i = 1;
+                    batch.setInt(i++, passenger.getPassengerId());
+                    batch.setString(i++, passenger.getPassengerName());
+                    batch.setString(i++, passenger.getPassengerMobile());
+                    batch.setString(i++, passenger.getPassengerType().name());
+                    batch.setDouble(i++, passenger.getBalance());
+                });
+            }
+
+            List<BookingLink> links = new ArrayList<>();
+            for (Passenger passenger : passengers) {
+                addLinks(links, passenger.getPassengerId(), passenger.getBookingList());
+            }
+            insertBookingLinks(connection, links);
+            for (Passenger passenger : passengers) {
+                existenceFilter.recordInserted(passenger.getPassengerId());
+            }
+            TransactionManager.afterCommit(connection, () -> {
+                for (Passenger passenger : passengers) {
+                    existenceFilter.recordPresent(passenger.getPassengerId());
+                }
+            });
+
+            for (Passenger passenger : passengers) {
+                passenger.setBookingList(trackBookings(passenger.getBookingList()));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Updates existing passenger records using batched statements.
+     * The passenger_bookings changes of all passengers are collected and written together.
+     *
+     * @param passengers The updated passenger objects.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void updateAll(Collection<Passenger> passengers) {
+        if (passengers.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String updatePassengerQuery = "UPDATE passengers SET name = ?, mobile = ?, passenger_type = ?, balance = ? WHERE passenger_id = ?";
+
+            try (PreparedStatement updatePassengerStatement = connection.prepareStatement(updatePassengerQuery)) {
+                JdbcBatch.execute(updatePassengerStatement, passengers, batchSize, (batch, passenger) -> {
+                    int i = 1;
+                    batch.setString(i++, passenger.getPassengerName());
+                    batch.setString(i++, passenger.getPassengerMobile());
+                    batch.setString(i++, passenger.getPassengerType().name());
+                    batch.setDouble(i++, passenger.getBalance());
+                    batch.setInt(i++, passenger.getPassengerId());
+                });
+            }
+
+            List<Integer> rewrittenPassengerIds = new ArrayList<>();
+            List<BookingLink> removedLinks = new ArrayList<>();
+            List<BookingLink> addedLinks = new ArrayList<>();
+
+            for (Passenger passenger : passengers) {
+                List<Booking> bookings = passenger.getBookingList();
+
+                if (bookings instanceof ChangeTrackingList) {
+                    ChangeTrackingList<Booking> trackedBookings = (ChangeTrackingList<Booking>) bookings;
+                    for (Integer bookingId : trackedBookings.getRemovedKeys()) {
+                        removedLinks.add(new BookingLink(passenger.getPassengerId(), bookingId));
+                    }
+                    addLinks(addedLinks, passenger.getPassengerId(), trackedBookings.getAddedElements());
+                } else {
+                    rewrittenPassengerIds.add(passenger.getPassengerId());
+                    addLinks(addedLinks, passenger.getPassengerId(), bookings);
+                }
+            }
+
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM passenger_bookings WHERE passenger_id IN (%s)",
+                    rewrittenPassengerIds);
+            deleteBookingLinks(connection, removedLinks);
+            insertBookingLinks(connection, addedLinks);
+
+            for (Passenger passenger : passengers) {
+                if (passenger.getBookingList() instanceof ChangeTrackingList) {
+                    ((ChangeTrackingList<Booking>) passenger.getBookingList()).markClean();
+                } else {
+                    passenger.setBookingList(trackBookings(passenger.getBookingList()));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Deletes passenger records and their booking links from the database.
+     *
+     * @param passengers The passenger objects to be deleted.
+     */
+    @Override
+    public void deleteAll(Collection<Passenger> passengers) {
+        List<Integer> passengerIds = new ArrayList<>();
+        for (Passenger passenger : passengers) {
+            passengerIds.add(passenger.getPassengerId());
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM passenger_bookings WHERE passenger_id IN (%s)",
+                    passengerIds);
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM passengers WHERE passenger_id IN (%s)",
+                    passengerIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Retrieves passenger records by their unique identifiers.
+     * The passengers' bookings are loaded lazily, see {@link PassengerFetchPlan#SHALLOW}.
+     *
+     * @param ids The unique identifiers of the passengers to retrieve.
+     * @return The found passengers keyed by passengerId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Passenger> getByIds(Collection<Integer> ids) {
+        return getByIds(ids, PassengerFetchPlan.SHALLOW);
+    }
+
+    /**
+     * Retrieves passenger records by their unique identifiers.
+     * With {@link PassengerFetchPlan#WITH_BOOKINGS} each chunk of ids costs two queries, one for the passengers
+     * and one for all of their bookings.
+     *
+     * @param ids       The unique identifiers of the passengers to retrieve.
+     * @param fetchPlan Whether the passengers' bookings are loaded now or on first read.
+     * @return The found passengers keyed by passengerId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Passenger> getByIds(Collection<Integer> ids, PassengerFetchPlan fetchPlan) {
+        return getByIds(ids, fetchPlan, false);
+    }
+
+    /**
+     * Retrieves passenger records and locks their rows until the surrounding transaction ends.
+     * Ids are locked chunk by chunk in ascending order, so concurrent group bookings over overlapping passengers
+     * wait for each other instead of deadlocking. The passengers' bookings are loaded lazily.
+     * Only meaningful inside a {@link com.travelagencies.db.TransactionManager} unit of work.
+     *
+     * @param ids The unique identifiers of the passengers to retrieve and lock.
+     * @return The found passengers keyed by passengerId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids) {
+        return getByIdsForUpdate(ids, PassengerFetchPlan.SHALLOW);
+    }
+
+    /**
+     * Retrieves passenger records and locks their rows, chunk by chunk in ascending id order, until the
+     * surrounding transaction ends. Only meaningful inside a {@link com.travelagencies.db.TransactionManager}
+     * unit of work.
+     *
+     * @param ids       The unique identifiers of the passengers to retrieve and lock.
+     * @param fetchPlan Whether the passengers' bookings are loaded now or on first read.
+     * @return The found passengers keyed by passengerId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids, PassengerFetchPlan fetchPlan) {
+        Map<Integer, Passenger> locked = getByIds(new TreeSet<>(ids), fetchPlan, true);
+        Map<Integer, Passenger> passengers = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            Passenger passenger = locked.get(id);
+            if (passenger != null) {
+                passengers.put(id, passenger);
+            }
+        }
+        return passengers;
+    }
+
+    private Map<Integer, Passenger> getByIds(Collection<Integer> ids, PassengerFetchPlan fetchPlan, boolean forUpdate) {
+        Map<Integer, Passenger> passengers = new LinkedHashMap<>();
+        List<Integer> possiblyPresentIds = existenceFilter.retainPossiblyPresent(ids);
+        if (possiblyPresentIds.isEmpty()) {
+            return passengers;
+        }
+
+        long lookupStarted = existenceFilter.lookupStarted();
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<Integer> chunk : JdbcBatch.chunkIds(possiblyPresentIds)) {
+                String getPassengersQuery = "SELECT passenger_id, name, mobile, passenger_type, balance " +
+                        "FROM passengers WHERE passenger_id IN (" + JdbcBatch.placeholders(chunk.size()) + ")" +
+                        (forUpdate ? " ORDER BY passenger_id FOR UPDATE" : "");
+
+                Map<Integer, Passenger> found = new HashMap<>();
+                try (PreparedStatement getPassengersStatement = connection.prepareStatement(getPassengersQuery)) {
+                    JdbcBatch.bindIds(getPassengersStatement, 1, chunk);
+
+                    try (ResultSet passengerResultSet = getPassengersStatement.executeQuery()) {
+                        while (passengerResultSet.next()) {
+                            int passengerId = passengerResultSet.getInt("passenger_id");
+
+                            Passenger passenger = Passenger.builder()
+                                    .passengerId(passengerId)
+                                    .passengerName(passengerResultSet.getString("name"))
+                                    .passengerMobile(passengerResultSet.getString("mobile"))
+                                    .passengerType(PassengerType.valueOf(passengerResultSet.getString("passenger_type")))
+                                    .balance(passengerResultSet.getDouble("balance"))
+                                    .build();
+
+                            found.put(passengerId, passenger);
+                        }
+                    }
+                }
+
+                for (Integer id : chunk) {
+                    if (!found.containsKey(id)) {
+                        existenceFilter.recordAbsent(id, lookupStarted);
+                    }
+                }
+
+                if (found.isEmpty()) {
+                    continue;
+                }
+
+                Map<Integer, List<Booking>> bookingsByPassenger = fetchPlan == PassengerFetchPlan.WITH_BOOKINGS
+                        ? getAllPassengerBookings(connection, new ArrayList<>(found.keySet()))
+                        : null;
+                for (Integer id : chunk) {
+                    Passenger passenger = found.get(id);
+                    if (passenger != null) {
+                        passenger.setBookingList(bookingsByPassenger != null
+                                ? trackBookings(bookingsByPassenger.getOrDefault(id, new ArrayList<>()))
+                                : lazyBookings(id));
+                        passengers.put(id, passenger);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return passengers;
+    }
+
     /**
      * Retrieves a passenger record by its unique identifier from the database.
+     * The passenger's bookings are loaded lazily, see {@link PassengerFetchPlan#SHALLOW}.
      *
      * @param id The unique identifier of the passenger to retrieve.
      * @return An Optional containing the passenger object if found, or empty if not found.
      */
     @Override
     public Optional<Passenger> getById(int id) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String getPassengerQuery = "SELECT passenger_id, name, mobile, passenger_type, balance " +
-                    "FROM passengers where passenger_id = ?";
+        return getById(id, PassengerFetchPlan.SHALLOW);
+    }
 
+    /**
+     * Retrieves a passenger record by its unique identifier from the database.
+     *
+     * @param id        The unique identifier of the passenger to retrieve.
+     * @param fetchPlan Whether the passenger's bookings are loaded now or on first read.
+     * @return An Optional containing the passenger object if found, or empty if not found.
+     */
+    @Override
+    public Optional<Passenger> getById(int id, PassengerFetchPlan fetchPlan) {
+        return getById(id, "SELECT passenger_id, name, mobile, passenger_type, balance " +
+                "FROM passengers where passenger_id = ?", fetchPlan);
+    }
+
+    /**
+     * Retrieves a passenger record and locks its row until the surrounding transaction ends.
+     * The passenger's bookings are loaded lazily, see {@link PassengerFetchPlan#SHALLOW}.
+     * Only meaningful inside a {@link com.travelagencies.db.TransactionManager} unit of work.
+     *
+     * @param id The unique identifier of the passenger to retrieve and lock.
+     * @return An Optional containing the passenger object if found, or empty if not found.
+     */
+    @Override
+    public Optional<Passenger> getByIdForUpdate(int id) {
+        return getByIdForUpdate(id, PassengerFetchPlan.SHALLOW);
+    }
+
+    /**
+     * Retrieves a passenger record and locks its row until the surrounding transaction ends.
+     * Only meaningful inside a {@link com.travelagencies.db.TransactionManager} unit of work.
+     *
+     * @param id        The unique identifier of the passenger to retrieve and lock.
+     * @param fetchPlan Whether the passenger's bookings are loaded now or on first read.
+     * @return An Optional containing the passenger object if found, or empty if not found.
+     */
+    @Override
+    public Optional<Passenger> getByIdForUpdate(int id, PassengerFetchPlan fetchPlan) {
+        return getById(id, "SELECT passenger_id, name, mobile, passenger_type, balance " +
+                "FROM passengers where passenger_id = ? FOR UPDATE", fetchPlan);
+    }
+
+    private Optional<Passenger> getById(int id, String getPassengerQuery, PassengerFetchPlan fetchPlan) {
+        if (existenceFilter.isKnownAbsent(id)) {
+            return Optional.empty();
+        }
+
+        long lookupStarted = existenceFilter.lookupStarted();
+
+        try (Connection connection = dataSource.getConnection()) {
             try (PreparedStatement getPassengerStatement = connection.prepareStatement(getPassengerQuery)) {
 
                 int i = 1;
@@ -155,11 +517,17 @@ public class PassengerDao implements Repository<Passenger> {
                                 .balance(balance)
                                 .build();
 
-                        passenger.setBookingList(getAllPassengerBookings(passengerId));
+                        if (fetchPlan == PassengerFetchPlan.WITH_BOOKINGS) {
+                            passenger.setBookingList(getAllPassengerBookings(connection, passengerId));
+                        } else {
+                            passenger.setBookingList(lazyBookings(passengerId));
+                        }
 
                         return Optional.of(passenger);
                     }
                 }
+
+                existenceFilter.recordAbsent(id, lookupStarted);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -168,69 +536,191 @@ public class PassengerDao implements Repository<Passenger> {
         return Optional.empty();
     }
 
+    /**
+     * Deletes the passenger_bookings links of the given bookings in batches, each from the passenger the booking
+     * names. No booking list is read, so removing a few links costs the same however many bookings a passenger has.
+     *
+     * @param bookings The bookings to unlink from their passengers.
+     */
+    @Override
+    public void unlinkBookings(Collection<Booking> bookings) {
+        List<BookingLink> links = new ArrayList<>();
+        for (Booking booking : bookings) {
+            links.add(new BookingLink(booking.getPassengerId(), booking.getBookingId()));
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            deleteBookingLinks(connection, links);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Generates a unique passenger ID for a new passenger record.
-     * This method generates a new unique identifier for passenger records. The generated
-     * ID can be used when creating new passenger objects to ensure that each passenger
-     * has a distinct identifier.
+     * Ids are served from a block leased by the {@link IdGenerator}, so only one call per block
+     * reaches the database.
      *
      * @return A unique passenger ID as an integer.
      */
+    @Override
     public int generatePassengerId() {
-        int generatedPassengerId = -1;
+        return idGenerator.nextId("passengers", "passenger_id");
+    }
 
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String sql = "INSERT INTO passengers DEFAULT VALUES RETURNING passenger_id";
+    /**
+     * Brings passenger_bookings in line with the passenger's booking list.
+     * Lists loaded or saved by this DAO track their changes, so only added and removed links are written.
+     * Any other list is treated as unknown and the passenger's links are rewritten in full.
+     */
+    @SuppressWarnings("unchecked")
+    private void syncBookingLinks(Connection connection, Passenger passenger) throws SQLException {
+        List<Booking> bookings = passenger.getBookingList();
+
+        if (bookings instanceof ChangeTrackingList) {
+            ChangeTrackingList<Booking> trackedBookings = (ChangeTrackingList<Booking>) bookings;
+            deleteBookingLinks(connection, passenger.getPassengerId(), trackedBookings.getRemovedKeys());
+            insertBookingLinks(connection, passenger.getPassengerId(), trackedBookings.getAddedElements());
+            trackedBookings.markClean();
+            return;
+        }
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
+        String deleteBookingsQuery = "DELETE FROM passenger_bookings where passenger_id = ?";
+        try (PreparedStatement deleteBookingsStatement = connection.prepareStatement(deleteBookingsQuery)) {
+            int i = 1;
+            deleteBookingsStatement.setInt(i++, passenger.getPassengerId());
+            deleteBookingsStatement.executeUpdate();
+        }
 
-                if (resultSet.next()) {
-                    generatedPassengerId = resultSet.getInt("passenger_id");
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        insertBookingLinks(connection, passenger.getPassengerId(), bookings);
+        passenger.setBookingList(trackBookings(bookings));
+    }
+
+    private void insertBookingLinks(Connection connection, int passengerId, List<Booking> bookings) throws SQLException {
+        List<BookingLink> links = new ArrayList<>();
+        addLinks(links, passengerId, bookings);
+        insertBookingLinks(connection, links);
+    }
+
+    private void insertBookingLinks(Connection connection, List<BookingLink> links) throws SQLException {
+        if (links.isEmpty()) {
+            return;
         }
 
-        return generatedPassengerId;
+        String insertBookingsQuery = "INSERT INTO passenger_bookings (booking_id, passenger_id) VALUES (?, ?)";
+        try (PreparedStatement insertBookingsStatement = connection.prepareStatement(insertBookingsQuery)) {
+            JdbcBatch.execute(insertBookingsStatement, links, batchSize, (batch, link) -> {
+                int i = 1;
+                batch.setInt(i++, link.bookingId());
+                batch.setInt(i++, link.passengerId());
+            });
+        }
     }
 
-    private List<Booking> getAllPassengerBookings(int passengerId) {
-        List<Booking> bookings = new ArrayList<>();
+    private void deleteBookingLinks(Connection connection, int passengerId, Set<Integer> bookingIds) throws SQLException {
+        List<BookingLink> links = new ArrayList<>();
+        for (Integer bookingId : bookingIds) {
+            links.add(new BookingLink(passengerId, bookingId));
+        }
+        deleteBookingLinks(connection, links);
+    }
 
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String getPassengerBookingsQuery = "SELECT pb.booking_id, b.destination_id, b.activity_id, " +
-                    "b.booking_status FROM passenger_bookings pb INNER JOIN booking b on pb.booking_id = b.booking_id " +
-                    "where pb.passenger_id = ?";
+    private void deleteBookingLinks(Connection connection, List<BookingLink> links) throws SQLException {
+        if (links.isEmpty()) {
+            return;
+        }
 
-            try (PreparedStatement getPassengerBookingsStatement = connection.prepareStatement(getPassengerBookingsQuery)) {
+        String deleteBookingQuery = "DELETE FROM passenger_bookings WHERE passenger_id = ? AND booking_id = ?";
+        try (PreparedStatement deleteBookingStatement = connection.prepareStatement(deleteBookingQuery)) {
+            JdbcBatch.execute(deleteBookingStatement, links, batchSize, (batch, link) -> {
                 int i = 1;
-                getPassengerBookingsStatement.setInt(i++, passengerId);
+                batch.setInt(i++, link.passengerId());
+                batch.setInt(i++, link.bookingId());
+            });
+        }
+    }
 
-                try (ResultSet passengerBookingsResultSet = getPassengerBookingsStatement.executeQuery()) {
-                    while (passengerBookingsResultSet.next()) {
-                        int bookingId = passengerBookingsResultSet.getInt("booking_id");
-                        int destinationId = passengerBookingsResultSet.getInt("destination_id");
-                        int activityId = passengerBookingsResultSet.getInt("activity_id");
-                        String bookingStatus = passengerBookingsResultSet.getString("booking_status");
+    private static void addLinks(List<BookingLink> links, int passengerId, List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            links.add(new BookingLink(passengerId, booking.getBookingId()));
+        }
+    }
 
-                        Booking booking = Booking.builder()
-                                .bookingId(bookingId)
-                                .passengerId(passengerId)
-                                .destinationId(destinationId)
-                                .activityId(activityId)
-                                .bookingStatus(BookingStatus.valueOf(bookingStatus))
-                                .build();
+    private static ChangeTrackingList<Booking> trackBookings(List<Booking> bookings) {
+        return new ChangeTrackingList<>(bookings, Booking::getBookingId);
+    }
 
-                        bookings.add(booking);
-                    }
+    /**
+     * Returns a booking list that queries the passenger's bookings on first read. Inside a transaction the
+     * query joins it, so the list sees the transaction's own writes.
+     */
+    private ChangeTrackingList<Booking> lazyBookings(int passengerId) {
+        return ChangeTrackingList.lazy(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                return getAllPassengerBookings(connection, passengerId);
+            } catch (SQLException e) {
+                throw new IllegalStateException(String.format("Could not load bookings of passenger %s", passengerId), e);
+            }
+        }, Booking::getBookingId);
+    }
+
+    private List<Booking> getAllPassengerBookings(Connection connection, int passengerId) throws SQLException {
+        List<Booking> bookings = new ArrayList<>();
+
+        String getPassengerBookingsQuery = "SELECT pb.booking_id, b.destination_id, b.activity_id, " +
+                "b.booking_status FROM passenger_bookings pb INNER JOIN bookings b on pb.booking_id = b.booking_id " +
+                "where pb.passenger_id = ?";
+
+        try (PreparedStatement getPassengerBookingsStatement = connection.prepareStatement(getPassengerBookingsQuery)) {
+            int i = 1;
+            getPassengerBookingsStatement.setInt(i++, passengerId);
+
+            try (ResultSet passengerBookingsResultSet = getPassengerBookingsStatement.executeQuery()) {
+                while (passengerBookingsResultSet.next()) {
+                    bookings.add(readBooking(passengerBookingsResultSet, passengerId));
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
 
-        return bookings;
+        return trackBookings(bookings);
+    }
+
+    private Map<Integer, List<Booking>> getAllPassengerBookings(Connection connection, List<Integer> passengerIds)
+            throws SQLException {
+        Map<Integer, List<Booking>> bookingsByPassenger = new HashMap<>();
+
+        String getPassengerBookingsQuery = "SELECT pb.passenger_id, pb.booking_id, b.destination_id, b.activity_id, " +
+                "b.booking_status FROM passenger_bookings pb INNER JOIN bookings b on pb.booking_id = b.booking_id " +
+                "where pb.passenger_id IN (" + JdbcBatch.placeholders(passengerIds.size()) + ")";
+
+        try (PreparedStatement getPassengerBookingsStatement = connection.prepareStatement(getPassengerBookingsQuery)) {
+            JdbcBatch.bindIds(getPassengerBookingsStatement, 1, passengerIds);
+
+            try (ResultSet passengerBookingsResultSet = getPassengerBookingsStatement.executeQuery()) {
+                while (passengerBookingsResultSet.next()) {
+                    int passengerId = passengerBookingsResultSet.getInt("passenger_id");
+                    bookingsByPassenger.computeIfAbsent(passengerId, key -> new ArrayList<>())
+                            .add(readBooking(passengerBookingsResultSet, passengerId));
+                }
+            }
+        }
+
+        return bookingsByPassenger;
+    }
+
+    private static Booking readBooking(ResultSet resultSet, int passengerId) throws SQLException {
+        return Booking.builder()
+                .bookingId(resultSet.getInt("booking_id"))
+                .passengerId(passengerId)
+                .destinationId(resultSet.getInt("destination_id"))
+                .activityId(resultSet.getInt("activity_id"))
+                .bookingStatus(BookingStatus.valueOf(resultSet.getString("booking_status")))
+                .build();
+    }
+
+    /**
+     * One passenger_bookings row.
+     */
+    private record BookingLink(int passengerId, int bookingId) {
     }
 }
@@ -0,0 +1,49 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Passenger;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores passengers together with the links to their bookings.
+ * The plain {@link Repository} lookups use {@link PassengerFetchPlan#SHALLOW}.
+ */
+public interface PassengerRepository extends Repository<Passenger> {
+
+    Optional<Passenger> getById(int id, PassengerFetchPlan fetchPlan);
+
+    Map<Integer, Passenger> getByIds(Collection<Integer> ids, PassengerFetchPlan fetchPlan);
+
+    /**
+     * Retrieves a passenger and locks it until the surrounding unit of work ends.
+     */
+    Optional<Passenger> getByIdForUpdate(int id);
+
+    /**
+     * Retrieves a passenger and locks it until the surrounding unit of work ends.
+     */
+    Optional<Passenger> getByIdForUpdate(int id, PassengerFetchPlan fetchPlan);
+
+    /**
+     * Retrieves passengers, without their bookings loaded, and locks them until the surrounding unit of work ends.
+     * Rows are locked in ascending id order, so two units of work locking overlapping sets cannot deadlock.
+     */
+    Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids);
+
+    /**
+     * Retrieves passengers and locks them, in ascending id order, until the surrounding unit of work ends.
+     */
+    Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids, PassengerFetchPlan fetchPlan);
+
+    /**
+     * Removes each booking from the booking list of the passenger it names, without loading any booking list.
+     * Booking lists already loaded by the caller are not updated.
+     */
+    void unlinkBookings(Collection<Booking> bookings);
+
+    int generatePassengerId();
+}
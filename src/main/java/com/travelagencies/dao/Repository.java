@@ -1,5 +1,7 @@
 package com.travelagencies.dao;
 
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 public interface Repository<T> {
@@ -11,4 +13,26 @@ public interface Repository<T> {
     void delete(T item);
 
     Optional<T> getById(int id);
+
+    /**
+     * Saves all items using batched statements rather than one round trip per item.
+     */
+    void saveAll(Collection<T> items);
+
+    /**
+     * Updates all items using batched statements rather than one round trip per item.
+     */
+    void updateAll(Collection<T> items);
+
+    /**
+     * Deletes all items with chunked {@code WHERE id IN (...)} statements.
+     */
+    void deleteAll(Collection<T> items);
+
+    /**
+     * Retrieves the items with the given ids using chunked {@code WHERE id IN (...)} lookups.
+     *
+     * @return The found items keyed by id, in the order of the requested ids. Ids that do not exist are absent.
+     */
+    Map<Integer, T> getByIds(Collection<Integer> ids);
 }
@@ -1,13 +1,23 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.async.TaskScope;
+import com.travelagencies.db.IdGenerator;
 import com.travelagencies.models.Activity;
+import com.travelagencies.models.ChangeTrackingList;
 import com.travelagencies.models.Destination;
 import com.travelagencies.models.TravelPackage;
 
+import javax.sql.DataSource;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
 
 /**
  * Provides methods to access and manage travel package records in the database.
@@ -15,11 +25,91 @@ import java.util.Optional;
  * operations related to travel package records, including creation, retrieval, updating,
  * and deletion of travel package records.
  */
-public class TravelPackageDao implements Repository<TravelPackage> {
+public class TravelPackageDao implements TravelPackageRepository {
 
-    private final String jdbcUrl = "jdbc:mysql://localhost:3306/travel_db";
-    private final String jdbcUsername = "username";
-    private final String jdbcPassword = "password";
+    private final DataSource dataSource;
+    private final IdGenerator idGenerator;
+    private final int batchSize;
+    private final Executor loadExecutor;
+    private final int activityChunkSize;
+
+    /**
+     * Constructs a TravelPackageDao that borrows its connections from the given DataSource.
+     *
+     * @param dataSource The (typically pooled) source of database connections.
+     */
+    public TravelPackageDao(DataSource dataSource) {
+        this(dataSource, JdbcBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a TravelPackageDao with a custom JDBC batch size for package_destinations writes.
+     *
+     * @param dataSource The connection pool, which also leases the new ids; not a
+     *                   transaction-aware DataSource, which the IdGenerator rejects.
+     * @param batchSize  The maximum number of package_destinations rows sent per round trip.
+     */
+    public TravelPackageDao(DataSource dataSource, int batchSize) {
+        this(dataSource, new IdGenerator(dataSource), batchSize);
+    }
+
+    /**
+     * Constructs a TravelPackageDao that takes new ids from a shared IdGenerator.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new travel package ids are taken from.
+     */
+    public TravelPackageDao(DataSource dataSource, IdGenerator idGenerator) {
+        this(dataSource, idGenerator, JdbcBatch.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Constructs a TravelPackageDao with a shared IdGenerator and a custom JDBC batch size for package_destinations writes.
+     *
+     * @param dataSource  The (typically pooled) source of database connections.
+     * @param idGenerator The generator that new travel package ids are taken from.
+     * @param batchSize   The maximum number of package_destinations rows sent per round trip.
+     */
+    public TravelPackageDao(DataSource dataSource, IdGenerator idGenerator, int batchSize) {
+        this(dataSource, idGenerator, batchSize, null);
+    }
+
+    /**
+     * Constructs a TravelPackageDao that loads the activities of large destination sets concurrently. When the
+     * destinations of the packages read span several IN-clause chunks, every chunk after the first is queried on
+     * its own connection through the executor. Those reads do not see writes the calling thread has not committed,
+     * so only use it where packages are not read back inside the transaction that wrote them.
+     *
+     * @param dataSource   The (typically pooled) source of database connections.
+     * @param idGenerator  The generator that new travel package ids are taken from.
+     * @param batchSize    The maximum number of package_destinations rows sent per round trip.
+     * @param loadExecutor Where the additional activity chunks are loaded, or null to load them one by one.
+     */
+    public TravelPackageDao(DataSource dataSource, IdGenerator idGenerator, int batchSize, Executor loadExecutor) {
+        this(dataSource, idGenerator, batchSize, loadExecutor, JdbcBatch.IN_CLAUSE_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a TravelPackageDao that queries activities in chunks of the given number of destinations, so
+     * tests can reach the concurrent load without thousands of rows.
+     *
+     * @param activityChunkSize The maximum number of destination ids per activities query.
+     */
+    TravelPackageDao(DataSource dataSource, IdGenerator idGenerator, int batchSize, Executor loadExecutor,
+                     int activityChunkSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(String.format("batchSize must be positive: %s", batchSize));
+        }
+        if (activityChunkSize <= 0) {
+            throw new IllegalArgumentException(String.format("activityChunkSize must be positive: %s",
+                    activityChunkSize));
+        }
+        this.dataSource = dataSource;
+        this.idGenerator = idGenerator;
+        this.batchSize = batchSize;
+        this.loadExecutor = loadExecutor;
+        this.activityChunkSize = activityChunkSize;
+    }
 
     /**
      * Saves a new travel package record to the database.
@@ -28,7 +118,7 @@ public class TravelPackageDao implements Repository<TravelPackage> {
      */
     @Override
     public void save(TravelPackage travelPackage) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String insertPackageQuery = "INSERT INTO travel_packages (package_id, name, description, " +
                     "capacity) VALUES (?, ?, ?, ?)";
             try (PreparedStatement statement = connection.prepareStatement(insertPackageQuery)) {
@@ -40,7 +130,7 @@ public class TravelPackageDao implements Repository<TravelPackage> {
                 statement.executeUpdate();
 
                 // Save associated destinations to package_destinations table
-                saveAssociatedDestinations(travelPackage);
+                saveAssociatedDestinations(connection, travelPackage);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -54,7 +144,7 @@ public class TravelPackageDao implements Repository<TravelPackage> {
      */
     @Override
     public void update(TravelPackage travelPackage) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String updateTravelPackageQuery = "UPDATE travel_packages SET name = ?, description = ?, " +
                     "capacity = ? WHERE package_id = ?";
 
@@ -67,7 +157,7 @@ public class TravelPackageDao implements Repository<TravelPackage> {
                 statement.executeUpdate();
 
                 // Update associated destinations in package_destinations table
-                updateAssociatedDestinations(travelPackage);
+                updateAssociatedDestinations(connection, travelPackage);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -81,7 +171,7 @@ public class TravelPackageDao implements Repository<TravelPackage> {
      */
     @Override
     public void delete(TravelPackage travelPackage) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
+        try (Connection connection = dataSource.getConnection()) {
             String deleteTravelPackageQuery = "DELETE FROM travel_packages WHERE package_id = ?";
 
             try (PreparedStatement preparedStatement = connection.prepareStatement(deleteTravelPackageQuery)) {
@@ -90,7 +180,7 @@ public class TravelPackageDao implements Repository<TravelPackage> {
                 preparedStatement.executeUpdate();
 
                 // Delete associated destinations from package_destinations table
-                deleteAssociatedDestinations(travelPackage);
+                deleteAssociatedDestinations(connection, travelPackage);
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -98,131 +188,201 @@ public class TravelPackageDao implements Repository<TravelPackage> {
     }
 
     /**
-     * Retrieves a travel package record by its unique identifier from the database.
+     * Saves new travel package records and their destination associations using batched inserts.
      *
-     * @param id The unique identifier of the travel package to retrieve.
-     * @return An Optional containing the travel package object if found, or empty if not found.
+     * @param travelPackages The travel package objects to be saved.
      */
     @Override
-    public Optional<TravelPackage> getById(int id) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String selectTravelPackageQuery = "SELECT tp.name AS package_name, tp.description AS package_description, " +
-                    "tp.capacity, pd.destination_id, d.name AS destination_name, " +
-                    "a.activity_id, a.name AS activity_name, a.description AS activity_description, " +
-                    "a.cost AS activity_cost, a.capacity AS activity_capacity " +
-                    "FROM travel_packages tp " +
-                    "LEFT JOIN package_destinations pd ON tp.package_id = pd.package_id " +
-                    "LEFT JOIN destinations d ON pd.destination_id = d.destination_id " +
-                    "LEFT JOIN activities a ON d.destination_id = a.destination_id " +
-                    "WHERE tp.package_id = ?";
-
-            try (PreparedStatement preparedStatement = connection.prepareStatement(selectTravelPackageQuery)) {
-                int i = 1;
-                preparedStatement.setInt(i++, id);
-
-                try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                    TravelPackage travelPackage = null;
-                    while (resultSet.next()) {
-                        if (travelPackage == null) {
-                            String packageName = resultSet.getString("package_name");
-                            String packageDescription = resultSet.getString("package_description");
-                            int passengerCapacity = resultSet.getInt("capacity");
-
-                            travelPackage = TravelPackage.builder()
-                                    .packageId(id)
-                                    .name(packageName)
-                                    .description(packageDescription)
-                                    .capacity(passengerCapacity)
-                                    .build();
-                        }
-
-                        int destinationId = resultSet.getInt("destination_id");
-                        String destinationName = resultSet.getString("destination_name");
-
-                        if (destinationId != 0) {
-                            if (travelPackage.getDestinations() == null) {
-                                travelPackage.setDestinations(new ArrayList<>());
-                            }
-
-                            // Check if the destination is already added
-                            boolean destinationExists = travelPackage.getDestinations()
-                                    .stream()
-                                    .anyMatch(destination -> destination.getDestinationId() == destinationId);
-
-                            if (!destinationExists) {
-                                Destination destination = Destination.builder()
-                                        .destinationId(destinationId)
-                                        .name(destinationName)
-                                        .build();
-
-                                travelPackage.getDestinations().add(destination);
-                            }
-
-                            // Check if there is an associated activity
-                            int activityId = resultSet.getInt("activity_id");
-                            if (activityId != 0) {
-                                String activityName = resultSet.getString("activity_name");
-                                String activityDescription = resultSet.getString("activity_description");
-                                double activityCost = resultSet.getDouble("activity_cost");
-                                int activityCapacity = resultSet.getInt("activity_capacity");
-
-                                Activity activity = Activity.builder()
-                                        .activityId(activityId)
-                                        .name(activityName)
-                                        .description(activityDescription)
-                                        .cost(activityCost)
-                                        .capacity(activityCapacity)
-                                        .build();
-
-                                // Find the destination and add the activity to it
-                                travelPackage.getDestinations()
-                                        .stream()
-                                        .filter(destination -> destination.getDestinationId() == destinationId)
-                                        .findFirst()
-                                        .ifPresent(destination -> destination.getActivities().add(activity));
-                            }
-                        }
-                    }
+    public void saveAll(Collection<TravelPackage> travelPackages) {
+        if (travelPackages.isEmpty()) {
+            return;
+        }
 
-                    if (travelPackage != null) {
-                        return Optional.of(travelPackage);
+        try (Connection connection = dataSource.getConnection()) {
+            String insertPackageQuery = "INSERT INTO travel_packages (package_id, name, description, " +
+                    "capacity) VALUES (?, ?, ?, ?)";
+            try (PreparedStatement statement = connection.prepareStatement(insertPackageQuery)) {
+                JdbcBatch.execute(statement, travelPackages, batchSize, (batch, travelPackage) -> {
+                    int i = 1;
+                    batch.setInt(i++, travelPackage.getPackageId());
+                    batch.setString(i++, travelPackage.getName());
+                    batch.setString(i++, travelPackage.getDescription());
+                    batch.setInt(i++, travelPackage.getCapacity());
+                });
+            }
+
+            List<PackageDestinationLink> links = new ArrayList<>();
+            for (TravelPackage travelPackage : travelPackages) {
+                addLinks(links, travelPackage.getPackageId(), travelPackage.getDestinations());
+            }
+            insertPackageDestinations(connection, links);
+
+            for (TravelPackage travelPackage : travelPackages) {
+                travelPackage.setDestinations(trackDestinations(travelPackage.getDestinations()));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Updates existing travel package records using batched statements.
+     * The package_destinations changes of all packages are collected and written together.
+     *
+     * @param travelPackages The updated travel package objects.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void updateAll(Collection<TravelPackage> travelPackages) {
+        if (travelPackages.isEmpty()) {
+            return;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            String updateTravelPackageQuery = "UPDATE travel_packages SET name = ?, description = ?, " +
+                    "capacity = ? WHERE package_id = ?";
+
+            try (PreparedStatement statement = connection.prepareStatement(updateTravelPackageQuery)) {
+                JdbcBatch.execute(statement, travelPackages, batchSize, (batch, travelPackage) -> {
+                    int i = 1;
+                    batch.setString(i++, travelPackage.getName());
+                    batch.setString(i++, travelPackage.getDescription());
+                    batch.setInt(i++, travelPackage.getCapacity());
+                    batch.setInt(i++, travelPackage.getPackageId());
+                });
+            }
+
+            List<Integer> rewrittenPackageIds = new ArrayList<>();
+            List<PackageDestinationLink> removedLinks = new ArrayList<>();
+            List<PackageDestinationLink> addedLinks = new ArrayList<>();
+
+            for (TravelPackage travelPackage : travelPackages) {
+                List<Destination> destinations = travelPackage.getDestinations();
+
+                if (destinations instanceof ChangeTrackingList) {
+                    ChangeTrackingList<Destination> trackedDestinations = (ChangeTrackingList<Destination>) destinations;
+                    for (Integer destinationId : trackedDestinations.getRemovedKeys()) {
+                        removedLinks.add(new PackageDestinationLink(travelPackage.getPackageId(), destinationId));
                     }
+                    addLinks(addedLinks, travelPackage.getPackageId(), trackedDestinations.getAddedElements());
+                } else {
+                    rewrittenPackageIds.add(travelPackage.getPackageId());
+                    addLinks(addedLinks, travelPackage.getPackageId(), destinations);
+                }
+            }
+
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM package_destinations WHERE package_id IN (%s)",
+                    rewrittenPackageIds);
+            deletePackageDestinations(connection, removedLinks);
+            insertPackageDestinations(connection, addedLinks);
+
+            for (TravelPackage travelPackage : travelPackages) {
+                if (travelPackage.getDestinations() instanceof ChangeTrackingList) {
+                    ((ChangeTrackingList<Destination>) travelPackage.getDestinations()).markClean();
+                } else {
+                    travelPackage.setDestinations(trackDestinations(travelPackage.getDestinations()));
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-
-        return Optional.empty();
     }
 
+    /**
+     * Deletes travel package records and their destination associations from the database.
+     *
+     * @param travelPackages The travel packages to be deleted.
+     */
+    @Override
+    public void deleteAll(Collection<TravelPackage> travelPackages) {
+        List<Integer> packageIds = new ArrayList<>();
+        for (TravelPackage travelPackage : travelPackages) {
+            packageIds.add(travelPackage.getPackageId());
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM package_destinations WHERE package_id IN (%s)",
+                    packageIds);
+            JdbcBatch.executeUpdateInChunks(connection, "DELETE FROM travel_packages WHERE package_id IN (%s)",
+                    packageIds);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
 
     /**
-     * Generates a unique package ID for a new travel package record.
-     * This method generates a new unique identifier for travel package records. The generated
-     * ID can be used when creating new travel package objects to ensure that each package
-     * has a distinct identifier.
+     * Retrieves travel package records with their destinations and activities by their unique identifiers.
+     * Each chunk of ids is loaded level by level, one query for the packages, one for their destinations and
+     * one for the destinations' activities, and the levels are stitched together through hash lookups.
+     * Packages that include the same destination share one Destination instance.
      *
-     * @return A unique package ID as an integer.
+     * @param ids The unique identifiers of the travel packages to retrieve.
+     * @return The found travel packages keyed by packageId, in the order of the requested ids.
      */
-    public int generatePackageId() {
-        int generatedPackageId = -1;
+    @Override
+    public Map<Integer, TravelPackage> getByIds(Collection<Integer> ids) {
+        Map<Integer, TravelPackage> travelPackages = new LinkedHashMap<>();
 
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String sql = "INSERT INTO travel_packages DEFAULT VALUES RETURNING package_id";
+        try (Connection connection = dataSource.getConnection()) {
+            for (List<Integer> chunk : JdbcBatch.chunkIds(ids)) {
+                Map<Integer, TravelPackage> found = selectTravelPackages(connection, chunk);
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-                 ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (found.isEmpty()) {
+                    continue;
+                }
 
-                if (resultSet.next()) {
-                    generatedPackageId = resultSet.getInt("package_id");
+                loadDestinations(connection, found);
+                for (Integer id : chunk) {
+                    TravelPackage travelPackage = found.get(id);
+                    if (travelPackage != null) {
+                        travelPackage.setDestinations(trackDestinations(travelPackage.getDestinations()));
+                        travelPackages.put(id, travelPackage);
+                    }
                 }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return generatedPackageId;
+        return travelPackages;
+    }
+
+    /**
+     * Retrieves a travel package record by its unique identifier from the database.
+     * The package, its destinations and their activities are read with one query per level,
+     * so every row is transferred once instead of once per package-destination-activity combination.
+     *
+     * @param id The unique identifier of the travel package to retrieve.
+     * @return An Optional containing the travel package object if found, or empty if not found.
+     */
+    @Override
+    public Optional<TravelPackage> getById(int id) {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<Integer, TravelPackage> found = selectTravelPackages(connection, List.of(id));
+            TravelPackage travelPackage = found.get(id);
+
+            if (travelPackage != null) {
+                loadDestinations(connection, found);
+                travelPackage.setDestinations(trackDestinations(travelPackage.getDestinations()));
+                return Optional.of(travelPackage);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Generates a unique package ID for a new travel package record.
+     * Ids are served from a block leased by the {@link IdGenerator}, so only one call per block
+     * reaches the database.
+     *
+     * @return A unique package ID as an integer.
+     */
+    @Override
+    public int generatePackageId() {
+        return idGenerator.nextId("travel_packages", "package_id");
     }
 
     /**
@@ -231,26 +391,14 @@ public class TravelPackageDao implements Repository<TravelPackage> {
      * This method is responsible for saving the destinations associated with a travel package
      * to the database. It iterates through the list of destinations in the travel package object
      * and creates records in the "package_destinations" table to establish the associations
-     * between the travel package and its destinations.
+     * between the travel package and its destinations. Afterwards the package's destination list
+     * tracks changes, so that a later update only writes the associations that changed.
      *
      * @param travelPackage The travel package containing the associated destinations to be saved.
      */
-    private void saveAssociatedDestinations(TravelPackage travelPackage) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String insertPackageDestinationsQuery = "INSERT INTO package_destinations (package_id, destination_id) " +
-                    "VALUES (?, ?)";
-
-            for (Destination destination : travelPackage.getDestinations()) {
-                try (PreparedStatement preparedStatement = connection.prepareStatement(insertPackageDestinationsQuery)) {
-                    int i = 1;
-                    preparedStatement.setInt(i++, travelPackage.getPackageId());
-                    preparedStatement.setInt(i++, destination.getDestinationId());
-                    preparedStatement.executeUpdate();
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+    private void saveAssociatedDestinations(Connection connection, TravelPackage travelPackage) throws SQLException {
+        insertPackageDestinations(connection, travelPackage.getPackageId(), travelPackage.getDestinations());
+        travelPackage.setDestinations(trackDestinations(travelPackage.getDestinations()));
     }
 
     /**
@@ -259,35 +407,213 @@ public class TravelPackageDao implements Repository<TravelPackage> {
      * This method updates the associations between a travel package and its destinations
      * in the database by modifying records in the "package_destinations" table.
      * It ensures that the destinations associated with the travel package accurately reflect
-     * the current state of the travel package object.
+     * the current state of the travel package object. When the destination list was loaded or saved
+     * by this DAO, only the associations added or removed since then are written; otherwise the
+     * package's associations are deleted and re-inserted.
      *
      * @param travelPackage The travel package whose associations with destinations need to be updated.
      */
-    private void updateAssociatedDestinations(TravelPackage travelPackage) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String deletePackageDestinationsQuery = "DELETE FROM package_destinations WHERE package_id = ?";
-            String insertPackageDestinationsQuery = "INSERT INTO package_destinations (package_id, destination_id) VALUES (?, ?)";
+    @SuppressWarnings("unchecked")
+    private void updateAssociatedDestinations(Connection connection, TravelPackage travelPackage) throws SQLException {
+        List<Destination> destinations = travelPackage.getDestinations();
+
+        if (destinations instanceof ChangeTrackingList) {
+            ChangeTrackingList<Destination> trackedDestinations = (ChangeTrackingList<Destination>) destinations;
+            deletePackageDestinations(connection, travelPackage.getPackageId(), trackedDestinations.getRemovedKeys());
+            insertPackageDestinations(connection, travelPackage.getPackageId(), trackedDestinations.getAddedElements());
+            trackedDestinations.markClean();
+            return;
+        }
+
+        // Delete existing associations
+        deleteAssociatedDestinations(connection, travelPackage);
 
-            // Delete existing associations
-            try (PreparedStatement preparedStatement = connection.prepareStatement(deletePackageDestinationsQuery)) {
+        // Insert new associations
+        saveAssociatedDestinations(connection, travelPackage);
+    }
+
+    private void insertPackageDestinations(Connection connection, int packageId, List<Destination> destinations)
+            throws SQLException {
+        List<PackageDestinationLink> links = new ArrayList<>();
+        addLinks(links, packageId, destinations);
+        insertPackageDestinations(connection, links);
+    }
+
+    private void insertPackageDestinations(Connection connection, List<PackageDestinationLink> links) throws SQLException {
+        if (links.isEmpty()) {
+            return;
+        }
+
+        String insertPackageDestinationsQuery = "INSERT INTO package_destinations (package_id, destination_id) " +
+                "VALUES (?, ?)";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(insertPackageDestinationsQuery)) {
+            JdbcBatch.execute(preparedStatement, links, batchSize, (batch, link) -> {
                 int i = 1;
-                preparedStatement.setInt(i++, travelPackage.getPackageId());
-                preparedStatement.executeUpdate();
+                batch.setInt(i++, link.packageId());
+                batch.setInt(i++, link.destinationId());
+            });
+        }
+    }
+
+    private void deletePackageDestinations(Connection connection, int packageId, Set<Integer> destinationIds)
+            throws SQLException {
+        List<PackageDestinationLink> links = new ArrayList<>();
+        for (Integer destinationId : destinationIds) {
+            links.add(new PackageDestinationLink(packageId, destinationId));
+        }
+        deletePackageDestinations(connection, links);
+    }
+
+    private void deletePackageDestinations(Connection connection, List<PackageDestinationLink> links) throws SQLException {
+        if (links.isEmpty()) {
+            return;
+        }
+
+        String deletePackageDestinationQuery = "DELETE FROM package_destinations WHERE package_id = ? " +
+                "AND destination_id = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(deletePackageDestinationQuery)) {
+            JdbcBatch.execute(preparedStatement, links, batchSize, (batch, link) -> {
+                int i = 1;
+                batch.setInt(i++, link.packageId());
+                batch.setInt(i++, link.destinationId());
+            });
+        }
+    }
+
+    private static void addLinks(List<PackageDestinationLink> links, int packageId, List<Destination> destinations) {
+        for (Destination destination : destinations) {
+            links.add(new PackageDestinationLink(packageId, destination.getDestinationId()));
+        }
+    }
+
+    /**
+     * Reads the package rows for the given ids, without their destinations.
+     */
+    private Map<Integer, TravelPackage> selectTravelPackages(Connection connection, List<Integer> ids) throws SQLException {
+        Map<Integer, TravelPackage> travelPackages = new HashMap<>();
+        String selectTravelPackagesQuery = "SELECT package_id, name, description, capacity FROM travel_packages " +
+                "WHERE package_id IN (" + JdbcBatch.placeholders(ids.size()) + ")";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(selectTravelPackagesQuery)) {
+            JdbcBatch.bindIds(preparedStatement, 1, ids);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int packageId = resultSet.getInt("package_id");
+
+                    TravelPackage travelPackage = TravelPackage.builder()
+                            .packageId(packageId)
+                            .name(resultSet.getString("name"))
+                            .description(resultSet.getString("description"))
+                            .capacity(resultSet.getInt("capacity"))
+                            .build();
+
+                    travelPackages.put(packageId, travelPackage);
+                }
             }
+        }
 
-            // Insert new associations
-            for (Destination destination : travelPackage.getDestinations()) {
-                try (PreparedStatement preparedStatement = connection.prepareStatement(insertPackageDestinationsQuery)) {
-                    int i = 1;
-                    preparedStatement.setInt(i++, travelPackage.getPackageId());
-                    preparedStatement.setInt(i++, destination.getDestinationId());
-                    preparedStatement.executeUpdate();
+        return travelPackages;
+    }
+
+    /**
+     * Loads the destinations of the given packages, and the activities of those destinations,
+     * with one query per level. Rows are attached through id-keyed maps, so assembly is linear in the rows read.
+     */
+    private void loadDestinations(Connection connection, Map<Integer, TravelPackage> travelPackages) throws SQLException {
+        Map<Integer, Destination> destinations = new LinkedHashMap<>();
+
+        String selectPackageDestinationsQuery = "SELECT pd.package_id, d.destination_id, d.name " +
+                "FROM package_destinations pd INNER JOIN destinations d ON pd.destination_id = d.destination_id " +
+                "WHERE pd.package_id IN (" + JdbcBatch.placeholders(travelPackages.size()) + ")";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(selectPackageDestinationsQuery)) {
+            JdbcBatch.bindIds(preparedStatement, 1, new ArrayList<>(travelPackages.keySet()));
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    int packageId = resultSet.getInt("package_id");
+                    int destinationId = resultSet.getInt("destination_id");
+                    String destinationName = resultSet.getString("name");
+
+                    Destination destination = destinations.computeIfAbsent(destinationId, key -> Destination.builder()
+                            .destinationId(key)
+                            .name(destinationName)
+                            .activities(new ArrayList<>())
+                            .build());
+
+                    travelPackages.get(packageId).getDestinations().add(destination);
                 }
             }
+        }
+
+        List<List<Integer>> chunks = JdbcBatch.chunkIds(destinations.keySet(), activityChunkSize);
+        if (loadExecutor == null || chunks.size() < 2) {
+            for (List<Integer> chunk : chunks) {
+                attachActivities(destinations, selectActivities(connection, chunk));
+            }
+            return;
+        }
+
+        try (TaskScope scope = new TaskScope(loadExecutor)) {
+            List<TaskScope.Subtask<List<ActivityRow>>> forkedChunks = new ArrayList<>();
+            for (List<Integer> chunk : chunks.subList(1, chunks.size())) {
+                forkedChunks.add(scope.fork(() -> selectActivities(chunk)));
+            }
+            attachActivities(destinations, selectActivities(connection, chunks.get(0)));
+            for (TaskScope.Subtask<List<ActivityRow>> forkedChunk : forkedChunks) {
+                attachActivities(destinations, forkedChunk.get());
+            }
+        } catch (UncheckedSqlException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads the activities of the given destinations on a connection of its own.
+     */
+    private List<ActivityRow> selectActivities(List<Integer> destinationIds) {
+        try (Connection connection = dataSource.getConnection()) {
+            return selectActivities(connection, destinationIds);
         } catch (SQLException e) {
-            e.printStackTrace();
+            throw new UncheckedSqlException(e);
         }
+    }
 
+    private static List<ActivityRow> selectActivities(Connection connection, List<Integer> destinationIds)
+            throws SQLException {
+        List<ActivityRow> activities = new ArrayList<>();
+        String selectActivitiesQuery = "SELECT activity_id, destination_id, name, description, cost, capacity " +
+                "FROM activities WHERE destination_id IN (" + JdbcBatch.placeholders(destinationIds.size()) + ")";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(selectActivitiesQuery)) {
+            JdbcBatch.bindIds(preparedStatement, 1, destinationIds);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    Activity activity = Activity.builder()
+                            .activityId(resultSet.getInt("activity_id"))
+                            .name(resultSet.getString("name"))
+                            .description(resultSet.getString("description"))
+                            .cost(resultSet.getDouble("cost"))
+                            .capacity(resultSet.getInt("capacity"))
+                            .build();
+
+                    activities.add(new ActivityRow(resultSet.getInt("destination_id"), activity));
+                }
+            }
+        }
+        return activities;
+    }
+
+    private static void attachActivities(Map<Integer, Destination> destinations, List<ActivityRow> activities) {
+        for (ActivityRow row : activities) {
+            destinations.get(row.destinationId()).getActivities().add(row.activity());
+        }
+    }
+
+    private static ChangeTrackingList<Destination> trackDestinations(List<Destination> destinations) {
+        return new ChangeTrackingList<>(destinations, Destination::getDestinationId);
     }
 
     /**
@@ -299,17 +625,37 @@ public class TravelPackageDao implements Repository<TravelPackage> {
      *
      * @param travelPackage The travel package from which associations with destinations need to be deleted.
      */
-    private void deleteAssociatedDestinations(TravelPackage travelPackage) {
-        try (Connection connection = DriverManager.getConnection(jdbcUrl, jdbcUsername, jdbcPassword)) {
-            String deletePackageDestinationsQuery = "DELETE FROM package_destinations WHERE package_id = ?";
+    private void deleteAssociatedDestinations(Connection connection, TravelPackage travelPackage) throws SQLException {
+        String deletePackageDestinationsQuery = "DELETE FROM package_destinations WHERE package_id = ?";
 
-            try (PreparedStatement preparedStatement = connection.prepareStatement(deletePackageDestinationsQuery)) {
-                int i = 1;
-                preparedStatement.setInt(i++, travelPackage.getPackageId());
-                preparedStatement.executeUpdate();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(deletePackageDestinationsQuery)) {
+            int i = 1;
+            preparedStatement.setInt(i++, travelPackage.getPackageId());
+            preparedStatement.executeUpdate();
         }
     }
+
+    /**
+     * One activities row, with the id of the destination it belongs to.
+     */
+    private record ActivityRow(int destinationId, Activity activity) {
+    }
+
+    /**
+     * Carries a SQLException out of a forked load, to be rethrown on the calling thread.
+     */
+    private static class UncheckedSqlException extends RuntimeException {
+
+        UncheckedSqlException(SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    private record PackageDestinationLink(int packageId, int destinationId) {
+    }
 }
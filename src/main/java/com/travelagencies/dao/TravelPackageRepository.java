@@ -0,0 +1,11 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.models.TravelPackage;
+
+/**
+ * Stores travel packages together with the destinations they include.
+ */
+public interface TravelPackageRepository extends Repository<TravelPackage> {
+
+    int generatePackageId();
+}
@@ -0,0 +1,247 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.dao.ActivityRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase.ActivityRow;
+import com.travelagencies.dao.memory.InMemoryDatabase.DestinationRow;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Stores activities in an {@link InMemoryDatabase}. Like the ActivityDao, each activity comes with its destination
+ * (without the destination's activities), and activities listed together share one Destination instance per
+ * destination.
+ */
+public class InMemoryActivityRepository implements ActivityRepository {
+
+    private final InMemoryDatabase database;
+    private final InMemoryTransactionManager transactionManager;
+
+    /**
+     * Constructs an InMemoryActivityRepository.
+     *
+     * @param database The database holding the activities and destinations tables.
+     */
+    public InMemoryActivityRepository(InMemoryDatabase database) {
+        this.database = database;
+        this.transactionManager = database.getTransactionManager();
+    }
+
+    @Override
+    public void save(Activity activity) {
+        transactionManager.run(() -> {
+            ActivityRow row = toRow(activity);
+            database.activities.insert(row.activityId(), row);
+            if (row.destinationId() != null) {
+                database.destinationActivities.add(row.destinationId(), row.activityId());
+            }
+        });
+    }
+
+    @Override
+    public void update(Activity activity) {
+        transactionManager.run(() -> {
+            ActivityRow row = toRow(activity);
+            ActivityRow previous = database.activities.replace(row.activityId(), row);
+            if (previous != null && !Objects.equals(previous.destinationId(), row.destinationId())) {
+                if (previous.destinationId() != null) {
+                    database.destinationActivities.remove(previous.destinationId(), row.activityId());
+                }
+                if (row.destinationId() != null) {
+                    database.destinationActivities.add(row.destinationId(), row.activityId());
+                }
+            }
+        });
+    }
+
+    /**
+     * Atomically takes seats from an activity's remaining capacity, never driving it below zero.
+     *
+     * @param activityId The unique identifier of the activity.
+     * @param seats      The number of seats to reserve.
+     * @return true if the seats were reserved, false if the activity does not exist or has too few seats left.
+     */
+    @Override
+    public boolean reserveCapacity(int activityId, int seats) {
+        return transactionManager.execute(() -> database.activities.adjust(activityId,
+                row -> row.capacity() >= seats ? row.withCapacity(row.capacity() - seats) : row,
+                row -> row.withCapacity(row.capacity() + seats)));
+    }
+
+    /**
+     * Atomically gives seats back to an activity's remaining capacity.
+     *
+     * @param activityId The unique identifier of the activity.
+     * @param seats      The number of seats to release.
+     * @return true if the seats were released, false if the activity does not exist.
+     */
+    @Override
+    public boolean releaseCapacity(int activityId, int seats) {
+        return transactionManager.execute(() -> database.activities.adjust(activityId,
+                row -> row.withCapacity(row.capacity() + seats),
+                row -> row.withCapacity(row.capacity() - seats)));
+    }
+
+    /**
+     * Sets the cost of each given activity. A rollback restores the cost each activity had before.
+     *
+     * @param costs The new cost per activityId.
+     */
+    @Override
+    public void updateCosts(Map<Integer, Double> costs) {
+        transactionManager.run(() -> costs.forEach((activityId, cost) -> {
+            double[] previousCost = new double[1];
+            database.activities.adjust(activityId, row -> {
+                previousCost[0] = row.cost();
+                return row.withCost(cost);
+            }, row -> row.withCost(previousCost[0]));
+        }));
+    }
+
+    /**
+     * Sets the remaining capacity of each given activity. A rollback takes the difference back off again, so
+     * seats reserved or released concurrently are kept.
+     *
+     * @param capacities The new capacity per activityId.
+     */
+    @Override
+    public void updateCapacities(Map<Integer, Integer> capacities) {
+        transactionManager.run(() -> capacities.forEach((activityId, capacity) -> {
+            int[] difference = new int[1];
+            database.activities.adjust(activityId, row -> {
+                difference[0] = capacity - row.capacity();
+                return row.withCapacity(capacity);
+            }, row -> row.withCapacity(row.capacity() - difference[0]));
+        }));
+    }
+
+    @Override
+    public void delete(Activity activity) {
+        transactionManager.run(() -> {
+            ActivityRow removed = database.activities.remove(activity.getActivityId());
+            if (removed != null && removed.destinationId() != null) {
+                database.destinationActivities.remove(removed.destinationId(), removed.activityId());
+            }
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Activity> activities) {
+        transactionManager.run(() -> activities.forEach(this::save));
+    }
+
+    @Override
+    public void updateAll(Collection<Activity> activities) {
+        transactionManager.run(() -> activities.forEach(this::update));
+    }
+
+    @Override
+    public void deleteAll(Collection<Activity> activities) {
+        transactionManager.run(() -> activities.forEach(this::delete));
+    }
+
+    @Override
+    public Map<Integer, Activity> getByIds(Collection<Integer> ids) {
+        Map<Integer, Activity> activities = new LinkedHashMap<>();
+        Map<Integer, Destination> destinations = new HashMap<>();
+        for (Integer id : ids) {
+            ActivityRow row = database.activities.get(id);
+            if (row != null) {
+                activities.put(id, toActivity(row, destinations));
+            }
+        }
+        return activities;
+    }
+
+    @Override
+    public Optional<Activity> getById(int id) {
+        return Optional.ofNullable(database.activities.get(id)).map(row -> toActivity(row, new HashMap<>()));
+    }
+
+    /**
+     * Retrieves an activity and locks it until the surrounding unit of work ends.
+     *
+     * @param id The unique identifier of the activity to retrieve and lock.
+     * @return An Optional containing the activity if found, or empty if not found.
+     */
+    @Override
+    public Optional<Activity> getByIdForUpdate(int id) {
+        transactionManager.lockForUpdate(database.activities.getName(), id);
+        return getById(id);
+    }
+
+    @Override
+    public List<Activity> getActivitiesByDestinationId(int destinationId) {
+        List<Activity> activities = new ArrayList<>();
+        Map<Integer, Destination> destinations = new HashMap<>();
+        for (Integer activityId : database.destinationActivities.get(destinationId)) {
+            ActivityRow row = database.activities.get(activityId);
+            if (row != null) {
+                activities.add(toActivity(row, destinations));
+            }
+        }
+        return activities;
+    }
+
+    @Override
+    public List<Activity> getActivitiesWithAvailableSpace() {
+        List<Activity> activities = new ArrayList<>();
+        Map<Integer, Destination> destinations = new HashMap<>();
+        for (ActivityRow row : database.activities.select(row -> row.capacity() > 0, ActivityRow::activityId)) {
+            activities.add(toActivity(row, destinations));
+        }
+        return activities;
+    }
+
+    @Override
+    public int generateActivityId() {
+        return database.activities.nextId();
+    }
+
+    /**
+     * Builds an activity with its destination, if the destination exists.
+     *
+     * @param destinations The destinations already built for this lookup, reused so that activities of the
+     *                     same destination share one instance.
+     */
+    private Activity toActivity(ActivityRow row, Map<Integer, Destination> destinations) {
+        Activity activity = toActivity(row);
+
+        if (row.destinationId() != null) {
+            DestinationRow destination = database.destinations.get(row.destinationId());
+            if (destination != null) {
+                activity.setDestination(destinations.computeIfAbsent(destination.destinationId(),
+                        key -> InMemoryDestinationRepository.toDestination(destination)));
+            }
+        }
+
+        return activity;
+    }
+
+    /**
+     * Builds an activity without its destination.
+     */
+    static Activity toActivity(ActivityRow row) {
+        return Activity.builder()
+                .activityId(row.activityId())
+                .name(row.name())
+                .description(row.description())
+                .cost(row.cost())
+                .capacity(row.capacity())
+                .build();
+    }
+
+    private static ActivityRow toRow(Activity activity) {
+        return new ActivityRow(activity.getActivityId(),
+                activity.getDestination() == null ? null : activity.getDestination().getDestinationId(),
+                activity.getName(), activity.getDescription(), activity.getCost(), activity.getCapacity());
+    }
+}
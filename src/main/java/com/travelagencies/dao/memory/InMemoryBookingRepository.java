@@ -0,0 +1,138 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase.BookingRow;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.models.Booking;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Stores bookings in an {@link InMemoryDatabase}.
+ */
+public class InMemoryBookingRepository implements BookingRepository {
+
+    private final InMemoryDatabase database;
+    private final InMemoryTransactionManager transactionManager;
+
+    /**
+     * Constructs an InMemoryBookingRepository.
+     *
+     * @param database The database holding the bookings table.
+     */
+    public InMemoryBookingRepository(InMemoryDatabase database) {
+        this.database = database;
+        this.transactionManager = database.getTransactionManager();
+    }
+
+    @Override
+    public void save(Booking booking) {
+        transactionManager.run(() -> database.bookings.insert(booking.getBookingId(), toRow(booking)));
+    }
+
+    @Override
+    public void update(Booking booking) {
+        transactionManager.run(() -> database.bookings.replace(booking.getBookingId(), toRow(booking)));
+    }
+
+    @Override
+    public void delete(Booking booking) {
+        transactionManager.run(() -> database.bookings.remove(booking.getBookingId()));
+    }
+
+    @Override
+    public void saveAll(Collection<Booking> bookings) {
+        transactionManager.run(() -> bookings.forEach(this::save));
+    }
+
+    @Override
+    public void updateAll(Collection<Booking> bookings) {
+        transactionManager.run(() -> bookings.forEach(this::update));
+    }
+
+    @Override
+    public void deleteAll(Collection<Booking> bookings) {
+        transactionManager.run(() -> bookings.forEach(this::delete));
+    }
+
+    @Override
+    public Map<Integer, Booking> getByIds(Collection<Integer> ids) {
+        Map<Integer, Booking> bookings = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            getById(id).ifPresent(booking -> bookings.put(id, booking));
+        }
+        return bookings;
+    }
+
+    @Override
+    public Optional<Booking> getById(int id) {
+        return Optional.ofNullable(database.bookings.get(id)).map(InMemoryBookingRepository::toBooking);
+    }
+
+    /**
+     * Retrieves bookings and locks them, in ascending id order, until the surrounding unit of work ends.
+     *
+     * @param ids The unique identifiers of the bookings to retrieve and lock.
+     * @return The found bookings keyed by bookingId, in the order of the requested ids.
+     */
+    @Override
+    public Optional<Booking> getByIdForUpdate(int id) {
+        transactionManager.lockForUpdate(database.bookings.getName(), id);
+        return getById(id);
+    }
+
+    @Override
+    public Map<Integer, Booking> getByIdsForUpdate(Collection<Integer> ids) {
+        new TreeSet<>(ids).forEach(id -> transactionManager.lockForUpdate(database.bookings.getName(), id));
+        return getByIds(ids);
+    }
+
+    /**
+     * Streams the activity's bookings that were not cancelled when the stream was opened.
+     */
+    @Override
+    public Stream<Booking> streamNotCancelledByActivityId(int activityId, int afterBookingId) {
+        return streamNotCancelled(row -> row.activityId() == activityId, afterBookingId);
+    }
+
+    /**
+     * Streams the destination's bookings that were not cancelled when the stream was opened.
+     */
+    @Override
+    public Stream<Booking> streamNotCancelledByDestinationId(int destinationId, int afterBookingId) {
+        return streamNotCancelled(row -> row.destinationId() == destinationId, afterBookingId);
+    }
+
+    private Stream<Booking> streamNotCancelled(Predicate<BookingRow> filter, int afterBookingId) {
+        Predicate<BookingRow> notCancelled = row -> row.bookingId() > afterBookingId
+                && row.bookingStatus() != BookingStatus.CANCELLED && filter.test(row);
+        return database.bookings.select(notCancelled, BookingRow::bookingId).stream()
+                .map(InMemoryBookingRepository::toBooking);
+    }
+
+    @Override
+    public int generateBookingId() {
+        return database.bookings.nextId();
+    }
+
+    static Booking toBooking(BookingRow row) {
+        return Booking.builder()
+                .bookingId(row.bookingId())
+                .passengerId(row.passengerId())
+                .destinationId(row.destinationId())
+                .activityId(row.activityId())
+                .bookingStatus(row.bookingStatus())
+                .build();
+    }
+
+    private static BookingRow toRow(Booking booking) {
+        return new BookingRow(booking.getBookingId(), booking.getPassengerId(), booking.getDestinationId(),
+                booking.getActivityId(), booking.getBookingStatus());
+    }
+}
@@ -0,0 +1,209 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the tables behind the in-memory repositories, so that services can run without a database, for example
+ * on edge nodes or to benchmark the service layer in isolation.
+ *
+ * The tables mirror the MySQL schema: rows are immutable and keyed by id, and the repositories assemble the same
+ * object graphs from them as the JDBC DAOs. Writes go through {@link #getTransactionManager()}, which the services
+ * use in place of the JDBC {@link com.travelagencies.db.TransactionManager}.
+ *
+ * State survives restarts through {@link #saveSnapshot(Path)} and {@link #loadSnapshot(Path)}. A snapshot waits
+ * for running units of work to finish and holds new ones back while the tables are copied, so it never contains
+ * half of a booking.
+ */
+public class InMemoryDatabase {
+
+    /**
+     * The default time a unit of work waits for a row locked by another one, matching MySQL's
+     * innodb_lock_wait_timeout.
+     */
+    public static final long DEFAULT_LOCK_TIMEOUT_MILLIS = 50_000;
+
+    private static final int SNAPSHOT_FORMAT_VERSION = 1;
+    private static final String SNAPSHOT_FILTER =
+            "com.travelagencies.dao.memory.*;com.travelagencies.enums.*;java.util.*;java.lang.*;!*";
+
+    private final InMemoryTransactionManager transactionManager;
+
+    final Table<DestinationRow> destinations;
+    final Table<ActivityRow> activities;
+    final Table<PassengerRow> passengers;
+    final Table<BookingRow> bookings;
+    final Table<TravelPackageRow> travelPackages;
+    final LinkTable passengerBookings;
+    final LinkTable packageDestinations;
+
+    /**
+     * The activity ids of each destination, kept in step with the activities table so that listing a
+     * destination's activities does not scan every activity. Rebuilt rather than stored in snapshots.
+     */
+    final LinkTable destinationActivities;
+
+    /**
+     * Constructs an empty InMemoryDatabase with the default lock wait timeout.
+     */
+    public InMemoryDatabase() {
+        this(DEFAULT_LOCK_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Constructs an empty InMemoryDatabase.
+     *
+     * @param lockWaitTimeoutMillis How long a unit of work waits for a row locked by another one before failing.
+     */
+    public InMemoryDatabase(long lockWaitTimeoutMillis) {
+        this.transactionManager = new InMemoryTransactionManager(lockWaitTimeoutMillis);
+        this.destinations = new Table<>("destinations", transactionManager);
+        this.activities = new Table<>("activities", transactionManager);
+        this.passengers = new Table<>("passengers", transactionManager);
+        this.bookings = new Table<>("bookings", transactionManager);
+        this.travelPackages = new Table<>("travel_packages", transactionManager);
+        this.passengerBookings = new LinkTable(transactionManager);
+        this.packageDestinations = new LinkTable(transactionManager);
+        this.destinationActivities = new LinkTable(transactionManager);
+    }
+
+    /**
+     * Returns the transaction manager the services should run their units of work on.
+     *
+     * @return The transaction manager of this database.
+     */
+    public InMemoryTransactionManager getTransactionManager() {
+        return transactionManager;
+    }
+
+    /**
+     * Writes a consistent copy of every table to the file. The copy is written next to the file first and then
+     * moved over it, so a crash while saving leaves the previous snapshot intact.
+     *
+     * @param file The snapshot file.
+     * @throws IllegalStateException If called inside a unit of work, or if the file cannot be written.
+     */
+    public void saveSnapshot(Path file) {
+        Snapshot snapshot = transactionManager.exclusively(() -> new Snapshot(SNAPSHOT_FORMAT_VERSION,
+                destinations.copyRows(), destinations.getLastId(),
+                activities.copyRows(), activities.getLastId(),
+                passengers.copyRows(), passengers.getLastId(),
+                bookings.copyRows(), bookings.getLastId(),
+                travelPackages.copyRows(), travelPackages.getLastId(),
+                passengerBookings.copyLinks(), packageDestinations.copyLinks()));
+
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(temporaryFile);
+                     ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+                    objectOutputStream.writeObject(snapshot);
+                }
+                moveReplacing(temporaryFile, file);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Could not save snapshot to %s", file), e);
+        }
+    }
+
+    /**
+     * Creates a database from a file written by {@link #saveSnapshot(Path)}, with the default lock wait timeout.
+     *
+     * @param file The snapshot file.
+     * @return A database holding the snapshot's rows, whose id sequences continue where they left off.
+     * @throws IllegalStateException If the file cannot be read or is not a snapshot of this format.
+     */
+    public static InMemoryDatabase loadSnapshot(Path file) {
+        Snapshot snapshot;
+        try (InputStream inputStream = Files.newInputStream(file);
+             ObjectInputStream objectInputStream = new ObjectInputStream(inputStream)) {
+            objectInputStream.setObjectInputFilter(ObjectInputFilter.Config.createFilter(SNAPSHOT_FILTER));
+            snapshot = (Snapshot) objectInputStream.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            throw new IllegalStateException(String.format("Could not load snapshot from %s", file), e);
+        }
+
+        if (snapshot.formatVersion() != SNAPSHOT_FORMAT_VERSION) {
+            throw new IllegalStateException(String.format("Snapshot %s has format version %s, expected %s",
+                    file, snapshot.formatVersion(), SNAPSHOT_FORMAT_VERSION));
+        }
+
+        InMemoryDatabase database = new InMemoryDatabase();
+        database.destinations.restore(snapshot.destinations(), snapshot.lastDestinationId());
+        database.activities.restore(snapshot.activities(), snapshot.lastActivityId());
+        database.passengers.restore(snapshot.passengers(), snapshot.lastPassengerId());
+        database.bookings.restore(snapshot.bookings(), snapshot.lastBookingId());
+        database.travelPackages.restore(snapshot.travelPackages(), snapshot.lastPackageId());
+        database.passengerBookings.restore(snapshot.passengerBookings());
+        database.packageDestinations.restore(snapshot.packageDestinations());
+        database.transactionManager.run(() -> {
+            for (ActivityRow activity : snapshot.activities().values()) {
+                if (activity.destinationId() != null) {
+                    database.destinationActivities.add(activity.destinationId(), activity.activityId());
+                }
+            }
+        });
+        return database;
+    }
+
+    private static void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    record DestinationRow(int destinationId, String name) implements Serializable {
+    }
+
+    record ActivityRow(int activityId, Integer destinationId, String name, String description, double cost,
+                       int capacity) implements Serializable {
+
+        ActivityRow withCapacity(int newCapacity) {
+            return new ActivityRow(activityId, destinationId, name, description, cost, newCapacity);
+        }
+
+        ActivityRow withCost(double newCost) {
+            return new ActivityRow(activityId, destinationId, name, description, newCost, capacity);
+        }
+    }
+
+    record PassengerRow(int passengerId, String name, String mobile, PassengerType passengerType,
+                        double balance) implements Serializable {
+    }
+
+    record BookingRow(int bookingId, int passengerId, int destinationId, int activityId,
+                      BookingStatus bookingStatus) implements Serializable {
+    }
+
+    record TravelPackageRow(int packageId, String name, String description, int capacity) implements Serializable {
+    }
+
+    private record Snapshot(int formatVersion,
+                            Map<Integer, DestinationRow> destinations, int lastDestinationId,
+                            Map<Integer, ActivityRow> activities, int lastActivityId,
+                            Map<Integer, PassengerRow> passengers, int lastPassengerId,
+                            Map<Integer, BookingRow> bookings, int lastBookingId,
+                            Map<Integer, TravelPackageRow> travelPackages, int lastPackageId,
+                            Map<Integer, List<Integer>> passengerBookings,
+                            Map<Integer, List<Integer>> packageDestinations) implements Serializable {
+    }
+}
@@ -0,0 +1,90 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.dao.DestinationRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase.DestinationRow;
+import com.travelagencies.models.Destination;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores destinations in an {@link InMemoryDatabase}. Like the DestinationDao, lookups return the destination
+ * without its activities.
+ */
+public class InMemoryDestinationRepository implements DestinationRepository {
+
+    private final InMemoryDatabase database;
+    private final InMemoryTransactionManager transactionManager;
+
+    /**
+     * Constructs an InMemoryDestinationRepository.
+     *
+     * @param database The database holding the destinations table.
+     */
+    public InMemoryDestinationRepository(InMemoryDatabase database) {
+        this.database = database;
+        this.transactionManager = database.getTransactionManager();
+    }
+
+    @Override
+    public void save(Destination destination) {
+        transactionManager.run(() -> database.destinations.insert(destination.getDestinationId(), toRow(destination)));
+    }
+
+    @Override
+    public void update(Destination destination) {
+        transactionManager.run(() -> database.destinations.replace(destination.getDestinationId(), toRow(destination)));
+    }
+
+    @Override
+    public void delete(Destination destination) {
+        transactionManager.run(() -> database.destinations.remove(destination.getDestinationId()));
+    }
+
+    @Override
+    public void saveAll(Collection<Destination> destinations) {
+        transactionManager.run(() -> destinations.forEach(this::save));
+    }
+
+    @Override
+    public void updateAll(Collection<Destination> destinations) {
+        transactionManager.run(() -> destinations.forEach(this::update));
+    }
+
+    @Override
+    public void deleteAll(Collection<Destination> destinations) {
+        transactionManager.run(() -> destinations.forEach(this::delete));
+    }
+
+    @Override
+    public Map<Integer, Destination> getByIds(Collection<Integer> ids) {
+        Map<Integer, Destination> destinations = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            getById(id).ifPresent(destination -> destinations.put(id, destination));
+        }
+        return destinations;
+    }
+
+    @Override
+    public Optional<Destination> getById(int id) {
+        return Optional.ofNullable(database.destinations.get(id)).map(InMemoryDestinationRepository::toDestination);
+    }
+
+    @Override
+    public int generateDestinationId() {
+        return database.destinations.nextId();
+    }
+
+    static Destination toDestination(DestinationRow row) {
+        return Destination.builder()
+                .destinationId(row.destinationId())
+                .name(row.name())
+                .build();
+    }
+
+    private static DestinationRow toRow(Destination destination) {
+        return new DestinationRow(destination.getDestinationId(), destination.getName());
+    }
+}
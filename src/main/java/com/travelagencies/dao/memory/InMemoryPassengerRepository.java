@@ -0,0 +1,232 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.dao.PassengerRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase.BookingRow;
+import com.travelagencies.dao.memory.InMemoryDatabase.PassengerRow;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.ChangeTrackingList;
+import com.travelagencies.models.Passenger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Stores passengers and their passenger_bookings links in an {@link InMemoryDatabase}.
+ *
+ * Booking lists behave as with the PassengerDao: they honour the {@link PassengerFetchPlan}, track their changes,
+ * and an update only writes the links that were added or removed.
+ */
+public class InMemoryPassengerRepository implements PassengerRepository {
+
+    private final InMemoryDatabase database;
+    private final InMemoryTransactionManager transactionManager;
+
+    /**
+     * Constructs an InMemoryPassengerRepository.
+     *
+     * @param database The database holding the passengers, bookings and passenger_bookings tables.
+     */
+    public InMemoryPassengerRepository(InMemoryDatabase database) {
+        this.database = database;
+        this.transactionManager = database.getTransactionManager();
+    }
+
+    @Override
+    public void save(Passenger passenger) {
+        transactionManager.run(() -> {
+            database.passengers.insert(passenger.getPassengerId(), toRow(passenger));
+            for (Booking booking : passenger.getBookingList()) {
+                database.passengerBookings.add(passenger.getPassengerId(), booking.getBookingId());
+            }
+        });
+        passenger.setBookingList(trackBookings(passenger.getBookingList()));
+    }
+
+    @Override
+    public void update(Passenger passenger) {
+        transactionManager.run(() -> {
+            if (database.passengers.replace(passenger.getPassengerId(), toRow(passenger)) != null) {
+                syncBookingLinks(passenger);
+            }
+        });
+    }
+
+    @Override
+    public void delete(Passenger passenger) {
+        transactionManager.run(() -> {
+            database.passengerBookings.removeAll(passenger.getPassengerId());
+            database.passengers.remove(passenger.getPassengerId());
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Passenger> passengers) {
+        transactionManager.run(() -> passengers.forEach(this::save));
+    }
+
+    @Override
+    public void updateAll(Collection<Passenger> passengers) {
+        transactionManager.run(() -> passengers.forEach(this::update));
+    }
+
+    @Override
+    public void deleteAll(Collection<Passenger> passengers) {
+        transactionManager.run(() -> passengers.forEach(this::delete));
+    }
+
+    @Override
+    public Map<Integer, Passenger> getByIds(Collection<Integer> ids) {
+        return getByIds(ids, PassengerFetchPlan.SHALLOW);
+    }
+
+    @Override
+    public Map<Integer, Passenger> getByIds(Collection<Integer> ids, PassengerFetchPlan fetchPlan) {
+        Map<Integer, Passenger> passengers = new LinkedHashMap<>();
+        for (Integer id : ids) {
+            getById(id, fetchPlan).ifPresent(passenger -> passengers.put(id, passenger));
+        }
+        return passengers;
+    }
+
+    @Override
+    public Optional<Passenger> getById(int id) {
+        return getById(id, PassengerFetchPlan.SHALLOW);
+    }
+
+    @Override
+    public Optional<Passenger> getById(int id, PassengerFetchPlan fetchPlan) {
+        PassengerRow row = database.passengers.get(id);
+        if (row == null) {
+            return Optional.empty();
+        }
+
+        Passenger passenger = Passenger.builder()
+                .passengerId(row.passengerId())
+                .passengerName(row.name())
+                .passengerMobile(row.mobile())
+                .passengerType(row.passengerType())
+                .balance(row.balance())
+                .build();
+
+        passenger.setBookingList(fetchPlan == PassengerFetchPlan.WITH_BOOKINGS
+                ? trackBookings(getPassengerBookings(id))
+                : ChangeTrackingList.lazy(() -> getPassengerBookings(id), Booking::getBookingId));
+        return Optional.of(passenger);
+    }
+
+    /**
+     * Retrieves a passenger and locks it until the surrounding unit of work ends.
+     * The passenger's bookings are loaded lazily, see {@link PassengerFetchPlan#SHALLOW}.
+     *
+     * @param id The unique identifier of the passenger to retrieve and lock.
+     * @return An Optional containing the passenger if found, or empty if not found.
+     */
+    @Override
+    public Optional<Passenger> getByIdForUpdate(int id) {
+        return getByIdForUpdate(id, PassengerFetchPlan.SHALLOW);
+    }
+
+    /**
+     * Retrieves a passenger and locks it until the surrounding unit of work ends.
+     *
+     * @param id        The unique identifier of the passenger to retrieve and lock.
+     * @param fetchPlan Whether the passenger's bookings are loaded now or on first read.
+     * @return An Optional containing the passenger if found, or empty if not found.
+     */
+    @Override
+    public Optional<Passenger> getByIdForUpdate(int id, PassengerFetchPlan fetchPlan) {
+        transactionManager.lockForUpdate(database.passengers.getName(), id);
+        return getById(id, fetchPlan);
+    }
+
+    /**
+     * Retrieves passengers and locks them, in ascending id order, until the surrounding unit of work ends.
+     *
+     * @param ids The unique identifiers of the passengers to retrieve and lock.
+     * @return The found passengers keyed by passengerId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids) {
+        return getByIdsForUpdate(ids, PassengerFetchPlan.SHALLOW);
+    }
+
+    /**
+     * Retrieves passengers and locks them, in ascending id order, until the surrounding unit of work ends.
+     *
+     * @param ids       The unique identifiers of the passengers to retrieve and lock.
+     * @param fetchPlan Whether the passengers' bookings are loaded now or on first read.
+     * @return The found passengers keyed by passengerId, in the order of the requested ids.
+     */
+    @Override
+    public Map<Integer, Passenger> getByIdsForUpdate(Collection<Integer> ids, PassengerFetchPlan fetchPlan) {
+        new TreeSet<>(ids).forEach(id -> transactionManager.lockForUpdate(database.passengers.getName(), id));
+        return getByIds(ids, fetchPlan);
+    }
+
+    @Override
+    public void unlinkBookings(Collection<Booking> bookings) {
+        transactionManager.run(() -> {
+            for (Booking booking : bookings) {
+                database.passengerBookings.remove(booking.getPassengerId(), booking.getBookingId());
+            }
+        });
+    }
+
+    @Override
+    public int generatePassengerId() {
+        return database.passengers.nextId();
+    }
+
+    /**
+     * Brings the passenger's links in line with its booking list, writing only the changes of a tracked list.
+     */
+    @SuppressWarnings("unchecked")
+    private void syncBookingLinks(Passenger passenger) {
+        int passengerId = passenger.getPassengerId();
+        List<Booking> bookings = passenger.getBookingList();
+
+        if (bookings instanceof ChangeTrackingList) {
+            ChangeTrackingList<Booking> trackedBookings = (ChangeTrackingList<Booking>) bookings;
+            for (Integer bookingId : trackedBookings.getRemovedKeys()) {
+                database.passengerBookings.remove(passengerId, bookingId);
+            }
+            for (Booking booking : trackedBookings.getAddedElements()) {
+                database.passengerBookings.add(passengerId, booking.getBookingId());
+            }
+            trackedBookings.markClean();
+            return;
+        }
+
+        database.passengerBookings.removeAll(passengerId);
+        for (Booking booking : bookings) {
+            database.passengerBookings.add(passengerId, booking.getBookingId());
+        }
+        passenger.setBookingList(trackBookings(bookings));
+    }
+
+    private List<Booking> getPassengerBookings(int passengerId) {
+        List<Booking> bookings = new ArrayList<>();
+        for (Integer bookingId : database.passengerBookings.get(passengerId)) {
+            BookingRow row = database.bookings.get(bookingId);
+            if (row != null) {
+                bookings.add(InMemoryBookingRepository.toBooking(row));
+            }
+        }
+        return bookings;
+    }
+
+    private static ChangeTrackingList<Booking> trackBookings(List<Booking> bookings) {
+        return new ChangeTrackingList<>(bookings, Booking::getBookingId);
+    }
+
+    private static PassengerRow toRow(Passenger passenger) {
+        return new PassengerRow(passenger.getPassengerId(), passenger.getPassengerName(),
+                passenger.getPassengerMobile(), passenger.getPassengerType(), passenger.getBalance());
+    }
+}
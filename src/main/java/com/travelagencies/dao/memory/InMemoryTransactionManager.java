@@ -0,0 +1,211 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.db.TransactionRunner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Gives the in-memory repositories the guarantees the services rely on from a database transaction.
+ *
+ * Every write made during a unit of work is recorded in an undo log, and the log is replayed backwards when the
+ * work throws, so a failed booking leaves nothing behind. {@code getByIdForUpdate} locks the row until the unit
+ * of work ends, like {@code SELECT ... FOR UPDATE}, and gives up with an {@link IllegalStateException} after the
+ * lock wait timeout. Plain reads never block and see the writes of units of work that are still running.
+ *
+ * Every row has a lock of its own, created when a unit of work first asks for it and dropped once no unit of work
+ * holds or waits for it, so units of work that lock different rows never wait for each other.
+ *
+ * Plain updates are undone by restoring the previous row, so a row that concurrent units of work write must be
+ * locked first, exactly as with the JDBC DAOs. Capacity changes are undone by the opposite change and need no lock.
+ * Repository writes outside a unit of work run in one of their own, which makes bulk writes all-or-nothing.
+ */
+public class InMemoryTransactionManager implements TransactionRunner {
+
+    private final long lockTimeoutMillis;
+    private final Map<RowKey, RowLock> rowLocks = new ConcurrentHashMap<>();
+    private final ReentrantReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+    private final ThreadLocal<UnitOfWork> currentUnitOfWork = new ThreadLocal<>();
+
+    InMemoryTransactionManager(long lockTimeoutMillis) {
+        if (lockTimeoutMillis <= 0) {
+            throw new IllegalArgumentException(String.format("lockTimeoutMillis must be positive: %s", lockTimeoutMillis));
+        }
+
+        this.lockTimeoutMillis = lockTimeoutMillis;
+    }
+
+    /**
+     * Runs the given work as one unit and returns its result. When the work throws, its writes are undone
+     * before the exception propagates.
+     *
+     * @param work The unit of work.
+     * @return The value returned by the work.
+     */
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        if (currentUnitOfWork.get() != null) {
+            return work.get();
+        }
+
+        UnitOfWork unitOfWork = new UnitOfWork();
+        snapshotLock.readLock().lock();
+        currentUnitOfWork.set(unitOfWork);
+        try {
+            return work.get();
+        } catch (RuntimeException | Error e) {
+            unitOfWork.rollback();
+            throw e;
+        } finally {
+            currentUnitOfWork.remove();
+            releaseLocks(unitOfWork);
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean isTransactionActive() {
+        return currentUnitOfWork.get() != null;
+    }
+
+    /**
+     * Locks the row until the calling thread's unit of work ends. Outside a unit of work there is nothing to
+     * hold the lock for, so nothing is locked.
+     *
+     * @param table The table the row belongs to.
+     * @param id    The row's id.
+     * @throws IllegalStateException If the lock is not granted within the lock wait timeout.
+     */
+    void lockForUpdate(String table, int id) {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork == null) {
+            return;
+        }
+
+        RowKey key = new RowKey(table, id);
+        if (unitOfWork.heldLocks.containsKey(key)) {
+            return;
+        }
+
+        RowLock rowLock = rowLocks.compute(key, (k, existing) -> {
+            RowLock registered = existing == null ? new RowLock() : existing;
+            registered.users++;
+            return registered;
+        });
+        boolean locked = false;
+        try {
+            locked = rowLock.lock.tryLock(lockTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (!locked) {
+                throw new IllegalStateException(String.format("Lock wait timeout of %s ms exceeded for %s %s",
+                        lockTimeoutMillis, table, id));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while locking %s %s", table, id), e);
+        } finally {
+            if (!locked) {
+                unregister(key);
+            }
+        }
+        unitOfWork.heldLocks.put(key, rowLock);
+    }
+
+    /**
+     * Returns how many rows currently have a lock, held or waited for.
+     */
+    int lockedRowCount() {
+        return rowLocks.size();
+    }
+
+    /**
+     * Returns the calling thread's unit of work, which every table write records its undo action in.
+     *
+     * @throws IllegalStateException If no unit of work is running.
+     */
+    UnitOfWork currentUnitOfWork() {
+        UnitOfWork unitOfWork = currentUnitOfWork.get();
+        if (unitOfWork == null) {
+            throw new IllegalStateException("In-memory writes must run inside a unit of work");
+        }
+        return unitOfWork;
+    }
+
+    /**
+     * Runs the work while no unit of work is in progress, so it sees every table in a consistent state.
+     * Units of work that start meanwhile wait until it returns.
+     */
+    <T> T exclusively(Supplier<T> work) {
+        if (isTransactionActive()) {
+            throw new IllegalStateException("Cannot take a snapshot from inside a unit of work");
+        }
+
+        snapshotLock.writeLock().lock();
+        try {
+            return work.get();
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    private void releaseLocks(UnitOfWork unitOfWork) {
+        for (Map.Entry<RowKey, RowLock> held : unitOfWork.heldLocks.entrySet()) {
+            // Unlock before unregistering, so a waiter never ends up with a second lock for the same row.
+            held.getValue().lock.unlock();
+            unregister(held.getKey());
+        }
+    }
+
+    private void unregister(RowKey key) {
+        rowLocks.computeIfPresent(key, (k, rowLock) -> --rowLock.users == 0 ? null : rowLock);
+    }
+
+    private record RowKey(String table, int id) {
+    }
+
+    /**
+     * A row's lock and the number of units of work holding or waiting for it, only changed inside
+     * {@link ConcurrentHashMap#compute}.
+     */
+    private static final class RowLock {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private int users;
+    }
+
+    /**
+     * The undo log and row locks of one unit of work.
+     */
+    static final class UnitOfWork {
+
+        private final List<Runnable> undoLog = new ArrayList<>();
+        private final Map<RowKey, RowLock> heldLocks = new LinkedHashMap<>();
+
+        /**
+         * Records how to revert a write that has just been applied.
+         */
+        void onRollback(Runnable undo) {
+            undoLog.add(undo);
+        }
+
+        private void rollback() {
+            for (int i = undoLog.size() - 1; i >= 0; i--) {
+                undoLog.get(i).run();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.dao.TravelPackageRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase.ActivityRow;
+import com.travelagencies.dao.memory.InMemoryDatabase.DestinationRow;
+import com.travelagencies.dao.memory.InMemoryDatabase.TravelPackageRow;
+import com.travelagencies.models.ChangeTrackingList;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.TravelPackage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stores travel packages and their package_destinations links in an {@link InMemoryDatabase}.
+ *
+ * Like the TravelPackageDao, a package comes with its destinations and their activities, packages loaded together
+ * share one Destination instance per destination, and the destination list tracks its changes so that an update
+ * only writes the links that were added or removed.
+ */
+public class InMemoryTravelPackageRepository implements TravelPackageRepository {
+
+    private final InMemoryDatabase database;
+    private final InMemoryTransactionManager transactionManager;
+
+    /**
+     * Constructs an InMemoryTravelPackageRepository.
+     *
+     * @param database The database holding the travel package, destination and activity tables.
+     */
+    public InMemoryTravelPackageRepository(InMemoryDatabase database) {
+        this.database = database;
+        this.transactionManager = database.getTransactionManager();
+    }
+
+    @Override
+    public void save(TravelPackage travelPackage) {
+        transactionManager.run(() -> {
+            database.travelPackages.insert(travelPackage.getPackageId(), toRow(travelPackage));
+            for (Destination destination : travelPackage.getDestinations()) {
+                database.packageDestinations.add(travelPackage.getPackageId(), destination.getDestinationId());
+            }
+        });
+        travelPackage.setDestinations(trackDestinations(travelPackage.getDestinations()));
+    }
+
+    @Override
+    public void update(TravelPackage travelPackage) {
+        transactionManager.run(() -> {
+            if (database.travelPackages.replace(travelPackage.getPackageId(), toRow(travelPackage)) != null) {
+                syncDestinationLinks(travelPackage);
+            }
+        });
+    }
+
+    @Override
+    public void delete(TravelPackage travelPackage) {
+        transactionManager.run(() -> {
+            database.travelPackages.remove(travelPackage.getPackageId());
+            database.packageDestinations.removeAll(travelPackage.getPackageId());
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<TravelPackage> travelPackages) {
+        transactionManager.run(() -> travelPackages.forEach(this::save));
+    }
+
+    @Override
+    public void updateAll(Collection<TravelPackage> travelPackages) {
+        transactionManager.run(() -> travelPackages.forEach(this::update));
+    }
+
+    @Override
+    public void deleteAll(Collection<TravelPackage> travelPackages) {
+        transactionManager.run(() -> travelPackages.forEach(this::delete));
+    }
+
+    @Override
+    public Map<Integer, TravelPackage> getByIds(Collection<Integer> ids) {
+        Map<Integer, TravelPackage> travelPackages = new LinkedHashMap<>();
+        Map<Integer, Destination> destinations = new HashMap<>();
+        for (Integer id : ids) {
+            TravelPackageRow row = database.travelPackages.get(id);
+            if (row != null) {
+                travelPackages.put(id, toTravelPackage(row, destinations));
+            }
+        }
+        return travelPackages;
+    }
+
+    @Override
+    public Optional<TravelPackage> getById(int id) {
+        return Optional.ofNullable(database.travelPackages.get(id)).map(row -> toTravelPackage(row, new HashMap<>()));
+    }
+
+    @Override
+    public int generatePackageId() {
+        return database.travelPackages.nextId();
+    }
+
+    /**
+     * Builds a travel package with its destinations and their activities.
+     *
+     * @param destinations The destinations already built for this lookup, reused so that packages sharing a
+     *                     destination share one instance.
+     */
+    private TravelPackage toTravelPackage(TravelPackageRow row, Map<Integer, Destination> destinations) {
+        List<Destination> packageDestinations = new ArrayList<>();
+        for (Integer destinationId : database.packageDestinations.get(row.packageId())) {
+            Destination destination = destinations.computeIfAbsent(destinationId, this::loadDestination);
+            if (destination != null) {
+                packageDestinations.add(destination);
+            }
+        }
+
+        return TravelPackage.builder()
+                .packageId(row.packageId())
+                .name(row.name())
+                .description(row.description())
+                .capacity(row.capacity())
+                .destinations(trackDestinations(packageDestinations))
+                .build();
+    }
+
+    private Destination loadDestination(int destinationId) {
+        DestinationRow row = database.destinations.get(destinationId);
+        if (row == null) {
+            return null;
+        }
+
+        Destination destination = InMemoryDestinationRepository.toDestination(row);
+        destination.setActivities(new ArrayList<>());
+        for (Integer activityId : database.destinationActivities.get(destinationId)) {
+            ActivityRow activity = database.activities.get(activityId);
+            if (activity != null) {
+                destination.getActivities().add(InMemoryActivityRepository.toActivity(activity));
+            }
+        }
+        return destination;
+    }
+
+    /**
+     * Brings the package's links in line with its destination list, writing only the changes of a tracked list.
+     */
+    @SuppressWarnings("unchecked")
+    private void syncDestinationLinks(TravelPackage travelPackage) {
+        int packageId = travelPackage.getPackageId();
+        List<Destination> destinations = travelPackage.getDestinations();
+
+        if (destinations instanceof ChangeTrackingList) {
+            ChangeTrackingList<Destination> trackedDestinations = (ChangeTrackingList<Destination>) destinations;
+            for (Integer destinationId : trackedDestinations.getRemovedKeys()) {
+                database.packageDestinations.remove(packageId, destinationId);
+            }
+            for (Destination destination : trackedDestinations.getAddedElements()) {
+                database.packageDestinations.add(packageId, destination.getDestinationId());
+            }
+            trackedDestinations.markClean();
+            return;
+        }
+
+        database.packageDestinations.removeAll(packageId);
+        for (Destination destination : destinations) {
+            database.packageDestinations.add(packageId, destination.getDestinationId());
+        }
+        travelPackage.setDestinations(trackDestinations(destinations));
+    }
+
+    private static ChangeTrackingList<Destination> trackDestinations(List<Destination> destinations) {
+        return new ChangeTrackingList<>(destinations, Destination::getDestinationId);
+    }
+
+    private static TravelPackageRow toRow(TravelPackage travelPackage) {
+        return new TravelPackageRow(travelPackage.getPackageId(), travelPackage.getName(),
+                travelPackage.getDescription(), travelPackage.getCapacity());
+    }
+}
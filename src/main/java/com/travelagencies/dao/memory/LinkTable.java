@@ -0,0 +1,86 @@
+package com.travelagencies.dao.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * A many-to-many link table such as passenger_bookings, held as the set of linked ids per owning id.
+ * Every write records its undo action in the calling thread's unit of work.
+ */
+final class LinkTable {
+
+    private final InMemoryTransactionManager transactionManager;
+    private final ConcurrentHashMap<Integer, Set<Integer>> links = new ConcurrentHashMap<>();
+
+    LinkTable(InMemoryTransactionManager transactionManager) {
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Returns the ids linked to the owner, in ascending order.
+     */
+    List<Integer> get(int ownerId) {
+        Set<Integer> linkedIds = links.get(ownerId);
+        return linkedIds == null ? new ArrayList<>() : new ArrayList<>(linkedIds);
+    }
+
+    void add(int ownerId, int linkedId) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        if (addLink(ownerId, linkedId)) {
+            unitOfWork.onRollback(() -> removeLink(ownerId, linkedId));
+        }
+    }
+
+    void remove(int ownerId, int linkedId) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        if (removeLink(ownerId, linkedId)) {
+            unitOfWork.onRollback(() -> addLink(ownerId, linkedId));
+        }
+    }
+
+    void removeAll(int ownerId) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        Set<Integer> removed = links.remove(ownerId);
+        if (removed != null) {
+            unitOfWork.onRollback(() -> removed.forEach(linkedId -> addLink(ownerId, linkedId)));
+        }
+    }
+
+    Map<Integer, List<Integer>> copyLinks() {
+        Map<Integer, List<Integer>> copy = new HashMap<>();
+        links.forEach((ownerId, linkedIds) -> copy.put(ownerId, new ArrayList<>(linkedIds)));
+        return copy;
+    }
+
+    /**
+     * Replaces the table's contents, used while a database is restored from a snapshot.
+     */
+    void restore(Map<Integer, List<Integer>> restoredLinks) {
+        links.clear();
+        restoredLinks.forEach((ownerId, linkedIds) -> linkedIds.forEach(linkedId -> addLink(ownerId, linkedId)));
+    }
+
+    private boolean addLink(int ownerId, int linkedId) {
+        boolean[] added = new boolean[1];
+        links.compute(ownerId, (key, linkedIds) -> {
+            Set<Integer> updated = linkedIds == null ? new ConcurrentSkipListSet<>() : linkedIds;
+            added[0] = updated.add(linkedId);
+            return updated;
+        });
+        return added[0];
+    }
+
+    private boolean removeLink(int ownerId, int linkedId) {
+        boolean[] removed = new boolean[1];
+        links.computeIfPresent(ownerId, (key, linkedIds) -> {
+            removed[0] = linkedIds.remove(linkedId);
+            return linkedIds.isEmpty() ? null : linkedIds;
+        });
+        return removed[0];
+    }
+}
@@ -0,0 +1,148 @@
+package com.travelagencies.dao.memory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Immutable rows keyed by id, plus the id sequence of the table. Every write records its undo action in the
+ * calling thread's unit of work.
+ *
+ * @param <R> The row type.
+ */
+final class Table<R> {
+
+    private final String name;
+    private final InMemoryTransactionManager transactionManager;
+    private final ConcurrentHashMap<Integer, R> rows = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    Table(String name, InMemoryTransactionManager transactionManager) {
+        this.name = name;
+        this.transactionManager = transactionManager;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    R get(int id) {
+        return rows.get(id);
+    }
+
+    /**
+     * Returns the rows that match the filter, ordered by id.
+     */
+    List<R> select(Predicate<R> filter, ToIntFunction<R> idExtractor) {
+        List<R> selected = new ArrayList<>();
+        for (R row : rows.values()) {
+            if (filter.test(row)) {
+                selected.add(row);
+            }
+        }
+        selected.sort(Comparator.comparingInt(idExtractor));
+        return selected;
+    }
+
+    /**
+     * Returns an id that is higher than every id this table has held.
+     */
+    int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    /**
+     * Inserts a row, failing like a primary key violation if the id is taken.
+     */
+    void insert(int id, R row) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        if (rows.putIfAbsent(id, row) != null) {
+            throw new IllegalStateException(String.format("Duplicate id %s in %s", id, name));
+        }
+
+        lastId.accumulateAndGet(id, Math::max);
+        unitOfWork.onRollback(() -> rows.remove(id, row));
+    }
+
+    /**
+     * Replaces an existing row. Undone by restoring the previous row, so the row must not be written
+     * concurrently by another unit of work.
+     *
+     * @return The previous row, or null if there was none and nothing was written.
+     */
+    R replace(int id, R row) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        List<R> previous = new ArrayList<>(1);
+        rows.computeIfPresent(id, (key, current) -> {
+            previous.add(current);
+            return row;
+        });
+
+        if (previous.isEmpty()) {
+            return null;
+        }
+        unitOfWork.onRollback(() -> rows.replace(id, previous.get(0)));
+        return previous.get(0);
+    }
+
+    /**
+     * Atomically applies a change to an existing row. Undone by applying the compensation to whatever the row
+     * holds by then, so concurrent adjustments of the same row are never lost.
+     *
+     * @param change       Returns the new row, or the same instance to leave the row unchanged.
+     * @param compensation Reverts the change on rollback.
+     * @return true if the row exists and was changed.
+     */
+    boolean adjust(int id, UnaryOperator<R> change, UnaryOperator<R> compensation) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        boolean[] changed = new boolean[1];
+        rows.computeIfPresent(id, (key, current) -> {
+            R next = change.apply(current);
+            changed[0] = next != current;
+            return next;
+        });
+
+        if (changed[0]) {
+            unitOfWork.onRollback(() -> rows.computeIfPresent(id, (key, current) -> compensation.apply(current)));
+        }
+        return changed[0];
+    }
+
+    /**
+     * Removes a row, undone by putting it back.
+     *
+     * @return The removed row, or null if there was none.
+     */
+    R remove(int id) {
+        InMemoryTransactionManager.UnitOfWork unitOfWork = transactionManager.currentUnitOfWork();
+        R removed = rows.remove(id);
+        if (removed != null) {
+            unitOfWork.onRollback(() -> rows.putIfAbsent(id, removed));
+        }
+        return removed;
+    }
+
+    Map<Integer, R> copyRows() {
+        return new HashMap<>(rows);
+    }
+
+    int getLastId() {
+        return lastId.get();
+    }
+
+    /**
+     * Replaces the table's contents, used while a database is restored from a snapshot.
+     */
+    void restore(Map<Integer, R> restoredRows, int restoredLastId) {
+        rows.clear();
+        rows.putAll(restoredRows);
+        lastId.set(restoredLastId);
+    }
+}
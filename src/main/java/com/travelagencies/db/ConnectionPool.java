@@ -0,0 +1,234 @@
+package com.travelagencies.db;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of reusable JDBC connections.
+ *
+ * Physical connections are opened through a delegate {@link DataSource} and handed out as proxies whose
+ * {@code close()} returns them to the pool instead of tearing down the socket. Idle connections are validated
+ * on borrow, evicted after {@link ConnectionPoolConfig#getIdleTimeoutMillis()}, and borrowed connections that
+ * are held longer than {@link ConnectionPoolConfig#getLeakDetectionThresholdMillis()} are reported as leaks.
+ */
+public class ConnectionPool extends DelegatingDataSource implements AutoCloseable {
+
+    private final ConnectionPoolConfig config;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> allConnections = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsBorrowed = new LongAdder();
+    private final LongAdder connectionsEvicted = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+
+    /**
+     * Constructs a ConnectionPool that opens its physical connections through the given DataSource.
+     *
+     * @param delegate The unpooled DataSource used to open physical connections.
+     * @param config   The pool sizing, timeout and housekeeping settings.
+     */
+    public ConnectionPool(DataSource delegate, ConnectionPoolConfig config) {
+        super(delegate);
+
+        if (config.getMaximumPoolSize() <= 0) {
+            throw new IllegalArgumentException(String.format("maximumPoolSize must be positive: %s",
+                    config.getMaximumPoolSize()));
+        }
+
+        this.config = config;
+        this.permits = new Semaphore(config.getMaximumPoolSize(), true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (config.getHousekeepingPeriodMillis() > 0) {
+            housekeeper.scheduleWithFixedDelay(this::housekeep, config.getHousekeepingPeriodMillis(),
+                    config.getHousekeepingPeriodMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Borrows a connection, waiting up to the configured connection timeout if the pool is exhausted.
+     *
+     * @return A pooled connection, return it by calling {@code close()}.
+     * @throws SQLException If the pool is closed, the wait times out, or a new connection cannot be opened.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed.get()) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long timeout = config.getConnectionTimeoutMillis();
+        try {
+            if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.increment();
+                throw new SQLTransientConnectionException(
+                        String.format("Connection is not available, request timed out after %sms.", timeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+
+        try {
+            PooledConnection pooledConnection = takeIdleConnection();
+            if (pooledConnection == null) {
+                pooledConnection = createConnection();
+            }
+
+            connectionsBorrowed.increment();
+            return pooledConnection.lease(config.getLeakDetectionThresholdMillis() > 0);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the pool's gauges and counters.
+     *
+     * @return The current pool statistics.
+     */
+    public PoolStats getStats() {
+        int total = allConnections.size();
+        int idle = idleConnections.size();
+
+        return PoolStats.builder()
+                .totalConnections(total)
+                .idleConnections(idle)
+                .activeConnections(Math.max(0, total - idle))
+                .threadsAwaitingConnection(permits.getQueueLength())
+                .connectionsCreated(connectionsCreated.sum())
+                .connectionsBorrowed(connectionsBorrowed.sum())
+                .connectionsEvicted(connectionsEvicted.sum())
+                .validationFailures(validationFailures.sum())
+                .borrowTimeouts(borrowTimeouts.sum())
+                .leaksDetected(leaksDetected.sum())
+                .build();
+    }
+
+    /**
+     * Closes every idle connection and stops housekeeping. Borrowed connections are closed when returned.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            housekeeper.shutdownNow();
+
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                discard(pooledConnection);
+            }
+        }
+    }
+
+    void release(PooledConnection pooledConnection) {
+        try {
+            boolean reusable = pooledConnection.reset()
+                    && !pooledConnection.isExpired(config.getMaxLifetimeMillis(), System.currentTimeMillis());
+
+            if (closed.get() || !reusable) {
+                discard(pooledConnection);
+            } else {
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs one idle eviction and leak detection pass. Called periodically by the housekeeper thread.
+     */
+    void housekeep() {
+        long now = System.currentTimeMillis();
+
+        Iterator<PooledConnection> idleIterator = idleConnections.descendingIterator();
+        while (idleIterator.hasNext()) {
+            PooledConnection pooledConnection = idleIterator.next();
+            boolean expired = pooledConnection.isExpired(config.getMaxLifetimeMillis(), now);
+            boolean idleTooLong = idleConnections.size() > config.getMinimumIdle()
+                    && pooledConnection.isIdleLongerThan(config.getIdleTimeoutMillis(), now);
+
+            if ((expired || idleTooLong) && idleConnections.remove(pooledConnection)) {
+                connectionsEvicted.increment();
+                discard(pooledConnection);
+            }
+        }
+
+        if (config.getLeakDetectionThresholdMillis() > 0) {
+            for (PooledConnection pooledConnection : allConnections) {
+                if (pooledConnection.reportLeak(config.getLeakDetectionThresholdMillis(), now)) {
+                    leaksDetected.increment();
+                }
+            }
+        }
+
+        fillMinimumIdle();
+    }
+
+    private void fillMinimumIdle() {
+        while (!closed.get() && idleConnections.size() < config.getMinimumIdle()
+                && allConnections.size() < config.getMaximumPoolSize() && permits.tryAcquire()) {
+            try {
+                idleConnections.offerLast(createConnection());
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private PooledConnection takeIdleConnection() {
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            if (pooledConnection.isExpired(config.getMaxLifetimeMillis(), System.currentTimeMillis())) {
+                connectionsEvicted.increment();
+                discard(pooledConnection);
+            } else if (!pooledConnection.isValid(config.getValidationTimeoutSeconds())) {
+                validationFailures.increment();
+                discard(pooledConnection);
+            } else {
+                return pooledConnection;
+            }
+        }
+
+        return null;
+    }
+
+    private PooledConnection createConnection() throws SQLException {
+        PooledConnection pooledConnection = new PooledConnection(this, delegate.getConnection());
+        allConnections.add(pooledConnection);
+        connectionsCreated.increment();
+        return pooledConnection;
+    }
+
+    private void discard(PooledConnection pooledConnection) {
+        allConnections.remove(pooledConnection);
+        pooledConnection.closePhysicalConnection();
+    }
+}
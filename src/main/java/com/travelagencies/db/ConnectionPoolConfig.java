@@ -0,0 +1,61 @@
+package com.travelagencies.db;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tuning knobs for a {@link ConnectionPool}.
+ * All durations are expressed in milliseconds, a value of zero disables the related check.
+ */
+@Data
+@Builder
+public class ConnectionPoolConfig {
+
+    /**
+     * Upper bound on the number of physical connections, idle and borrowed combined.
+     */
+    @Builder.Default
+    private int maximumPoolSize = 10;
+
+    /**
+     * Number of idle connections the housekeeper keeps warm.
+     */
+    @Builder.Default
+    private int minimumIdle = 2;
+
+    /**
+     * How long a caller waits for a connection before the borrow fails.
+     */
+    @Builder.Default
+    private long connectionTimeoutMillis = 30_000;
+
+    /**
+     * How long a connection may sit idle before it is evicted (down to {@link #minimumIdle}).
+     */
+    @Builder.Default
+    private long idleTimeoutMillis = 600_000;
+
+    /**
+     * Maximum age of a physical connection, after which it is retired on its next return or eviction pass.
+     */
+    @Builder.Default
+    private long maxLifetimeMillis = 1_800_000;
+
+    /**
+     * Timeout passed to {@link java.sql.Connection#isValid(int)} when validating on borrow.
+     */
+    @Builder.Default
+    private int validationTimeoutSeconds = 5;
+
+    /**
+     * Borrow duration after which a connection is reported as a possible leak.
+     */
+    @Builder.Default
+    private long leakDetectionThresholdMillis = 0;
+
+    /**
+     * Interval between idle eviction and leak detection passes.
+     */
+    @Builder.Default
+    private long housekeepingPeriodMillis = 30_000;
+}
@@ -0,0 +1,191 @@
+package com.travelagencies.db;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out entity ids from blocks leased from the {@code id_sequences} table (hi/lo allocation).
+ *
+ * Each lease advances a sequence row by {@link #getBlockSize()} in its own short transaction, so several
+ * application nodes sharing the database always receive disjoint blocks. Ids within a block are handed out
+ * lock-free from memory, which means creating an entity normally costs no extra round trip. Ids of a block
+ * that is not used up before shutdown are skipped, never reused.
+ *
+ * The generator opens its own connections and commits them itself, so it must be given the pool rather than
+ * a {@link TransactionManager#getDataSource() transaction-aware} DataSource, which it rejects: a lease would join
+ * the caller's transaction, keep the sequence row locked until it ends, and on rollback undo the advance while
+ * this node keeps handing out the block, so another node would lease the same ids. A lease made while the caller
+ * is in a transaction borrows a second connection for a moment, which the pool size has to allow for.
+ */
+public class IdGenerator {
+
+    /**
+     * Default number of ids leased per round trip.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private final ConcurrentHashMap<String, Sequence> sequences = new ConcurrentHashMap<>();
+
+    public IdGenerator(DataSource dataSource) {
+        this(dataSource, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs an IdGenerator that leases blocks of the given size.
+     *
+     * @param dataSource The source of the connections used to lease blocks, not a transaction-aware one.
+     * @param blockSize  The number of ids leased per round trip.
+     */
+    public IdGenerator(DataSource dataSource, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(String.format("blockSize must be positive: %s", blockSize));
+        }
+        if (dataSource instanceof TransactionManager.TransactionAwareDataSource) {
+            throw new IllegalArgumentException(
+                    "IdGenerator needs the connection pool, not a transaction-aware DataSource");
+        }
+        this.dataSource = dataSource;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next unused id for a table.
+     * When the table has no sequence row yet, one is created starting after the table's highest existing id.
+     *
+     * @param tableName The table the id is for, which also names its sequence.
+     * @param idColumn  The table's id column, used only to seed a new sequence.
+     * @return A unique id.
+     * @throws IllegalStateException If a new block cannot be leased.
+     */
+    public int nextId(String tableName, String idColumn) {
+        return sequences.computeIfAbsent(tableName, name -> new Sequence(name, idColumn)).next();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private Block leaseBlock(String tableName, String idColumn) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (!advanceSequence(connection, tableName)) {
+                    createSequence(connection, tableName, idColumn);
+                    if (!advanceSequence(connection, tableName)) {
+                        throw new SQLException(String.format("Sequence %s could not be created", tableName));
+                    }
+                }
+
+                int limit = readSequence(connection, tableName);
+                connection.commit();
+                return new Block(limit - blockSize, limit);
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(String.format("Could not allocate ids for %s", tableName), e);
+        }
+    }
+
+    private boolean advanceSequence(Connection connection, String tableName) throws SQLException {
+        String advanceSequenceQuery = "UPDATE id_sequences SET next_value = next_value + ? WHERE sequence_name = ?";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(advanceSequenceQuery)) {
+            int i = 1;
+            preparedStatement.setInt(i++, blockSize);
+            preparedStatement.setString(i++, tableName);
+            return preparedStatement.executeUpdate() == 1;
+        }
+    }
+
+    private int readSequence(Connection connection, String tableName) throws SQLException {
+        String readSequenceQuery = "SELECT next_value FROM id_sequences WHERE sequence_name = ?";
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(readSequenceQuery)) {
+            int i = 1;
+            preparedStatement.setString(i++, tableName);
+
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt("next_value");
+                }
+            }
+        }
+
+        throw new SQLException(String.format("Sequence %s does not exist", tableName));
+    }
+
+    private void createSequence(Connection connection, String tableName, String idColumn) throws SQLException {
+        // Table and column names come from the DAOs, never from user input.
+        String createSequenceQuery = String.format("INSERT INTO id_sequences (sequence_name, next_value) " +
+                "SELECT ?, COALESCE(MAX(%s), 0) + 1 FROM %s", idColumn, tableName);
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(createSequenceQuery)) {
+            int i = 1;
+            preparedStatement.setString(i++, tableName);
+            preparedStatement.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // Another node created the sequence first.
+        }
+    }
+
+    /**
+     * The ids of one table, served from the current block until it runs out.
+     */
+    private class Sequence {
+
+        private final String tableName;
+        private final String idColumn;
+
+        private volatile Block currentBlock;
+
+        Sequence(String tableName, String idColumn) {
+            this.tableName = tableName;
+            this.idColumn = idColumn;
+        }
+
+        int next() {
+            while (true) {
+                Block block = currentBlock;
+                if (block != null) {
+                    int id = block.next.getAndIncrement();
+                    if (id < block.limit) {
+                        return id;
+                    }
+                }
+
+                synchronized (this) {
+                    if (currentBlock == block) {
+                        currentBlock = leaseBlock(tableName, idColumn);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A leased range of ids, {@code [next, limit)}.
+     */
+    private static class Block {
+
+        private final AtomicInteger next;
+        private final int limit;
+
+        Block(int first, int limit) {
+            this.next = new AtomicInteger(first);
+            this.limit = limit;
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.travelagencies.db;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A DataSource that hands out connections whose statements report every execution to a {@link StatementListener}.
+ * Every JDBC object is a dynamic proxy around the real one, so the driver's behaviour is unchanged.
+ */
+class ObservedDataSource extends DelegatingDataSource {
+
+    private final StatementListener listener;
+
+    ObservedDataSource(DataSource delegate, StatementListener listener) {
+        super(delegate);
+        this.listener = listener;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = delegate.getConnection();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Approximates how many bytes a parameter or column value takes.
+     */
+    static long estimateBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String string) {
+            return string.getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (value instanceof Integer || value instanceof Float) {
+            return 4;
+        }
+        if (value instanceof Short) {
+            return 2;
+        }
+        if (value instanceof Byte || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.unscaledValue().bitLength() / 8 + 1;
+        }
+        return 8;
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Observed[" + connection + "]";
+                default:
+                    break;
+            }
+
+            Object result = ObservedDataSource.invoke(connection, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return wrapStatement(Statement.class, (Statement) result, null, (Connection) proxy);
+                case "prepareStatement":
+                    return wrapStatement(PreparedStatement.class, (Statement) result, (String) args[0],
+                            (Connection) proxy);
+                case "prepareCall":
+                    return wrapStatement(CallableStatement.class, (Statement) result, (String) args[0],
+                            (Connection) proxy);
+                case "commit":
+                case "rollback":
+                    listener.transactionEnded();
+                    return result;
+                default:
+                    return result;
+            }
+        }
+
+        private Object wrapStatement(Class<? extends Statement> type, Statement statement, String sql,
+                                     Connection connectionProxy) {
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(statement, sql, connectionProxy));
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private final Connection connectionProxy;
+
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private long parameterBytes;
+        private int batchedStatements;
+        private long batchedBytes;
+        private final List<String> batchedSql = new ArrayList<>();
+
+        // A query stays open until its result set or statement is closed, so reading the rows is part of its time.
+        private StatementExecution openExecution;
+
+        StatementHandler(Statement statement, String preparedSql, Connection connectionProxy) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.connectionProxy = connectionProxy;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Observed[" + statement + "]";
+                case "getConnection":
+                    return connectionProxy;
+                case "close":
+                case "getMoreResults":
+                    finishOpenExecution();
+                    return ObservedDataSource.invoke(statement, method, args);
+                case "clearParameters":
+                    parameters.clear();
+                    parameterBytes = 0;
+                    return ObservedDataSource.invoke(statement, method, args);
+                case "addBatch":
+                    addBatch(args);
+                    return ObservedDataSource.invoke(statement, method, args);
+                case "clearBatch":
+                    clearBatch();
+                    return ObservedDataSource.invoke(statement, method, args);
+                default:
+                    break;
+            }
+
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index
+                    && listener.isListening()) {
+                parameters.put(index, args[1]);
+                parameterBytes += estimateBytes(args[1]);
+            } else if (name.startsWith("execute")) {
+                return execute(proxy, method, args);
+            }
+            return ObservedDataSource.invoke(statement, method, args);
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            finishOpenExecution();
+            boolean batch = "executeBatch".equals(method.getName()) || "executeLargeBatch".equals(method.getName());
+            if (!listener.isListening()) {
+                if (batch) {
+                    clearBatch();
+                }
+                return ObservedDataSource.invoke(statement, method, args);
+            }
+
+            StatementExecution execution;
+            if (batch) {
+                String sql = preparedSql != null ? preparedSql : batchedSql.isEmpty() ? null : batchedSql.get(0);
+                execution = new StatementExecution(sql, parameterList(), batchedStatements, batchedBytes);
+                clearBatch();
+            } else {
+                String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                execution = new StatementExecution(sql, parameterList(), 1, estimateBytes(sql) + parameterBytes);
+            }
+
+            Object result;
+            try {
+                result = ObservedDataSource.invoke(statement, method, args);
+            } catch (Throwable e) {
+                // A statement the database rejects still cost a round trip.
+                execution.failed(e);
+                finish(execution);
+                throw e;
+            }
+
+            if (result instanceof ResultSet resultSet) {
+                openExecution = execution;
+                return wrapResultSet(resultSet, proxy);
+            }
+            if (result instanceof int[] counts) {
+                for (int count : counts) {
+                    execution.rowsAffected(count);
+                }
+            } else if (result instanceof long[] counts) {
+                for (long count : counts) {
+                    execution.rowsAffected(count);
+                }
+            } else if (result instanceof Number count) {
+                execution.rowsAffected(count.longValue());
+            }
+            finish(execution);
+            return result;
+        }
+
+        private Object wrapResultSet(ResultSet resultSet, Object statementProxy) {
+            if (resultSet == null || openExecution == null) {
+                return resultSet;
+            }
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(resultSet, (Statement) statementProxy, this, openExecution));
+        }
+
+        private List<Object> parameterList() {
+            // Nulls are valid parameters, which List.copyOf would reject.
+            return parameters.isEmpty() ? List.of() : new ArrayList<>(parameters.values());
+        }
+
+        void finishOpenExecution(StatementExecution execution) {
+            if (openExecution == execution) {
+                finishOpenExecution();
+            }
+        }
+
+        private void finishOpenExecution() {
+            if (openExecution != null) {
+                StatementExecution execution = openExecution;
+                openExecution = null;
+                finish(execution);
+            }
+        }
+
+        private void finish(StatementExecution execution) {
+            execution.finish();
+            listener.executionFinished(execution);
+        }
+
+        private void addBatch(Object[] args) {
+            batchedStatements++;
+            if (args != null && args.length == 1 && args[0] instanceof String sql) {
+                batchedSql.add(sql);
+                batchedBytes += estimateBytes(sql);
+            } else {
+                batchedBytes += estimateBytes(preparedSql) + parameterBytes;
+            }
+        }
+
+        private void clearBatch() {
+            batchedStatements = 0;
+            batchedBytes = 0;
+            batchedSql.clear();
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final Statement statementProxy;
+        private final StatementHandler statementHandler;
+        private final StatementExecution execution;
+
+        ResultSetHandler(ResultSet resultSet, Statement statementProxy, StatementHandler statementHandler,
+                         StatementExecution execution) {
+            this.resultSet = resultSet;
+            this.statementProxy = statementProxy;
+            this.statementHandler = statementHandler;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Observed[" + resultSet + "]";
+                case "getStatement":
+                    return statementProxy;
+                case "close":
+                    try {
+                        return ObservedDataSource.invoke(resultSet, method, args);
+                    } finally {
+                        statementHandler.finishOpenExecution(execution);
+                    }
+                default:
+                    break;
+            }
+
+            Object result = ObservedDataSource.invoke(resultSet, method, args);
+            if ("next".equals(name)) {
+                if (Boolean.TRUE.equals(result)) {
+                    execution.rowFetched();
+                }
+            } else if (name.startsWith("get") && args != null && args.length >= 1 && !"getMetaData".equals(name)) {
+                execution.bytesReceived(estimateBytes(result));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.travelagencies.db;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time snapshot of a {@link ConnectionPool}'s gauges and counters.
+ */
+@Data
+@Builder
+public class PoolStats {
+
+    private int totalConnections;
+
+    private int idleConnections;
+
+    private int activeConnections;
+
+    private int threadsAwaitingConnection;
+
+    private long connectionsCreated;
+
+    private long connectionsBorrowed;
+
+    private long connectionsEvicted;
+
+    private long validationFailures;
+
+    private long borrowTimeouts;
+
+    private long leaksDetected;
+}
@@ -0,0 +1,215 @@
+package com.travelagencies.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}, together with the bookkeeping of its current lease.
+ * Callers never see this class, they receive a proxy whose {@code close()} hands the connection back to the pool.
+ */
+class PooledConnection {
+
+    private final ConnectionPool pool;
+    private final Connection physicalConnection;
+    private final long createdAt;
+
+    private volatile long lastReturnedAt;
+    private volatile long borrowedAt;
+    private volatile Exception borrowTrace;
+    private volatile boolean leakReported;
+    private volatile boolean autoCommitChanged;
+    private volatile Boolean originalReadOnly;
+    private volatile Integer originalTransactionIsolation;
+    private volatile boolean catalogChanged;
+    private volatile String originalCatalog;
+
+    PooledConnection(ConnectionPool pool, Connection physicalConnection) {
+        this.pool = pool;
+        this.physicalConnection = physicalConnection;
+        this.createdAt = System.currentTimeMillis();
+        this.lastReturnedAt = createdAt;
+    }
+
+    /**
+     * Hands out a new caller-facing proxy for this connection.
+     *
+     * @param traceBorrow Whether to capture the borrower's stack trace for leak reports.
+     * @return A connection whose {@code close()} returns it to the pool.
+     */
+    Connection lease(boolean traceBorrow) {
+        borrowedAt = System.currentTimeMillis();
+        borrowTrace = traceBorrow ? new Exception("Connection borrowed here") : null;
+        leakReported = false;
+        autoCommitChanged = false;
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LeaseHandler());
+    }
+
+    /**
+     * Restores the connection to its pristine state before it goes back to the idle queue: an open transaction is
+     * rolled back, and auto-commit, read-only, transaction isolation and catalog are set back to the values the
+     * connection had before the lease changed them.
+     *
+     * @return true if the connection can be reused, false if it should be discarded.
+     */
+    boolean reset() {
+        borrowedAt = 0;
+        borrowTrace = null;
+        lastReturnedAt = System.currentTimeMillis();
+
+        try {
+            if (physicalConnection.isClosed()) {
+                return false;
+            }
+            if (autoCommitChanged) {
+                if (!physicalConnection.getAutoCommit()) {
+                    physicalConnection.rollback();
+                    physicalConnection.setAutoCommit(true);
+                }
+                autoCommitChanged = false;
+            }
+            if (originalReadOnly != null) {
+                physicalConnection.setReadOnly(originalReadOnly);
+                originalReadOnly = null;
+            }
+            if (originalTransactionIsolation != null) {
+                physicalConnection.setTransactionIsolation(originalTransactionIsolation);
+                originalTransactionIsolation = null;
+            }
+            if (catalogChanged) {
+                physicalConnection.setCatalog(originalCatalog);
+                catalogChanged = false;
+                originalCatalog = null;
+            }
+            physicalConnection.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return physicalConnection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysicalConnection() {
+        try {
+            physicalConnection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    boolean isBorrowed() {
+        return borrowedAt != 0;
+    }
+
+    boolean isExpired(long maxLifetimeMillis, long now) {
+        return maxLifetimeMillis > 0 && now - createdAt > maxLifetimeMillis;
+    }
+
+    boolean isIdleLongerThan(long idleTimeoutMillis, long now) {
+        return idleTimeoutMillis > 0 && now - lastReturnedAt > idleTimeoutMillis;
+    }
+
+    /**
+     * Reports the connection as leaked once per lease if it has been borrowed for longer than the threshold.
+     *
+     * @return true if a new leak was reported.
+     */
+    boolean reportLeak(long leakDetectionThresholdMillis, long now) {
+        long borrowed = borrowedAt;
+        if (borrowed == 0 || leakReported || now - borrowed <= leakDetectionThresholdMillis) {
+            return false;
+        }
+
+        leakReported = true;
+        Exception trace = borrowTrace;
+        System.err.printf("Connection leak detection triggered, connection borrowed %sms ago and not returned.%n",
+                now - borrowed);
+        if (trace != null) {
+            trace.printStackTrace();
+        }
+        return true;
+    }
+
+    /**
+     * Routes every call to the physical connection until the lease is closed.
+     */
+    private class LeaseHandler implements InvocationHandler {
+
+        private boolean closed;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physicalConnection + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            recordSettingChange(method.getName());
+
+            try {
+                return method.invoke(physicalConnection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Remembers the value a setting had before the lease first changes it, so {@link #reset()} can restore it.
+         */
+        private void recordSettingChange(String methodName) throws SQLException {
+            switch (methodName) {
+                case "setAutoCommit":
+                    autoCommitChanged = true;
+                    break;
+                case "setReadOnly":
+                    if (originalReadOnly == null) {
+                        originalReadOnly = physicalConnection.isReadOnly();
+                    }
+                    break;
+                case "setTransactionIsolation":
+                    if (originalTransactionIsolation == null) {
+                        originalTransactionIsolation = physicalConnection.getTransactionIsolation();
+                    }
+                    break;
+                case "setCatalog":
+                    if (!catalogChanged) {
+                        originalCatalog = physicalConnection.getCatalog();
+                        catalogChanged = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
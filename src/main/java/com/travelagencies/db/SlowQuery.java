@@ -0,0 +1,66 @@
+package com.travelagencies.db;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One statement recorded by a {@link SlowQueryLog}.
+ */
+@Data
+@Builder
+public class SlowQuery {
+
+    private Instant finishedAt;
+
+    private long durationMicros;
+
+    private String sql;
+
+    /**
+     * The bound parameters in index order, rendered as text.
+     */
+    private List<String> parameters;
+
+    /**
+     * Rows fetched by a query, or rows changed by an update.
+     */
+    private long rows;
+
+    /**
+     * The outermost DAO method on the stack, followed by the innermost one if they differ.
+     */
+    private String caller;
+
+    private String thread;
+
+    /**
+     * The exception the statement failed with, null if it succeeded.
+     */
+    private String failure;
+
+    /**
+     * The query plan of the statement's shape, only captured for the first slow statement of each shape when
+     * {@link SlowQueryLogConfig#isExplainPlans()} is set.
+     */
+    private String plan;
+
+    /**
+     * Returns the entry as it is written to the log.
+     */
+    public String format() {
+        StringBuilder line = new StringBuilder(String.format("%s slow query %.3f ms, %s rows, %s on %s: %s %s",
+                finishedAt, durationMicros / 1000.0, rows, caller, thread, sql, parameters));
+        if (failure != null) {
+            line.append(" failed: ").append(failure);
+        }
+        if (plan != null) {
+            for (String planLine : plan.split("\n")) {
+                line.append(System.lineSeparator()).append("    plan: ").append(planLine);
+            }
+        }
+        return line.toString();
+    }
+}
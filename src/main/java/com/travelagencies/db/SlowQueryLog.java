@@ -0,0 +1,311 @@
+package com.travelagencies.db;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Times every statement sent through a {@link DataSource} it has {@link #wrap(DataSource) wrapped} and logs the
+ * ones at or over {@link SlowQueryLogConfig#getThresholdMillis()} with their parameters, row count, calling DAO
+ * method and thread. Entries are handed to a background writer through a bounded queue, so a slow disk or a burst of
+ * slow statements never blocks the DAOs; entries that do not fit are dropped and counted.
+ * <p>
+ * With {@link SlowQueryLogConfig#isExplainPlans()} set, the writer also runs {@code EXPLAIN} for the first slow
+ * statement of each shape on the unwrapped DataSource and logs the plan with it.
+ *
+ * <pre>{@code
+ * SlowQueryLog slowQueryLog = new SlowQueryLog(SlowQueryLogConfig.development());
+ * TransactionManager transactionManager = new TransactionManager(slowQueryLog.wrap(connectionPool));
+ * }</pre>
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final SlowQueryLogConfig config;
+    private final long thresholdNanos;
+    private final Consumer<SlowQuery> sink;
+    private final PrintStream logFile;
+    private final BlockingQueue<PendingEntry> queue;
+    private final Thread writer;
+    private final AtomicLong loggedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    // Only used by the writer thread.
+    private final Set<String> explainedShapes = new HashSet<>();
+    private volatile boolean running = true;
+
+    /**
+     * Creates a log that appends to {@link SlowQueryLogConfig#getLogFile()}, or standard error if it is not set.
+     */
+    public SlowQueryLog(SlowQueryLogConfig config) {
+        this(config, openLogFile(config));
+    }
+
+    /**
+     * Creates a log that hands every entry to the sink, on the writer thread.
+     */
+    public SlowQueryLog(SlowQueryLogConfig config, Consumer<SlowQuery> sink) {
+        this(config, sink, null);
+    }
+
+    private SlowQueryLog(SlowQueryLogConfig config, PrintStream out) {
+        this(config, entry -> {
+            out.println(entry.format());
+            out.flush();
+        }, out == System.err ? null : out);
+    }
+
+    private SlowQueryLog(SlowQueryLogConfig config, Consumer<SlowQuery> sink, PrintStream logFile) {
+        validate(config);
+        this.config = config;
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(config.getThresholdMillis());
+        this.sink = sink;
+        this.logFile = logFile;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.writer = new Thread(this::writeEntries, "slow-query-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private static void validate(SlowQueryLogConfig config) {
+        if (config.getThresholdMillis() < 0) {
+            throw new IllegalArgumentException(
+                    String.format("thresholdMillis must not be negative: %s", config.getThresholdMillis()));
+        }
+        if (config.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("queueCapacity must be at least 1: %s", config.getQueueCapacity()));
+        }
+        if (config.getMaxParameterLength() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("maxParameterLength must be at least 1: %s", config.getMaxParameterLength()));
+        }
+    }
+
+    private static PrintStream openLogFile(SlowQueryLogConfig config) {
+        if (config.getLogFile() == null) {
+            return System.err;
+        }
+        try {
+            return new PrintStream(Files.newOutputStream(config.getLogFile(),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), false, "UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open slow query log " + config.getLogFile(), e);
+        }
+    }
+
+    public SlowQueryLogConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Returns a DataSource whose statements are timed and logged when they are slow.
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new ObservedDataSource(dataSource, new SlowQueryListener(dataSource));
+    }
+
+    /**
+     * Returns the number of entries written so far.
+     */
+    public long getLoggedCount() {
+        return loggedCount.get();
+    }
+
+    /**
+     * Returns the number of slow statements that were not logged because the queue was full.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Writes the entries still queued and stops the writer.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (logFile != null) {
+            logFile.close();
+        }
+    }
+
+    private void writeEntries() {
+        while (running || !queue.isEmpty()) {
+            PendingEntry pending;
+            try {
+                pending = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (pending == null) {
+                continue;
+            }
+            try {
+                if (config.isExplainPlans() && explainedShapes.add(SqlProfile.shapeOf(pending.entry.getSql()))) {
+                    pending.entry.setPlan(explain(pending));
+                }
+                sink.accept(pending.entry);
+                loggedCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private String explain(PendingEntry pending) {
+        String sql = pending.entry.getSql().trim();
+        String verb = sql.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+        if (!List.of("SELECT", "INSERT", "UPDATE", "DELETE").contains(verb)) {
+            return null;
+        }
+
+        try (Connection connection = pending.dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < pending.parameters.size(); i++) {
+                statement.setObject(i + 1, pending.parameters.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                int columns = resultSet.getMetaData().getColumnCount();
+                List<String> rows = new ArrayList<>();
+                while (resultSet.next()) {
+                    List<String> values = new ArrayList<>();
+                    for (int column = 1; column <= columns; column++) {
+                        values.add(String.valueOf(resultSet.getObject(column)));
+                    }
+                    rows.add(String.join("\t", values));
+                }
+                return String.join("\n", rows);
+            }
+        } catch (SQLException e) {
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    private String render(Object parameter) {
+        if (parameter == null) {
+            return "null";
+        }
+        String text = parameter instanceof byte[] bytes ? "<" + bytes.length + " bytes>" : parameter.toString();
+        if (text.length() > config.getMaxParameterLength()) {
+            text = text.substring(0, config.getMaxParameterLength()) + "...";
+        }
+        return parameter instanceof CharSequence ? "'" + text + "'" : text;
+    }
+
+    /**
+     * Returns the outermost DAO method on the current stack, and the innermost one if it is in a different class,
+     * e.g. a caching DAO calling the DAO it extends. Falls back to the first frame outside this package and the
+     * JDK when no DAO is involved.
+     */
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> {
+            StackWalker.StackFrame innermost = null;
+            StackWalker.StackFrame outermost = null;
+            String fallback = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (className.endsWith("Dao") && !frame.getMethodName().startsWith("lambda$")) {
+                    innermost = innermost == null ? frame : innermost;
+                    outermost = frame;
+                } else if (fallback == null && isApplicationFrame(className)) {
+                    fallback = methodName(frame);
+                }
+            }
+            if (outermost == null) {
+                return fallback != null ? fallback : "unknown";
+            }
+            // Helpers the outermost DAO calls on itself add nothing; a DAO it extends or delegates to does.
+            return outermost.getClassName().equals(innermost.getClassName()) ? methodName(outermost)
+                    : methodName(outermost) + " > " + methodName(innermost);
+        });
+    }
+
+    private static String methodName(StackWalker.StackFrame frame) {
+        String className = frame.getClassName();
+        return className.substring(className.lastIndexOf('.') + 1) + "." + frame.getMethodName();
+    }
+
+    private static boolean isApplicationFrame(String className) {
+        return !className.startsWith(SlowQueryLog.class.getPackageName() + ".")
+                && !className.startsWith("java.") && !className.startsWith("javax.")
+                && !className.startsWith("jdk.") && !className.startsWith("sun.")
+                && !className.startsWith("com.sun.") && !className.startsWith("org.h2.")
+                && !className.startsWith("com.mysql.");
+    }
+
+    private static class PendingEntry {
+
+        private final SlowQuery entry;
+        private final List<Object> parameters;
+        private final DataSource dataSource;
+
+        PendingEntry(SlowQuery entry, List<Object> parameters, DataSource dataSource) {
+            this.entry = entry;
+            this.parameters = parameters;
+            this.dataSource = dataSource;
+        }
+    }
+
+    private class SlowQueryListener implements StatementListener {
+
+        private final DataSource dataSource;
+
+        SlowQueryListener(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @Override
+        public boolean isListening() {
+            return true;
+        }
+
+        @Override
+        public void executionFinished(StatementExecution execution) {
+            if (execution.getDurationNanos() < thresholdNanos || execution.getSql() == null) {
+                return;
+            }
+
+            Throwable failure = execution.getFailure();
+            SlowQuery entry = SlowQuery.builder()
+                    .finishedAt(Instant.now())
+                    .durationMicros(TimeUnit.NANOSECONDS.toMicros(execution.getDurationNanos()))
+                    .sql(execution.getSql())
+                    .parameters(execution.getParameters().stream()
+                            .map(SlowQueryLog.this::render)
+                            .collect(Collectors.toList()))
+                    .rows(execution.getRowsFetched() + execution.getRowsAffected())
+                    .caller(caller())
+                    .thread(Thread.currentThread().getName())
+                    .failure(failure == null ? null : failure.toString())
+                    .build();
+            if (!queue.offer(new PendingEntry(entry, execution.getParameters(), dataSource))) {
+                droppedCount.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.travelagencies.db;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.nio.file.Path;
+
+/**
+ * Tuning knobs for a {@link SlowQueryLog}.
+ */
+@Data
+@Builder
+public class SlowQueryLogConfig {
+
+    /**
+     * Statements that take at least this long are logged. For a query the time includes reading its rows.
+     */
+    @Builder.Default
+    private long thresholdMillis = 200;
+
+    /**
+     * Slow statements waiting to be written. When the queue is full, further slow statements are dropped and
+     * counted rather than slowing down the caller.
+     */
+    @Builder.Default
+    private int queueCapacity = 1_024;
+
+    /**
+     * Whether to run {@code EXPLAIN} for the first slow statement of every shape and log its plan. It costs an
+     * extra connection and query per shape, so it is meant for development only.
+     */
+    @Builder.Default
+    private boolean explainPlans = false;
+
+    /**
+     * String parameters longer than this are truncated in the log.
+     */
+    @Builder.Default
+    private int maxParameterLength = 100;
+
+    /**
+     * The file slow statements are appended to, standard error if not set.
+     */
+    private Path logFile;
+
+    /**
+     * Returns the development profile: a lower threshold and query plans for every slow shape.
+     */
+    public static SlowQueryLogConfig development() {
+        return SlowQueryLogConfig.builder()
+                .thresholdMillis(20)
+                .explainPlans(true)
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package com.travelagencies.db;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The SQL one logical operation issued, as recorded by a {@link SqlProfiler} between {@link SqlProfiler#start(String)}
+ * and {@link #close()}. Byte counts are approximate payload sizes, the SQL text and parameters sent and the column
+ * values read, not what went over the wire.
+ * <p>
+ * Statements are also grouped by shape, their SQL with literals replaced by {@code ?}. A shape that takes
+ * {@link SqlProfiler#getNPlusOneThreshold()} or more round trips within one operation is reported as a likely
+ * N+1 pattern: the same query issued once per row of an earlier result instead of once for all of them.
+ */
+public class SqlProfile implements AutoCloseable {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SqlProfiler profiler;
+    private final String operation;
+
+    private int statements;
+    private int roundTrips;
+    private long rowsFetched;
+    private long bytesSent;
+    private long bytesReceived;
+    private final Map<String, Integer> roundTripsByShape = new LinkedHashMap<>();
+    private boolean closed;
+
+    SqlProfile(SqlProfiler profiler, String operation) {
+        this.profiler = profiler;
+        this.operation = operation;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * Returns the number of statements executed, counting every entry of a batch.
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * Returns the number of requests sent to the database: one per execution or batch, plus commits and rollbacks.
+     */
+    public int getRoundTrips() {
+        return roundTrips;
+    }
+
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Returns the round trips per statement shape, in the order the shapes were first executed.
+     */
+    public Map<String, Integer> getRoundTripsByShape() {
+        return Collections.unmodifiableMap(roundTripsByShape);
+    }
+
+    /**
+     * Returns the shapes that look like an N+1 pattern, with their number of round trips.
+     */
+    public Map<String, Integer> getSuspectedNPlusOne() {
+        return roundTripsByShape.entrySet().stream()
+                .filter(entry -> entry.getValue() >= profiler.getNPlusOneThreshold())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    public boolean hasSuspectedNPlusOne() {
+        return !getSuspectedNPlusOne().isEmpty();
+    }
+
+    /**
+     * Stops recording. Nested profiles must be closed before the profile they were started in.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            profiler.end(this);
+        }
+    }
+
+    /**
+     * Returns a one-line summary followed by one line per statement shape.
+     */
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "%s: %s statements in %s round trips, %s rows fetched, %s bytes sent, %s bytes received",
+                operation, statements, roundTrips, rowsFetched, bytesSent, bytesReceived));
+        Map<String, Integer> suspects = getSuspectedNPlusOne();
+        roundTripsByShape.forEach((shape, count) -> summary.append(System.lineSeparator())
+                .append(String.format("  %4d x %s%s", count, shape, suspects.containsKey(shape) ? "  <- likely N+1" : "")));
+        return summary.toString();
+    }
+
+    void recordExecution(StatementExecution execution) {
+        statements += Math.max(1, execution.getBatchedStatements());
+        roundTrips++;
+        rowsFetched += execution.getRowsFetched();
+        bytesSent += execution.getBytesSent();
+        bytesReceived += execution.getBytesReceived();
+        if (execution.getSql() != null) {
+            roundTripsByShape.merge(shapeOf(execution.getSql()), 1, Integer::sum);
+        }
+    }
+
+    void recordRoundTrip() {
+        roundTrips++;
+    }
+
+    /**
+     * Returns the SQL with its literals replaced by {@code ?} and its whitespace collapsed.
+     */
+    static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMERIC_LITERAL.matcher(shape).replaceAll("?");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+}
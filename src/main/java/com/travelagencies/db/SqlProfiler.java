@@ -0,0 +1,154 @@
+package com.travelagencies.db;
+
+import javax.sql.DataSource;
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Counts the statements, round trips, rows and bytes each logical operation sends through a {@link DataSource}
+ * it has {@link #wrap(DataSource) wrapped}. An operation is everything the current thread runs between
+ * {@link #start(String)} and {@link SqlProfile#close()}; profiles can nest, and a statement is recorded in every
+ * profile open on the thread. Statements issued while no profile is open cost one ThreadLocal lookup.
+ *
+ * <pre>{@code
+ * SqlProfiler profiler = new SqlProfiler();
+ * TransactionManager transactionManager = new TransactionManager(profiler.wrap(connectionPool));
+ * try (SqlProfile profile = profiler.start("createBooking")) {
+ *     bookingService.createBooking(passengerId, activityId, destinationId);
+ * }
+ * }</pre>
+ */
+public class SqlProfiler {
+
+    public static final int DEFAULT_N_PLUS_ONE_THRESHOLD = 3;
+
+    private final int nPlusOneThreshold;
+    // Only set while a profile is open, so an idle thread keeps no ThreadLocal entry.
+    private final ThreadLocal<Deque<SqlProfile>> openProfiles = new ThreadLocal<>();
+    private final List<Consumer<SqlProfile>> listeners = new CopyOnWriteArrayList<>();
+
+    public SqlProfiler() {
+        this(DEFAULT_N_PLUS_ONE_THRESHOLD);
+    }
+
+    /**
+     * @param nPlusOneThreshold The number of round trips of the same statement shape within one operation from
+     *                          which it is reported as a likely N+1 pattern.
+     */
+    public SqlProfiler(int nPlusOneThreshold) {
+        if (nPlusOneThreshold < 2) {
+            throw new IllegalArgumentException(
+                    String.format("nPlusOneThreshold must be at least 2: %s", nPlusOneThreshold));
+        }
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    public int getNPlusOneThreshold() {
+        return nPlusOneThreshold;
+    }
+
+    /**
+     * Returns a DataSource whose connections, statements and result sets report to this profiler.
+     */
+    public DataSource wrap(DataSource dataSource) {
+        return new ObservedDataSource(dataSource, new ProfilingListener());
+    }
+
+    /**
+     * Starts recording an operation on the current thread.
+     *
+     * @param operation The name of the operation, e.g. {@code createBooking}.
+     * @return The profile, which must be closed on the same thread.
+     */
+    public SqlProfile start(String operation) {
+        Deque<SqlProfile> profiles = openProfiles.get();
+        if (profiles == null) {
+            profiles = new ArrayDeque<>();
+            openProfiles.set(profiles);
+        }
+        SqlProfile profile = new SqlProfile(this, operation);
+        profiles.push(profile);
+        return profile;
+    }
+
+    /**
+     * Runs the work as one operation.
+     *
+     * @return The closed profile.
+     */
+    public SqlProfile profile(String operation, Runnable work) {
+        try (SqlProfile profile = start(operation)) {
+            work.run();
+            return profile;
+        }
+    }
+
+    /**
+     * Registers a listener that is called with every outermost profile when it is closed.
+     */
+    public void addListener(Consumer<SqlProfile> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Returns a listener that prints the profiles with a likely N+1 pattern.
+     */
+    public static Consumer<SqlProfile> nPlusOneWarnings(PrintStream out) {
+        return profile -> {
+            if (profile.hasSuspectedNPlusOne()) {
+                out.println("Likely N+1 queries in " + profile);
+            }
+        };
+    }
+
+    void end(SqlProfile profile) {
+        Deque<SqlProfile> profiles = openProfiles.get();
+        if (profiles == null || profiles.peek() != profile) {
+            throw new IllegalStateException(String.format(
+                    "Profile %s must be closed on the thread that started it, after the profiles nested in it",
+                    profile.getOperation()));
+        }
+        profiles.pop();
+        if (profiles.isEmpty()) {
+            openProfiles.remove();
+            listeners.forEach(listener -> listener.accept(profile));
+        }
+    }
+
+    /**
+     * Records each finished statement in every profile open on its thread.
+     */
+    private class ProfilingListener implements StatementListener {
+
+        @Override
+        public boolean isListening() {
+            return openProfiles.get() != null;
+        }
+
+        @Override
+        public void executionFinished(StatementExecution execution) {
+            Deque<SqlProfile> profiles = openProfiles.get();
+            if (profiles == null) {
+                return;
+            }
+            for (SqlProfile profile : profiles) {
+                profile.recordExecution(execution);
+            }
+        }
+
+        @Override
+        public void transactionEnded() {
+            Deque<SqlProfile> profiles = openProfiles.get();
+            if (profiles == null) {
+                return;
+            }
+            for (SqlProfile profile : profiles) {
+                profile.recordRoundTrip();
+            }
+        }
+    }
+}
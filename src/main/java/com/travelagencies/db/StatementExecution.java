@@ -0,0 +1,100 @@
+package com.travelagencies.db;
+
+import java.util.List;
+
+/**
+ * One execution of a statement or batch, as seen by an {@link ObservedDataSource}.
+ */
+final class StatementExecution {
+
+    private final String sql;
+    private final List<Object> parameters;
+    private final int batchedStatements;
+    private final long bytesSent;
+    private final long startNanos;
+
+    private long durationNanos = -1;
+    private long rowsFetched;
+    private long rowsAffected;
+    private long bytesReceived;
+    private Throwable failure;
+
+    StatementExecution(String sql, List<Object> parameters, int batchedStatements, long bytesSent) {
+        this.sql = sql;
+        this.parameters = parameters;
+        this.batchedStatements = batchedStatements;
+        this.bytesSent = bytesSent;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the SQL text, or null for a batch of plain statements with no SQL.
+     */
+    String getSql() {
+        return sql;
+    }
+
+    /**
+     * Returns the bound parameters in index order, for a batch those of its last entry.
+     */
+    List<Object> getParameters() {
+        return parameters;
+    }
+
+    int getBatchedStatements() {
+        return batchedStatements;
+    }
+
+    long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Returns the time from the start of the execution until it finished, including reading the result set.
+     */
+    long getDurationNanos() {
+        return durationNanos;
+    }
+
+    long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    long getRowsAffected() {
+        return rowsAffected;
+    }
+
+    long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    Throwable getFailure() {
+        return failure;
+    }
+
+    boolean isFinished() {
+        return durationNanos >= 0;
+    }
+
+    void rowFetched() {
+        rowsFetched++;
+    }
+
+    void rowsAffected(long rows) {
+        if (rows > 0) {
+            rowsAffected += rows;
+        }
+    }
+
+    void bytesReceived(long bytes) {
+        bytesReceived += bytes;
+    }
+
+    void failed(Throwable failure) {
+        this.failure = failure;
+    }
+
+    void finish() {
+        durationNanos = System.nanoTime() - startNanos;
+    }
+}
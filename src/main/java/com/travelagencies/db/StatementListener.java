@@ -0,0 +1,26 @@
+package com.travelagencies.db;
+
+/**
+ * Receives the statements executed through an {@link ObservedDataSource}.
+ * Callbacks run on the thread that executed the statement.
+ */
+interface StatementListener {
+
+    /**
+     * Whether statements started on the current thread should be tracked at all. Untracked statements skip
+     * parameter capture and timing.
+     */
+    boolean isListening();
+
+    /**
+     * Called once a statement is done: a query when its result set is closed or its statement is closed or executed
+     * again, anything else, including a plain {@code execute()}, when it returns.
+     */
+    void executionFinished(StatementExecution execution);
+
+    /**
+     * Called after a commit or rollback.
+     */
+    default void transactionEnded() {
+    }
+}
@@ -0,0 +1,155 @@
+package com.travelagencies.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A database transaction bound to one connection, owned by a {@link TransactionManager}.
+ * DAOs participate through handles whose {@code close()} leaves the connection open, and any SQLException
+ * raised by a statement on a handle marks the transaction rollback-only. Actions registered with
+ * {@link #afterCommit(Runnable)} run once the commit succeeded and are dropped on rollback, those registered with
+ * {@link #afterCompletion(Runnable)} run when the transaction is closed, whatever its outcome.
+ */
+class Transaction {
+
+    private final Connection connection;
+
+    private final Queue<Runnable> afterCommitActions = new ConcurrentLinkedQueue<>();
+    private final Queue<Runnable> afterCompletionActions = new ConcurrentLinkedQueue<>();
+
+    private volatile SQLException failure;
+
+    Transaction(Connection connection) {
+        this.connection = connection;
+    }
+
+    /**
+     * Returns the transaction a connection handle belongs to.
+     *
+     * @return The transaction, or null if the connection is not a handle of one.
+     */
+    static Transaction of(Connection connection) {
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof HandleHandler handler) {
+            return handler.getTransaction();
+        }
+        return null;
+    }
+
+    void afterCommit(Runnable action) {
+        afterCommitActions.add(action);
+    }
+
+    void afterCompletion(Runnable action) {
+        afterCompletionActions.add(action);
+    }
+
+    Connection newHandle() {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new HandleHandler());
+    }
+
+    void commit() {
+        if (failure != null) {
+            throw new IllegalStateException("Transaction rolled back because a statement failed", failure);
+        }
+
+        try {
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not commit transaction", e);
+        }
+
+        runAll(afterCommitActions);
+    }
+
+    void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    void close() {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        runAll(afterCompletionActions);
+    }
+
+    private static void runAll(Queue<Runnable> actions) {
+        for (Runnable action = actions.poll(); action != null; action = actions.poll()) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Object invokeRecordingFailure(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                failure = (SQLException) e.getCause();
+            }
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Connection handle given to DAOs, transaction demarcation stays with the {@link TransactionManager}.
+     */
+    private class HandleHandler implements InvocationHandler {
+
+        Transaction getTransaction() {
+            return Transaction.this;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "rollback":
+                case "setAutoCommit":
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            Object result = invokeRecordingFailure(connection, method, args);
+            if (result instanceof Statement) {
+                return wrapStatement((Statement) result, method.getReturnType());
+            }
+            return result;
+        }
+
+        private Object wrapStatement(Statement statement, Class<?> statementType) {
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{statementType},
+                    (proxy, method, args) -> invokeRecordingFailure(statement, method, args));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.travelagencies.db;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a unit of work on a single connection inside one database transaction.
+ *
+ * While a unit of work is running, the transaction is bound to the calling thread and every DAO built on
+ * {@link #getDataSource()} joins it: their {@code getConnection()} calls return the transaction's connection,
+ * and closing it is a no-op. The transaction commits when the work returns normally and rolls back when it
+ * throws or when any statement on the transaction failed, even if the DAO swallowed the SQLException.
+ * Nested calls join the outer transaction.
+ */
+public class TransactionManager implements TransactionRunner {
+
+    private final DataSource dataSource;
+    private final DataSource transactionAwareDataSource;
+    private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+
+    /**
+     * Constructs a TransactionManager that opens transactions on connections borrowed from the given DataSource.
+     *
+     * @param dataSource The (typically pooled) source of database connections.
+     */
+    public TransactionManager(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.transactionAwareDataSource = new TransactionAwareDataSource(dataSource);
+    }
+
+    /**
+     * Returns the DataSource DAOs should be built on so that they join the calling thread's transaction.
+     * Outside a unit of work it behaves exactly like the underlying DataSource.
+     *
+     * @return The transaction-aware DataSource.
+     */
+    public DataSource getDataSource() {
+        return transactionAwareDataSource;
+    }
+
+    /**
+     * Runs the given work in a transaction and returns its result.
+     *
+     * @param work The unit of work.
+     * @return The value returned by the work.
+     * @throws IllegalStateException If the transaction cannot be started, committed, or a statement in it failed.
+     */
+    @Override
+    public <T> T execute(Supplier<T> work) {
+        if (currentTransaction.get() != null) {
+            return work.get();
+        }
+
+        Transaction transaction = begin();
+        currentTransaction.set(transaction);
+        try {
+            T result = work.get();
+            transaction.commit();
+            return result;
+        } catch (RuntimeException | Error e) {
+            transaction.rollback();
+            throw e;
+        } finally {
+            currentTransaction.remove();
+            transaction.close();
+        }
+    }
+
+    /**
+     * Runs the given work in a transaction.
+     *
+     * @param work The unit of work.
+     * @throws IllegalStateException If the transaction cannot be started, committed, or a statement in it failed.
+     */
+    @Override
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns whether the calling thread is currently running a unit of work.
+     *
+     * @return true inside {@link #execute(Supplier)} or {@link #run(Runnable)}.
+     */
+    @Override
+    public boolean isTransactionActive() {
+        return currentTransaction.get() != null;
+    }
+
+    /**
+     * Runs the action once the unit of work the connection belongs to has committed, and never if it rolls back.
+     * A connection that is not part of a unit of work commits each statement by itself, so the action runs at once.
+     *
+     * @param connection The connection the statements the action depends on were executed on.
+     * @param action     The action, typically publishing what those statements wrote to other threads.
+     */
+    public static void afterCommit(Connection connection, Runnable action) {
+        Transaction transaction = Transaction.of(connection);
+        if (transaction == null) {
+            action.run();
+        } else {
+            transaction.afterCommit(action);
+        }
+    }
+
+    /**
+     * Runs the action now and, when the DataSource joins the calling thread to a unit of work, once more after that
+     * unit of work has committed or rolled back. Meant for evicting cached copies of rows the unit of work wrote:
+     * the first run keeps the unit of work from reading a stale entry, the second drops whatever was cached from the
+     * uncommitted or the still committed row while the outcome was open.
+     *
+     * @param dataSource The DataSource the rows were written through, possibly wrapping {@link #getDataSource()}.
+     * @param action     The action, which must be safe to run twice.
+     */
+    public static void nowAndAfterCompletion(DataSource dataSource, Runnable action) {
+        action.run();
+
+        Transaction transaction = currentTransaction(dataSource);
+        if (transaction != null) {
+            transaction.afterCompletion(action);
+        }
+    }
+
+    private static Transaction currentTransaction(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(TransactionAwareDataSource.class)) {
+                return dataSource.unwrap(TransactionAwareDataSource.class).currentTransaction();
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private Transaction begin() {
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return new Transaction(connection);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not begin transaction", e);
+        }
+    }
+
+    /**
+     * DataSource that hands out the calling thread's transaction connection when one is active.
+     */
+    class TransactionAwareDataSource extends DelegatingDataSource {
+
+        TransactionAwareDataSource(DataSource delegate) {
+            super(delegate);
+        }
+
+        Transaction currentTransaction() {
+            return currentTransaction.get();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Transaction transaction = currentTransaction.get();
+            if (transaction == null) {
+                return delegate.getConnection();
+            }
+            return transaction.newHandle();
+        }
+    }
+}
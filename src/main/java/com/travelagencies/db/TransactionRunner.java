@@ -0,0 +1,32 @@
+package com.travelagencies.db;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs units of work atomically: either everything the work wrote through the repositories is kept, or, when it
+ * throws, none of it is. Nested calls join the outer unit of work.
+ */
+public interface TransactionRunner {
+
+    /**
+     * Runs the given work as one unit and returns its result.
+     *
+     * @param work The unit of work.
+     * @return The value returned by the work.
+     */
+    <T> T execute(Supplier<T> work);
+
+    /**
+     * Runs the given work as one unit.
+     *
+     * @param work The unit of work.
+     */
+    void run(Runnable work);
+
+    /**
+     * Returns whether the calling thread is currently running a unit of work.
+     *
+     * @return true inside {@link #execute(Supplier)} or {@link #run(Runnable)}.
+     */
+    boolean isTransactionActive();
+}
@@ -0,0 +1,15 @@
+package com.travelagencies.enums;
+
+/**
+ * How much of a passenger's object graph the PassengerDao loads up front.
+ */
+public enum PassengerFetchPlan {
+    /**
+     * Only the passenger row. The booking list is loaded on first read, and appending to it never loads it.
+     */
+    SHALLOW,
+    /**
+     * The passenger row and its full booking list, read on the same connection.
+     */
+    WITH_BOOKINGS
+}
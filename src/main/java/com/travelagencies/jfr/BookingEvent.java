@@ -0,0 +1,84 @@
+package com.travelagencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+/**
+ * A booking or group booking created, or a booking status changed, by {@code BookingService}, spanning its whole
+ * transaction. A group booking has no single passenger or booking id, and its amount is the total charged.
+ */
+@Name(BookingEvent.NAME)
+@Label("Booking")
+@Category({"Travel Agency", "Services"})
+@Description("A booking created or a booking status changed, including its transaction")
+@Setter
+public class BookingEvent extends Event {
+
+    public static final String NAME = "com.travelagencies.Booking";
+
+    /**
+     * The operation completed.
+     */
+    public static final String SUCCESS = "SUCCESS";
+    /**
+     * The operation was refused by a business rule, e.g. a full activity or an insufficient balance.
+     */
+    public static final String REJECTED = "REJECTED";
+    /**
+     * The operation failed for any other reason.
+     */
+    public static final String FAILED = "FAILED";
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Booking Id")
+    private int bookingId;
+
+    @Label("Passenger Id")
+    private int passengerId;
+
+    @Label("Activity Id")
+    private int activityId;
+
+    @Label("Seats")
+    @Description("The number of passengers booked, 0 for status changes")
+    private int seats;
+
+    @Label("Status")
+    @Description("The booking status after the operation")
+    private String status;
+
+    @Label("Outcome")
+    private String outcome;
+
+    @Label("Amount")
+    @Description("What the passenger was charged, or refunded on cancellation")
+    private double amount;
+
+    public BookingEvent(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Ends the event and commits it with the given outcome if it is enabled and over its threshold.
+     */
+    public void complete(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+
+    /**
+     * Returns the outcome of an operation that threw the given exception.
+     */
+    public static String outcomeOf(Throwable e) {
+        return e instanceof IllegalArgumentException ? REJECTED : FAILED;
+    }
+}
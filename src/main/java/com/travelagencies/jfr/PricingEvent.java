@@ -0,0 +1,46 @@
+package com.travelagencies.jfr;
+
+import com.travelagencies.enums.PassengerType;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One booking cost or refund calculated by {@code BookingPricing}.
+ */
+@Name(PricingEvent.NAME)
+@Label("Pricing")
+@Category({"Travel Agency", "Services"})
+@StackTrace(false)
+public class PricingEvent extends Event {
+
+    public static final String NAME = "com.travelagencies.Pricing";
+
+    @Label("Calculation")
+    private String calculation;
+
+    @Label("Passenger Type")
+    private String passengerType;
+
+    @Label("Activity Cost")
+    private double activityCost;
+
+    @Label("Amount")
+    private double amount;
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold.
+     */
+    public void complete(String calculation, PassengerType passengerType, double activityCost, double amount) {
+        end();
+        if (shouldCommit()) {
+            this.calculation = calculation;
+            this.passengerType = passengerType == null ? null : passengerType.name();
+            this.activityCost = activityCost;
+            this.amount = amount;
+            commit();
+        }
+    }
+}
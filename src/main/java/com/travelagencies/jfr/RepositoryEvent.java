@@ -0,0 +1,49 @@
+package com.travelagencies.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One repository call, recorded by the {@code Instrumented*Repository} decorators around the DAOs. Stack traces
+ * are off by default: the call is made often and its caller is usually clear from the enclosing booking event.
+ */
+@Name(RepositoryEvent.NAME)
+@Label("Repository Call")
+@Category({"Travel Agency", "Repositories"})
+@Description("One call to a DAO or repository")
+@StackTrace(false)
+public class RepositoryEvent extends Event {
+
+    public static final String NAME = "com.travelagencies.RepositoryCall";
+
+    @Label("Entity")
+    private String entity;
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Rows")
+    @Description("The rows the call returned or wrote")
+    private int rows;
+
+    @Label("Failed")
+    private boolean failed;
+
+    /**
+     * Ends the event and commits it if it is enabled and over its threshold.
+     */
+    public void complete(String entity, String operation, int rows, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.entity = entity;
+            this.operation = operation;
+            this.rows = rows;
+            this.failed = failed;
+            commit();
+        }
+    }
+}
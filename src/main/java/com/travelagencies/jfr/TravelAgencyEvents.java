@@ -0,0 +1,56 @@
+package com.travelagencies.jfr;
+
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The Flight Recorder events the application emits. They are recorded only while a recording has them enabled,
+ * and cost next to nothing otherwise: {@code begin()} and {@code shouldCommit()} are no-ops the JIT removes, and
+ * the event fields are only set after {@code shouldCommit()}. They can be switched on and off in a running JVM
+ * with {@code jcmd <pid> JFR.start}, from JDK Mission Control, or through {@link #enable} and {@link #disable}.
+ *
+ * <pre>{@code
+ * try (Recording recording = new Recording(Configuration.getConfiguration("profile"))) {
+ *     TravelAgencyEvents.enable(recording, Duration.ofMillis(1));
+ *     recording.start();
+ *     ...
+ * }
+ * }</pre>
+ */
+public final class TravelAgencyEvents {
+
+    public static final List<Class<? extends Event>> EVENT_TYPES =
+            List.of(BookingEvent.class, RepositoryEvent.class, PricingEvent.class);
+
+    private TravelAgencyEvents() {
+    }
+
+    /**
+     * Registers the events with the Flight Recorder, so they are listed in recording settings before they are
+     * first emitted.
+     */
+    public static void register() {
+        EVENT_TYPES.forEach(FlightRecorder::register);
+    }
+
+    /**
+     * Enables every event in the recording.
+     *
+     * @param recording The recording, started or not.
+     * @param threshold Events shorter than this are not recorded, {@link Duration#ZERO} records them all.
+     */
+    public static void enable(Recording recording, Duration threshold) {
+        EVENT_TYPES.forEach(type -> recording.enable(type).withThreshold(threshold));
+    }
+
+    /**
+     * Disables every event in the recording.
+     */
+    public static void disable(Recording recording) {
+        EVENT_TYPES.forEach(recording::disable);
+    }
+}
@@ -0,0 +1,122 @@
+package com.travelagencies.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram in the style of HdrHistogram: values are counted in log-linear buckets with
+ * 64 sub-buckets per power of two, so every recorded value, and therefore every percentile, is accurate to
+ * within 1/64 (about 1.6%) up to {@link #HIGHEST_TRACKABLE_NANOS}. Longer latencies land in the last bucket,
+ * the maximum is still tracked exactly.
+ *
+ * Recording threads are spread over up to {@link #MAX_STRIPES} bucket arrays, so concurrent callers of the same
+ * operation rarely increment the same counter. A stripe is only allocated once a thread first records into it.
+ */
+public class LatencyHistogram {
+
+    /**
+     * About 68.7 seconds.
+     */
+    public static final long HIGHEST_TRACKABLE_NANOS = (1L << 36) - 1;
+
+    static final int MAX_STRIPES = 8;
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    static final int BUCKET_COUNT = bucketIndex(HIGHEST_TRACKABLE_NANOS) + 1;
+
+    private final AtomicReferenceArray<AtomicLongArray> stripes;
+    private final int stripeMask;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public LatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.min(MAX_STRIPES, Runtime.getRuntime().availableProcessors()));
+        this.stripes = new AtomicReferenceArray<>(stripeCount);
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Records one latency.
+     *
+     * @param nanos The latency in nanoseconds, negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        stripe().incrementAndGet(bucketIndex(Math.min(value, HIGHEST_TRACKABLE_NANOS)));
+        totalCount.increment();
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public double getMeanNanos() {
+        long count = totalCount.sum();
+        return count == 0 ? 0 : (double) totalNanos.sum() / count;
+    }
+
+    /**
+     * Returns the value at the given percentile, as the highest value of the bucket it falls into.
+     *
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        return snapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * Copies the buckets and counters. Values recorded while the copy is taken may or may not be included.
+     */
+    public HistogramSnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < stripes.length(); i++) {
+            AtomicLongArray stripe = stripes.get(i);
+            if (stripe != null) {
+                for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+                    counts[bucket] += stripe.get(bucket);
+                }
+            }
+        }
+        return new HistogramSnapshot(counts, totalNanos.sum(), maxNanos.get());
+    }
+
+    private AtomicLongArray stripe() {
+        int index = (int) Thread.currentThread().getId() & stripeMask;
+        AtomicLongArray stripe = stripes.get(index);
+        if (stripe == null) {
+            stripes.compareAndSet(index, null, new AtomicLongArray(BUCKET_COUNT));
+            stripe = stripes.get(index);
+        }
+        return stripe;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        // Shift the value down until it fits in the upper half of the sub-buckets.
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF_COUNT + (int) (value >>> shift);
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF_COUNT - 1;
+        long subBucket = index - (long) shift * SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,58 @@
+package com.travelagencies.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free recorder for one operation on one entity, such as {@code getById} on activities.
+ */
+public class OperationMetrics {
+
+    private final String entity;
+    private final String operation;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    OperationMetrics(String entity, String operation) {
+        this.entity = entity;
+        this.operation = operation;
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param nanos  How long the call took, whether it failed or not.
+     * @param rows   The rows the call returned or wrote.
+     * @param failed Whether the call threw.
+     */
+    public void record(long nanos, int rows, boolean failed) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (rows > 0) {
+            this.rows.add(rows);
+        }
+        latency.record(nanos);
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public OperationStats snapshot() {
+        return OperationStats.builder()
+                .entity(entity)
+                .operation(operation)
+                .calls(calls.sum())
+                .errors(errors.sum())
+                .rows(rows.sum())
+                .latency(latency.snapshot())
+                .build();
+    }
+}
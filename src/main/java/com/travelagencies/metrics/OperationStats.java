@@ -0,0 +1,30 @@
+package com.travelagencies.metrics;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time snapshot of an {@link OperationMetrics}' counters and latency histogram.
+ */
+@Data
+@Builder
+public class OperationStats {
+
+    private String entity;
+
+    private String operation;
+
+    private long calls;
+
+    /**
+     * Calls that threw. Errors a DAO catches and only prints are not visible here.
+     */
+    private long errors;
+
+    /**
+     * Rows returned by lookups, plus items passed to writes.
+     */
+    private long rows;
+
+    private HistogramSnapshot latency;
+}
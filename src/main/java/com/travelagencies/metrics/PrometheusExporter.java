@@ -0,0 +1,155 @@
+package com.travelagencies.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Renders {@link RepositoryMetrics} in the Prometheus text exposition format, either into a file for the node
+ * exporter's textfile collector or on an embedded {@code /metrics} endpoint.
+ * <p>
+ * Latencies are exposed as a summary in seconds with the 0.5, 0.9, 0.99 and 0.999 quantiles since the process
+ * started, plus the maximum as a gauge.
+ */
+public class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String PREFIX = "travel_repository_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final RepositoryMetrics metrics;
+
+    public PrometheusExporter(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Renders the current value of every metric.
+     */
+    public String scrape() {
+        List<OperationStats> operations = metrics.snapshot();
+        StringBuilder out = new StringBuilder();
+
+        header(out, "calls_total", "counter", "Repository calls, including failed ones.");
+        for (OperationStats stats : operations) {
+            sample(out, "calls_total", stats, null, stats.getCalls());
+        }
+        header(out, "errors_total", "counter", "Repository calls that threw.");
+        for (OperationStats stats : operations) {
+            sample(out, "errors_total", stats, null, stats.getErrors());
+        }
+        header(out, "rows_total", "counter", "Rows returned by lookups and items passed to writes.");
+        for (OperationStats stats : operations) {
+            sample(out, "rows_total", stats, null, stats.getRows());
+        }
+
+        header(out, "latency_seconds", "summary", "Repository call latency.");
+        for (OperationStats stats : operations) {
+            HistogramSnapshot latency = stats.getLatency();
+            for (double quantile : QUANTILES) {
+                sample(out, "latency_seconds", stats, quantile, seconds(latency.getValueAtPercentile(quantile * 100)));
+            }
+            sample(out, "latency_seconds_sum", stats, null, seconds(latency.getTotalNanos()));
+            sample(out, "latency_seconds_count", stats, null, latency.getCount());
+        }
+        header(out, "latency_max_seconds", "gauge", "Slowest repository call.");
+        for (OperationStats stats : operations) {
+            sample(out, "latency_max_seconds", stats, null, seconds(stats.getLatency().getMaxNanos()));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes the current metrics to a file, replacing it atomically so that a collector never reads a partial file.
+     *
+     * @param file The target file, typically ending in {@code .prom}.
+     */
+    public void writeTo(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try {
+            Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try {
+                Files.writeString(temporaryFile, scrape(), StandardCharsets.UTF_8);
+                try {
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Could not write metrics to %s", file), e);
+        }
+    }
+
+    /**
+     * Starts an HTTP server that serves the metrics on {@code /metrics}. The caller stops it with
+     * {@link HttpServer#stop(int)}.
+     *
+     * @param address The address to listen on, port 0 picks a free port.
+     * @return The running server.
+     */
+    public HttpServer serve(InetSocketAddress address) {
+        try {
+            HttpServer server = HttpServer.create(address, 0);
+            server.createContext("/metrics", exchange -> {
+                try (exchange) {
+                    if (!"GET".equals(exchange.getRequestMethod())) {
+                        exchange.sendResponseHeaders(405, -1);
+                        return;
+                    }
+                    byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream responseBody = exchange.getResponseBody()) {
+                        responseBody.write(body);
+                    }
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Could not serve metrics on %s", address), e);
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, OperationStats stats, Double quantile, double value) {
+        out.append(PREFIX).append(name)
+                .append("{entity=\"").append(escape(stats.getEntity()))
+                .append("\",operation=\"").append(escape(stats.getOperation())).append('"');
+        if (quantile != null) {
+            out.append(",quantile=\"").append(quantile).append('"');
+        }
+        out.append("} ").append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,35 @@
+package com.travelagencies.metrics;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@link OperationMetrics} of every instrumented repository, usually one per application.
+ * Recorders are looked up once when a repository is wrapped, so recording a call never touches the registry.
+ */
+public class RepositoryMetrics {
+
+    private final ConcurrentMap<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the recorder of an operation, creating it on first use.
+     *
+     * @param entity    The entity name, e.g. {@code activity}.
+     * @param operation The operation name, e.g. {@code getById}.
+     */
+    public OperationMetrics operation(String entity, String operation) {
+        return operations.computeIfAbsent(entity + '.' + operation, key -> new OperationMetrics(entity, operation));
+    }
+
+    /**
+     * Returns a snapshot of every operation, sorted by entity and operation.
+     */
+    public List<OperationStats> snapshot() {
+        return operations.values().stream()
+                .sorted(Comparator.comparing(OperationMetrics::getEntity).thenComparing(OperationMetrics::getOperation))
+                .map(OperationMetrics::snapshot)
+                .toList();
+    }
+}
@@ -0,0 +1,197 @@
+package com.travelagencies.models;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A list that remembers the keys of the elements it was loaded with, so that DAOs can write only
+ * the link-table rows that were added or removed since the last load or save instead of rewriting them all.
+ *
+ * A list created with {@link #lazy(Supplier, Function)} does not query its contents until they are first read.
+ * Appending with {@link #add(Object)} does not count as a read, so adding to a large, unloaded history
+ * and saving it never loads the history.
+ *
+ * @param <E> The element type, identified by an integer key such as a booking or destination id.
+ */
+public class ChangeTrackingList<E> extends AbstractList<E> {
+
+    private final Function<E, Integer> keyExtractor;
+    private final List<E> elements = new ArrayList<>();
+    private Supplier<? extends Collection<? extends E>> loader;
+    private final List<E> pendingAdditions = new ArrayList<>();
+    private Set<Integer> persistedKeys;
+
+    /**
+     * Constructs a list whose initial contents are considered already persisted.
+     *
+     * @param persisted    The elements as they currently exist in the database.
+     * @param keyExtractor Extracts the identifying key of an element.
+     */
+    public ChangeTrackingList(Collection<? extends E> persisted, Function<E, Integer> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.elements.addAll(persisted);
+        markClean();
+    }
+
+    private ChangeTrackingList(Supplier<? extends Collection<? extends E>> loader, Function<E, Integer> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+        this.loader = loader;
+        this.persistedKeys = Collections.emptySet();
+    }
+
+    /**
+     * Creates a list whose persisted contents are fetched by the loader the first time they are read.
+     *
+     * @param loader       Loads the elements as they currently exist in the database. Called at most once.
+     * @param keyExtractor Extracts the identifying key of an element.
+     * @return An unloaded list.
+     */
+    public static <E> ChangeTrackingList<E> lazy(Supplier<? extends Collection<? extends E>> loader,
+                                                 Function<E, Integer> keyExtractor) {
+        return new ChangeTrackingList<>(loader, keyExtractor);
+    }
+
+    /**
+     * Returns whether the persisted contents have been loaded.
+     *
+     * @return false only for a lazy list that has not been read yet.
+     */
+    public boolean isLoaded() {
+        return loader == null;
+    }
+
+    @Override
+    public E get(int index) {
+        ensureLoaded();
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        ensureLoaded();
+        return elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        ensureLoaded();
+        return elements.set(index, element);
+    }
+
+    /**
+     * Appends an element. On an unloaded list the element is kept aside and the list stays unloaded.
+     */
+    @Override
+    public boolean add(E element) {
+        if (!isLoaded()) {
+            pendingAdditions.add(element);
+            modCount++;
+            return true;
+        }
+
+        return super.add(element);
+    }
+
+    @Override
+    public void add(int index, E element) {
+        ensureLoaded();
+        elements.add(index, element);
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        ensureLoaded();
+        modCount++;
+        return elements.remove(index);
+    }
+
+    /**
+     * Returns the elements whose keys were not part of the persisted state.
+     * For an unloaded list these are the appended elements, which are assumed to be new.
+     *
+     * @return The added elements, one per key, in list order.
+     */
+    public List<E> getAddedElements() {
+        List<E> added = new ArrayList<>();
+        Set<Integer> seen = new HashSet<>();
+
+        for (E element : isLoaded() ? elements : pendingAdditions) {
+            Integer key = keyExtractor.apply(element);
+            if (!persistedKeys.contains(key) && seen.add(key)) {
+                added.add(element);
+            }
+        }
+
+        return added;
+    }
+
+    /**
+     * Returns the keys that were persisted but are no longer present in the list.
+     *
+     * @return The removed keys, always empty for an unloaded list.
+     */
+    public Set<Integer> getRemovedKeys() {
+        if (!isLoaded()) {
+            return Collections.emptySet();
+        }
+
+        Set<Integer> removed = new LinkedHashSet<>(persistedKeys);
+        removed.removeAll(currentKeys());
+        return removed;
+    }
+
+    /**
+     * Returns whether any element was added or removed since the persisted state was captured.
+     *
+     * @return true if the list differs from the persisted state.
+     */
+    public boolean isDirty() {
+        if (!isLoaded()) {
+            return !pendingAdditions.isEmpty();
+        }
+
+        return !persistedKeys.equals(currentKeys());
+    }
+
+    /**
+     * Records the current contents as persisted. Called by DAOs once their writes succeeded.
+     * An unloaded list stays unloaded, a later load will include the elements appended so far.
+     */
+    public void markClean() {
+        if (!isLoaded()) {
+            pendingAdditions.clear();
+            return;
+        }
+
+        persistedKeys = currentKeys();
+    }
+
+    private void ensureLoaded() {
+        if (isLoaded()) {
+            return;
+        }
+
+        elements.addAll(loader.get());
+        loader = null;
+        persistedKeys = currentKeys();
+        elements.addAll(pendingAdditions);
+        pendingAdditions.clear();
+    }
+
+    private Set<Integer> currentKeys() {
+        Set<Integer> keys = new HashSet<>();
+        for (E element : elements) {
+            keys.add(keyExtractor.apply(element));
+        }
+        return keys;
+    }
+}
@@ -3,7 +3,10 @@ package com.travelagencies.models;
 import com.travelagencies.enums.PassengerType;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -20,5 +23,12 @@ public class Passenger {
 
     private Double balance;
 
-    private List<Booking> bookingList;
+    /**
+     * Left out of equals, hashCode and toString so that comparing or logging a passenger
+     * never loads a lazily fetched booking history.
+     */
+    @Builder.Default
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<Booking> bookingList = new ArrayList<>();
 }
@@ -3,6 +3,7 @@ package com.travelagencies.models;
 import lombok.Builder;
 import lombok.Data;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -17,5 +18,6 @@ public class TravelPackage {
 
     private Integer capacity;
 
-    private List<Destination> destinations;
+    @Builder.Default
+    private List<Destination> destinations = new ArrayList<>();
 }
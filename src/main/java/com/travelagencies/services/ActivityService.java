@@ -1,17 +1,23 @@
 package com.travelagencies.services;
 
-import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.ActivityRepository;
 import com.travelagencies.models.Activity;
 import com.travelagencies.models.Destination;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Service class responsible for managing activities within the application.
  * This class contains methods to create, retrieve, and update activity information.
  */
 public class ActivityService {
-    private final ActivityDao activityDao;
+    private final ActivityRepository activityDao;
 
-    public ActivityService(ActivityDao activityDao) {
+    public ActivityService(ActivityRepository activityDao) {
         this.activityDao = activityDao;
     }
 
@@ -35,18 +41,46 @@ public class ActivityService {
     }
 
     public void updateActivityCapacity(int activityId, int newCapacity) {
-        Activity activity = activityDao.getById(activityId)
-                .orElseThrow(() -> new IllegalArgumentException(String.format("activityId: %s not found.", activityId)));
+        getActivityDetails(activityId);
 
-        activity.setCapacity(newCapacity);
-        activityDao.update(activity);
+        activityDao.updateCapacities(Map.of(activityId, newCapacity));
     }
 
     public void updateActivityCost(int activityId, double newCost) {
-        Activity activity = activityDao.getById(activityId)
-                .orElseThrow(() -> new IllegalArgumentException(String.format("activityId: %s not found.", activityId)));
+        getActivityDetails(activityId);
+
+        activityDao.updateCosts(Map.of(activityId, newCost));
+    }
+
+    public void createActivities(List<Activity> activities) {
+        for (Activity activity : activities) {
+            activity.setActivityId(activityDao.generateActivityId());
+        }
+
+        activityDao.saveAll(activities);
+    }
+
+    public Map<Integer, Activity> getActivitiesDetails(Collection<Integer> activityIds) {
+        Map<Integer, Activity> activities = activityDao.getByIds(activityIds);
+
+        Set<Integer> missingActivityIds = new LinkedHashSet<>(activityIds);
+        missingActivityIds.removeAll(activities.keySet());
+        if (!missingActivityIds.isEmpty()) {
+            throw new IllegalArgumentException(String.format("activityIds: %s not found.", missingActivityIds));
+        }
+
+        return activities;
+    }
+
+    public void updateActivitiesCapacity(Map<Integer, Integer> newCapacities) {
+        getActivitiesDetails(newCapacities.keySet());
+
+        activityDao.updateCapacities(newCapacities);
+    }
+
+    public void updateActivitiesCost(Map<Integer, Double> newCosts) {
+        getActivitiesDetails(newCosts.keySet());
 
-        activity.setCost(newCost);
-        activityDao.update(activity);
+        activityDao.updateCosts(newCosts);
     }
 }
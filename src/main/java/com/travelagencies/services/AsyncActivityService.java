@@ -0,0 +1,88 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link ActivityService}. Every method runs the blocking service call on an
+ * {@link AsyncExecutor} and returns a future that completes with its result, or exceptionally with what the service
+ * threw.
+ */
+public class AsyncActivityService {
+    private final ActivityService activityService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructs an AsyncActivityService around the given service.
+     *
+     * @param activityService The service that does the work.
+     * @param executor        Where the service calls run.
+     */
+    public AsyncActivityService(ActivityService activityService, AsyncExecutor executor) {
+        this.activityService = activityService;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs {@link ActivityService#createActivity(String, String, double, int, Destination)} asynchronously.
+     */
+    public CompletableFuture<Void> createActivity(String name, String description, double cost, int capacity,
+                                                  Destination destination) {
+        return executor.run(() -> activityService.createActivity(name, description, cost, capacity, destination));
+    }
+
+    /**
+     * Runs {@link ActivityService#getActivityDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Activity> getActivityDetails(int activityId) {
+        return executor.supply(() -> activityService.getActivityDetails(activityId));
+    }
+
+    /**
+     * Runs {@link ActivityService#updateActivityCapacity(int, int)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivityCapacity(int activityId, int newCapacity) {
+        return executor.run(() -> activityService.updateActivityCapacity(activityId, newCapacity));
+    }
+
+    /**
+     * Runs {@link ActivityService#updateActivityCost(int, double)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivityCost(int activityId, double newCost) {
+        return executor.run(() -> activityService.updateActivityCost(activityId, newCost));
+    }
+
+    /**
+     * Runs {@link ActivityService#createActivities(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createActivities(List<Activity> activities) {
+        return executor.run(() -> activityService.createActivities(activities));
+    }
+
+    /**
+     * Runs {@link ActivityService#getActivitiesDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Activity>> getActivitiesDetails(Collection<Integer> activityIds) {
+        return executor.supply(() -> activityService.getActivitiesDetails(activityIds));
+    }
+
+    /**
+     * Runs {@link ActivityService#updateActivitiesCapacity(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivitiesCapacity(Map<Integer, Integer> newCapacities) {
+        return executor.run(() -> activityService.updateActivitiesCapacity(newCapacities));
+    }
+
+    /**
+     * Runs {@link ActivityService#updateActivitiesCost(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateActivitiesCost(Map<Integer, Double> newCosts) {
+        return executor.run(() -> activityService.updateActivitiesCost(newCosts));
+    }
+}
@@ -0,0 +1,67 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.models.Booking;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link BookingService}. Every method runs the blocking service call on an
+ * {@link AsyncExecutor} and returns a future that completes with its result, or exceptionally with what the service
+ * threw.
+ */
+public class AsyncBookingService {
+    private final BookingService bookingService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructs an AsyncBookingService around the given service.
+     *
+     * @param bookingService The service that does the work.
+     * @param executor       Where the service calls run.
+     */
+    public AsyncBookingService(BookingService bookingService, AsyncExecutor executor) {
+        this.bookingService = bookingService;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs {@link BookingService#createBooking(int, int, int)} asynchronously.
+     */
+    public CompletableFuture<Void> createBooking(int passengerId, int activityId, int destinationId) {
+        return executor.run(() -> bookingService.createBooking(passengerId, activityId, destinationId));
+    }
+
+    /**
+     * Runs {@link BookingService#createGroupBooking(List, int, int)} asynchronously.
+     */
+    public CompletableFuture<List<Booking>> createGroupBooking(List<Integer> passengerIds, int activityId,
+                                                               int destinationId) {
+        return executor.supply(() -> bookingService.createGroupBooking(passengerIds, activityId, destinationId));
+    }
+
+    /**
+     * Runs {@link BookingService#updateBookingStatus(int, BookingStatus)} asynchronously.
+     */
+    public CompletableFuture<Void> updateBookingStatus(int bookingId, BookingStatus newStatus) {
+        return executor.run(() -> bookingService.updateBookingStatus(bookingId, newStatus));
+    }
+
+    /**
+     * Runs {@link BookingService#getBookingDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Booking> getBookingDetails(int bookingId) {
+        return executor.supply(() -> bookingService.getBookingDetails(bookingId));
+    }
+
+    /**
+     * Runs {@link BookingService#getBookingsDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Booking>> getBookingsDetails(Collection<Integer> bookingIds) {
+        return executor.supply(() -> bookingService.getBookingsDetails(bookingIds));
+    }
+}
@@ -0,0 +1,72 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.models.Destination;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link DestinationService}. Every method runs the blocking service call on an
+ * {@link AsyncExecutor} and returns a future that completes with its result, or exceptionally with what the service
+ * threw.
+ */
+public class AsyncDestinationService {
+    private final DestinationService destinationService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructs an AsyncDestinationService around the given service.
+     *
+     * @param destinationService The service that does the work.
+     * @param executor           Where the service calls run.
+     */
+    public AsyncDestinationService(DestinationService destinationService, AsyncExecutor executor) {
+        this.destinationService = destinationService;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs {@link DestinationService#createDestination(String)} asynchronously.
+     */
+    public CompletableFuture<Void> createDestination(String name) {
+        return executor.run(() -> destinationService.createDestination(name));
+    }
+
+    /**
+     * Runs {@link DestinationService#getDestinationDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Destination> getDestinationDetails(int destinationId) {
+        return executor.supply(() -> destinationService.getDestinationDetails(destinationId));
+    }
+
+    /**
+     * Runs {@link DestinationService#updateDestinationName(int, String)} asynchronously.
+     */
+    public CompletableFuture<Void> updateDestinationName(int destinationId, String newName) {
+        return executor.run(() -> destinationService.updateDestinationName(destinationId, newName));
+    }
+
+    /**
+     * Runs {@link DestinationService#createDestinations(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createDestinations(List<String> names) {
+        return executor.run(() -> destinationService.createDestinations(names));
+    }
+
+    /**
+     * Runs {@link DestinationService#getDestinationsDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Destination>> getDestinationsDetails(Collection<Integer> destinationIds) {
+        return executor.supply(() -> destinationService.getDestinationsDetails(destinationIds));
+    }
+
+    /**
+     * Runs {@link DestinationService#updateDestinationNames(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateDestinationNames(Map<Integer, String> newNames) {
+        return executor.run(() -> destinationService.updateDestinationNames(newNames));
+    }
+}
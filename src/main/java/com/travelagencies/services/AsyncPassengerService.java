@@ -0,0 +1,74 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Passenger;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link PassengerService}. Every method runs the blocking service call on an
+ * {@link AsyncExecutor} and returns a future that completes with its result, or exceptionally with what the service
+ * threw.
+ */
+public class AsyncPassengerService {
+    private final PassengerService passengerService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructs an AsyncPassengerService around the given service.
+     *
+     * @param passengerService The service that does the work.
+     * @param executor         Where the service calls run.
+     */
+    public AsyncPassengerService(PassengerService passengerService, AsyncExecutor executor) {
+        this.passengerService = passengerService;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs {@link PassengerService#createPassenger(String, String, PassengerType, Double)} asynchronously.
+     */
+    public CompletableFuture<Void> createPassenger(String passengerName, String mobile, PassengerType passengerType,
+                                                   double balance) {
+        return executor.run(() -> passengerService.createPassenger(passengerName, mobile, passengerType, balance));
+    }
+
+    /**
+     * Runs {@link PassengerService#updatePassengerBalance(int, double)} asynchronously.
+     */
+    public CompletableFuture<Void> updatePassengerBalance(int passengerId, double newBalance) {
+        return executor.run(() -> passengerService.updatePassengerBalance(passengerId, newBalance));
+    }
+
+    /**
+     * Runs {@link PassengerService#getPassengerDetails(int)} asynchronously.
+     */
+    public CompletableFuture<Passenger> getPassengerDetails(int passengerId) {
+        return executor.supply(() -> passengerService.getPassengerDetails(passengerId));
+    }
+
+    /**
+     * Runs {@link PassengerService#createPassengers(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createPassengers(List<Passenger> passengers) {
+        return executor.run(() -> passengerService.createPassengers(passengers));
+    }
+
+    /**
+     * Runs {@link PassengerService#updatePassengersBalance(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updatePassengersBalance(Map<Integer, Double> newBalances) {
+        return executor.run(() -> passengerService.updatePassengersBalance(newBalances));
+    }
+
+    /**
+     * Runs {@link PassengerService#getPassengersDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, Passenger>> getPassengersDetails(Collection<Integer> passengerIds) {
+        return executor.supply(() -> passengerService.getPassengersDetails(passengerIds));
+    }
+}
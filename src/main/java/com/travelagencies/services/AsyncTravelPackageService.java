@@ -0,0 +1,79 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.models.TravelPackage;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link TravelPackageService}. Every method runs the blocking service call on an
+ * {@link AsyncExecutor} and returns a future that completes with its result, or exceptionally with what the service
+ * threw.
+ */
+public class AsyncTravelPackageService {
+    private final TravelPackageService travelPackageService;
+    private final AsyncExecutor executor;
+
+    /**
+     * Constructs an AsyncTravelPackageService around the given service.
+     *
+     * @param travelPackageService The service that does the work.
+     * @param executor             Where the service calls run.
+     */
+    public AsyncTravelPackageService(TravelPackageService travelPackageService, AsyncExecutor executor) {
+        this.travelPackageService = travelPackageService;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs {@link TravelPackageService#createTravelPackage(String, String, int)} asynchronously.
+     */
+    public CompletableFuture<Void> createTravelPackage(String name, String description, int passengerCapacity) {
+        return executor.run(() -> travelPackageService.createTravelPackage(name, description, passengerCapacity));
+    }
+
+    /**
+     * Runs {@link TravelPackageService#getTravelPackageDetails(int)} asynchronously.
+     */
+    public CompletableFuture<TravelPackage> getTravelPackageDetails(int packageId) {
+        return executor.supply(() -> travelPackageService.getTravelPackageDetails(packageId));
+    }
+
+    /**
+     * Runs {@link TravelPackageService#updateTravelPackageName(int, String)} asynchronously.
+     */
+    public CompletableFuture<Void> updateTravelPackageName(int packageId, String newName) {
+        return executor.run(() -> travelPackageService.updateTravelPackageName(packageId, newName));
+    }
+
+    /**
+     * Runs {@link TravelPackageService#updateTravelPackagePassengerCapacity(int, int)} asynchronously.
+     */
+    public CompletableFuture<Void> updateTravelPackagePassengerCapacity(int packageId, int newCapacity) {
+        return executor.run(() -> travelPackageService.updateTravelPackagePassengerCapacity(packageId, newCapacity));
+    }
+
+    /**
+     * Runs {@link TravelPackageService#createTravelPackages(List)} asynchronously.
+     */
+    public CompletableFuture<Void> createTravelPackages(List<TravelPackage> travelPackages) {
+        return executor.run(() -> travelPackageService.createTravelPackages(travelPackages));
+    }
+
+    /**
+     * Runs {@link TravelPackageService#getTravelPackagesDetails(Collection)} asynchronously.
+     */
+    public CompletableFuture<Map<Integer, TravelPackage>> getTravelPackagesDetails(Collection<Integer> packageIds) {
+        return executor.supply(() -> travelPackageService.getTravelPackagesDetails(packageIds));
+    }
+
+    /**
+     * Runs {@link TravelPackageService#updateTravelPackagesPassengerCapacity(Map)} asynchronously.
+     */
+    public CompletableFuture<Void> updateTravelPackagesPassengerCapacity(Map<Integer, Integer> newCapacities) {
+        return executor.run(() -> travelPackageService.updateTravelPackagesPassengerCapacity(newCapacities));
+    }
+}
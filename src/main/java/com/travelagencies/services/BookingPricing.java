@@ -0,0 +1,63 @@
+package com.travelagencies.services;
+
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.jfr.PricingEvent;
+
+/**
+ * What a passenger pays for an activity and gets back on cancellation, depending on the passenger type.
+ */
+public final class BookingPricing {
+
+    /**
+     * Discount GOLD passengers get on bookings and, correspondingly, withheld from their refunds.
+     */
+    public static final double GOLD_DISCOUNT = 0.10;
+
+    private BookingPricing() {
+    }
+
+    /**
+     * Returns the booking cost: the full price for STANDARD passengers, 10% off for GOLD, free for PREMIUM.
+     */
+    public static double bookingCost(PassengerType passengerType, double activityCost) {
+        PricingEvent event = new PricingEvent();
+        event.begin();
+        double cost = calculateBookingCost(passengerType, activityCost);
+        event.complete("bookingCost", passengerType, activityCost, cost);
+        return cost;
+    }
+
+    /**
+     * Returns the refund on cancellation, which gives back exactly what {@link #bookingCost} charged.
+     */
+    public static double refundAmount(PassengerType passengerType, double activityCost) {
+        PricingEvent event = new PricingEvent();
+        event.begin();
+        double refund = calculateRefundAmount(passengerType, activityCost);
+        event.complete("refundAmount", passengerType, activityCost, refund);
+        return refund;
+    }
+
+    private static double calculateBookingCost(PassengerType passengerType, double activityCost) {
+        if (PassengerType.STANDARD.equals(passengerType)) {
+            return activityCost;
+        } else if (PassengerType.GOLD.equals(passengerType)) {
+            double discount = activityCost * GOLD_DISCOUNT;
+            return activityCost - discount;
+        }
+
+        // Booking cost is free for PREMIUM passengers.
+        return 0.0;
+    }
+
+    private static double calculateRefundAmount(PassengerType passengerType, double activityCost) {
+        if (passengerType == PassengerType.STANDARD) {
+            return activityCost; // Full refund for STANDARD passengers
+        } else if (passengerType == PassengerType.GOLD) {
+            double discount = activityCost * GOLD_DISCOUNT; // 10% discount for GOLD passengers
+            return activityCost - discount; // 90% of the activity cost as refund
+        } else {
+            return 0.0; // No refund for PREMIUM passengers
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityRepository;
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.PassengerRepository;
+import com.travelagencies.db.TransactionRunner;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.jfr.BookingEvent;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Passenger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Books hot activities through a fixed set of single-writer lanes instead of one transaction per request.
+ * <p>
+ * Every activity is routed by its id to one lane, a thread with a bounded queue that alone decides which requests
+ * for that activity get a seat. The lane keeps each activity's remaining capacity in memory, loaded once from the
+ * database, and takes a seat in memory as it accepts a request. Once an activity is sold out its requests are
+ * rejected on the caller's thread, so a flash sale's losing requests never queue and never touch the database.
+ * <p>
+ * Accepted requests are flushed in micro-batches: a lane keeps collecting for up to
+ * {@link BookingSchedulerConfig#getFlushIntervalMillis()} after the first request of a batch, then writes each
+ * activity's requests as one transaction that locks the passengers, reserves all the seats with one guarded
+ * capacity update and writes the bookings and balances with batched statements. Requests that fail there, such as
+ * an unknown passenger or a low balance, fail alone and give their seat back.
+ * <p>
+ * The database remains the authority. Capacity and cost are read with a locking, never cached, read and re-read
+ * every {@link BookingSchedulerConfig#getRefreshIntervalMillis()}, between batches when no accepted request holds
+ * an unflushed seat; sold-out activities are re-checked on the lane's thread the same way, so their rejected
+ * requests still never reach the database. Should the in-memory count run ahead of the database in between,
+ * because seats were taken outside the scheduler, the guarded update takes what is left and the lane resyncs.
+ * Seats given back by a cancellation are picked up at once when the cancelling service is given the scheduler as
+ * its {@link SeatReleaseListener}, or through {@link #invalidate(int)}.
+ */
+public class BookingScheduler implements SeatReleaseListener, AutoCloseable {
+
+    /**
+     * How long an idle lane waits for a request before it looks at invalidations and the closed flag again.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+    private static final long CLOSE_TIMEOUT_MILLIS = 30_000;
+
+    private final BookingRepository bookingDao;
+    private final PassengerRepository passengerDao;
+    private final ActivityRepository activityDao;
+    private final TransactionRunner transactionManager;
+    private final BookingSchedulerConfig config;
+    private final Lane[] lanes;
+
+    private final LongAdder booked = new LongAdder();
+    private final LongAdder soldOutRejections = new LongAdder();
+    private final LongAdder queueFullRejections = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    private volatile boolean closed;
+
+    public BookingScheduler(BookingRepository bookingDao, PassengerRepository passengerDao,
+                            ActivityRepository activityDao, TransactionRunner transactionManager) {
+        this(bookingDao, passengerDao, activityDao, transactionManager, BookingSchedulerConfig.builder().build());
+    }
+
+    public BookingScheduler(BookingRepository bookingDao, PassengerRepository passengerDao,
+                            ActivityRepository activityDao, TransactionRunner transactionManager,
+                            BookingSchedulerConfig config) {
+        if (config.getLanes() < 1) {
+            throw new IllegalArgumentException(String.format("lanes must be at least 1: %s", config.getLanes()));
+        }
+        if (config.getQueueCapacity() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("queueCapacity must be at least 1: %s", config.getQueueCapacity()));
+        }
+        if (config.getFlushIntervalMillis() < 0) {
+            throw new IllegalArgumentException(
+                    String.format("flushIntervalMillis must not be negative: %s", config.getFlushIntervalMillis()));
+        }
+        if (config.getMaxBatchSize() < 1) {
+            throw new IllegalArgumentException(
+                    String.format("maxBatchSize must be at least 1: %s", config.getMaxBatchSize()));
+        }
+        if (config.getRefreshIntervalMillis() < 0) {
+            throw new IllegalArgumentException(
+                    String.format("refreshIntervalMillis must not be negative: %s", config.getRefreshIntervalMillis()));
+        }
+        this.bookingDao = bookingDao;
+        this.passengerDao = passengerDao;
+        this.activityDao = activityDao;
+        this.transactionManager = transactionManager;
+        this.config = config;
+        this.lanes = new Lane[config.getLanes()];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(config.getThreadNamePrefix() + (i + 1));
+            lanes[i].thread.start();
+        }
+    }
+
+    public BookingSchedulerConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Books an activity for a passenger through the activity's lane.
+     *
+     * @return A future completed with the new booking, or exceptionally with an {@link IllegalArgumentException}
+     * if the activity is sold out or unknown or the passenger is unknown or cannot pay, or with a
+     * {@link RejectedExecutionException} if the lane's queue is full or the scheduler is closed.
+     */
+    public CompletableFuture<Booking> createBooking(int passengerId, int activityId, int destinationId) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The booking scheduler is closed"));
+        }
+        Lane lane = laneFor(activityId);
+        if (lane.soldOut.contains(activityId)) {
+            soldOutRejections.increment();
+            return CompletableFuture.failedFuture(capacityFull(activityId));
+        }
+
+        Request request = new Request(passengerId, activityId, destinationId, new CompletableFuture<>());
+        if (!lane.queue.offer(request)) {
+            queueFullRejections.increment();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    String.format("The booking queue for activityId %s is full", activityId)));
+        }
+        return request.result();
+    }
+
+    /**
+     * Makes the activity's lane reload its remaining capacity from the database before it accepts the next
+     * request, e.g. after bookings of the activity were cancelled or its capacity was changed.
+     */
+    public void invalidate(int activityId) {
+        Lane lane = laneFor(activityId);
+        lane.invalidated.add(activityId);
+        lane.soldOut.remove(activityId);
+    }
+
+    /**
+     * Invalidates the activity, so the seats given back are sold again.
+     */
+    @Override
+    public void seatsReleased(int activityId) {
+        invalidate(activityId);
+    }
+
+    /**
+     * Returns the counters since the scheduler started.
+     */
+    public BookingSchedulerStats getStats() {
+        return BookingSchedulerStats.builder()
+                .booked(booked.sum())
+                .soldOutRejections(soldOutRejections.sum())
+                .queueFullRejections(queueFullRejections.sum())
+                .failed(failed.sum())
+                .flushes(flushes.sum())
+                .build();
+    }
+
+    /**
+     * Stops accepting requests and waits for the lanes to flush the ones already queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        try {
+            for (Lane lane : lanes) {
+                lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Requests that raced past the closed check after their lane stopped.
+        for (Lane lane : lanes) {
+            Request request;
+            while ((request = lane.queue.poll()) != null) {
+                request.result().completeExceptionally(
+                        new RejectedExecutionException("The booking scheduler is closed"));
+            }
+        }
+    }
+
+    private Lane laneFor(int activityId) {
+        return lanes[Math.floorMod(Integer.hashCode(activityId), lanes.length)];
+    }
+
+    private static IllegalArgumentException capacityFull(int activityId) {
+        return new IllegalArgumentException(String.format("Capacity is full for activityId: %s.", activityId));
+    }
+
+    private record Request(int passengerId, int activityId, int destinationId, CompletableFuture<Booking> result) {
+    }
+
+    /**
+     * What a lane knows about one of its activities. Only the lane's thread reads or writes it.
+     */
+    private static class Seats {
+
+        private Activity activity;
+        private int remaining;
+        private long loadedAt;
+
+        Seats(Activity activity) {
+            reload(activity);
+        }
+
+        void reload(Activity activity) {
+            this.activity = activity;
+            this.remaining = activity.getCapacity();
+            this.loadedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * The outcome of one flushed transaction.
+     *
+     * @param seatsLeft The activity's remaining capacity in the database after the transaction, or -1 if the
+     *                  lane's own count is still right once the failed requests' seats are given back.
+     */
+    private record FlushResult(List<Booking> bookings, Map<Request, RuntimeException> failures, int seatsLeft) {
+    }
+
+    private class Lane implements Runnable {
+
+        private final Thread thread;
+        private final BlockingQueue<Request> queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        /**
+         * Sold-out activities, read by callers to reject without queueing and written by the lane.
+         */
+        private final Set<Integer> soldOut = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> invalidated = ConcurrentHashMap.newKeySet();
+        private final Map<Integer, Seats> seats = new HashMap<>();
+
+        Lane(String name) {
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Request> batch = new ArrayList<>(config.getMaxBatchSize());
+            long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMillis());
+            while (true) {
+                Request request = poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                // Between batches only, so a reload never forgets the seats of requests still in the batch.
+                refresh();
+                if (request == null) {
+                    if (closed && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (request != null) {
+                    admit(request, batch);
+                    if (batch.size() >= config.getMaxBatchSize()) {
+                        break;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    request = remaining > 0 ? poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                }
+                flush(batch);
+                batch.clear();
+            }
+        }
+
+        private Request poll(long timeout, TimeUnit unit) {
+            try {
+                return queue.poll(timeout, unit);
+            } catch (InterruptedException e) {
+                // Lanes are only stopped through close(), which lets them drain their queue first.
+                return null;
+            }
+        }
+
+        /**
+         * Forgets invalidated activities and those not read for a refresh interval, so their next request reads
+         * them again, and re-reads the sold-out ones right away, since no request for them reaches the lane.
+         */
+        private void refresh() {
+            for (Integer activityId : invalidated) {
+                invalidated.remove(activityId);
+                seats.remove(activityId);
+                soldOut.remove(activityId);
+            }
+
+            long refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getRefreshIntervalMillis());
+            Iterator<Map.Entry<Integer, Seats>> iterator = seats.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, Seats> entry = iterator.next();
+                Seats activitySeats = entry.getValue();
+                if (System.nanoTime() - activitySeats.loadedAt < refreshIntervalNanos) {
+                    continue;
+                }
+                if (activitySeats.remaining > 0) {
+                    iterator.remove();
+                    continue;
+                }
+
+                Optional<Activity> activity;
+                try {
+                    activity = load(entry.getKey());
+                } catch (RuntimeException e) {
+                    activity = Optional.empty();
+                }
+                if (activity.isEmpty()) {
+                    iterator.remove();
+                    soldOut.remove(entry.getKey());
+                    continue;
+                }
+                activitySeats.reload(activity.get());
+                if (activitySeats.remaining > 0) {
+                    soldOut.remove(entry.getKey());
+                }
+            }
+        }
+
+        /**
+         * Reads an activity's capacity and cost from the database, past any cache in front of it.
+         */
+        private Optional<Activity> load(int activityId) {
+            return transactionManager.execute(() -> activityDao.getByIdForUpdate(activityId));
+        }
+
+        /**
+         * Takes a seat in memory for the request and adds it to the batch, or fails it if there is none.
+         */
+        private void admit(Request request, List<Request> batch) {
+            Seats activitySeats = seats.get(request.activityId());
+            if (activitySeats == null) {
+                Optional<Activity> activity;
+                try {
+                    activity = load(request.activityId());
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    request.result().completeExceptionally(e);
+                    return;
+                }
+                if (activity.isEmpty()) {
+                    failed.increment();
+                    request.result().completeExceptionally(new IllegalArgumentException(
+                            String.format("activityId %s not found.", request.activityId())));
+                    return;
+                }
+                activitySeats = new Seats(activity.get());
+                seats.put(request.activityId(), activitySeats);
+            }
+
+            if (activitySeats.remaining <= 0) {
+                soldOut.add(request.activityId());
+                soldOutRejections.increment();
+                request.result().completeExceptionally(capacityFull(request.activityId()));
+                return;
+            }
+            activitySeats.remaining--;
+            if (activitySeats.remaining == 0) {
+                soldOut.add(request.activityId());
+            }
+            batch.add(request);
+        }
+
+        private void flush(List<Request> batch) {
+            Map<Integer, List<Request>> byActivity = new LinkedHashMap<>();
+            for (Request request : batch) {
+                byActivity.computeIfAbsent(request.activityId(), id -> new ArrayList<>()).add(request);
+            }
+            byActivity.forEach(this::flush);
+        }
+
+        private void flush(int activityId, List<Request> requests) {
+            Seats activitySeats = seats.get(activityId);
+            BookingEvent event = new BookingEvent("scheduleBookings");
+            event.setActivityId(activityId);
+            event.begin();
+            FlushResult result;
+            try {
+                result = transactionManager.execute(() -> writeBookings(activitySeats.activity, requests, event));
+            } catch (RuntimeException | Error e) {
+                event.complete(BookingEvent.outcomeOf(e));
+                // Nothing was written, and the seats may or may not still be there: reload them before the next
+                // request rather than guess.
+                seats.remove(activityId);
+                soldOut.remove(activityId);
+                failed.add(requests.size());
+                for (Request request : requests) {
+                    request.result().completeExceptionally(e);
+                }
+                return;
+            }
+            event.complete(BookingEvent.SUCCESS);
+            flushes.increment();
+
+            if (result.seatsLeft() >= 0) {
+                activitySeats.remaining = result.seatsLeft();
+            } else {
+                activitySeats.remaining += result.failures().size();
+            }
+            if (activitySeats.remaining > 0) {
+                soldOut.remove(activityId);
+            } else {
+                soldOut.add(activityId);
+            }
+
+            booked.add(result.bookings().size());
+            failed.add(result.failures().size());
+            int next = 0;
+            for (Request request : requests) {
+                RuntimeException failure = result.failures().get(request);
+                if (failure != null) {
+                    request.result().completeExceptionally(failure);
+                } else {
+                    request.result().complete(result.bookings().get(next++));
+                }
+            }
+        }
+
+        private FlushResult writeBookings(Activity activity, List<Request> requests, BookingEvent event) {
+            int activityId = activity.getActivityId();
+            Map<Request, RuntimeException> failures = new HashMap<>();
+
+            // Locked in id order, like a group booking, so lanes flushing at once cannot deadlock on passengers.
+            Set<Integer> passengerIds = new TreeSet<>();
+            for (Request request : requests) {
+                passengerIds.add(request.passengerId());
+            }
+            Map<Integer, Passenger> passengers = passengerDao.getByIdsForUpdate(passengerIds);
+
+            int seatsLeft = -1;
+            int seats = requests.size();
+            if (!activityDao.reserveCapacity(activityId, seats)) {
+                // The database has fewer seats than the lane counted: take what is left and fail the rest.
+                int available = activityDao.getByIdForUpdate(activityId).map(Activity::getCapacity).orElse(0);
+                seats = Math.min(seats, Math.max(available, 0));
+                if (seats > 0) {
+                    activityDao.reserveCapacity(activityId, seats);
+                }
+                seatsLeft = 0;
+                for (Request request : requests.subList(seats, requests.size())) {
+                    failures.put(request, capacityFull(activityId));
+                }
+            }
+
+            List<Booking> bookings = new ArrayList<>(seats);
+            Map<Integer, Passenger> debited = new LinkedHashMap<>();
+            double totalCost = 0;
+            for (Request request : requests.subList(0, seats)) {
+                Passenger passenger = passengers.get(request.passengerId());
+                if (passenger == null) {
+                    failures.put(request, new IllegalArgumentException(
+                            String.format("Passenger %s not found.", request.passengerId())));
+                    continue;
+                }
+                double bookingCost = BookingPricing.bookingCost(passenger.getPassengerType(), activity.getCost());
+                if (passenger.getBalance() < bookingCost) {
+                    failures.put(request, new IllegalArgumentException(
+                            String.format("Insufficient balance for booking the activity: %s", activityId)));
+                    continue;
+                }
+
+                Booking booking = Booking.builder()
+                        .bookingId(bookingDao.generateBookingId())
+                        .passengerId(request.passengerId())
+                        .destinationId(request.destinationId())
+                        .activityId(activityId)
+                        .bookingStatus(BookingStatus.PENDING)
+                        .build();
+                bookings.add(booking);
+                passenger.setBalance(passenger.getBalance() - bookingCost);
+                passenger.getBookingList().add(booking);
+                debited.put(passenger.getPassengerId(), passenger);
+                totalCost += bookingCost;
+            }
+
+            int unused = seats - bookings.size();
+            if (unused > 0) {
+                activityDao.releaseCapacity(activityId, unused);
+                if (seatsLeft >= 0) {
+                    seatsLeft += unused;
+                }
+            }
+            if (!bookings.isEmpty()) {
+                bookingDao.saveAll(bookings);
+                passengerDao.updateAll(debited.values());
+            }
+
+            event.setSeats(bookings.size());
+            event.setStatus(BookingStatus.PENDING.name());
+            event.setAmount(totalCost);
+            return new FlushResult(bookings, failures, seatsLeft);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.travelagencies.services;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Tuning knobs for a {@link BookingScheduler}.
+ */
+@Data
+@Builder
+public class BookingSchedulerConfig {
+
+    /**
+     * Single-writer lanes, each with its own thread. Every activity is served by exactly one lane, so more lanes
+     * only help when the load is spread over several activities.
+     */
+    @Builder.Default
+    private int lanes = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Requests a lane holds before further requests for its activities are rejected.
+     */
+    @Builder.Default
+    private int queueCapacity = 1024;
+
+    /**
+     * How long a lane keeps collecting requests after the first one of a batch before it flushes the batch.
+     * 0 flushes whatever is queued at that moment.
+     */
+    @Builder.Default
+    private long flushIntervalMillis = 2;
+
+    /**
+     * The most requests a lane flushes together.
+     */
+    @Builder.Default
+    private int maxBatchSize = 100;
+
+    /**
+     * How long a lane trusts an activity's capacity and cost before reading them from the database again. Sold-out
+     * activities are re-checked on the same interval, so seats given back without the scheduler being told are
+     * sold again about this long later at the latest.
+     */
+    @Builder.Default
+    private long refreshIntervalMillis = 1000;
+
+    @Builder.Default
+    private String threadNamePrefix = "booking-lane-";
+}
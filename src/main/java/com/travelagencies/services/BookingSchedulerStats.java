@@ -0,0 +1,37 @@
+package com.travelagencies.services;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Point-in-time snapshot of a {@link BookingScheduler}'s counters.
+ */
+@Data
+@Builder
+public class BookingSchedulerStats {
+
+    /**
+     * Bookings written to the database.
+     */
+    private long booked;
+
+    /**
+     * Requests rejected because their activity was sold out, without touching the database.
+     */
+    private long soldOutRejections;
+
+    /**
+     * Requests rejected because their lane's queue was full.
+     */
+    private long queueFullRejections;
+
+    /**
+     * Requests that reached the database and failed there, e.g. for an unknown passenger or a low balance.
+     */
+    private long failed;
+
+    /**
+     * Transactions written, one per activity per batch.
+     */
+    private long flushes;
+}
@@ -1,39 +1,162 @@
 package com.travelagencies.services;
 
-import com.travelagencies.dao.ActivityDao;
-import com.travelagencies.dao.BookingDao;
-import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.async.TaskScope;
+import com.travelagencies.dao.ActivityRepository;
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.PassengerRepository;
+import com.travelagencies.db.TransactionRunner;
 import com.travelagencies.enums.BookingStatus;
-import com.travelagencies.enums.PassengerType;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.jfr.BookingEvent;
 import com.travelagencies.models.Activity;
 import com.travelagencies.models.Booking;
 import com.travelagencies.models.Passenger;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
 /**
  * Service class responsible for managing booking-related operations.
  * This class coordinates booking actions, performs validation, and interacts with
  * the BookingDao, PassengerDao, and ActivityDao to persist and retrieve booking data.
+ * Booking creation and cancellation each run as one transaction with the passenger row locked, and seats are
+ * taken and returned through guarded capacity updates so that concurrent bookings can never oversell an activity.
+ * <p>
+ * With a lookup executor, the activity is read concurrently with locking the passenger, so a booking waits for the
+ * slower of the two lookups instead of both. The activity read then runs outside the booking's transaction, on a
+ * connection of its own, which is safe because it takes no lock and seats are only taken through the guarded
+ * capacity update; size the connection pool for the extra connection.
  */
 public class BookingService {
-    private final BookingDao bookingDao;
-    private final PassengerDao passengerDao;
-    private final ActivityDao activityDao;
+    private final BookingRepository bookingDao;
+    private final PassengerRepository passengerDao;
+    private final ActivityRepository activityDao;
+    private final TransactionRunner transactionManager;
+    private final Executor lookupExecutor;
+    private final SeatReleaseListener seatReleaseListener;
+
+    public BookingService(BookingRepository bookingDao, PassengerRepository passengerDao,
+                          ActivityRepository activityDao, TransactionRunner transactionManager) {
+        this(bookingDao, passengerDao, activityDao, transactionManager, null);
+    }
 
-    public BookingService(BookingDao bookingDao, PassengerDao passengerDao, ActivityDao activityDao) {
+    /**
+     * Constructs a BookingService that runs the independent lookups of a booking concurrently.
+     *
+     * @param lookupExecutor Where the activity lookups run, or null to run every lookup on the calling thread.
+     */
+    public BookingService(BookingRepository bookingDao, PassengerRepository passengerDao,
+                          ActivityRepository activityDao, TransactionRunner transactionManager,
+                          Executor lookupExecutor) {
+        this(bookingDao, passengerDao, activityDao, transactionManager, lookupExecutor, SeatReleaseListener.NONE);
+    }
+
+    /**
+     * Constructs a BookingService that tells a listener, such as a {@link BookingScheduler}, about cancellations.
+     *
+     * @param lookupExecutor      Where the activity lookups run, or null to run every lookup on the calling thread.
+     * @param seatReleaseListener Told about the activity of every cancelled booking once its seat is given back.
+     */
+    public BookingService(BookingRepository bookingDao, PassengerRepository passengerDao,
+                          ActivityRepository activityDao, TransactionRunner transactionManager,
+                          Executor lookupExecutor, SeatReleaseListener seatReleaseListener) {
         this.bookingDao = bookingDao;
         this.passengerDao = passengerDao;
         this.activityDao = activityDao;
+        this.transactionManager = transactionManager;
+        this.lookupExecutor = lookupExecutor;
+        this.seatReleaseListener = seatReleaseListener;
     }
 
     public void createBooking(int passengerId, int activityId, int destinationId) {
-        Passenger passenger = passengerDao.getById(passengerId)
-                .orElseThrow(() -> new IllegalArgumentException(String.format("Passenger %s not found.", passengerId)));
+        BookingEvent event = new BookingEvent("createBooking");
+        event.setPassengerId(passengerId);
+        event.setActivityId(activityId);
+        event.setSeats(1);
+        event.begin();
+        try {
+            transactionManager.run(() -> doCreateBooking(passengerId, activityId, destinationId, event));
+        } catch (RuntimeException | Error e) {
+            event.complete(BookingEvent.outcomeOf(e));
+            throw e;
+        }
+        event.complete(BookingEvent.SUCCESS);
+    }
 
-        Activity activity = activityDao.getById(activityId)
-                .orElseThrow(() -> new IllegalArgumentException(String.format("activityId %s not found.", activityId)));
+    /**
+     * Books one activity for several passengers at once, as one transaction: either every passenger is booked or,
+     * when any of them cannot be, none is. The activity is read and its capacity checked and reserved once for all
+     * seats, and the bookings, balances and booking links are written with batched statements.
+     *
+     * @param passengerIds  The passengers to book, each at most once.
+     * @param activityId    The activity being booked.
+     * @param destinationId The destination where the activity takes place.
+     * @return The new bookings, in the order of the passenger ids.
+     * @throws IllegalArgumentException If a passenger or the activity is unknown, a passenger appears twice or
+     *                                  cannot pay, or there are fewer seats left than passengers.
+     */
+    public List<Booking> createGroupBooking(List<Integer> passengerIds, int activityId, int destinationId) {
+        if (passengerIds.isEmpty()) {
+            throw new IllegalArgumentException("A group booking needs at least one passenger.");
+        }
+        if (new HashSet<>(passengerIds).size() != passengerIds.size()) {
+            throw new IllegalArgumentException(String.format("Duplicate passengers in group booking: %s", passengerIds));
+        }
 
-        if (activity.getCapacity() <= 0) {
-            throw new IllegalArgumentException(String.format("Capacity is full for activityId: %s.", activity));
+        BookingEvent event = new BookingEvent("createGroupBooking");
+        event.setActivityId(activityId);
+        event.setSeats(passengerIds.size());
+        event.begin();
+        List<Booking> bookings;
+        try {
+            bookings = transactionManager.execute(
+                    () -> doCreateGroupBooking(passengerIds, activityId, destinationId, event));
+        } catch (RuntimeException | Error e) {
+            event.complete(BookingEvent.outcomeOf(e));
+            throw e;
+        }
+        event.complete(BookingEvent.SUCCESS);
+        return bookings;
+    }
+
+    public void updateBookingStatus(int bookingId, BookingStatus newStatus) {
+        BookingEvent event = new BookingEvent("updateBookingStatus");
+        event.setBookingId(bookingId);
+        event.setStatus(String.valueOf(newStatus));
+        event.begin();
+        Integer releasedActivityId;
+        try {
+            releasedActivityId = transactionManager.execute(() -> doUpdateBookingStatus(bookingId, newStatus, event));
+        } catch (RuntimeException | Error e) {
+            event.complete(BookingEvent.outcomeOf(e));
+            throw e;
+        }
+        event.complete(BookingEvent.SUCCESS);
+        if (releasedActivityId != null) {
+            seatReleaseListener.seatsReleased(releasedActivityId);
+        }
+    }
+
+    private void doCreateBooking(int passengerId, int activityId, int destinationId, BookingEvent event) {
+        Passenger passenger;
+        Activity activity;
+        try (TaskScope lookups = new TaskScope(lookupExecutor)) {
+            TaskScope.Subtask<Optional<Activity>> activityLookup = lookups.fork(() -> activityDao.getById(activityId));
+
+            // Shallow: the new booking is only appended, which never loads the passenger's booking history.
+            passenger = passengerDao.getByIdForUpdate(passengerId)
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("Passenger %s not found.", passengerId)));
+
+            activity = activityLookup.get()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("activityId %s not found.", activityId)));
         }
 
         double bookingCost = getDiscountedCost(passenger, activity);
@@ -41,6 +164,10 @@ public class BookingService {
             throw new IllegalArgumentException(String.format("Insufficient balance for booking the activity: %s", activityId));
         }
 
+        if (!activityDao.reserveCapacity(activityId, 1)) {
+            throw new IllegalArgumentException(String.format("Capacity is full for activityId: %s.", activityId));
+        }
+
         Booking booking = Booking.builder()
                 .bookingId(bookingDao.generateBookingId())
                 .passengerId(passengerId)
@@ -49,40 +176,134 @@ public class BookingService {
                 .bookingStatus(BookingStatus.PENDING)
                 .build();
         bookingDao.save(booking);
+        event.setBookingId(booking.getBookingId());
+        event.setStatus(booking.getBookingStatus().name());
+        event.setAmount(bookingCost);
 
         passenger.setBalance(passenger.getBalance() - bookingCost);
         passenger.getBookingList().add(booking);
         passengerDao.update(passenger);
+    }
+
+    private List<Booking> doCreateGroupBooking(List<Integer> passengerIds, int activityId, int destinationId,
+                                               BookingEvent event) {
+        Map<Integer, Passenger> passengers;
+        Activity activity;
+        try (TaskScope lookups = new TaskScope(lookupExecutor)) {
+            TaskScope.Subtask<Optional<Activity>> activityLookup = lookups.fork(() -> activityDao.getById(activityId));
+
+            passengers = passengerDao.getByIdsForUpdate(passengerIds);
 
-        activity.setCapacity(activity.getCapacity() - 1);
-        activityDao.update(activity);
+            activity = activityLookup.get()
+                    .orElseThrow(() -> new IllegalArgumentException(String.format("activityId %s not found.", activityId)));
+        }
+
+        if (passengers.size() < passengerIds.size()) {
+            Set<Integer> missingPassengerIds = new LinkedHashSet<>(passengerIds);
+            missingPassengerIds.removeAll(passengers.keySet());
+            throw new IllegalArgumentException(String.format("Passengers %s not found.", missingPassengerIds));
+        }
+
+        int seats = passengerIds.size();
+
+        Map<Integer, Double> bookingCosts = new LinkedHashMap<>();
+        List<Integer> insufficientBalance = new ArrayList<>();
+        for (Passenger passenger : passengers.values()) {
+            double bookingCost = getDiscountedCost(passenger, activity);
+            bookingCosts.put(passenger.getPassengerId(), bookingCost);
+            if (passenger.getBalance() < bookingCost) {
+                insufficientBalance.add(passenger.getPassengerId());
+            }
+        }
+        if (!insufficientBalance.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Insufficient balance for booking the activity: %s, passengers: %s",
+                    activityId, insufficientBalance));
+        }
+
+        if (!activityDao.reserveCapacity(activityId, seats)) {
+            throw new IllegalArgumentException(String.format("Capacity for %s seats is not available for activityId: %s.",
+                    seats, activityId));
+        }
+
+        List<Booking> bookings = new ArrayList<>(seats);
+        for (Integer passengerId : passengerIds) {
+            bookings.add(Booking.builder()
+                    .bookingId(bookingDao.generateBookingId())
+                    .passengerId(passengerId)
+                    .destinationId(destinationId)
+                    .activityId(activityId)
+                    .bookingStatus(BookingStatus.PENDING)
+                    .build());
+        }
+        bookingDao.saveAll(bookings);
+
+        double totalCost = 0;
+        for (Booking booking : bookings) {
+            Passenger passenger = passengers.get(booking.getPassengerId());
+            double bookingCost = bookingCosts.get(booking.getPassengerId());
+            passenger.setBalance(passenger.getBalance() - bookingCost);
+            passenger.getBookingList().add(booking);
+            totalCost += bookingCost;
+        }
+        passengerDao.updateAll(passengers.values());
+        event.setStatus(BookingStatus.PENDING.name());
+        event.setAmount(totalCost);
+
+        return bookings;
     }
 
-    public void updateBookingStatus(int bookingId, BookingStatus newStatus) {
-        Booking booking = bookingDao.getById(bookingId).orElseThrow(
+    /**
+     * @return The activity whose seat the cancellation gave back, or null if no seat was given back.
+     */
+    private Integer doUpdateBookingStatus(int bookingId, BookingStatus newStatus, BookingEvent event) {
+        // Locked before the passenger, like a bulk cancellation, so concurrent cancels of one booking take turns
+        // and each sees the status the previous one left.
+        Booking booking = bookingDao.getByIdForUpdate(bookingId).orElseThrow(
                 () -> new IllegalArgumentException(String.format("bookingId: %s does not exists.", bookingId)));
+        event.setPassengerId(booking.getPassengerId());
+        event.setActivityId(booking.getActivityId());
+
+        if (BookingStatus.CANCELLED == booking.getBookingStatus()) {
+            // Already refunded and its seat given back, so cancelling again changes nothing.
+            if (BookingStatus.CANCELLED == newStatus) {
+                return null;
+            }
+            throw new IllegalArgumentException(String.format("bookingId: %s is cancelled.", bookingId));
+        }
 
         booking.setBookingStatus(newStatus);
-        bookingDao.update(booking);
+        if (BookingStatus.CANCELLED != newStatus) {
+            bookingDao.update(booking);
+            return null;
+        }
+
+        Passenger passenger;
+        Activity activity;
+        try (TaskScope lookups = new TaskScope(lookupExecutor)) {
+            // Started first, so the activity is read while the booking is written and the passenger is locked.
+            TaskScope.Subtask<Optional<Activity>> activityLookup =
+                    lookups.fork(() -> activityDao.getById(booking.getActivityId()));
+
+            bookingDao.update(booking);
 
-        if (BookingStatus.CANCELLED == newStatus) {
-            Passenger passenger = passengerDao.getById(booking.getPassengerId()).orElseThrow(
+            passenger = passengerDao.getByIdForUpdate(booking.getPassengerId(), PassengerFetchPlan.WITH_BOOKINGS).orElseThrow(
                     () -> new IllegalArgumentException(String.format("Passenger: %s not found", booking.getPassengerId())));
 
-            Activity activity = activityDao.getById(booking.getActivityId()).orElseThrow(
+            activity = activityLookup.get().orElseThrow(
                     () -> new IllegalArgumentException(String.format("activityId: %s not found.", booking.getActivityId())));
+        }
 
-            double refundAmount = calculateRefundAmount(passenger, activity);
+        double refundAmount = calculateRefundAmount(passenger, activity);
+        event.setAmount(refundAmount);
 
-            // Refund the passenger's balance
-            passenger.setBalance(passenger.getBalance() + refundAmount);
-            passenger.getBookingList().remove(booking);
-            passengerDao.update(passenger);
+        // Refund the passenger's balance
+        passenger.setBalance(passenger.getBalance() + refundAmount);
+        passenger.getBookingList().removeIf(b -> b.getBookingId().equals(booking.getBookingId()));
+        passengerDao.update(passenger);
 
-            // Increment activity capacity
-            activity.setCapacity(activity.getCapacity() + 1);
-            activityDao.update(activity);
-        }
+        // Give the seat back to the activity
+        activityDao.releaseCapacity(booking.getActivityId(), 1);
+        return booking.getActivityId();
     }
 
     public Booking getBookingDetails(int bookingId) {
@@ -90,26 +311,23 @@ public class BookingService {
                 () -> new IllegalArgumentException(String.format("bookingId: %s not found.", bookingId)));
     }
 
-    private Double getDiscountedCost(Passenger passenger, Activity activity) {
-        if (PassengerType.STANDARD.equals(passenger.getPassengerType())) {
-            return activity.getCost();
-        } else if (PassengerType.GOLD.equals(passenger.getPassengerType())) {
-            double discount = activity.getCost() * 0.10;
-            return activity.getCost() - discount;
+    public Map<Integer, Booking> getBookingsDetails(Collection<Integer> bookingIds) {
+        Map<Integer, Booking> bookings = bookingDao.getByIds(bookingIds);
+
+        Set<Integer> missingBookingIds = new LinkedHashSet<>(bookingIds);
+        missingBookingIds.removeAll(bookings.keySet());
+        if (!missingBookingIds.isEmpty()) {
+            throw new IllegalArgumentException(String.format("bookingIds: %s not found.", missingBookingIds));
         }
 
-        // Booking cost is free for PREMIUM passengers.
-        return 0.0;
+        return bookings;
+    }
+
+    private Double getDiscountedCost(Passenger passenger, Activity activity) {
+        return BookingPricing.bookingCost(passenger.getPassengerType(), activity.getCost());
     }
 
     private double calculateRefundAmount(Passenger passenger, Activity activity) {
-        if (passenger.getPassengerType() == PassengerType.STANDARD) {
-            return activity.getCost(); // Full refund for STANDARD passengers
-        } else if (passenger.getPassengerType() == PassengerType.GOLD) {
-            double discount = activity.getCost() * 0.10; // 10% discount for GOLD passengers
-            return activity.getCost() - discount; // 90% of the activity cost as refund
-        } else {
-            return 0.0; // No refund for PREMIUM passengers
-        }
+        return BookingPricing.refundAmount(passenger.getPassengerType(), activity.getCost());
     }
 }
@@ -0,0 +1,45 @@
+package com.travelagencies.services;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * How far a {@link BulkCancellationService} run has got, as of its last committed chunk.
+ */
+@Data
+@Builder
+public class BulkCancellationProgress {
+
+    /**
+     * The number of chunks committed.
+     */
+    private int chunks;
+
+    /**
+     * The number of bookings moved to CANCELLED.
+     */
+    private long bookingsCancelled;
+
+    /**
+     * The number of streamed bookings that had been cancelled by someone else by the time their chunk ran.
+     */
+    private long bookingsSkipped;
+
+    /**
+     * The number of balance credits written, one per passenger per chunk.
+     */
+    private long balancesCredited;
+
+    /**
+     * The total refunded to the passengers.
+     */
+    private double amountRefunded;
+
+    /**
+     * The highest booking id of the committed chunks. Passing it as {@code afterBookingId} resumes an interrupted
+     * run without reading the bookings already done.
+     */
+    private int lastBookingId;
+
+    private long elapsedMillis;
+}
@@ -0,0 +1,296 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityRepository;
+import com.travelagencies.dao.BookingRepository;
+import com.travelagencies.dao.PassengerRepository;
+import com.travelagencies.db.TransactionRunner;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.jfr.BookingEvent;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Passenger;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Cancels every booking of an activity or destination, e.g. when a supplier cancels it.
+ * <p>
+ * The bookings are streamed from a cursor in booking id order and cancelled in chunks, each its own transaction:
+ * the chunk's bookings and then their passengers are locked, in the same order {@link BookingService} locks them,
+ * the refunds are summed per passenger with the same {@link BookingPricing} rules as a single cancellation, and the
+ * status changes, balance credits, booking link removals and seat releases are written with batched statements.
+ * A chunk therefore costs a fixed number of round trips however many bookings it holds.
+ * <p>
+ * A failed run leaves its committed chunks in place. Since cancelled bookings are never streamed again, running it
+ * again finishes the job, and passing the {@link BulkCancellationProgress#getLastBookingId()} last reported also
+ * skips reading the bookings already done. The cursor holds a connection of its own while the chunks commit on
+ * another, so size the connection pool for both.
+ */
+public class BulkCancellationService {
+
+    /**
+     * Bookings per chunk, which keeps every lookup of a chunk to one {@code IN (...)} statement.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 500;
+
+    private final BookingRepository bookingDao;
+    private final PassengerRepository passengerDao;
+    private final ActivityRepository activityDao;
+    private final TransactionRunner transactionManager;
+    private final int chunkSize;
+    private final SeatReleaseListener seatReleaseListener;
+
+    public BulkCancellationService(BookingRepository bookingDao, PassengerRepository passengerDao,
+                                   ActivityRepository activityDao, TransactionRunner transactionManager) {
+        this(bookingDao, passengerDao, activityDao, transactionManager, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a BulkCancellationService with a custom chunk size.
+     *
+     * @param chunkSize The maximum number of bookings cancelled per transaction.
+     */
+    public BulkCancellationService(BookingRepository bookingDao, PassengerRepository passengerDao,
+                                   ActivityRepository activityDao, TransactionRunner transactionManager,
+                                   int chunkSize) {
+        this(bookingDao, passengerDao, activityDao, transactionManager, chunkSize, SeatReleaseListener.NONE);
+    }
+
+    /**
+     * Constructs a BulkCancellationService that tells a listener, such as a {@link BookingScheduler}, about the
+     * seats it gives back.
+     *
+     * @param chunkSize           The maximum number of bookings cancelled per transaction.
+     * @param seatReleaseListener Told about every activity that got seats back, after each committed chunk.
+     */
+    public BulkCancellationService(BookingRepository bookingDao, PassengerRepository passengerDao,
+                                   ActivityRepository activityDao, TransactionRunner transactionManager,
+                                   int chunkSize, SeatReleaseListener seatReleaseListener) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException(String.format("chunkSize must be positive: %s", chunkSize));
+        }
+        this.bookingDao = bookingDao;
+        this.passengerDao = passengerDao;
+        this.activityDao = activityDao;
+        this.transactionManager = transactionManager;
+        this.chunkSize = chunkSize;
+        this.seatReleaseListener = seatReleaseListener;
+    }
+
+    /**
+     * Cancels every booking of an activity that is not cancelled yet.
+     *
+     * @return The totals of the run.
+     */
+    public BulkCancellationProgress cancelActivityBookings(int activityId) {
+        return cancelActivityBookings(activityId, 0, progress -> {
+        });
+    }
+
+    /**
+     * Cancels the bookings of an activity that are not cancelled yet and have an id above {@code afterBookingId}.
+     *
+     * @param activityId       The unique identifier of the cancelled activity.
+     * @param afterBookingId   The last booking id reported by an earlier run to resume, or 0 to start over.
+     * @param progressListener Called with the totals so far after every committed chunk.
+     * @return The totals of the run.
+     * @throws IllegalArgumentException If the activity does not exist.
+     */
+    public BulkCancellationProgress cancelActivityBookings(int activityId, int afterBookingId,
+                                                           Consumer<BulkCancellationProgress> progressListener) {
+        Activity activity = activityDao.getById(activityId)
+                .orElseThrow(() -> new IllegalArgumentException(String.format("activityId %s not found.", activityId)));
+        Map<Integer, Activity> activities = new HashMap<>();
+        activities.put(activityId, activity);
+
+        return cancel(() -> bookingDao.streamNotCancelledByActivityId(activityId, afterBookingId), activities,
+                afterBookingId, progressListener);
+    }
+
+    /**
+     * Cancels every booking at a destination that is not cancelled yet.
+     *
+     * @return The totals of the run.
+     */
+    public BulkCancellationProgress cancelDestinationBookings(int destinationId) {
+        return cancelDestinationBookings(destinationId, 0, progress -> {
+        });
+    }
+
+    /**
+     * Cancels the bookings at a destination that are not cancelled yet and have an id above {@code afterBookingId}.
+     *
+     * @param destinationId    The unique identifier of the cancelled destination.
+     * @param afterBookingId   The last booking id reported by an earlier run to resume, or 0 to start over.
+     * @param progressListener Called with the totals so far after every committed chunk.
+     * @return The totals of the run.
+     */
+    public BulkCancellationProgress cancelDestinationBookings(int destinationId, int afterBookingId,
+                                                              Consumer<BulkCancellationProgress> progressListener) {
+        Map<Integer, Activity> activities = new HashMap<>();
+        for (Activity activity : activityDao.getActivitiesByDestinationId(destinationId)) {
+            activities.put(activity.getActivityId(), activity);
+        }
+
+        return cancel(() -> bookingDao.streamNotCancelledByDestinationId(destinationId, afterBookingId), activities,
+                afterBookingId, progressListener);
+    }
+
+    private BulkCancellationProgress cancel(Supplier<Stream<Booking>> bookings, Map<Integer, Activity> activities,
+                                            int afterBookingId, Consumer<BulkCancellationProgress> progressListener) {
+        if (transactionManager.isTransactionActive()) {
+            throw new IllegalStateException(
+                    "A bulk cancellation commits chunk by chunk and cannot run inside a transaction");
+        }
+
+        RunningTotals totals = new RunningTotals(afterBookingId);
+        try (Stream<Booking> stream = bookings.get()) {
+            List<Integer> chunk = new ArrayList<>(chunkSize);
+            Iterator<Booking> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next().getBookingId());
+                if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                    totals.add(cancelChunk(chunk, activities));
+                    progressListener.accept(totals.snapshot());
+                    chunk.clear();
+                }
+            }
+        }
+        return totals.snapshot();
+    }
+
+    private ChunkResult cancelChunk(List<Integer> bookingIds, Map<Integer, Activity> activities) {
+        BookingEvent event = new BookingEvent("cancelBookings");
+        event.begin();
+        ChunkResult result;
+        try {
+            result = transactionManager.execute(() -> doCancelChunk(bookingIds, activities, event));
+        } catch (RuntimeException | Error e) {
+            event.complete(BookingEvent.outcomeOf(e));
+            throw e;
+        }
+        event.complete(BookingEvent.SUCCESS);
+        result.activityIds().forEach(seatReleaseListener::seatsReleased);
+        return result;
+    }
+
+    private ChunkResult doCancelChunk(List<Integer> bookingIds, Map<Integer, Activity> activities, BookingEvent event) {
+        // Locked before the passengers, like a single cancellation, and re-read, since a booking may have been
+        // cancelled since it was streamed.
+        List<Booking> bookings = new ArrayList<>();
+        for (Booking booking : bookingDao.getByIdsForUpdate(bookingIds).values()) {
+            if (booking.getBookingStatus() != BookingStatus.CANCELLED) {
+                bookings.add(booking);
+            }
+        }
+        int lastBookingId = bookingIds.get(bookingIds.size() - 1);
+        if (bookings.isEmpty()) {
+            return new ChunkResult(0, bookingIds.size(), 0, 0, lastBookingId, Set.of());
+        }
+
+        Set<Integer> passengerIds = new HashSet<>();
+        Set<Integer> missingActivityIds = new HashSet<>();
+        for (Booking booking : bookings) {
+            passengerIds.add(booking.getPassengerId());
+            if (!activities.containsKey(booking.getActivityId())) {
+                missingActivityIds.add(booking.getActivityId());
+            }
+        }
+        // A destination's bookings may name activities that have since moved to another destination.
+        if (!missingActivityIds.isEmpty()) {
+            activities.putAll(activityDao.getByIds(missingActivityIds));
+        }
+        // Shallow: the cancelled links are deleted directly, so the passengers' booking histories are never read.
+        Map<Integer, Passenger> passengers = passengerDao.getByIdsForUpdate(passengerIds);
+
+        Map<Integer, Double> refunds = new LinkedHashMap<>();
+        Map<Integer, Integer> seatsByActivity = new TreeMap<>();
+        for (Booking booking : bookings) {
+            Passenger passenger = passengers.get(booking.getPassengerId());
+            if (passenger == null) {
+                throw new IllegalArgumentException(String.format("Passenger: %s not found", booking.getPassengerId()));
+            }
+            Activity activity = activities.get(booking.getActivityId());
+            if (activity == null) {
+                throw new IllegalArgumentException(String.format("activityId: %s not found.", booking.getActivityId()));
+            }
+
+            booking.setBookingStatus(BookingStatus.CANCELLED);
+            refunds.merge(passenger.getPassengerId(),
+                    BookingPricing.refundAmount(passenger.getPassengerType(), activity.getCost()), Double::sum);
+            seatsByActivity.merge(booking.getActivityId(), 1, Integer::sum);
+        }
+        bookingDao.updateAll(bookings);
+
+        double amountRefunded = 0;
+        for (Passenger passenger : passengers.values()) {
+            double refund = refunds.get(passenger.getPassengerId());
+            passenger.setBalance(passenger.getBalance() + refund);
+            amountRefunded += refund;
+        }
+        passengerDao.updateAll(passengers.values());
+        passengerDao.unlinkBookings(bookings);
+
+        seatsByActivity.forEach(activityDao::releaseCapacity);
+
+        event.setSeats(bookings.size());
+        event.setStatus(BookingStatus.CANCELLED.name());
+        event.setAmount(amountRefunded);
+        return new ChunkResult(bookings.size(), bookingIds.size() - bookings.size(), passengers.size(), amountRefunded,
+                lastBookingId, seatsByActivity.keySet());
+    }
+
+    private record ChunkResult(int cancelled, int skipped, int balancesCredited, double amountRefunded,
+                               int lastBookingId, Set<Integer> activityIds) {
+    }
+
+    /**
+     * The totals of the chunks committed so far.
+     */
+    private static class RunningTotals {
+
+        private final long start = System.nanoTime();
+        private int chunks;
+        private long bookingsCancelled;
+        private long bookingsSkipped;
+        private long balancesCredited;
+        private double amountRefunded;
+        private int lastBookingId;
+
+        RunningTotals(int afterBookingId) {
+            this.lastBookingId = afterBookingId;
+        }
+
+        void add(ChunkResult chunk) {
+            chunks++;
+            bookingsCancelled += chunk.cancelled();
+            bookingsSkipped += chunk.skipped();
+            balancesCredited += chunk.balancesCredited();
+            amountRefunded += chunk.amountRefunded();
+            lastBookingId = chunk.lastBookingId();
+        }
+
+        BulkCancellationProgress snapshot() {
+            return BulkCancellationProgress.builder()
+                    .chunks(chunks)
+                    .bookingsCancelled(bookingsCancelled)
+                    .bookingsSkipped(bookingsSkipped)
+                    .balancesCredited(balancesCredited)
+                    .amountRefunded(amountRefunded)
+                    .lastBookingId(lastBookingId)
+                    .elapsedMillis((System.nanoTime() - start) / 1_000_000)
+                    .build();
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.travelagencies.services;
 
-import com.travelagencies.dao.DestinationDao;
+import com.travelagencies.dao.DestinationRepository;
 import com.travelagencies.models.Destination;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Service class for managing destination-related operations.
  */
 public class DestinationService {
-    private final DestinationDao destinationDao;
+    private final DestinationRepository destinationDao;
 
-    public DestinationService(DestinationDao destinationDao) {
+    public DestinationService(DestinationRepository destinationDao) {
         this.destinationDao = destinationDao;
     }
 
@@ -35,4 +42,37 @@ public class DestinationService {
         destination.setName(newName);
         destinationDao.update(destination);
     }
+
+    public void createDestinations(List<String> names) {
+        List<Destination> destinations = new ArrayList<>();
+        for (String name : names) {
+            destinations.add(Destination.builder()
+                    .destinationId(destinationDao.generateDestinationId())
+                    .name(name)
+                    .build());
+        }
+
+        destinationDao.saveAll(destinations);
+    }
+
+    public Map<Integer, Destination> getDestinationsDetails(Collection<Integer> destinationIds) {
+        Map<Integer, Destination> destinations = destinationDao.getByIds(destinationIds);
+
+        Set<Integer> missingDestinationIds = new LinkedHashSet<>(destinationIds);
+        missingDestinationIds.removeAll(destinations.keySet());
+        if (!missingDestinationIds.isEmpty()) {
+            throw new IllegalArgumentException(String.format("destinationIds: %s not found", missingDestinationIds));
+        }
+
+        return destinations;
+    }
+
+    public void updateDestinationNames(Map<Integer, String> newNames) {
+        List<Destination> destinations = new ArrayList<>(getDestinationsDetails(newNames.keySet()).values());
+
+        for (Destination destination : destinations) {
+            destination.setName(newNames.get(destination.getDestinationId()));
+        }
+        destinationDao.updateAll(destinations);
+    }
 }
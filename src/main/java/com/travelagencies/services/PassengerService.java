@@ -1,16 +1,23 @@
 package com.travelagencies.services;
 
-import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.dao.PassengerRepository;
 import com.travelagencies.enums.PassengerType;
 import com.travelagencies.models.Passenger;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Service class for managing passenger-related operations.
  */
 public class PassengerService {
-    private final PassengerDao passengerDao;
+    private final PassengerRepository passengerDao;
 
-    public PassengerService(PassengerDao passengerDao) {
+    public PassengerService(PassengerRepository passengerDao) {
         this.passengerDao = passengerDao;
     }
 
@@ -39,4 +46,33 @@ public class PassengerService {
         return passengerDao.getById(passengerId).orElseThrow(
                 () -> new IllegalArgumentException(String.format("passengerId: %s not found.", passengerId)));
     }
+
+    public void createPassengers(List<Passenger> passengers) {
+        for (Passenger passenger : passengers) {
+            passenger.setPassengerId(passengerDao.generatePassengerId());
+        }
+
+        passengerDao.saveAll(passengers);
+    }
+
+    public void updatePassengersBalance(Map<Integer, Double> newBalances) {
+        List<Passenger> passengers = new ArrayList<>(getPassengersDetails(newBalances.keySet()).values());
+
+        for (Passenger passenger : passengers) {
+            passenger.setBalance(newBalances.get(passenger.getPassengerId()));
+        }
+        passengerDao.updateAll(passengers);
+    }
+
+    public Map<Integer, Passenger> getPassengersDetails(Collection<Integer> passengerIds) {
+        Map<Integer, Passenger> passengers = passengerDao.getByIds(passengerIds);
+
+        Set<Integer> missingPassengerIds = new LinkedHashSet<>(passengerIds);
+        missingPassengerIds.removeAll(passengers.keySet());
+        if (!missingPassengerIds.isEmpty()) {
+            throw new IllegalArgumentException(String.format("passengerIds: %s not found.", missingPassengerIds));
+        }
+
+        return passengers;
+    }
 }
@@ -0,0 +1,17 @@
+package com.travelagencies.services;
+
+/**
+ * Told when a service gives seats of an activity back, e.g. so a {@link BookingScheduler} sells them again.
+ * Called on the releasing thread once the service's own unit of work has returned.
+ */
+@FunctionalInterface
+public interface SeatReleaseListener {
+
+    /**
+     * Does nothing.
+     */
+    SeatReleaseListener NONE = activityId -> {
+    };
+
+    void seatsReleased(int activityId);
+}
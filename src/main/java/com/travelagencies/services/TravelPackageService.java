@@ -1,15 +1,22 @@
 package com.travelagencies.services;
 
-import com.travelagencies.dao.TravelPackageDao;
+import com.travelagencies.dao.TravelPackageRepository;
 import com.travelagencies.models.TravelPackage;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Service class for managing travel package-related operations.
  */
 public class TravelPackageService {
-    private final TravelPackageDao travelPackageDao;
+    private final TravelPackageRepository travelPackageDao;
 
-    public TravelPackageService(TravelPackageDao travelPackageDao) {
+    public TravelPackageService(TravelPackageRepository travelPackageDao) {
         this.travelPackageDao = travelPackageDao;
     }
 
@@ -45,4 +52,33 @@ public class TravelPackageService {
         travelPackage.setCapacity(newCapacity);
         travelPackageDao.update(travelPackage);
     }
+
+    public void createTravelPackages(List<TravelPackage> travelPackages) {
+        for (TravelPackage travelPackage : travelPackages) {
+            travelPackage.setPackageId(travelPackageDao.generatePackageId());
+        }
+
+        travelPackageDao.saveAll(travelPackages);
+    }
+
+    public Map<Integer, TravelPackage> getTravelPackagesDetails(Collection<Integer> packageIds) {
+        Map<Integer, TravelPackage> travelPackages = travelPackageDao.getByIds(packageIds);
+
+        Set<Integer> missingPackageIds = new LinkedHashSet<>(packageIds);
+        missingPackageIds.removeAll(travelPackages.keySet());
+        if (!missingPackageIds.isEmpty()) {
+            throw new IllegalArgumentException(String.format("Travel packageIds: %s not found.", missingPackageIds));
+        }
+
+        return travelPackages;
+    }
+
+    public void updateTravelPackagesPassengerCapacity(Map<Integer, Integer> newCapacities) {
+        List<TravelPackage> travelPackages = new ArrayList<>(getTravelPackagesDetails(newCapacities.keySet()).values());
+
+        for (TravelPackage travelPackage : travelPackages) {
+            travelPackage.setCapacity(newCapacities.get(travelPackage.getPackageId()));
+        }
+        travelPackageDao.updateAll(travelPackages);
+    }
 }
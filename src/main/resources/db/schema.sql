@@ -0,0 +1,56 @@
+CREATE TABLE IF NOT EXISTS destinations (
+    destination_id INT PRIMARY KEY,
+    name VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS activities (
+    activity_id INT PRIMARY KEY,
+    destination_id INT,
+    name VARCHAR(255),
+    description VARCHAR(1024),
+    cost DOUBLE,
+    capacity INT,
+    INDEX idx_activities_destination (destination_id)
+);
+
+CREATE TABLE IF NOT EXISTS passengers (
+    passenger_id INT PRIMARY KEY,
+    name VARCHAR(255),
+    mobile VARCHAR(32),
+    passenger_type VARCHAR(16),
+    balance DOUBLE
+);
+
+CREATE TABLE IF NOT EXISTS bookings (
+    booking_id INT PRIMARY KEY,
+    passenger_id INT,
+    destination_id INT,
+    activity_id INT,
+    booking_status VARCHAR(16),
+    INDEX idx_bookings_activity (activity_id, booking_id),
+    INDEX idx_bookings_destination (destination_id, booking_id)
+);
+
+CREATE TABLE IF NOT EXISTS passenger_bookings (
+    booking_id INT,
+    passenger_id INT,
+    PRIMARY KEY (passenger_id, booking_id)
+);
+
+CREATE TABLE IF NOT EXISTS travel_packages (
+    package_id INT PRIMARY KEY,
+    name VARCHAR(255),
+    description VARCHAR(1024),
+    capacity INT
+);
+
+CREATE TABLE IF NOT EXISTS package_destinations (
+    package_id INT,
+    destination_id INT,
+    PRIMARY KEY (package_id, destination_id)
+);
+
+CREATE TABLE IF NOT EXISTS id_sequences (
+    sequence_name VARCHAR(64) PRIMARY KEY,
+    next_value INT NOT NULL
+);
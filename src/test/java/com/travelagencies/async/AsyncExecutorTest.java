@@ -0,0 +1,116 @@
+package com.travelagencies.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class AsyncExecutorTest {
+
+    private AsyncExecutor executor;
+
+    @AfterEach
+    public void tearDown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    @Test
+    public void testSupplyCompletesWithResult() {
+        executor = new AsyncExecutor(platform(2));
+
+        assertEquals(42, executor.supply(() -> 42).join());
+    }
+
+    @Test
+    public void testFailureCompletesExceptionally() {
+        executor = new AsyncExecutor(platform(2));
+
+        CompletableFuture<Void> future = executor.run(() -> {
+            throw new IllegalArgumentException("bookingId: 7 does not exists.");
+        });
+
+        CompletionException e = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals(0, executor.getActiveTasks());
+    }
+
+    @Test
+    public void testLimitsConcurrentTasks() throws InterruptedException {
+        executor = new AsyncExecutor(platform(3));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.run(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+            }));
+        }
+        while (executor.getActiveTasks() < 3) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        assertEquals(3, running.get());
+        release.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+        assertEquals(3, maxRunning.get());
+        assertEquals(0, executor.getActiveTasks());
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        assumeTrue(AsyncExecutor.isVirtualThreadsAvailable());
+        executor = new AsyncExecutor(AsyncExecutorConfig.builder()
+                .threadMode(AsyncExecutorConfig.ThreadMode.VIRTUAL)
+                .maxConcurrency(4)
+                .build());
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            int value = i;
+            futures.add(executor.supply(() -> value));
+        }
+
+        assertEquals(9_999L * 10_000 / 2, futures.stream().mapToLong(CompletableFuture::join).sum());
+    }
+
+    @Test
+    public void testVirtualThreadsNeedJava21() {
+        assumeTrue(!AsyncExecutor.isVirtualThreadsAvailable());
+
+        assertThrows(IllegalStateException.class, () -> new AsyncExecutor(AsyncExecutorConfig.builder()
+                .threadMode(AsyncExecutorConfig.ThreadMode.VIRTUAL)
+                .build()));
+    }
+
+    @Test
+    public void testRejectsInvalidConfig() {
+        assertThrows(IllegalArgumentException.class, () -> new AsyncExecutor(platform(0)));
+    }
+
+    private static AsyncExecutorConfig platform(int maxConcurrency) {
+        return AsyncExecutorConfig.builder()
+                .threadMode(AsyncExecutorConfig.ThreadMode.PLATFORM)
+                .maxConcurrency(maxConcurrency)
+                .platformThreads(8)
+                .build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.travelagencies.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskScopeTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSubtasksRunConcurrentlyWithCaller() throws InterruptedException {
+        CountDownLatch forkedStarted = new CountDownLatch(1);
+        try (TaskScope scope = new TaskScope(executor)) {
+            TaskScope.Subtask<String> forked = scope.fork(() -> {
+                forkedStarted.countDown();
+                return Thread.currentThread().getName();
+            });
+
+            assertTrue(forkedStarted.await(5, TimeUnit.SECONDS));
+            assertNotEquals(Thread.currentThread().getName(), forked.get());
+        }
+    }
+
+    @Test
+    public void testWithoutExecutorSubtasksRunOnCallerWhenNeeded() {
+        List<String> order = new ArrayList<>();
+        try (TaskScope scope = new TaskScope(null)) {
+            TaskScope.Subtask<Integer> forked = scope.fork(() -> {
+                order.add("forked");
+                return 1;
+            });
+            order.add("caller");
+
+            assertEquals(1, forked.get());
+        }
+
+        assertEquals(List.of("caller", "forked"), order);
+    }
+
+    @Test
+    public void testFailureIsRethrownAndCancelsPendingSubtasks() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean pendingRan = new AtomicBoolean();
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try (TaskScope scope = new TaskScope(singleThread)) {
+            TaskScope.Subtask<Integer> failing = scope.fork(() -> {
+                awaitQuietly(release);
+                throw new IllegalArgumentException("activityId 7 not found.");
+            });
+            TaskScope.Subtask<Integer> pending = scope.fork(() -> {
+                pendingRan.set(true);
+                return 1;
+            });
+            release.countDown();
+
+            assertThrows(IllegalArgumentException.class, failing::get);
+            assertThrows(CancellationException.class, pending::get);
+            assertThrows(IllegalArgumentException.class, scope::join);
+        } finally {
+            singleThread.shutdown();
+            assertTrue(singleThread.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertFalse(pendingRan.get());
+    }
+
+    @Test
+    public void testCloseWaitsForRunningSubtasks() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        try (TaskScope scope = new TaskScope(executor)) {
+            scope.fork(() -> {
+                started.countDown();
+                sleepQuietly(100);
+                finished.set(true);
+                return null;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(finished.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
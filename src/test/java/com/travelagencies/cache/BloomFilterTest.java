@@ -0,0 +1,43 @@
+package com.travelagencies.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testAddedIdsAreAlwaysReported() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int id = 1; id <= 10_000; id++) {
+            bloomFilter.put(id);
+        }
+
+        for (int id = 1; id <= 10_000; id++) {
+            assertTrue(bloomFilter.mightContain(id));
+        }
+    }
+
+    @Test
+    public void testFalsePositiveRateIsNearConfiguredRate() {
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int id = 1; id <= 10_000; id++) {
+            bloomFilter.put(id);
+        }
+
+        int falsePositives = 0;
+        for (int id = 10_001; id <= 110_000; id++) {
+            if (bloomFilter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    public void testInvalidSizing() {
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+}
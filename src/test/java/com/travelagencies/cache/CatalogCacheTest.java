@@ -0,0 +1,83 @@
+package com.travelagencies.cache;
+
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.ChangeTrackingList;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.TravelPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogCacheTest {
+
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    public void setUp() {
+        catalogCache = new CatalogCache();
+        catalogCache.getActivities().get(10, id -> Optional.of(activity(10, destination(1))));
+        catalogCache.getActivities().get(20, id -> Optional.of(activity(20, destination(2))));
+        catalogCache.getTravelPackages().get(100, id -> Optional.of(travelPackage(100, 1)));
+        catalogCache.getTravelPackages().get(200, id -> Optional.of(travelPackage(200, 2)));
+    }
+
+    @Test
+    public void testDestinationChangeDropsEmbeddingEntities() {
+        catalogCache.destinationsChanged(List.of(1));
+
+        assertEquals(1, catalogCache.getActivities().stats().getSize());
+        assertEquals(1, catalogCache.getTravelPackages().stats().getSize());
+        assertTrue(catalogCache.getTravelPackages().getAll(List.of(200), ids -> fail("should be cached"))
+                .containsKey(200));
+    }
+
+    @Test
+    public void testActivityChangeDropsPackagesListingItsDestination() {
+        catalogCache.activitiesChanged(List.of(activity(30, destination(2))));
+
+        assertEquals(2, catalogCache.getActivities().stats().getSize());
+        assertEquals(1, catalogCache.getTravelPackages().stats().getSize());
+    }
+
+    @Test
+    public void testCopiedTravelPackageIsIndependentAndClean() {
+        TravelPackage travelPackage = catalogCache.getTravelPackages().get(100, id -> Optional.empty()).orElseThrow();
+        travelPackage.getDestinations().get(0).getActivities().get(0).setCost(1.0);
+        travelPackage.getDestinations().clear();
+
+        TravelPackage cached = catalogCache.getTravelPackages().get(100, id -> Optional.empty()).orElseThrow();
+        assertEquals(25.0, cached.getDestinations().get(0).getActivities().get(0).getCost());
+        assertFalse(((ChangeTrackingList<Destination>) cached.getDestinations()).isDirty());
+    }
+
+    @Test
+    public void testSwitchIsPerEntity() {
+        catalogCache.getActivities().setEnabled(false);
+
+        assertEquals(0, catalogCache.getActivities().stats().getSize());
+        assertEquals(2, catalogCache.getTravelPackages().stats().getSize());
+    }
+
+    private static Destination destination(int destinationId) {
+        return Destination.builder().destinationId(destinationId).name("Destination " + destinationId).build();
+    }
+
+    private static Activity activity(int activityId, Destination destination) {
+        return Activity.builder().activityId(activityId).name("Activity " + activityId).description("Tour")
+                .cost(25.0).capacity(10).destination(destination).build();
+    }
+
+    private static TravelPackage travelPackage(int packageId, int destinationId) {
+        Destination destination = destination(destinationId);
+        destination.setActivities(new ArrayList<>(List.of(activity(destinationId * 10, null))));
+
+        return TravelPackage.builder().packageId(packageId).name("Package " + packageId).description("Tour")
+                .capacity(20).destinations(new ChangeTrackingList<>(List.of(destination),
+                        Destination::getDestinationId)).build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.travelagencies.cache;
+
+import com.travelagencies.models.Destination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private EntityCache<Destination> cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = newCache(EntityCacheConfig.builder().maximumSize(2).expireAfterWriteMillis(1_000).build());
+    }
+
+    @Test
+    public void testGetLoadsOnceAndThenHits() {
+        assertEquals("Destination 1", cache.get(1, this::load).orElseThrow().getName());
+        assertEquals("Destination 1", cache.get(1, this::load).orElseThrow().getName());
+
+        assertEquals(1, loads.get());
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    public void testMissingEntityIsNotCached() {
+        assertTrue(cache.get(1, id -> Optional.empty()).isEmpty());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    public void testCallersCannotCorruptCachedEntity() {
+        Destination loaded = cache.get(1, this::load).orElseThrow();
+        loaded.setName("Changed by caller");
+
+        Destination cached = cache.get(1, this::load).orElseThrow();
+        cached.setName("Changed again");
+
+        assertEquals("Destination 1", cache.get(1, this::load).orElseThrow().getName());
+        assertNotSame(cached, cache.get(1, this::load).orElseThrow());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntityIsEvicted() {
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+        cache.get(1, this::load);
+        cache.get(3, this::load);
+
+        cache.get(1, this::load);
+        cache.get(2, this::load);
+
+        assertEquals(4, loads.get());
+        assertEquals(2, cache.stats().getSize());
+        assertEquals(2, cache.stats().getEvictionCount());
+    }
+
+    @Test
+    public void testEntityExpiresAfterWrite() {
+        cache.get(1, this::load);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        cache.get(1, this::load);
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        cache.get(1, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().getExpirationCount());
+    }
+
+    @Test
+    public void testZeroExpiryNeverExpires() {
+        cache = newCache(EntityCacheConfig.builder().expireAfterWriteMillis(0).build());
+
+        cache.get(1, this::load);
+        clock.addAndGet(TimeUnit.DAYS.toNanos(1));
+        cache.get(1, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetAllLoadsOnlyMissingIds() {
+        cache.get(2, this::load);
+
+        Map<Integer, Destination> destinations = cache.getAll(List.of(3, 2, 1), ids -> {
+            assertEquals(List.of(3, 1), ids);
+            return Map.of(1, destination(1));
+        });
+
+        assertEquals(List.of(2, 1), List.copyOf(destinations.keySet()));
+        assertTrue(cache.getAll(List.of(1), ids -> fail("should be cached")).containsKey(1));
+    }
+
+    @Test
+    public void testInvalidateDropsEntity() {
+        cache.get(1, this::load);
+        cache.invalidate(1);
+        cache.get(1, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().getInvalidationCount());
+    }
+
+    @Test
+    public void testLoadRacingWithInvalidationIsNotCached() {
+        cache.get(1, id -> {
+            cache.invalidate(1);
+            return load(id);
+        });
+
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    public void testDisabledCachePassesThrough() {
+        cache.get(1, this::load);
+        cache.setEnabled(false);
+
+        cache.get(1, this::load);
+        cache.get(1, this::load);
+
+        assertEquals(3, loads.get());
+        assertEquals(0, cache.stats().getSize());
+    }
+
+    @Test
+    public void testUpdateIfPresentChangesCachedEntity() {
+        cache.get(1, this::load);
+        cache.updateIfPresent(1, destination -> destination.setName("Renamed"));
+
+        assertEquals("Renamed", cache.get(1, this::load).orElseThrow().getName());
+    }
+
+    @Test
+    public void testInvalidMaximumSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> newCache(EntityCacheConfig.builder().maximumSize(0).build()));
+    }
+
+    private EntityCache<Destination> newCache(EntityCacheConfig config) {
+        return new EntityCache<>(config, destination -> Destination.builder()
+                .destinationId(destination.getDestinationId())
+                .name(destination.getName())
+                .build(), clock::get);
+    }
+
+    private Optional<Destination> load(int destinationId) {
+        loads.incrementAndGet();
+        return Optional.of(destination(destinationId));
+    }
+
+    private static Destination destination(int destinationId) {
+        return Destination.builder().destinationId(destinationId).name("Destination " + destinationId).build();
+    }
+}
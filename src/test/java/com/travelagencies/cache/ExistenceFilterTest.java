@@ -0,0 +1,172 @@
+package com.travelagencies.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ExistenceFilterTest {
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockStatement;
+
+    @Mock
+    private ResultSet mockResultSet;
+
+    private final AtomicLong clock = new AtomicLong();
+    private ExistenceFilter existenceFilter;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement("SELECT activity_id FROM activities")).thenReturn(mockStatement);
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getInt(1)).thenReturn(1, 2);
+
+        existenceFilter = new ExistenceFilter(ExistenceFilterConfig.builder()
+                .singleWriter(true)
+                .expectedIds(1_000)
+                .negativeTtlMillis(5_000)
+                .negativeCacheMaximumSize(2)
+                .build(), clock::get);
+    }
+
+    @Test
+    public void testUnloadedFilterRejectsNothing() {
+        assertFalse(existenceFilter.isKnownAbsent(404));
+    }
+
+    @Test
+    public void testLoadedFilterRejectsUnknownIds() {
+        existenceFilter.load(mockDataSource, "activities", "activity_id");
+
+        assertFalse(existenceFilter.isKnownAbsent(1));
+        assertFalse(existenceFilter.isKnownAbsent(2));
+        assertTrue(existenceFilter.isKnownAbsent(404));
+        assertEquals(List.of(2), existenceFilter.retainPossiblyPresent(List.of(404, 2)));
+
+        ExistenceFilterStats stats = existenceFilter.stats();
+        assertTrue(stats.isLoaded());
+        assertEquals(2, stats.getLoadedIds());
+        assertEquals(2, stats.getFilterRejections());
+    }
+
+    @Test
+    public void testSavedIdPassesLoadedFilter() {
+        existenceFilter.load(mockDataSource, "activities", "activity_id");
+        existenceFilter.recordPresent(3);
+
+        assertFalse(existenceFilter.isKnownAbsent(3));
+    }
+
+    @Test
+    public void testInsertedIdPassesLoadedFilterBeforeItCommits() {
+        existenceFilter.load(mockDataSource, "activities", "activity_id");
+        long lookupStarted = existenceFilter.lookupStarted();
+        existenceFilter.recordInserted(3);
+
+        assertFalse(existenceFilter.isKnownAbsent(3));
+        // Not committed yet, so a concurrent miss of the id is still remembered.
+        existenceFilter.recordAbsent(3, lookupStarted);
+        assertTrue(existenceFilter.isKnownAbsent(3));
+
+        existenceFilter.recordPresent(3);
+        assertFalse(existenceFilter.isKnownAbsent(3));
+    }
+
+    @Test
+    public void testMissedIdIsRejectedUntilTtlExpires() {
+        existenceFilter.recordAbsent(404, existenceFilter.lookupStarted());
+        assertTrue(existenceFilter.isKnownAbsent(404));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertFalse(existenceFilter.isKnownAbsent(404));
+        assertEquals(0, existenceFilter.stats().getNegativeCacheSize());
+    }
+
+    @Test
+    public void testSaveClearsMissedId() {
+        existenceFilter.recordAbsent(404, existenceFilter.lookupStarted());
+        existenceFilter.recordPresent(404);
+
+        assertFalse(existenceFilter.isKnownAbsent(404));
+    }
+
+    @Test
+    public void testMissOfALookupOverlappingTheSaveIsNotRemembered() {
+        long lookupStarted = existenceFilter.lookupStarted();
+        existenceFilter.recordPresent(404);
+        existenceFilter.recordAbsent(404, lookupStarted);
+        existenceFilter.recordAbsent(405, lookupStarted);
+
+        assertFalse(existenceFilter.isKnownAbsent(404));
+        assertTrue(existenceFilter.isKnownAbsent(405));
+    }
+
+    @Test
+    public void testFilterOfOneOfSeveralWritersOnlyRemembersMisses() {
+        ExistenceFilter shared = new ExistenceFilter(ExistenceFilterConfig.builder().expectedIds(1_000).build(),
+                clock::get);
+        shared.load(mockDataSource, "activities", "activity_id");
+
+        assertFalse(shared.isKnownAbsent(404));
+        assertFalse(shared.stats().isLoaded());
+        verifyNoInteractions(mockDataSource);
+
+        shared.recordAbsent(404, shared.lookupStarted());
+        assertTrue(shared.isKnownAbsent(404));
+    }
+
+    @Test
+    public void testNegativeCacheIsBounded() {
+        existenceFilter.recordAbsent(1, existenceFilter.lookupStarted());
+        existenceFilter.recordAbsent(2, existenceFilter.lookupStarted());
+        existenceFilter.recordAbsent(3, existenceFilter.lookupStarted());
+
+        assertEquals(2, existenceFilter.stats().getNegativeCacheSize());
+        assertFalse(existenceFilter.isKnownAbsent(3));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        existenceFilter.recordAbsent(3, existenceFilter.lookupStarted());
+        assertTrue(existenceFilter.isKnownAbsent(3));
+    }
+
+    @Test
+    public void testDisabledFilterRejectsNothing() {
+        ExistenceFilter disabled = ExistenceFilter.disabled();
+        disabled.load(mockDataSource, "activities", "activity_id");
+        disabled.recordAbsent(404, disabled.lookupStarted());
+
+        assertFalse(disabled.isKnownAbsent(404));
+        verifyNoInteractions(mockDataSource);
+    }
+
+    @Test
+    public void testLoadFailure() throws SQLException {
+        when(mockStatement.executeQuery()).thenThrow(new SQLException("Connection reset"));
+
+        assertThrows(IllegalStateException.class,
+                () -> existenceFilter.load(mockDataSource, "activities", "activity_id"));
+        assertFalse(existenceFilter.stats().isLoaded());
+    }
+}
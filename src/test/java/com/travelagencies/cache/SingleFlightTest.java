@@ -0,0 +1,163 @@
+package com.travelagencies.cache;
+
+import com.travelagencies.models.Destination;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneLoad() throws Exception {
+        SingleFlight<Destination> singleFlight = newSingleFlight(5_000);
+
+        List<Future<Optional<Destination>>> results = startCallers(singleFlight, CALLERS);
+        awaitCoalesced(singleFlight, CALLERS - 1);
+        release.countDown();
+
+        List<Destination> destinations = new ArrayList<>();
+        for (Future<Optional<Destination>> result : results) {
+            destinations.add(result.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.getLoadCount());
+        assertEquals(CALLERS - 1, singleFlight.getCoalescedCount());
+        for (int i = 1; i < destinations.size(); i++) {
+            assertEquals(destinations.get(0), destinations.get(i));
+            assertNotSame(destinations.get(0), destinations.get(i));
+        }
+    }
+
+    @Test
+    public void testWaiterTimesOut() throws Exception {
+        SingleFlight<Destination> singleFlight = newSingleFlight(50);
+
+        List<Future<Optional<Destination>>> results = startCallers(singleFlight, 2);
+        awaitCoalesced(singleFlight, 1);
+
+        int timeouts = 0;
+        for (Future<Optional<Destination>> result : results) {
+            try {
+                result.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                continue;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+                timeouts++;
+            }
+        }
+
+        assertEquals(1, timeouts);
+        assertEquals(1, singleFlight.getTimeoutCount());
+    }
+
+    @Test
+    public void testWaitersSeeLoaderFailure() throws Exception {
+        SingleFlight<Destination> singleFlight = newSingleFlight(5_000);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Future<Optional<Destination>> leader = executor.submit(() -> singleFlight.load(1, id -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("Database unavailable");
+        }));
+        started.await();
+        Future<Optional<Destination>> waiter = executor.submit(() -> singleFlight.load(1, this::load));
+        awaitCoalesced(singleFlight, 1);
+        release.countDown();
+
+        ExecutionException leaderFailure = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException waiterFailure = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertEquals("Database unavailable", leaderFailure.getCause().getMessage());
+        assertEquals("Database unavailable", waiterFailure.getCause().getMessage());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void testForgottenFlightIsNotJoined() throws Exception {
+        SingleFlight<Destination> singleFlight = newSingleFlight(5_000);
+
+        List<Future<Optional<Destination>>> results = startCallers(singleFlight, 1);
+        while (loads.get() == 0) {
+            Thread.onSpinWait();
+        }
+        singleFlight.forget(1);
+        Future<Optional<Destination>> afterWrite = executor.submit(() -> singleFlight.load(1, id -> {
+            loads.incrementAndGet();
+            return Optional.of(Destination.builder().destinationId(id).name("Renamed").build());
+        }));
+
+        assertEquals("Renamed", afterWrite.get(5, TimeUnit.SECONDS).orElseThrow().getName());
+        release.countDown();
+        assertTrue(results.get(0).get(5, TimeUnit.SECONDS).isPresent());
+        assertEquals(2, singleFlight.getLoadCount());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    public void testInvalidTimeout() {
+        assertThrows(IllegalArgumentException.class, () -> newSingleFlight(0));
+    }
+
+    private SingleFlight<Destination> newSingleFlight(long timeoutMillis) {
+        return new SingleFlight<>(timeoutMillis, destination -> Destination.builder()
+                .destinationId(destination.getDestinationId())
+                .name(destination.getName())
+                .build());
+    }
+
+    private List<Future<Optional<Destination>>> startCallers(SingleFlight<Destination> singleFlight, int callers) {
+        List<Future<Optional<Destination>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> singleFlight.load(1, this::load)));
+        }
+        return results;
+    }
+
+    private Optional<Destination> load(int destinationId) {
+        loads.incrementAndGet();
+        await(release);
+        return Optional.of(Destination.builder().destinationId(destinationId).name("Goa").build());
+    }
+
+    private static void awaitCoalesced(SingleFlight<Destination> singleFlight, int callers) {
+        while (singleFlight.getCoalescedCount() + singleFlight.getTimeoutCount() < callers) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.travelagencies.controllers;
 import com.travelagencies.models.Activity;
 import com.travelagencies.models.Destination;
 import com.travelagencies.services.ActivityService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -20,9 +23,20 @@ public class ActivityControllerTest {
     @Mock
     private ActivityService activityService;
 
+    private AutoCloseable mocks;
+
     @BeforeEach
     public void setUp() {
-        MockitoAnnotations.initMocks(this);
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        try {
+            validateMockitoUsage();
+        } finally {
+            mocks.close();
+        }
     }
 
     @Test
@@ -51,7 +65,7 @@ public class ActivityControllerTest {
         Activity result = activityController.getActivityDetails(activityId);
 
         verify(activityService, times(1)).getActivityDetails(activityId);
-        verify(activityService, times(0)).createActivity(any(), any(), any(), any(), any());
+        verify(activityService, times(0)).createActivity(anyString(), anyString(), anyDouble(), anyInt(), any());
         verify(activityService, times(0)).updateActivityCapacity(anyInt(), anyInt());
         assertEquals(mockActivity, result);
     }
@@ -79,4 +93,13 @@ public class ActivityControllerTest {
 
         verify(activityService, times(1)).updateActivityCost(activityId, newCost);
     }
+
+    @Test
+    public void testUpdateActivitiesCost() {
+        Map<Integer, Double> newCosts = Map.of(1, 60.0, 2, 80.0);
+
+        activityController.updateActivitiesCost(newCosts);
+
+        verify(activityService, times(1)).updateActivitiesCost(newCosts);
+    }
 }
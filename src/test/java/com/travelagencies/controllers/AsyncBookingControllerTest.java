@@ -0,0 +1,73 @@
+package com.travelagencies.controllers;
+
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.models.Booking;
+import com.travelagencies.services.AsyncBookingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+public class AsyncBookingControllerTest {
+
+    @InjectMocks
+    private AsyncBookingController bookingController;
+
+    @Mock
+    private AsyncBookingService bookingService;
+
+    private AutoCloseable mocks;
+
+    @BeforeEach
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+    }
+
+    /**
+     * Fails the test that misused Mockito, e.g. left a verification unfinished, instead of the next test that runs
+     * on this thread.
+     */
+    @AfterEach
+    public void tearDown() throws Exception {
+        try {
+            validateMockitoUsage();
+        } finally {
+            mocks.close();
+        }
+    }
+
+    @Test
+    public void testCreateBooking() {
+        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+        when(bookingService.createBooking(1, 2, 3)).thenReturn(future);
+
+        assertSame(future, bookingController.createBooking(1, 2, 3));
+        verify(bookingService, times(1)).createBooking(1, 2, 3);
+    }
+
+    @Test
+    public void testUpdateBookingStatus() {
+        when(bookingService.updateBookingStatus(1, BookingStatus.CONFIRMED))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        bookingController.updateBookingStatus(1, BookingStatus.CONFIRMED).join();
+
+        verify(bookingService, times(1)).updateBookingStatus(1, BookingStatus.CONFIRMED);
+    }
+
+    @Test
+    public void testGetBookingDetails() {
+        Booking booking = Booking.builder().bookingId(1).bookingStatus(BookingStatus.PENDING).build();
+        when(bookingService.getBookingDetails(1)).thenReturn(CompletableFuture.completedFuture(booking));
+
+        assertEquals(booking, bookingController.getBookingDetails(1).join());
+    }
+}
@@ -9,6 +9,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -32,6 +34,16 @@ public class BookingControllerTest {
         verify(bookingService, times(1)).createBooking(1, 2, 3);
     }
 
+    @Test
+    public void testCreateGroupBooking() {
+        List<Booking> bookings = List.of(Booking.builder().bookingId(10).passengerId(1).destinationId(3)
+                .activityId(2).bookingStatus(BookingStatus.PENDING).build());
+        when(bookingService.createGroupBooking(List.of(1), 2, 3)).thenReturn(bookings);
+
+        assertEquals(bookings, bookingController.createGroupBooking(List.of(1), 2, 3));
+        verify(bookingService, times(1)).createGroupBooking(List.of(1), 2, 3);
+    }
+
     @Test
     public void testUpdateBookingStatus() {
         bookingController.updateBookingStatus(1, BookingStatus.CONFIRMED);
@@ -9,6 +9,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
@@ -66,4 +69,14 @@ public class PassengerControllerTest {
 
         assertEquals(mockPassenger, result);
     }
+
+    @Test
+    public void testGetPassengersDetails() {
+        Passenger mockPassenger = Passenger.builder().passengerId(123).passengerName("pName").build();
+        when(passengerService.getPassengersDetails(List.of(123))).thenReturn(Map.of(123, mockPassenger));
+
+        Map<Integer, Passenger> result = passengerController.getPassengersDetails(List.of(123));
+
+        assertEquals(mockPassenger, result.get(123));
+    }
 }
@@ -0,0 +1,118 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.H2DatabaseExtension;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.models.Booking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hammers a single activity row from many threads against an embedded H2 database in MySQL mode
+ * and checks that guarded capacity updates never oversell it.
+ */
+public class ActivityDaoConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int CAPACITY = 200;
+    private static final int ATTEMPTS = 2_000;
+
+    // One more connection than the threads, for the id generator's leases next to their transactions.
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension(THREADS + 1);
+
+    private ConnectionPool connectionPool;
+    private TransactionManager transactionManager;
+    private ActivityDao activityDao;
+    private BookingDao bookingDao;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connectionPool = h2.getConnectionPool();
+        transactionManager = new TransactionManager(connectionPool);
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+        activityDao = new ActivityDao(transactionManager.getDataSource(), idGenerator);
+        bookingDao = new BookingDao(transactionManager.getDataSource(), idGenerator);
+
+        h2.execute("DELETE FROM bookings",
+                "DELETE FROM activities",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "VALUES (1, 1, 'Flash sale', 'Hot activity', 10.0, " + CAPACITY + ")");
+    }
+
+    @Test
+    public void testReserveCapacityNeverOversells() throws Exception {
+        AtomicInteger bookingIds = new AtomicInteger();
+        AtomicInteger reserved = new AtomicInteger();
+
+        runConcurrently(ATTEMPTS, () -> transactionManager.run(() -> {
+            if (activityDao.reserveCapacity(1, 1)) {
+                bookingDao.save(Booking.builder()
+                        .bookingId(bookingIds.incrementAndGet())
+                        .passengerId(1)
+                        .destinationId(1)
+                        .activityId(1)
+                        .bookingStatus(BookingStatus.PENDING)
+                        .build());
+                reserved.incrementAndGet();
+            }
+        }));
+
+        assertEquals(CAPACITY, reserved.get());
+        assertEquals(0, h2.queryForInt("SELECT capacity FROM activities WHERE activity_id = 1"));
+        assertEquals(CAPACITY, h2.queryForInt("SELECT COUNT(*) FROM bookings WHERE activity_id = 1"));
+    }
+
+    @Test
+    public void testReserveAndReleaseConserveCapacity() throws Exception {
+        AtomicInteger rejected = new AtomicInteger();
+
+        runConcurrently(ATTEMPTS, () -> {
+            if (activityDao.reserveCapacity(1, 3)) {
+                activityDao.releaseCapacity(1, 3);
+            } else {
+                rejected.incrementAndGet();
+            }
+        });
+
+        assertEquals(0, rejected.get());
+        assertEquals(CAPACITY, h2.queryForInt("SELECT capacity FROM activities WHERE activity_id = 1"));
+    }
+
+    private void runConcurrently(int attempts, Runnable attempt) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < attempts; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    attempt.run();
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
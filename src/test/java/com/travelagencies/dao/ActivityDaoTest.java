@@ -1,11 +1,15 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.cache.ExistenceFilterConfig;
+import com.travelagencies.db.IdGenerator;
 import com.travelagencies.models.Activity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -15,10 +19,18 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.endsWith;
 import static org.mockito.Mockito.*;
 
 public class ActivityDaoTest {
 
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private IdGenerator mockIdGenerator;
+
     @Mock
     private Connection mockConnection;
 
@@ -31,9 +43,10 @@ public class ActivityDaoTest {
     private ActivityDao activityDao;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
         MockitoAnnotations.initMocks(this);
-        activityDao = new ActivityDao();
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        activityDao = new ActivityDao(mockDataSource, mockIdGenerator);
     }
 
     @Test
@@ -62,6 +75,32 @@ public class ActivityDaoTest {
         verify(mockPreparedStatement, times(1)).executeUpdate();
     }
 
+    @Test
+    public void testReserveCapacity() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1, 0);
+
+        assertTrue(activityDao.reserveCapacity(1, 2));
+        assertFalse(activityDao.reserveCapacity(1, 2));
+
+        verify(mockConnection, times(2)).prepareStatement(contains("capacity >= ?"));
+        verify(mockPreparedStatement, times(2)).setInt(1, 2);
+        verify(mockPreparedStatement, times(2)).setInt(2, 1);
+        verify(mockPreparedStatement, times(2)).setInt(3, 2);
+    }
+
+    @Test
+    public void testReleaseCapacity() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+
+        assertTrue(activityDao.releaseCapacity(1, 3));
+
+        verify(mockPreparedStatement).setInt(1, 3);
+        verify(mockPreparedStatement).setInt(2, 1);
+        verify(mockPreparedStatement).executeUpdate();
+    }
+
     @Test
     public void testDeleteActivity() throws SQLException {
         Activity activity = Activity.builder()
@@ -82,7 +121,9 @@ public class ActivityDaoTest {
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
         when(mockResultSet.next()).thenReturn(true);
+        when(mockResultSet.getInt("activity_id")).thenReturn(activityId);
         when(mockResultSet.getInt("destination_id")).thenReturn(1);
+        when(mockResultSet.getString("destination_name")).thenReturn("Test Destination");
         when(mockResultSet.getString("name")).thenReturn("Test Activity");
         when(mockResultSet.getString("description")).thenReturn("Test Description");
         when(mockResultSet.getDouble("cost")).thenReturn(50.0);
@@ -99,14 +140,13 @@ public class ActivityDaoTest {
         assertEquals(50.0, activity.getCost(), 0.01);
         assertEquals(100, activity.getCapacity());
         assertEquals(1, activity.getDestination().getDestinationId());
+        assertEquals("Test Destination", activity.getDestination().getName());
 
+        // The destination comes from the same joined query, not from a second lookup.
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection, times(1)).prepareStatement(contains("LEFT JOIN destinations"));
         verify(mockPreparedStatement, times(1)).executeQuery();
         verify(mockResultSet, times(1)).next();
-        verify(mockResultSet, times(1)).getInt("destination_id");
-        verify(mockResultSet, times(1)).getString("name");
-        verify(mockResultSet, times(1)).getString("description");
-        verify(mockResultSet, times(1)).getDouble("cost");
-        verify(mockResultSet, times(1)).getInt("capacity");
     }
 
     @Test
@@ -125,6 +165,18 @@ public class ActivityDaoTest {
         verify(mockResultSet, times(1)).next();
     }
 
+    @Test
+    public void testGetActivityByIdForUpdateLocksRow() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+
+        Optional<Activity> activityOptional = activityDao.getByIdForUpdate(1);
+
+        assertTrue(activityOptional.isEmpty());
+        verify(mockConnection).prepareStatement(endsWith("FOR UPDATE OF a"));
+    }
+
     @Test
     public void testGetActivitiesByDestinationId() throws SQLException {
         int destinationId = 101;
@@ -160,20 +212,88 @@ public class ActivityDaoTest {
     }
 
     @Test
-    public void testGenerateActivityId() throws SQLException {
-        int expectedGeneratedActivityId = 1;
+    public void testGetActivitiesByDestinationIdSharesDestinationInOneStatement() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, true, true, false);
+        when(mockResultSet.getInt("activity_id")).thenReturn(1, 2, 3);
+        when(mockResultSet.getInt("destination_id")).thenReturn(101);
+        when(mockResultSet.getString("destination_name")).thenReturn("Goa");
 
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt("activity_id")).thenReturn(expectedGeneratedActivityId);
 
-        int generatedActivityId = activityDao.generateActivityId();
+        List<Activity> activities = activityDao.getActivitiesByDestinationId(101);
 
-        assertEquals(expectedGeneratedActivityId, generatedActivityId);
+        assertEquals(3, activities.size());
+        assertEquals("Goa", activities.get(0).getDestination().getName());
+        assertSame(activities.get(0).getDestination(), activities.get(1).getDestination());
+        assertSame(activities.get(0).getDestination(), activities.get(2).getDestination());
 
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection, times(1)).prepareStatement(anyString());
         verify(mockPreparedStatement, times(1)).executeQuery();
-        verify(mockResultSet, times(1)).next();
-        verify(mockResultSet, times(1)).getInt("activity_id");
+    }
+
+    @Test
+    public void testDestinationIsDetectedByItsJoinedKey() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getInt("activity_id")).thenReturn(1, 2);
+        when(mockResultSet.getInt("destination_id")).thenReturn(101, 0);
+        when(mockResultSet.wasNull()).thenReturn(false, true);
+        when(mockResultSet.getString("destination_name")).thenReturn(null, null);
+
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+
+        List<Activity> activities = activityDao.getActivitiesWithAvailableSpace();
+
+        assertEquals(101, activities.get(0).getDestination().getDestinationId());
+        assertNull(activities.get(0).getDestination().getName());
+        assertNull(activities.get(1).getDestination());
+        verify(mockConnection).prepareStatement(contains("d.destination_id, d.name AS destination_name"));
+    }
+
+    @Test
+    public void testGetActivitiesWithAvailableSpaceRunsOneStatement() throws SQLException {
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getInt("activity_id")).thenReturn(1, 2);
+        when(mockResultSet.getInt("destination_id")).thenReturn(101, 102);
+        when(mockResultSet.getString("destination_name")).thenReturn("Goa", "Kerala");
+
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+
+        List<Activity> activities = activityDao.getActivitiesWithAvailableSpace();
+
+        assertEquals(2, activities.size());
+        assertEquals("Goa", activities.get(0).getDestination().getName());
+        assertEquals("Kerala", activities.get(1).getDestination().getName());
+
+        verify(mockConnection, times(1)).prepareStatement(endsWith("WHERE a.capacity > 0"));
+        verify(mockPreparedStatement, times(1)).executeQuery();
+    }
+
+    @Test
+    public void testGenerateActivityId() throws SQLException {
+        when(mockIdGenerator.nextId("activities", "activity_id")).thenReturn(101);
+
+        int generatedActivityId = activityDao.generateActivityId();
+
+        assertEquals(101, generatedActivityId);
+        verify(mockDataSource, never()).getConnection();
+    }
+
+    @Test
+    public void testMissedIdIsRejectedWithoutQuery() throws SQLException {
+        activityDao = new ActivityDao(mockDataSource, mockIdGenerator,
+                new ExistenceFilter(ExistenceFilterConfig.builder().build()));
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+
+        assertTrue(activityDao.getByIds(List.of(404, 405)).isEmpty());
+        assertTrue(activityDao.getById(404).isEmpty());
+        assertTrue(activityDao.getByIdForUpdate(405).isEmpty());
+
+        verify(mockDataSource, times(1)).getConnection();
     }
 }
@@ -1,5 +1,8 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.cache.ExistenceFilterConfig;
+import com.travelagencies.db.IdGenerator;
 import com.travelagencies.enums.BookingStatus;
 import com.travelagencies.models.Booking;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,19 +10,33 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 public class BookingDaoTest {
 
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private IdGenerator mockIdGenerator;
+
     @Mock
     private Connection mockConnection;
 
@@ -32,9 +49,10 @@ public class BookingDaoTest {
     private BookingDao bookingDao;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
         MockitoAnnotations.openMocks(this);
-        bookingDao = new BookingDao();
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        bookingDao = new BookingDao(mockDataSource, mockIdGenerator);
     }
 
     @Test
@@ -135,4 +153,102 @@ public class BookingDaoTest {
 
         assertFalse(optionalBooking.isPresent());
     }
+
+    @Test
+    public void testSaveAllSendsOneBatch() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        List<Booking> bookings = List.of(
+                Booking.builder().bookingId(1).passengerId(1).destinationId(1).activityId(1)
+                        .bookingStatus(BookingStatus.PENDING).build(),
+                Booking.builder().bookingId(2).passengerId(2).destinationId(1).activityId(1)
+                        .bookingStatus(BookingStatus.PENDING).build());
+
+        bookingDao.saveAll(bookings);
+
+        verify(mockConnection, times(1)).prepareStatement(anyString());
+        verify(mockStatement, times(2)).addBatch();
+        verify(mockStatement, times(1)).executeBatch();
+        verify(mockStatement, never()).executeUpdate();
+    }
+
+    @Test
+    public void testGetByIdsChunksInClause() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+        List<Integer> ids = IntStream.rangeClosed(1, JdbcBatch.IN_CLAUSE_CHUNK_SIZE + 1).boxed().toList();
+
+        Map<Integer, Booking> bookings = bookingDao.getByIds(ids);
+
+        assertTrue(bookings.isEmpty());
+        verify(mockConnection, times(1)).prepareStatement(contains("IN (" + JdbcBatch.placeholders(JdbcBatch.IN_CLAUSE_CHUNK_SIZE) + ")"));
+        verify(mockConnection, times(1)).prepareStatement(endsWith("IN (?)"));
+        verify(mockStatement, times(2)).executeQuery();
+    }
+
+    @Test
+    public void testGetByIdsForUpdateLocksInIdOrder() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+
+        assertTrue(bookingDao.getByIdsForUpdate(List.of(3, 1, 2)).isEmpty());
+
+        verify(mockConnection).prepareStatement(endsWith("IN (?, ?, ?) ORDER BY booking_id FOR UPDATE"));
+        verify(mockStatement).setInt(1, 1);
+        verify(mockStatement).setInt(2, 2);
+        verify(mockStatement).setInt(3, 3);
+    }
+
+    @Test
+    public void testStreamReadsFromCursorAndClosesIt() throws SQLException {
+        when(mockConnection.prepareStatement(anyString(), anyInt(), anyInt())).thenReturn(mockStatement);
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, true, false);
+        when(mockResultSet.getInt("booking_id")).thenReturn(11, 12);
+        when(mockResultSet.getInt("activity_id")).thenReturn(7);
+        when(mockResultSet.getString("booking_status")).thenReturn("CONFIRMED");
+
+        try (Stream<Booking> bookings = bookingDao.streamNotCancelledByActivityId(7, 10)) {
+            assertEquals(List.of(11, 12), bookings.map(Booking::getBookingId).toList());
+        }
+
+        verify(mockConnection).prepareStatement(contains("WHERE activity_id = ? AND booking_id > ?"),
+                eq(ResultSet.TYPE_FORWARD_ONLY), eq(ResultSet.CONCUR_READ_ONLY));
+        verify(mockStatement).setFetchSize(BookingDao.STREAM_FETCH_SIZE);
+        verify(mockStatement).setInt(1, 7);
+        verify(mockStatement).setInt(2, 10);
+        verify(mockStatement).setString(3, "CANCELLED");
+        verify(mockResultSet).close();
+        verify(mockStatement).close();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testMissedIdIsRejectedWithoutQuery() throws SQLException {
+        bookingDao = new BookingDao(mockDataSource, mockIdGenerator,
+                new ExistenceFilter(ExistenceFilterConfig.builder().build()));
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+        when(mockStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+
+        assertTrue(bookingDao.getById(404).isEmpty());
+        assertTrue(bookingDao.getById(404).isEmpty());
+        assertTrue(bookingDao.getByIds(List.of(404)).isEmpty());
+
+        verify(mockDataSource, times(1)).getConnection();
+    }
+
+    @Test
+    public void testSavedIdIsNoLongerRejected() throws SQLException {
+        ExistenceFilter existenceFilter = new ExistenceFilter(ExistenceFilterConfig.builder().build());
+        existenceFilter.recordAbsent(101, existenceFilter.lookupStarted());
+        bookingDao = new BookingDao(mockDataSource, mockIdGenerator, existenceFilter);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement);
+
+        bookingDao.save(Booking.builder().bookingId(101).passengerId(201).destinationId(301)
+                .activityId(401).bookingStatus(BookingStatus.PENDING).build());
+
+        assertFalse(existenceFilter.isKnownAbsent(101));
+    }
 }
@@ -0,0 +1,319 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.cache.ExistenceFilterConfig;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.H2DatabaseExtension;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.models.TravelPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the bulk repository operations against an embedded H2 database in MySQL mode.
+ */
+public class BulkOperationsTest {
+
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension();
+
+    private ConnectionPool connectionPool;
+    private ActivityDao activityDao;
+    private BookingDao bookingDao;
+    private DestinationDao destinationDao;
+    private PassengerDao passengerDao;
+    private TravelPackageDao travelPackageDao;
+
+    @BeforeEach
+    public void setUp() {
+        connectionPool = h2.getConnectionPool();
+        activityDao = new ActivityDao(connectionPool);
+        bookingDao = new BookingDao(connectionPool);
+        destinationDao = new DestinationDao(connectionPool);
+        passengerDao = new PassengerDao(connectionPool, 2);
+        travelPackageDao = new TravelPackageDao(connectionPool, 2);
+    }
+
+    @Test
+    public void testActivitiesAcrossSeveralChunks() {
+        Destination destination = Destination.builder().destinationId(1).name("Goa").build();
+        destinationDao.saveAll(List.of(destination));
+
+        int count = 2 * JdbcBatch.IN_CLAUSE_CHUNK_SIZE + 7;
+        List<Activity> activities = new ArrayList<>();
+        for (int activityId = 1; activityId <= count; activityId++) {
+            activities.add(Activity.builder().activityId(activityId).name("Activity " + activityId)
+                    .description("Beach").cost(10.0).capacity(5).destination(destination).build());
+        }
+        activityDao.saveAll(activities);
+
+        List<Integer> requestedIds = new ArrayList<>(IntStream.rangeClosed(1, count).boxed().toList());
+        requestedIds.add(0, count + 1);
+        Map<Integer, Activity> loaded = activityDao.getByIds(requestedIds);
+
+        assertEquals(count, loaded.size());
+        assertEquals(IntStream.rangeClosed(1, count).boxed().toList(), new ArrayList<>(loaded.keySet()));
+        assertSame(loaded.get(1).getDestination(), loaded.get(count).getDestination());
+
+        for (Activity activity : activities) {
+            activity.setCost(12.5);
+        }
+        activityDao.updateAll(activities);
+        assertEquals(12.5, activityDao.getByIds(List.of(count)).get(count).getCost());
+
+        activityDao.deleteAll(activities);
+        assertTrue(activityDao.getByIds(requestedIds).isEmpty());
+    }
+
+    @Test
+    public void testColumnUpdatesLeaveTheOtherColumnAlone() {
+        Destination destination = Destination.builder().destinationId(1).name("Goa").build();
+        destinationDao.saveAll(List.of(destination));
+        activityDao.saveAll(List.of(
+                Activity.builder().activityId(1).name("Surfing").description("Beach").cost(10.0).capacity(5)
+                        .destination(destination).build(),
+                Activity.builder().activityId(2).name("Diving").description("Reef").cost(20.0).capacity(8)
+                        .destination(destination).build()));
+
+        assertTrue(activityDao.reserveCapacity(1, 2));
+        activityDao.updateCosts(Map.of(1, 12.5, 2, 25.0, 3, 99.0));
+
+        Map<Integer, Activity> repriced = activityDao.getByIds(List.of(1, 2, 3));
+        assertEquals(2, repriced.size());
+        assertEquals(12.5, repriced.get(1).getCost());
+        assertEquals(3, repriced.get(1).getCapacity());
+        assertEquals(25.0, repriced.get(2).getCost());
+        assertEquals(8, repriced.get(2).getCapacity());
+
+        activityDao.updateCapacities(Map.of(2, 4));
+
+        Activity resized = activityDao.getById(2).orElseThrow();
+        assertEquals(4, resized.getCapacity());
+        assertEquals(25.0, resized.getCost());
+        assertEquals("Diving", resized.getName());
+    }
+
+    @Test
+    public void testActivityKeepsUnnamedDestinationAndDropsMissingOne() throws SQLException {
+        h2.execute("INSERT INTO destinations (destination_id, name) VALUES (1, NULL)",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "VALUES (1, 1, 'Surfing', 'Waves', 10.0, 5), (2, 2, 'Diving', 'Reef', 20.0, 5)");
+
+        Map<Integer, Activity> activities = activityDao.getByIds(List.of(1, 2));
+
+        assertEquals(1, activities.get(1).getDestination().getDestinationId());
+        assertNull(activities.get(1).getDestination().getName());
+        assertNull(activities.get(2).getDestination());
+    }
+
+    @Test
+    public void testActivitySavedInAUnitOfWorkIsReadBackBeforeItCommits() {
+        destinationDao.saveAll(List.of(Destination.builder().destinationId(1).name("Goa").build()));
+        ExistenceFilter existenceFilter = new ExistenceFilter(ExistenceFilterConfig.builder()
+                .singleWriter(true)
+                .expectedIds(1_000)
+                .build());
+        existenceFilter.load(connectionPool, "activities", "activity_id");
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        ActivityDao filteredDao = new ActivityDao(transactionManager.getDataSource(),
+                new IdGenerator(connectionPool), existenceFilter);
+
+        transactionManager.run(() -> {
+            filteredDao.save(activity(1, 1));
+            filteredDao.saveAll(List.of(activity(2, 1)));
+
+            assertTrue(filteredDao.getById(1).isPresent());
+            assertTrue(filteredDao.getByIdForUpdate(2).isPresent());
+            assertEquals(Set.of(1, 2), filteredDao.getByIds(List.of(1, 2, 3)).keySet());
+        });
+
+        assertTrue(filteredDao.getById(2).isPresent());
+        assertTrue(existenceFilter.isKnownAbsent(3));
+    }
+
+    @Test
+    public void testPassengersWithBookings() {
+        List<Booking> bookings = List.of(booking(1, 1), booking(2, 1), booking(3, 2));
+        bookingDao.saveAll(bookings);
+
+        Passenger first = passenger(1);
+        first.getBookingList().addAll(List.of(bookings.get(0), bookings.get(1)));
+        Passenger second = passenger(2);
+        second.getBookingList().add(bookings.get(2));
+        passengerDao.saveAll(List.of(first, second));
+
+        Map<Integer, Passenger> loaded = passengerDao.getByIds(List.of(2, 1, 3));
+        assertEquals(List.of(2, 1), new ArrayList<>(loaded.keySet()));
+        assertEquals(2, loaded.get(1).getBookingList().size());
+        assertEquals(1, loaded.get(2).getBookingList().size());
+
+        Passenger reloadedFirst = loaded.get(1);
+        reloadedFirst.setBalance(50.0);
+        reloadedFirst.getBookingList().removeIf(booking -> booking.getBookingId() == 1);
+        Passenger untrackedSecond = passenger(2);
+        untrackedSecond.getBookingList().addAll(List.of(bookings.get(0), bookings.get(2)));
+        passengerDao.updateAll(List.of(reloadedFirst, untrackedSecond));
+
+        loaded = passengerDao.getByIds(List.of(1, 2));
+        assertEquals(50.0, loaded.get(1).getBalance());
+        assertEquals(List.of(2), bookingIds(loaded.get(1)));
+        assertEquals(List.of(1, 3), bookingIds(loaded.get(2)));
+
+        passengerDao.deleteAll(loaded.values());
+        assertTrue(passengerDao.getByIds(List.of(1, 2)).isEmpty());
+    }
+
+    @Test
+    public void testTravelPackagesWithDestinationsAndActivities() {
+        Destination goa = Destination.builder().destinationId(1).name("Goa").build();
+        Destination kerala = Destination.builder().destinationId(2).name("Kerala").build();
+        destinationDao.saveAll(List.of(goa, kerala));
+        activityDao.saveAll(List.of(
+                Activity.builder().activityId(1).name("Surfing").description("Waves").cost(20.0).capacity(5)
+                        .destination(goa).build(),
+                Activity.builder().activityId(2).name("Backwaters").description("Boat").cost(30.0).capacity(5)
+                        .destination(kerala).build()));
+
+        TravelPackage coast = travelPackage(1);
+        coast.getDestinations().addAll(List.of(goa, kerala));
+        TravelPackage beach = travelPackage(2);
+        beach.getDestinations().add(goa);
+        travelPackageDao.saveAll(List.of(coast, beach));
+
+        Map<Integer, TravelPackage> loaded = travelPackageDao.getByIds(List.of(1, 2));
+        assertEquals(2, loaded.get(1).getDestinations().size());
+        assertSame(loaded.get(1).getDestinations().get(0), loaded.get(2).getDestinations().get(0));
+        assertEquals("Surfing", loaded.get(2).getDestinations().get(0).getActivities().get(0).getName());
+
+        TravelPackage reloadedCoast = loaded.get(1);
+        reloadedCoast.setCapacity(40);
+        reloadedCoast.getDestinations().removeIf(destination -> destination.getDestinationId() == 1);
+        travelPackageDao.updateAll(List.of(reloadedCoast));
+
+        TravelPackage updatedCoast = travelPackageDao.getByIds(List.of(1)).get(1);
+        assertEquals(40, updatedCoast.getCapacity());
+        assertEquals(1, updatedCoast.getDestinations().size());
+        assertEquals(2, updatedCoast.getDestinations().get(0).getDestinationId());
+
+        travelPackageDao.deleteAll(List.of(coast, beach));
+        assertTrue(travelPackageDao.getByIds(List.of(1, 2)).isEmpty());
+    }
+
+    @Test
+    public void testTravelPackageActivitiesLoadedInParallelChunks() {
+        // More destinations than fit one IN clause, so the activities are read in several chunks.
+        int destinationCount = 1_200;
+        List<Destination> destinations = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        for (int id = 1; id <= destinationCount; id++) {
+            Destination destination = Destination.builder().destinationId(id).name("Destination " + id).build();
+            destinations.add(destination);
+            activities.add(Activity.builder().activityId(id).name("Activity " + id).description("Tour").cost(10.0)
+                    .capacity(5).destination(destination).build());
+        }
+        destinationDao.saveAll(destinations);
+        activityDao.saveAll(activities);
+        TravelPackage grandTour = travelPackage(1);
+        grandTour.getDestinations().addAll(destinations);
+        travelPackageDao.saveAll(List.of(grandTour));
+
+        ExecutorService loadExecutor = Executors.newFixedThreadPool(2);
+        try {
+            TravelPackageDao parallelDao = new TravelPackageDao(connectionPool, new IdGenerator(connectionPool), 2,
+                    loadExecutor);
+            TravelPackage loaded = parallelDao.getById(1).orElseThrow();
+
+            assertEquals(destinationCount, loaded.getDestinations().size());
+            for (Destination destination : loaded.getDestinations()) {
+                assertEquals(1, destination.getActivities().size());
+                assertEquals("Activity " + destination.getDestinationId(),
+                        destination.getActivities().get(0).getName());
+            }
+        } finally {
+            loadExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testTravelPackageActivitiesForkedForEveryChunkAfterTheFirst() {
+        // Five destinations in chunks of two: the first chunk is read on the calling thread, the other two forked.
+        List<Destination> destinations = new ArrayList<>();
+        List<Activity> activities = new ArrayList<>();
+        for (int id = 1; id <= 5; id++) {
+            Destination destination = Destination.builder().destinationId(id).name("Destination " + id).build();
+            destinations.add(destination);
+            activities.add(Activity.builder().activityId(id).name("Activity " + id).description("Tour").cost(10.0)
+                    .capacity(5).destination(destination).build());
+        }
+        destinationDao.saveAll(destinations);
+        activityDao.saveAll(activities);
+        TravelPackage grandTour = travelPackage(1);
+        grandTour.getDestinations().addAll(destinations);
+        travelPackageDao.saveAll(List.of(grandTour));
+
+        ExecutorService loadExecutor = Executors.newFixedThreadPool(2);
+        AtomicInteger forkedLoads = new AtomicInteger();
+        try {
+            TravelPackageDao parallelDao = new TravelPackageDao(connectionPool, new IdGenerator(connectionPool), 2,
+                    command -> {
+                        forkedLoads.incrementAndGet();
+                        loadExecutor.execute(command);
+                    }, 2);
+            TravelPackage loaded = parallelDao.getById(1).orElseThrow();
+
+            assertEquals(2, forkedLoads.get());
+            assertEquals(5, loaded.getDestinations().size());
+            for (Destination destination : loaded.getDestinations()) {
+                assertEquals(1, destination.getActivities().size());
+                assertEquals("Activity " + destination.getDestinationId(),
+                        destination.getActivities().get(0).getName());
+            }
+        } finally {
+            loadExecutor.shutdown();
+        }
+    }
+
+    private static Activity activity(int activityId, int destinationId) {
+        return Activity.builder().activityId(activityId).name("Activity " + activityId).description("Tour").cost(10.0)
+                .capacity(5).destination(Destination.builder().destinationId(destinationId).build()).build();
+    }
+
+    private static Booking booking(int bookingId, int passengerId) {
+        return Booking.builder().bookingId(bookingId).passengerId(passengerId).destinationId(1).activityId(1)
+                .bookingStatus(BookingStatus.CONFIRMED).build();
+    }
+
+    private static Passenger passenger(int passengerId) {
+        return Passenger.builder().passengerId(passengerId).passengerName("Passenger " + passengerId)
+                .passengerMobile("9999988888").passengerType(PassengerType.GOLD).balance(100.0).build();
+    }
+
+    private static TravelPackage travelPackage(int packageId) {
+        return TravelPackage.builder().packageId(packageId).name("Package " + packageId)
+                .description("Coastal tour").capacity(20).build();
+    }
+
+    private static List<Integer> bookingIds(Passenger passenger) {
+        return passenger.getBookingList().stream().map(Booking::getBookingId).sorted().toList();
+    }
+}
@@ -0,0 +1,167 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.cache.CatalogCache;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.H2DatabaseExtension;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.TravelPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the caching catalog DAOs against an embedded H2 database in MySQL mode. Rows are changed behind the
+ * DAOs' back to tell whether a read was served from the cache.
+ */
+public class CachingDaoTest {
+
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension();
+
+    private ConnectionPool connectionPool;
+    private CatalogCache catalogCache;
+    private CachingActivityDao activityDao;
+    private CachingDestinationDao destinationDao;
+    private CachingTravelPackageDao travelPackageDao;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connectionPool = h2.getConnectionPool();
+
+        h2.execute("INSERT INTO destinations (destination_id, name) VALUES (1, 'Goa')",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "VALUES (1, 1, 'Surfing', 'Waves', 20.0, 5)",
+                "INSERT INTO travel_packages (package_id, name, description, capacity) " +
+                        "VALUES (1, 'Coast', 'Beaches', 20)",
+                "INSERT INTO package_destinations (package_id, destination_id) VALUES (1, 1)");
+
+        catalogCache = new CatalogCache();
+        activityDao = new CachingActivityDao(connectionPool, catalogCache);
+        destinationDao = new CachingDestinationDao(connectionPool, catalogCache);
+        travelPackageDao = new CachingTravelPackageDao(connectionPool, catalogCache);
+    }
+
+    @Test
+    public void testReadsAreServedFromCache() throws SQLException {
+        activityDao.getById(1);
+        travelPackageDao.getById(1);
+        h2.execute("UPDATE activities SET cost = 99.0", "UPDATE travel_packages SET name = 'Renamed'");
+
+        assertEquals(20.0, activityDao.getById(1).orElseThrow().getCost());
+        assertEquals("Coast", travelPackageDao.getById(1).orElseThrow().getName());
+        assertEquals(20.0, activityDao.getByIds(List.of(1)).get(1).getCost());
+        assertEquals(1, catalogCache.getActivities().stats().getMissCount());
+    }
+
+    @Test
+    public void testUpdateInvalidatesEntity() {
+        Activity activity = activityDao.getById(1).orElseThrow();
+        activity.setCost(30.0);
+        activityDao.update(activity);
+
+        assertEquals(30.0, activityDao.getById(1).orElseThrow().getCost());
+    }
+
+    @Test
+    public void testDestinationRenameInvalidatesEmbeddingEntities() {
+        activityDao.getById(1);
+        travelPackageDao.getById(1);
+
+        Destination destination = destinationDao.getById(1).orElseThrow();
+        destination.setName("North Goa");
+        destinationDao.update(destination);
+
+        assertEquals("North Goa", activityDao.getById(1).orElseThrow().getDestination().getName());
+        assertEquals("North Goa", travelPackageDao.getById(1).orElseThrow().getDestinations().get(0).getName());
+    }
+
+    @Test
+    public void testActivityChangeInvalidatesPackage() {
+        assertEquals(1, travelPackageDao.getById(1).orElseThrow().getDestinations().get(0).getActivities().size());
+
+        activityDao.save(Activity.builder().activityId(2).name("Kayaking").description("River").cost(15.0)
+                .capacity(8).destination(Destination.builder().destinationId(1).build()).build());
+
+        assertEquals(2, travelPackageDao.getById(1).orElseThrow().getDestinations().get(0).getActivities().size());
+    }
+
+    @Test
+    public void testReservingSeatsEvictsCachedActivity() {
+        activityDao.getById(1);
+
+        assertTrue(activityDao.reserveCapacity(1, 2));
+        assertEquals(3, activityDao.getById(1).orElseThrow().getCapacity());
+        assertTrue(activityDao.releaseCapacity(1, 1));
+        assertEquals(4, activityDao.getById(1).orElseThrow().getCapacity());
+        assertEquals(3, catalogCache.getActivities().stats().getMissCount());
+    }
+
+    @Test
+    public void testRolledBackReservationLeavesNoStaleCapacity() {
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        CachingActivityDao transactionalDao = new CachingActivityDao(transactionManager.getDataSource(),
+                new IdGenerator(connectionPool), catalogCache);
+        transactionalDao.getById(1);
+
+        assertThrows(IllegalStateException.class, () -> transactionManager.run(() -> {
+            assertTrue(transactionalDao.reserveCapacity(1, 2));
+            throw new IllegalStateException("Booking failed");
+        }));
+
+        assertEquals(5, transactionalDao.getById(1).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testRowCachedByAConcurrentReaderIsEvictedOnCommit() {
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        CachingActivityDao transactionalDao = new CachingActivityDao(transactionManager.getDataSource(),
+                new IdGenerator(connectionPool), catalogCache);
+
+        transactionManager.run(() -> {
+            Activity activity = transactionalDao.getByIdForUpdate(1).orElseThrow();
+            activity.setCost(30.0);
+            transactionalDao.update(activity);
+            // Another thread reads the still committed row and caches it.
+            assertEquals(20.0, CompletableFuture.supplyAsync(() -> activityDao.getById(1)).join()
+                    .orElseThrow().getCost());
+        });
+
+        assertEquals(30.0, activityDao.getById(1).orElseThrow().getCost());
+    }
+
+    @Test
+    public void testRowCachedInsideARolledBackUnitOfWorkIsEvicted() {
+        TransactionManager transactionManager = new TransactionManager(connectionPool);
+        CachingActivityDao transactionalDao = new CachingActivityDao(transactionManager.getDataSource(),
+                new IdGenerator(connectionPool), catalogCache);
+
+        assertThrows(IllegalStateException.class, () -> transactionManager.run(() -> {
+            Activity activity = transactionalDao.getByIdForUpdate(1).orElseThrow();
+            activity.setCost(30.0);
+            transactionalDao.update(activity);
+            assertEquals(30.0, transactionalDao.getById(1).orElseThrow().getCost());
+            throw new IllegalStateException("Update rejected");
+        }));
+
+        assertEquals(20.0, activityDao.getById(1).orElseThrow().getCost());
+    }
+
+    @Test
+    public void testDisabledCacheReadsDatabase() throws SQLException {
+        catalogCache.getTravelPackages().setEnabled(false);
+        TravelPackage travelPackage = travelPackageDao.getById(1).orElseThrow();
+        h2.execute("UPDATE travel_packages SET name = 'Renamed'");
+
+        assertEquals("Coast", travelPackage.getName());
+        assertEquals("Renamed", travelPackageDao.getById(1).orElseThrow().getName());
+    }
+}
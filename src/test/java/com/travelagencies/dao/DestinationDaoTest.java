@@ -1,11 +1,13 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.db.IdGenerator;
 import com.travelagencies.models.Destination;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -18,6 +20,12 @@ import static org.mockito.Mockito.*;
 
 public class DestinationDaoTest {
 
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private IdGenerator mockIdGenerator;
+
     @Mock
     private Connection mockConnection;
 
@@ -30,9 +38,10 @@ public class DestinationDaoTest {
     private DestinationDao destinationDao;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
         MockitoAnnotations.initMocks(this);
-        destinationDao = new DestinationDao();
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        destinationDao = new DestinationDao(mockDataSource, mockIdGenerator);
     }
 
     @Test
@@ -115,16 +124,11 @@ public class DestinationDaoTest {
 
     @Test
     public void testGenerateDestinationId() throws SQLException {
-        int expectedGeneratedId = 1;
-
-        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
-        doNothing().when(mockPreparedStatement).executeQuery();
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt("destination_id")).thenReturn(expectedGeneratedId);
+        when(mockIdGenerator.nextId("destinations", "destination_id")).thenReturn(101);
 
         int generatedId = destinationDao.generateDestinationId();
 
-        assertEquals(expectedGeneratedId, generatedId);
+        assertEquals(101, generatedId);
+        verify(mockDataSource, never()).getConnection();
     }
 }
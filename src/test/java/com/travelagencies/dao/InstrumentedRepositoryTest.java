@@ -0,0 +1,108 @@
+package com.travelagencies.dao;
+
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.metrics.OperationStats;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedRepositoryTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private PassengerRepository passengerRepository;
+
+    private RepositoryMetrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        metrics = new RepositoryMetrics();
+    }
+
+    @Test
+    public void testLookupsRecordCallsAndRows() {
+        Activity activity = Activity.builder().activityId(1).build();
+        when(activityRepository.getById(1)).thenReturn(Optional.of(activity));
+        when(activityRepository.getById(2)).thenReturn(Optional.empty());
+        when(activityRepository.getActivitiesByDestinationId(7)).thenReturn(List.of(activity, activity, activity));
+        ActivityRepository instrumented = new InstrumentedActivityRepository(activityRepository, metrics);
+
+        assertEquals(Optional.of(activity), instrumented.getById(1));
+        assertEquals(Optional.empty(), instrumented.getById(2));
+        assertEquals(3, instrumented.getActivitiesByDestinationId(7).size());
+
+        OperationStats getById = stats("activity", "getById");
+        assertEquals(2, getById.getCalls());
+        assertEquals(0, getById.getErrors());
+        assertEquals(1, getById.getRows());
+        assertEquals(2, getById.getLatency().getCount());
+        assertEquals(3, stats("activity", "getActivitiesByDestinationId").getRows());
+    }
+
+    @Test
+    public void testWritesCountItems() {
+        ActivityRepository instrumented = new InstrumentedActivityRepository(activityRepository, metrics);
+        List<Activity> activities = List.of(Activity.builder().activityId(1).build(),
+                Activity.builder().activityId(2).build());
+
+        instrumented.saveAll(activities);
+        instrumented.update(activities.get(0));
+
+        verify(activityRepository).saveAll(activities);
+        verify(activityRepository).update(activities.get(0));
+        assertEquals(2, stats("activity", "saveAll").getRows());
+        assertEquals(1, stats("activity", "update").getCalls());
+    }
+
+    @Test
+    public void testExceptionsAreCountedAndRethrown() {
+        IllegalStateException failure = new IllegalStateException("Transaction rolled back");
+        when(activityRepository.reserveCapacity(1, 1)).thenThrow(failure);
+        ActivityRepository instrumented = new InstrumentedActivityRepository(activityRepository, metrics);
+
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> instrumented.reserveCapacity(1, 1)));
+
+        OperationStats reserveCapacity = stats("activity", "reserveCapacity");
+        assertEquals(1, reserveCapacity.getCalls());
+        assertEquals(1, reserveCapacity.getErrors());
+        assertEquals(1, reserveCapacity.getLatency().getCount());
+    }
+
+    @Test
+    public void testPassengerFetchPlansAreRecordedSeparately() {
+        Passenger passenger = Passenger.builder().passengerId(1).build();
+        when(passengerRepository.getById(1)).thenReturn(Optional.of(passenger));
+        when(passengerRepository.getById(1, PassengerFetchPlan.SHALLOW)).thenReturn(Optional.of(passenger));
+        when(passengerRepository.getByIds(List.of(1), PassengerFetchPlan.WITH_BOOKINGS)).thenReturn(Map.of(1, passenger));
+        PassengerRepository instrumented = new InstrumentedPassengerRepository(passengerRepository, metrics);
+
+        instrumented.getById(1);
+        instrumented.getById(1, PassengerFetchPlan.SHALLOW);
+        instrumented.getByIds(List.of(1), PassengerFetchPlan.WITH_BOOKINGS);
+
+        assertEquals(2, stats("passenger", "getById").getCalls());
+        assertEquals(1, stats("passenger", "getByIds[WITH_BOOKINGS]").getCalls());
+        assertEquals(0, stats("passenger", "getByIds").getCalls());
+    }
+
+    private OperationStats stats(String entity, String operation) {
+        return metrics.snapshot().stream()
+                .filter(stats -> stats.getEntity().equals(entity) && stats.getOperation().equals(operation))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -1,14 +1,20 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.cache.ExistenceFilter;
+import com.travelagencies.cache.ExistenceFilterConfig;
+import com.travelagencies.db.IdGenerator;
 import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
 import com.travelagencies.enums.PassengerType;
 import com.travelagencies.models.Booking;
+import com.travelagencies.models.ChangeTrackingList;
 import com.travelagencies.models.Passenger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -18,11 +24,19 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
 
 public class PassengerDaoTest {
 
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private IdGenerator mockIdGenerator;
+
     @Mock
     private Connection mockConnection;
 
@@ -50,9 +64,10 @@ public class PassengerDaoTest {
     private PassengerDao passengerDao;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
         MockitoAnnotations.initMocks(this);
-        passengerDao = new PassengerDao();
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        passengerDao = new PassengerDao(mockDataSource, mockIdGenerator);
     }
 
     @Test
@@ -109,8 +124,76 @@ public class PassengerDaoTest {
         for (Booking booking : passenger.getBookingList()) {
             verify(mockInsertBookingsStatement).setInt(1, booking.getBookingId());
             verify(mockInsertBookingsStatement).setInt(2, passenger.getPassengerId());
-            verify(mockInsertBookingsStatement).executeUpdate();
+            verify(mockInsertBookingsStatement).addBatch();
+        }
+        verify(mockInsertBookingsStatement).executeBatch();
+    }
+
+    @Test
+    public void testUpdateBatchesBookingLinks() throws SQLException {
+        passengerDao = new PassengerDao(mockDataSource, mockIdGenerator, 2);
+        Passenger passenger = Passenger.builder()
+                .passengerId(101).passengerName("pName").passengerMobile("9999988888")
+                .passengerType(PassengerType.GOLD).balance(2500.0).build();
+        for (int bookingId = 1; bookingId <= 5; bookingId++) {
+            passenger.getBookingList().add(Booking.builder().passengerId(101).bookingId(bookingId).destinationId(2)
+                    .activityId(3).bookingStatus(BookingStatus.CONFIRMED).build());
         }
+
+        when(mockConnection.prepareStatement(anyString()))
+                .thenReturn(mockUpdatePassengerStatement)
+                .thenReturn(mockDeleteBookingsStatement)
+                .thenReturn(mockInsertBookingsStatement);
+
+        passengerDao.update(passenger);
+
+        verify(mockInsertBookingsStatement, times(5)).addBatch();
+        verify(mockInsertBookingsStatement, times(3)).executeBatch();
+        verify(mockInsertBookingsStatement, never()).executeUpdate();
+    }
+
+    @Test
+    public void testUpdateWritesOnlyChangedBookingLinks() throws SQLException {
+        Passenger passenger = Passenger.builder()
+                .passengerId(101).passengerName("pName").passengerMobile("9999988888")
+                .passengerType(PassengerType.GOLD).balance(2500.0).build();
+        passenger.setBookingList(new ChangeTrackingList<>(List.of(booking(1), booking(2), booking(3)),
+                Booking::getBookingId));
+        passenger.getBookingList().removeIf(booking -> booking.getBookingId() == 2);
+        passenger.getBookingList().add(booking(4));
+
+        when(mockConnection.prepareStatement(anyString()))
+                .thenReturn(mockUpdatePassengerStatement)
+                .thenReturn(mockDeleteBookingsStatement)
+                .thenReturn(mockInsertBookingsStatement);
+
+        passengerDao.update(passenger);
+
+        verify(mockUpdatePassengerStatement).executeUpdate();
+        verify(mockConnection).prepareStatement(contains("AND booking_id = ?"));
+        verify(mockDeleteBookingsStatement).setInt(1, 101);
+        verify(mockDeleteBookingsStatement).setInt(2, 2);
+        verify(mockDeleteBookingsStatement, times(1)).addBatch();
+        verify(mockInsertBookingsStatement).setInt(1, 4);
+        verify(mockInsertBookingsStatement, times(1)).addBatch();
+        assertFalse(((ChangeTrackingList<Booking>) passenger.getBookingList()).isDirty());
+    }
+
+    @Test
+    public void testBalanceOnlyUpdateSkipsBookingLinks() throws SQLException {
+        Passenger passenger = Passenger.builder()
+                .passengerId(101).passengerName("pName").passengerMobile("9999988888")
+                .passengerType(PassengerType.GOLD).balance(2500.0).build();
+        passenger.setBookingList(new ChangeTrackingList<>(List.of(booking(1), booking(2)), Booking::getBookingId));
+        passenger.setBalance(3000.0);
+
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockUpdatePassengerStatement);
+
+        passengerDao.update(passenger);
+
+        verify(mockConnection, times(1)).prepareStatement(anyString());
+        verify(mockUpdatePassengerStatement).setDouble(4, 3000.0);
+        verify(mockUpdatePassengerStatement).executeUpdate();
     }
 
     @Test
@@ -167,16 +250,96 @@ public class PassengerDaoTest {
     }
 
     @Test
-    public void testGeneratePassengerId() throws SQLException {
-        int expectedGeneratedPassengerId = 101;
+    public void testGetByIdForUpdateLocksRow() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockGetPassengerStatement);
+        when(mockGetPassengerStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(false);
+
+        Optional<Passenger> result = passengerDao.getByIdForUpdate(2);
+
+        assertFalse(result.isPresent());
+        verify(mockConnection).prepareStatement(endsWith("FOR UPDATE"));
+    }
+
+    @Test
+    public void testGetByIdIsShallowByDefault() throws SQLException {
+        ResultSet mockBookingsResultSet = mock(ResultSet.class);
+        stubPassengerRow();
+        when(mockGetPassengerStatement.executeQuery()).thenReturn(mockResultSet, mockBookingsResultSet);
+        when(mockBookingsResultSet.next()).thenReturn(true, false);
+        when(mockBookingsResultSet.getInt("booking_id")).thenReturn(7);
+        when(mockBookingsResultSet.getString("booking_status")).thenReturn(BookingStatus.CONFIRMED.name());
+
+        Passenger passenger = passengerDao.getById(101).orElseThrow();
+
+        ChangeTrackingList<Booking> bookings = (ChangeTrackingList<Booking>) passenger.getBookingList();
+        assertFalse(bookings.isLoaded());
+        verify(mockConnection, times(1)).prepareStatement(anyString());
+
+        assertEquals(7, bookings.get(0).getBookingId());
+        assertTrue(bookings.isLoaded());
+        verify(mockConnection, times(2)).prepareStatement(anyString());
+    }
+
+    @Test
+    public void testUpdateOfShallowPassengerDoesNotLoadBookings() throws SQLException {
+        stubPassengerRow();
+        Passenger passenger = passengerDao.getById(101).orElseThrow();
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockUpdatePassengerStatement);
+
+        passenger.getBookingList().add(booking(9));
+        passengerDao.update(passenger);
+
+        verify(mockConnection, never()).prepareStatement(contains("INNER JOIN bookings"));
+        verify(mockConnection, never()).prepareStatement(startsWith("DELETE"));
+        verify(mockUpdatePassengerStatement, times(1)).addBatch();
+    }
+
+    @Test
+    public void testGetByIdWithBookingsLoadsEagerly() throws SQLException {
+        stubPassengerRow();
+
+        Passenger passenger = passengerDao.getById(101, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+
+        assertTrue(((ChangeTrackingList<Booking>) passenger.getBookingList()).isLoaded());
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection, times(1)).prepareStatement(contains("INNER JOIN bookings"));
+    }
 
+    @Test
+    public void testMissedIdIsRejectedWithoutQuery() throws SQLException {
+        passengerDao = new PassengerDao(mockDataSource, mockIdGenerator, JdbcBatch.DEFAULT_BATCH_SIZE,
+                new ExistenceFilter(ExistenceFilterConfig.builder().build()));
         when(mockConnection.prepareStatement(anyString())).thenReturn(mockGetPassengerStatement);
         when(mockGetPassengerStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt("passenger_id")).thenReturn(expectedGeneratedPassengerId);
+        when(mockResultSet.next()).thenReturn(false);
+
+        assertTrue(passengerDao.getById(404).isEmpty());
+        assertTrue(passengerDao.getByIdForUpdate(404, PassengerFetchPlan.WITH_BOOKINGS).isEmpty());
+
+        verify(mockDataSource, times(1)).getConnection();
+    }
+
+    private void stubPassengerRow() throws SQLException {
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockGetPassengerStatement);
+        when(mockGetPassengerStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true, false);
+        when(mockResultSet.getInt("passenger_id")).thenReturn(101);
+        when(mockResultSet.getString("passenger_type")).thenReturn(PassengerType.GOLD.name());
+    }
+
+    @Test
+    public void testGeneratePassengerId() throws SQLException {
+        when(mockIdGenerator.nextId("passengers", "passenger_id")).thenReturn(101);
 
         int generatedPassengerId = passengerDao.generatePassengerId();
 
-        assertEquals(expectedGeneratedPassengerId, generatedPassengerId);
+        assertEquals(101, generatedPassengerId);
+        verify(mockDataSource, never()).getConnection();
+    }
+
+    private Booking booking(int bookingId) {
+        return Booking.builder().passengerId(101).bookingId(bookingId).destinationId(2)
+                .activityId(3).bookingStatus(BookingStatus.CONFIRMED).build();
     }
 }
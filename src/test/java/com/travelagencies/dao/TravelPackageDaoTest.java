@@ -1,5 +1,7 @@
 package com.travelagencies.dao;
 
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.models.ChangeTrackingList;
 import com.travelagencies.models.Destination;
 import com.travelagencies.models.TravelPackage;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -16,25 +19,36 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.Mockito.*;
 
 public class TravelPackageDaoTest {
 
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private IdGenerator mockIdGenerator;
+
     @Mock
     private Connection mockConnection;
 
     @Mock
     private PreparedStatement mockPreparedStatement;
 
+    @Mock
+    private PreparedStatement mockLinkStatement;
+
     @Mock
     private ResultSet mockResultSet;
 
     private TravelPackageDao travelPackageDao;
 
     @BeforeEach
-    public void setUp() {
+    public void setUp() throws SQLException {
         MockitoAnnotations.initMocks(this);
-        travelPackageDao = new TravelPackageDao();
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        travelPackageDao = new TravelPackageDao(mockDataSource, mockIdGenerator);
     }
 
     @Test
@@ -49,6 +63,24 @@ public class TravelPackageDaoTest {
         verify(mockPreparedStatement, times(1)).executeUpdate();
     }
 
+    @Test
+    public void testSaveBatchesDestinationLinks() throws SQLException {
+        travelPackageDao = new TravelPackageDao(mockDataSource, mockIdGenerator, 1);
+        TravelPackage travelPackage = createExpectedTravelPackage(1);
+
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement, mockLinkStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+
+        travelPackageDao.save(travelPackage);
+
+        verify(mockPreparedStatement, times(1)).executeUpdate();
+        verify(mockLinkStatement).setInt(2, 1);
+        verify(mockLinkStatement).setInt(2, 2);
+        verify(mockLinkStatement, times(2)).addBatch();
+        verify(mockLinkStatement, times(2)).executeBatch();
+        verify(mockLinkStatement, never()).executeUpdate();
+    }
+
     @Test
     public void testUpdateTravelPackage() throws SQLException {
         TravelPackage travelPackage = createExpectedTravelPackage(1);
@@ -61,6 +93,25 @@ public class TravelPackageDaoTest {
         verify(mockPreparedStatement, times(1)).executeUpdate();
     }
 
+    @Test
+    public void testUpdateWritesOnlyChangedDestinationLinks() throws SQLException {
+        TravelPackage travelPackage = createExpectedTravelPackage(1);
+        travelPackage.setDestinations(new ChangeTrackingList<>(travelPackage.getDestinations(),
+                Destination::getDestinationId));
+        travelPackage.getDestinations().add(Destination.builder().destinationId(3).name("Destination 3").build());
+
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement, mockLinkStatement);
+        when(mockPreparedStatement.executeUpdate()).thenReturn(1);
+
+        travelPackageDao.update(travelPackage);
+
+        verify(mockConnection, times(2)).prepareStatement(anyString());
+        verify(mockConnection, never()).prepareStatement("DELETE FROM package_destinations WHERE package_id = ?");
+        verify(mockLinkStatement).setInt(2, 3);
+        verify(mockLinkStatement, times(1)).addBatch();
+        verify(mockLinkStatement).executeBatch();
+    }
+
     @Test
     public void testDeleteTravelPackage() throws SQLException {
         TravelPackage travelPackage = createExpectedTravelPackage(1);
@@ -77,21 +128,56 @@ public class TravelPackageDaoTest {
     public void testGetByIdTravelPackage() throws SQLException {
         int packageId = 1;
         TravelPackage expectedTravelPackage = createExpectedTravelPackage(packageId);
+        expectedTravelPackage.getDestinations().forEach(destination -> destination.setActivities(List.of()));
 
-        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        PreparedStatement mockDestinationsStatement = mock(PreparedStatement.class);
+        ResultSet mockDestinationsResultSet = mock(ResultSet.class);
+        PreparedStatement mockActivitiesStatement = mock(PreparedStatement.class);
+        ResultSet mockActivitiesResultSet = mock(ResultSet.class);
+
+        when(mockConnection.prepareStatement(contains("FROM travel_packages"))).thenReturn(mockPreparedStatement);
         when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true).thenReturn(true).thenReturn(false);
+        when(mockResultSet.next()).thenReturn(true).thenReturn(false);
         when(mockResultSet.getInt("package_id")).thenReturn(packageId);
-        when(mockResultSet.getString("package_name")).thenReturn(expectedTravelPackage.getName());
-        when(mockResultSet.getString("package_description")).thenReturn(expectedTravelPackage.getDescription());
+        when(mockResultSet.getString("name")).thenReturn(expectedTravelPackage.getName());
+        when(mockResultSet.getString("description")).thenReturn(expectedTravelPackage.getDescription());
         when(mockResultSet.getInt("capacity")).thenReturn(expectedTravelPackage.getCapacity());
-        when(mockResultSet.getInt("destination_id")).thenReturn(1).thenReturn(2);
-        when(mockResultSet.getString("destination_name")).thenReturn("Destination 1").thenReturn("Destination 2");
+
+        when(mockConnection.prepareStatement(contains("FROM package_destinations"))).thenReturn(mockDestinationsStatement);
+        when(mockDestinationsStatement.executeQuery()).thenReturn(mockDestinationsResultSet);
+        when(mockDestinationsResultSet.next()).thenReturn(true).thenReturn(true).thenReturn(false);
+        when(mockDestinationsResultSet.getInt("package_id")).thenReturn(packageId);
+        when(mockDestinationsResultSet.getInt("destination_id")).thenReturn(1).thenReturn(2);
+        when(mockDestinationsResultSet.getString("name")).thenReturn("Destination 1").thenReturn("Destination 2");
+
+        when(mockConnection.prepareStatement(contains("FROM activities"))).thenReturn(mockActivitiesStatement);
+        when(mockActivitiesStatement.executeQuery()).thenReturn(mockActivitiesResultSet);
 
         Optional<TravelPackage> result = travelPackageDao.getById(packageId);
 
         assertTrue(result.isPresent());
         assertEquals(expectedTravelPackage, result.get());
+        verify(mockConnection, times(3)).prepareStatement(anyString());
+        verify(mockConnection, never()).prepareStatement(contains("LEFT JOIN"));
+    }
+
+    @Test
+    public void testGetByIdWithoutDestinationsSkipsActivities() throws SQLException {
+        PreparedStatement mockDestinationsStatement = mock(PreparedStatement.class);
+        ResultSet mockDestinationsResultSet = mock(ResultSet.class);
+
+        when(mockConnection.prepareStatement(contains("FROM travel_packages"))).thenReturn(mockPreparedStatement);
+        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
+        when(mockResultSet.next()).thenReturn(true).thenReturn(false);
+        when(mockResultSet.getInt("package_id")).thenReturn(1);
+        when(mockConnection.prepareStatement(contains("FROM package_destinations"))).thenReturn(mockDestinationsStatement);
+        when(mockDestinationsStatement.executeQuery()).thenReturn(mockDestinationsResultSet);
+
+        Optional<TravelPackage> result = travelPackageDao.getById(1);
+
+        assertTrue(result.isPresent());
+        assertTrue(result.get().getDestinations().isEmpty());
+        verify(mockConnection, never()).prepareStatement(contains("FROM activities"));
     }
 
     @Test
@@ -109,16 +195,12 @@ public class TravelPackageDaoTest {
 
     @Test
     public void testGeneratePackageId() throws SQLException {
-        int expectedGeneratedPackageId = 1;
-
-        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
-        when(mockPreparedStatement.executeQuery()).thenReturn(mockResultSet);
-        when(mockResultSet.next()).thenReturn(true);
-        when(mockResultSet.getInt("package_id")).thenReturn(expectedGeneratedPackageId);
+        when(mockIdGenerator.nextId("travel_packages", "package_id")).thenReturn(101);
 
         int generatedPackageId = travelPackageDao.generatePackageId();
 
-        assertEquals(expectedGeneratedPackageId, generatedPackageId);
+        assertEquals(101, generatedPackageId);
+        verify(mockDataSource, never()).getConnection();
     }
 
     private TravelPackage createExpectedTravelPackage(int packageId) {
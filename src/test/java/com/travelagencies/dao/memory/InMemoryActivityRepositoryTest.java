@@ -0,0 +1,129 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryActivityRepositoryTest {
+
+    private InMemoryDatabase database;
+    private InMemoryActivityRepository activityRepository;
+    private Destination goa;
+
+    @BeforeEach
+    public void setUp() {
+        database = new InMemoryDatabase();
+        activityRepository = new InMemoryActivityRepository(database);
+
+        goa = Destination.builder().destinationId(1).name("Goa").build();
+        new InMemoryDestinationRepository(database).saveAll(List.of(goa,
+                Destination.builder().destinationId(2).name("Kerala").build()));
+    }
+
+    @Test
+    public void testActivitiesComeWithTheirDestination() {
+        activityRepository.saveAll(List.of(activity(1, goa, 5), activity(2, goa, 0)));
+
+        Activity activity = activityRepository.getById(1).orElseThrow();
+        assertEquals("Surfing 1", activity.getName());
+        assertEquals("Goa", activity.getDestination().getName());
+        assertNull(activity.getDestination().getActivities());
+
+        Map<Integer, Activity> activities = activityRepository.getByIds(List.of(2, 3, 1));
+        assertEquals(List.of(2, 1), List.copyOf(activities.keySet()));
+        assertSame(activities.get(1).getDestination(), activities.get(2).getDestination());
+    }
+
+    @Test
+    public void testQueriesFollowDestinationAndCapacityChanges() {
+        activityRepository.saveAll(List.of(activity(1, goa, 5), activity(2, goa, 0)));
+
+        Activity moved = activityRepository.getById(1).orElseThrow();
+        moved.setDestination(Destination.builder().destinationId(2).build());
+        activityRepository.update(moved);
+
+        assertEquals(List.of(2), activityRepository.getActivitiesByDestinationId(1).stream()
+                .map(Activity::getActivityId).toList());
+        assertEquals(List.of(1), activityRepository.getActivitiesByDestinationId(2).stream()
+                .map(Activity::getActivityId).toList());
+        assertEquals(List.of(1), activityRepository.getActivitiesWithAvailableSpace().stream()
+                .map(Activity::getActivityId).toList());
+
+        activityRepository.delete(moved);
+        assertTrue(activityRepository.getActivitiesByDestinationId(2).isEmpty());
+    }
+
+    @Test
+    public void testReserveCapacityNeverGoesBelowZero() {
+        activityRepository.save(activity(1, goa, 2));
+
+        assertTrue(activityRepository.reserveCapacity(1, 2));
+        assertFalse(activityRepository.reserveCapacity(1, 1));
+        assertFalse(activityRepository.reserveCapacity(99, 1));
+        assertEquals(0, activityRepository.getById(1).orElseThrow().getCapacity());
+
+        assertTrue(activityRepository.releaseCapacity(1, 1));
+        assertEquals(1, activityRepository.getById(1).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testColumnUpdatesKeepOtherColumnsAndRollBack() {
+        activityRepository.saveAll(List.of(activity(1, goa, 5), activity(2, goa, 3)));
+        assertTrue(activityRepository.reserveCapacity(1, 2));
+
+        activityRepository.updateCosts(Map.of(1, 25.0, 99, 1.0));
+        activityRepository.updateCapacities(Map.of(2, 8));
+
+        assertEquals(25.0, activityRepository.getById(1).orElseThrow().getCost());
+        assertEquals(3, activityRepository.getById(1).orElseThrow().getCapacity());
+        assertEquals(20.0, activityRepository.getById(2).orElseThrow().getCost());
+        assertEquals(8, activityRepository.getById(2).orElseThrow().getCapacity());
+
+        assertThrows(IllegalStateException.class, () -> database.getTransactionManager().run(() -> {
+            activityRepository.updateCosts(Map.of(1, 30.0));
+            activityRepository.updateCapacities(Map.of(2, 10));
+            activityRepository.reserveCapacity(2, 1);
+            throw new IllegalStateException("rolled back");
+        }));
+
+        assertEquals(25.0, activityRepository.getById(1).orElseThrow().getCost());
+        assertEquals(8, activityRepository.getById(2).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testGeneratedIdsSkipSavedIds() {
+        activityRepository.save(activity(10, goa, 1));
+
+        assertEquals(11, activityRepository.generateActivityId());
+        assertEquals(12, activityRepository.generateActivityId());
+    }
+
+    @Test
+    public void testSaveAllIsAllOrNothing() {
+        activityRepository.save(activity(2, goa, 1));
+
+        assertThrows(IllegalStateException.class,
+                () -> activityRepository.saveAll(List.of(activity(1, goa, 1), activity(2, goa, 1))));
+
+        assertTrue(activityRepository.getById(1).isEmpty());
+        assertEquals(List.of(2), activityRepository.getActivitiesByDestinationId(1).stream()
+                .map(Activity::getActivityId).toList());
+    }
+
+    private static Activity activity(int activityId, Destination destination, int capacity) {
+        return Activity.builder()
+                .activityId(activityId)
+                .name("Surfing " + activityId)
+                .description("Waves")
+                .cost(20.0)
+                .capacity(capacity)
+                .destination(destination)
+                .build();
+    }
+}
@@ -0,0 +1,80 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.models.TravelPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryDatabaseTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testSnapshotRestoresRowsLinksAndSequences() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        Destination goa = Destination.builder().destinationId(1).name("Goa").build();
+        new InMemoryDestinationRepository(database).save(goa);
+        new InMemoryActivityRepository(database).save(Activity.builder()
+                .activityId(1).name("Surfing").description("Waves").cost(20.0).capacity(5).destination(goa).build());
+        new InMemoryTravelPackageRepository(database).save(TravelPackage.builder()
+                .packageId(1).name("Coast").description("Beaches").capacity(20)
+                .destinations(new ArrayList<>(List.of(goa))).build());
+        Booking booking = Booking.builder()
+                .bookingId(7).passengerId(3).destinationId(1).activityId(1).bookingStatus(BookingStatus.PENDING).build();
+        new InMemoryBookingRepository(database).save(booking);
+        new InMemoryPassengerRepository(database).save(Passenger.builder()
+                .passengerId(3).passengerName("Asha").passengerMobile("98450").passengerType(PassengerType.STANDARD)
+                .balance(50.0).bookingList(new ArrayList<>(List.of(booking))).build());
+
+        Path file = directory.resolve("travel-agency.snapshot");
+        database.saveSnapshot(file);
+        InMemoryDatabase restored = InMemoryDatabase.loadSnapshot(file);
+
+        Passenger passenger = new InMemoryPassengerRepository(restored)
+                .getById(3, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals("Asha", passenger.getPassengerName());
+        assertEquals(List.of(booking), passenger.getBookingList());
+
+        InMemoryActivityRepository activityRepository = new InMemoryActivityRepository(restored);
+        assertEquals("Goa", activityRepository.getById(1).orElseThrow().getDestination().getName());
+        assertEquals(1, activityRepository.getActivitiesByDestinationId(1).size());
+        assertEquals("Surfing", new InMemoryTravelPackageRepository(restored).getById(1).orElseThrow()
+                .getDestinations().get(0).getActivities().get(0).getName());
+
+        assertEquals(8, new InMemoryBookingRepository(restored).generateBookingId());
+        assertEquals(4, new InMemoryPassengerRepository(restored).generatePassengerId());
+    }
+
+    @Test
+    public void testSnapshotCannotBeTakenInsideAUnitOfWork() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        Path file = directory.resolve("travel-agency.snapshot");
+
+        assertThrows(IllegalStateException.class,
+                () -> database.getTransactionManager().run(() -> database.saveSnapshot(file)));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    public void testUnreadableSnapshotIsRejected() throws IOException {
+        Path file = directory.resolve("travel-agency.snapshot");
+        Files.writeString(file, "not a snapshot");
+
+        assertThrows(IllegalStateException.class, () -> InMemoryDatabase.loadSnapshot(file));
+    }
+}
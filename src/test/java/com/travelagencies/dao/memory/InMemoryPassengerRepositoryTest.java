@@ -0,0 +1,88 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.ChangeTrackingList;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryPassengerRepositoryTest {
+
+    private InMemoryDatabase database;
+    private InMemoryPassengerRepository passengerRepository;
+    private InMemoryBookingRepository bookingRepository;
+
+    @BeforeEach
+    public void setUp() {
+        database = new InMemoryDatabase();
+        passengerRepository = new InMemoryPassengerRepository(database);
+        bookingRepository = new InMemoryBookingRepository(database);
+
+        bookingRepository.saveAll(List.of(booking(1), booking(2)));
+        passengerRepository.save(Passenger.builder()
+                .passengerId(1)
+                .passengerName("Asha")
+                .passengerMobile("98450")
+                .passengerType(PassengerType.GOLD)
+                .balance(100.0)
+                .bookingList(new ArrayList<>(List.of(booking(1))))
+                .build());
+    }
+
+    @Test
+    public void testShallowPassengerLoadsBookingsOnFirstRead() {
+        Passenger passenger = passengerRepository.getById(1).orElseThrow();
+        ChangeTrackingList<Booking> bookings = (ChangeTrackingList<Booking>) passenger.getBookingList();
+
+        assertFalse(bookings.isLoaded());
+        assertEquals(List.of(1), bookings.stream().map(Booking::getBookingId).toList());
+
+        Passenger withBookings = passengerRepository.getById(1, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertTrue(((ChangeTrackingList<Booking>) withBookings.getBookingList()).isLoaded());
+    }
+
+    @Test
+    public void testUpdateWritesAddedAndRemovedBookings() {
+        Passenger passenger = passengerRepository.getById(1).orElseThrow();
+        passenger.setBalance(80.0);
+        passenger.getBookingList().add(booking(2));
+        passengerRepository.update(passenger);
+
+        Passenger reloaded = passengerRepository.getById(1, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals(80.0, reloaded.getBalance());
+        assertEquals(List.of(1, 2), reloaded.getBookingList().stream().map(Booking::getBookingId).toList());
+
+        reloaded.getBookingList().removeIf(booking -> booking.getBookingId() == 1);
+        passengerRepository.update(reloaded);
+        assertEquals(List.of(2), passengerRepository.getById(1).orElseThrow().getBookingList().stream()
+                .map(Booking::getBookingId).toList());
+    }
+
+    @Test
+    public void testDeleteRemovesBookingLinks() {
+        Passenger passenger = passengerRepository.getById(1).orElseThrow();
+        passengerRepository.delete(passenger);
+
+        assertTrue(passengerRepository.getById(1).isEmpty());
+        assertTrue(database.passengerBookings.get(1).isEmpty());
+        assertTrue(bookingRepository.getById(1).isPresent());
+    }
+
+    private static Booking booking(int bookingId) {
+        return Booking.builder()
+                .bookingId(bookingId)
+                .passengerId(1)
+                .destinationId(1)
+                .activityId(1)
+                .bookingStatus(BookingStatus.PENDING)
+                .build();
+    }
+}
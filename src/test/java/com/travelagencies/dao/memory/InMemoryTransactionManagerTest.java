@@ -0,0 +1,128 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryTransactionManagerTest {
+
+    private InMemoryDatabase database;
+    private InMemoryTransactionManager transactionManager;
+    private InMemoryDestinationRepository destinationRepository;
+    private InMemoryActivityRepository activityRepository;
+
+    @BeforeEach
+    public void setUp() {
+        database = new InMemoryDatabase(200);
+        transactionManager = database.getTransactionManager();
+        destinationRepository = new InMemoryDestinationRepository(database);
+        activityRepository = new InMemoryActivityRepository(database);
+
+        destinationRepository.save(Destination.builder().destinationId(1).name("Goa").build());
+        activityRepository.save(Activity.builder()
+                .activityId(1)
+                .name("Surfing")
+                .description("Waves")
+                .cost(20.0)
+                .capacity(5)
+                .destination(Destination.builder().destinationId(1).build())
+                .build());
+    }
+
+    @Test
+    public void testFailedWorkIsUndone() {
+        assertThrows(IllegalArgumentException.class, () -> transactionManager.run(() -> {
+            destinationRepository.save(Destination.builder().destinationId(2).name("Kerala").build());
+            destinationRepository.update(Destination.builder().destinationId(1).name("North Goa").build());
+            activityRepository.reserveCapacity(1, 2);
+            throw new IllegalArgumentException("Booking rejected");
+        }));
+
+        assertTrue(destinationRepository.getById(2).isEmpty());
+        assertEquals("Goa", destinationRepository.getById(1).orElseThrow().getName());
+        assertEquals(5, activityRepository.getById(1).orElseThrow().getCapacity());
+        assertFalse(transactionManager.isTransactionActive());
+    }
+
+    @Test
+    public void testRollbackKeepsConcurrentCapacityChanges() {
+        assertThrows(IllegalStateException.class, () -> transactionManager.run(() -> {
+            activityRepository.reserveCapacity(1, 2);
+            // Committed by another unit of work while this one is still running.
+            CompletableFuture.runAsync(() -> activityRepository.reserveCapacity(1, 1)).join();
+            throw new IllegalStateException("Booking failed");
+        }));
+
+        assertEquals(4, activityRepository.getById(1).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testLockedRowBlocksOtherUnitsOfWorkUntilTheEnd() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionManager.run(() -> {
+            activityRepository.getByIdForUpdate(1);
+            locked.countDown();
+            await(release);
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        IllegalStateException timeout = assertThrows(IllegalStateException.class,
+                () -> transactionManager.run(() -> activityRepository.getByIdForUpdate(1)));
+        assertTrue(timeout.getMessage().contains("Lock wait timeout"));
+
+        // Outside a unit of work nothing is locked.
+        assertTrue(activityRepository.getByIdForUpdate(1).isPresent());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertTrue(transactionManager.execute(() -> activityRepository.getByIdForUpdate(1)).isPresent());
+    }
+
+    @Test
+    public void testLocksOfDifferentRowsAreIndependent() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> transactionManager.run(() -> {
+            transactionManager.lockForUpdate("activities", 1);
+            locked.countDown();
+            await(release);
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // More rows than any fixed number of shared locks could keep apart.
+        transactionManager.run(() -> {
+            for (int id = 2; id <= 5000; id++) {
+                transactionManager.lockForUpdate("activities", id);
+            }
+            transactionManager.lockForUpdate("destinations", 1);
+        });
+        assertEquals(1, transactionManager.lockedRowCount());
+
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+        assertEquals(0, transactionManager.lockedRowCount());
+    }
+
+    @Test
+    public void testTableWritesRequireAUnitOfWork() {
+        assertThrows(IllegalStateException.class, () -> database.destinations.remove(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.travelagencies.dao.memory;
+
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.TravelPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryTravelPackageRepositoryTest {
+
+    private InMemoryTravelPackageRepository travelPackageRepository;
+    private Destination goa;
+    private Destination kerala;
+
+    @BeforeEach
+    public void setUp() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        travelPackageRepository = new InMemoryTravelPackageRepository(database);
+
+        goa = Destination.builder().destinationId(1).name("Goa").build();
+        kerala = Destination.builder().destinationId(2).name("Kerala").build();
+        new InMemoryDestinationRepository(database).saveAll(List.of(goa, kerala));
+        new InMemoryActivityRepository(database).save(Activity.builder()
+                .activityId(1)
+                .name("Surfing")
+                .description("Waves")
+                .cost(20.0)
+                .capacity(5)
+                .destination(goa)
+                .build());
+
+        travelPackageRepository.saveAll(List.of(travelPackage(1, goa), travelPackage(2, goa, kerala)));
+    }
+
+    @Test
+    public void testPackagesComeWithDestinationsAndActivities() {
+        TravelPackage travelPackage = travelPackageRepository.getById(1).orElseThrow();
+
+        Destination destination = travelPackage.getDestinations().get(0);
+        assertEquals("Goa", destination.getName());
+        assertEquals(List.of("Surfing"), destination.getActivities().stream().map(Activity::getName).toList());
+        assertNull(destination.getActivities().get(0).getDestination());
+
+        Map<Integer, TravelPackage> travelPackages = travelPackageRepository.getByIds(List.of(1, 2));
+        assertSame(travelPackages.get(1).getDestinations().get(0), travelPackages.get(2).getDestinations().get(0));
+    }
+
+    @Test
+    public void testUpdateWritesChangedDestinations() {
+        TravelPackage travelPackage = travelPackageRepository.getById(2).orElseThrow();
+        travelPackage.setName("South");
+        travelPackage.getDestinations().remove(0);
+        travelPackageRepository.update(travelPackage);
+
+        TravelPackage reloaded = travelPackageRepository.getById(2).orElseThrow();
+        assertEquals("South", reloaded.getName());
+        assertEquals(List.of(2), reloaded.getDestinations().stream().map(Destination::getDestinationId).toList());
+
+        reloaded.setDestinations(new ArrayList<>(List.of(goa)));
+        travelPackageRepository.update(reloaded);
+        assertEquals(List.of(1), travelPackageRepository.getById(2).orElseThrow().getDestinations().stream()
+                .map(Destination::getDestinationId).toList());
+    }
+
+    private static TravelPackage travelPackage(int packageId, Destination... destinations) {
+        return TravelPackage.builder()
+                .packageId(packageId)
+                .name("Package " + packageId)
+                .description("Beaches")
+                .capacity(20)
+                .destinations(new ArrayList<>(List.of(destinations)))
+                .build();
+    }
+}
@@ -0,0 +1,173 @@
+package com.travelagencies.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class ConnectionPoolTest {
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private Connection otherMockConnection;
+
+    private ConnectionPool connectionPool;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockDataSource.getConnection()).thenReturn(mockConnection, otherMockConnection);
+        when(mockConnection.isValid(anyInt())).thenReturn(true);
+        when(otherMockConnection.isValid(anyInt())).thenReturn(true);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
+
+    @Test
+    public void testReturnedConnectionIsReused() throws SQLException {
+        connectionPool = new ConnectionPool(mockDataSource, config(2));
+
+        connectionPool.getConnection().close();
+        Connection connection = connectionPool.getConnection();
+        connection.createStatement();
+        connection.close();
+
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection).createStatement();
+        verify(mockConnection, never()).close();
+        assertEquals(1, connectionPool.getStats().getConnectionsCreated());
+        assertEquals(2, connectionPool.getStats().getConnectionsBorrowed());
+        assertEquals(1, connectionPool.getStats().getIdleConnections());
+    }
+
+    @Test
+    public void testClosedLeaseRejectsFurtherUse() throws SQLException {
+        connectionPool = new ConnectionPool(mockDataSource, config(1));
+
+        Connection connection = connectionPool.getConnection();
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, connection::createStatement);
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        connectionPool = new ConnectionPool(mockDataSource, config(1));
+
+        Connection connection = connectionPool.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, () -> connectionPool.getConnection());
+        assertEquals(1, connectionPool.getStats().getBorrowTimeouts());
+        assertEquals(1, connectionPool.getStats().getActiveConnections());
+
+        connection.close();
+        assertDoesNotThrow(() -> connectionPool.getConnection().close());
+    }
+
+    @Test
+    public void testInvalidIdleConnectionIsReplaced() throws SQLException {
+        connectionPool = new ConnectionPool(mockDataSource, config(2));
+        when(mockConnection.isValid(anyInt())).thenReturn(false);
+
+        connectionPool.getConnection().close();
+        Connection connection = connectionPool.getConnection();
+        connection.createStatement();
+
+        verify(mockConnection).close();
+        verify(otherMockConnection).createStatement();
+        assertEquals(1, connectionPool.getStats().getValidationFailures());
+    }
+
+    @Test
+    public void testUncommittedTransactionIsRolledBackOnReturn() throws SQLException {
+        connectionPool = new ConnectionPool(mockDataSource, config(1));
+        when(mockConnection.getAutoCommit()).thenReturn(false);
+
+        Connection connection = connectionPool.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        verify(mockConnection).rollback();
+        verify(mockConnection).setAutoCommit(true);
+    }
+
+    @Test
+    public void testSessionSettingsAreRestoredOnReturn() throws SQLException {
+        connectionPool = new ConnectionPool(mockDataSource, config(1));
+        when(mockConnection.getTransactionIsolation()).thenReturn(Connection.TRANSACTION_REPEATABLE_READ);
+        when(mockConnection.getCatalog()).thenReturn("travel");
+
+        Connection connection = connectionPool.getConnection();
+        connection.setReadOnly(true);
+        connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+        connection.setCatalog("reporting");
+        connection.close();
+
+        verify(mockConnection).setReadOnly(false);
+        verify(mockConnection).setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        verify(mockConnection).setCatalog("travel");
+
+        // A lease that changes nothing restores nothing.
+        clearInvocations(mockConnection);
+        connectionPool.getConnection().close();
+        verify(mockConnection, never()).setReadOnly(anyBoolean());
+        verify(mockConnection, never()).setTransactionIsolation(anyInt());
+        verify(mockConnection, never()).setCatalog(any());
+    }
+
+    @Test
+    public void testHousekeepingEvictsIdleConnectionsAndReportsLeaks() throws SQLException, InterruptedException {
+        connectionPool = new ConnectionPool(mockDataSource, ConnectionPoolConfig.builder()
+                .maximumPoolSize(2)
+                .minimumIdle(0)
+                .idleTimeoutMillis(1)
+                .leakDetectionThresholdMillis(1)
+                .housekeepingPeriodMillis(0)
+                .build());
+
+        Connection leaked = connectionPool.getConnection();
+        connectionPool.getConnection().close();
+        Thread.sleep(5);
+
+        connectionPool.housekeep();
+
+        PoolStats stats = connectionPool.getStats();
+        assertEquals(1, stats.getConnectionsEvicted());
+        assertEquals(1, stats.getLeaksDetected());
+        assertEquals(1, stats.getTotalConnections());
+        assertEquals(0, stats.getIdleConnections());
+
+        leaked.close();
+    }
+
+    private ConnectionPoolConfig config(int maximumPoolSize) {
+        return ConnectionPoolConfig.builder()
+                .maximumPoolSize(maximumPoolSize)
+                .minimumIdle(0)
+                .connectionTimeoutMillis(50)
+                .housekeepingPeriodMillis(0)
+                .build();
+    }
+}
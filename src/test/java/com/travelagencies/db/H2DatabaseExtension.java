@@ -0,0 +1,92 @@
+package com.travelagencies.db;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Gives every test a fresh embedded H2 database in MySQL mode, created from {@code db/schema.sql} and reached
+ * through a {@link ConnectionPool}. Register it as a field; the schema exists before the test's own
+ * {@code @BeforeEach} methods run and is dropped after its {@code @AfterEach} methods:
+ *
+ * <pre>{@code
+ * @RegisterExtension
+ * final H2DatabaseExtension h2 = new H2DatabaseExtension();
+ *
+ * activityDao = new ActivityDao(h2.getConnectionPool());
+ * }</pre>
+ *
+ * Each test class gets its own in-memory database, named after the class.
+ */
+public class H2DatabaseExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private final int maximumPoolSize;
+
+    private ConnectionPool connectionPool;
+
+    public H2DatabaseExtension() {
+        this(2);
+    }
+
+    /**
+     * @param maximumPoolSize The connections the test needs at the same time, including IdGenerator leases.
+     */
+    public H2DatabaseExtension(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * Runs the statements in order on one connection.
+     */
+    public void execute(String... statements) throws SQLException {
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    /**
+     * Runs a query and returns the first column of its first row, typically a {@code COUNT(*)}.
+     */
+    public int queryForInt(String query) throws SQLException {
+        try (Connection connection = connectionPool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws SQLException {
+        DriverManagerDataSource h2 = new DriverManagerDataSource(String.format(
+                "jdbc:h2:mem:%s;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000",
+                context.getRequiredTestClass().getSimpleName()), "sa", "");
+        connectionPool = new ConnectionPool(h2, ConnectionPoolConfig.builder()
+                .maximumPoolSize(maximumPoolSize)
+                .minimumIdle(0)
+                .build());
+
+        execute("RUNSCRIPT FROM 'classpath:db/schema.sql'");
+    }
+
+    @Override
+    public void afterEach(ExtensionContext context) throws SQLException {
+        try {
+            execute("DROP ALL OBJECTS");
+        } finally {
+            connectionPool.close();
+        }
+    }
+}
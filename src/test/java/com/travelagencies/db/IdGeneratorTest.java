@@ -0,0 +1,113 @@
+package com.travelagencies.db;
+
+import com.travelagencies.dao.ActivityDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the generator against an embedded H2 database in MySQL mode. Two generators on the same database
+ * stand in for two application nodes.
+ */
+public class IdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 500;
+    private static final int BLOCK_SIZE = 20;
+
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension(THREADS);
+
+    private ConnectionPool connectionPool;
+
+    @BeforeEach
+    public void setUp() {
+        connectionPool = h2.getConnectionPool();
+    }
+
+    @Test
+    public void testIdsAreUniqueAcrossGenerators() throws Exception {
+        IdGenerator firstNode = new IdGenerator(connectionPool, BLOCK_SIZE);
+        IdGenerator secondNode = new IdGenerator(connectionPool, BLOCK_SIZE);
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                IdGenerator generator = t % 2 == 0 ? firstNode : secondNode;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        assertTrue(ids.add(generator.nextId("bookings", "booking_id")));
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int total = THREADS * IDS_PER_THREAD;
+        assertEquals(total, ids.size());
+        assertTrue(h2.queryForInt("SELECT next_value FROM id_sequences WHERE sequence_name = 'bookings'") > total);
+    }
+
+    @Test
+    public void testOnlyOneRoundTripPerBlock() throws SQLException {
+        IdGenerator idGenerator = new IdGenerator(connectionPool, BLOCK_SIZE);
+
+        for (int i = 1; i <= BLOCK_SIZE; i++) {
+            assertEquals(i, idGenerator.nextId("passengers", "passenger_id"));
+        }
+        assertEquals(BLOCK_SIZE + 1,
+                h2.queryForInt("SELECT next_value FROM id_sequences WHERE sequence_name = 'passengers'"));
+
+        assertEquals(BLOCK_SIZE + 1, idGenerator.nextId("passengers", "passenger_id"));
+        assertEquals(2 * BLOCK_SIZE + 1,
+                h2.queryForInt("SELECT next_value FROM id_sequences WHERE sequence_name = 'passengers'"));
+    }
+
+    @Test
+    public void testNewSequenceStartsAfterExistingRows() throws SQLException {
+        h2.execute("INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                "VALUES (41, 1, 'Kayaking', 'Sea kayaking', 30.0, 10)");
+
+        IdGenerator idGenerator = new IdGenerator(connectionPool, BLOCK_SIZE);
+
+        assertEquals(42, idGenerator.nextId("activities", "activity_id"));
+    }
+
+    @Test
+    public void testInvalidBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(connectionPool, 0));
+    }
+
+    @Test
+    public void testRejectsTransactionAwareDataSource() {
+        DataSource transactionAware = new TransactionManager(connectionPool).getDataSource();
+
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(transactionAware));
+        assertThrows(IllegalArgumentException.class, () -> new ActivityDao(transactionAware));
+    }
+}
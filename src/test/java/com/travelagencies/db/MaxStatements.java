@@ -0,0 +1,22 @@
+package com.travelagencies.db;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Fails a test that issues more than the given number of statements through the DataSources wrapped by its
+ * {@link SqlProfilerExtension}. Only the test method itself is counted, not its {@code @BeforeEach} setup.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface MaxStatements {
+
+    int value();
+
+    /**
+     * Whether a likely N+1 pattern also fails the test.
+     */
+    boolean allowNPlusOne() default false;
+}
@@ -0,0 +1,111 @@
+package com.travelagencies.db;
+
+import com.travelagencies.dao.ActivityDao;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowQueryLogTest {
+
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension();
+
+    private final List<SlowQuery> entries = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        h2.execute("INSERT INTO destinations (destination_id, name) VALUES (1, 'Goa')",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) " +
+                        "VALUES (1, 1, 'Surfing', 'Waves', 10.0, 5), (2, 1, 'Diving', 'Reef', 20.0, 0)");
+    }
+
+    @Test
+    public void testLogsStatementWithParametersRowsCallerAndThread() {
+        try (SlowQueryLog slowQueryLog = new SlowQueryLog(SlowQueryLogConfig.builder().thresholdMillis(0).build(),
+                entries::add)) {
+            ActivityDao activityDao = new ActivityDao(slowQueryLog.wrap(h2.getConnectionPool()));
+
+            assertEquals(2, activityDao.getActivitiesByDestinationId(1).size());
+        }
+
+        assertEquals(1, entries.size());
+        SlowQuery entry = entries.get(0);
+        assertTrue(entry.getSql().endsWith("WHERE a.destination_id = ?"), entry.getSql());
+        assertEquals(List.of("1"), entry.getParameters());
+        assertEquals(2, entry.getRows());
+        assertEquals("ActivityDao.getActivitiesByDestinationId", entry.getCaller());
+        assertEquals(Thread.currentThread().getName(), entry.getThread());
+        assertNull(entry.getPlan());
+        assertNull(entry.getFailure());
+    }
+
+    @Test
+    public void testSkipsFastStatements() {
+        try (SlowQueryLog slowQueryLog = new SlowQueryLog(SlowQueryLogConfig.builder().thresholdMillis(60_000).build(),
+                entries::add)) {
+            new ActivityDao(slowQueryLog.wrap(h2.getConnectionPool())).getActivitiesByDestinationId(1);
+        }
+
+        assertTrue(entries.isEmpty());
+    }
+
+    @Test
+    public void testExplainsEachShapeOnce() {
+        SlowQueryLogConfig config = SlowQueryLogConfig.builder().thresholdMillis(0).explainPlans(true).build();
+        try (SlowQueryLog slowQueryLog = new SlowQueryLog(config, entries::add)) {
+            ActivityDao activityDao = new ActivityDao(slowQueryLog.wrap(h2.getConnectionPool()));
+            activityDao.getActivitiesByDestinationId(1);
+            activityDao.getActivitiesByDestinationId(2);
+            activityDao.getActivitiesWithAvailableSpace();
+        }
+
+        assertEquals(3, entries.size());
+        assertTrue(entries.get(0).getPlan().contains("IDX_ACTIVITIES_DESTINATION"), entries.get(0).getPlan());
+        assertNull(entries.get(1).getPlan());
+        assertTrue(entries.get(2).getPlan().contains("tableScan"), entries.get(2).getPlan());
+        assertTrue(entries.get(0).format().contains("plan: "));
+    }
+
+    @Test
+    public void testDropsEntriesWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SlowQueryLogConfig config = SlowQueryLogConfig.builder().thresholdMillis(0).queueCapacity(1).build();
+        try (SlowQueryLog slowQueryLog = new SlowQueryLog(config, entry -> {
+            writerBlocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        })) {
+            ActivityDao activityDao = new ActivityDao(slowQueryLog.wrap(h2.getConnectionPool()));
+            activityDao.getActivitiesByDestinationId(1);
+            assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+            activityDao.getActivitiesByDestinationId(1);
+            activityDao.getActivitiesByDestinationId(1);
+            activityDao.getActivitiesByDestinationId(1);
+
+            assertEquals(2, slowQueryLog.getDroppedCount());
+            release.countDown();
+            slowQueryLog.close();
+            assertEquals(2, slowQueryLog.getLoggedCount());
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlowQueryLog(SlowQueryLogConfig.builder().queueCapacity(0).build(), entries::add));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlowQueryLog(SlowQueryLogConfig.builder().thresholdMillis(-1).build(), entries::add));
+    }
+}
@@ -0,0 +1,97 @@
+package com.travelagencies.db;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Lets a test bound the SQL a call issues. Register it as a field, build the code under test on
+ * {@link #wrap(DataSource)}, then either annotate the test with {@link MaxStatements} or check single calls:
+ *
+ * <pre>{@code
+ * @RegisterExtension
+ * final SqlProfilerExtension sql = new SqlProfilerExtension();
+ *
+ * sql.assertMaxStatements(6, "createBooking", () -> bookingService.createBooking(1, 1, 1));
+ * }</pre>
+ */
+public class SqlProfilerExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(SqlProfilerExtension.class);
+
+    private final SqlProfiler profiler;
+
+    public SqlProfilerExtension() {
+        this(new SqlProfiler());
+    }
+
+    public SqlProfilerExtension(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    public SqlProfiler getProfiler() {
+        return profiler;
+    }
+
+    public DataSource wrap(DataSource dataSource) {
+        return profiler.wrap(dataSource);
+    }
+
+    /**
+     * Runs the call and fails if it issued more than {@code maxStatements} statements or a likely N+1 pattern.
+     *
+     * @return The profile of the call, for further assertions.
+     */
+    public SqlProfile assertMaxStatements(int maxStatements, String operation, Runnable call) {
+        SqlProfile profile = profiler.profile(operation, call);
+        check(profile, maxStatements, false);
+        return profile;
+    }
+
+    /**
+     * Runs the call and fails if it issued a likely N+1 pattern.
+     *
+     * @return The profile of the call, for further assertions.
+     */
+    public SqlProfile assertNoNPlusOne(String operation, Runnable call) {
+        SqlProfile profile = profiler.profile(operation, call);
+        check(profile, Integer.MAX_VALUE, false);
+        return profile;
+    }
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        context.getTestMethod()
+                .filter(method -> method.isAnnotationPresent(MaxStatements.class))
+                .ifPresent(method -> context.getStore(NAMESPACE).put(SqlProfile.class, profiler.start(method.getName())));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlProfile profile = context.getStore(NAMESPACE).remove(SqlProfile.class, SqlProfile.class);
+        if (profile == null) {
+            return;
+        }
+        profile.close();
+
+        MaxStatements limit = context.getRequiredTestMethod().getAnnotation(MaxStatements.class);
+        // Do not hide the test's own failure behind a statement count.
+        if (context.getExecutionException().isEmpty()) {
+            check(profile, limit.value(), limit.allowNPlusOne());
+        }
+    }
+
+    private static void check(SqlProfile profile, int maxStatements, boolean allowNPlusOne) {
+        if (profile.getStatements() > maxStatements) {
+            fail(String.format("Expected at most %s statements but got %s", maxStatements, profile));
+        }
+        if (!allowNPlusOne && profile.hasSuspectedNPlusOne()) {
+            fail(String.format("Likely N+1 queries in %s", profile));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.travelagencies.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlProfilerTest {
+
+    private DriverManagerDataSource h2;
+    private SqlProfiler profiler;
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        h2 = new DriverManagerDataSource("jdbc:h2:mem:sql_profiler;MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        execute("CREATE TABLE items (id INT PRIMARY KEY, name VARCHAR(32))");
+        profiler = new SqlProfiler();
+        dataSource = profiler.wrap(h2);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    public void testCountsStatementsRowsAndBytes() throws SQLException {
+        try (SqlProfile profile = profiler.start("insertAndRead");
+             Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO items (id, name) VALUES (?, ?)")) {
+                insert.setInt(1, 1);
+                insert.setString(2, "abc");
+                insert.executeUpdate();
+            }
+            try (Statement select = connection.createStatement();
+                 ResultSet resultSet = select.executeQuery("SELECT id, name FROM items")) {
+                while (resultSet.next()) {
+                    resultSet.getInt("id");
+                    resultSet.getString("name");
+                }
+            }
+
+            assertEquals(2, profile.getStatements());
+            assertEquals(2, profile.getRoundTrips());
+            assertEquals(1, profile.getRowsFetched());
+            assertEquals(4 + 3, profile.getBytesReceived());
+            assertTrue(profile.getBytesSent() > 4 + 3);
+            assertFalse(profile.hasSuspectedNPlusOne());
+        }
+    }
+
+    @Test
+    public void testBatchIsOneRoundTrip() throws SQLException {
+        try (SqlProfile profile = profiler.start("batch");
+             Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO items (id, name) VALUES (?, ?)")) {
+            for (int id = 1; id <= 10; id++) {
+                insert.setInt(1, id);
+                insert.setString(2, "item");
+                insert.addBatch();
+            }
+            insert.executeBatch();
+
+            assertEquals(10, profile.getStatements());
+            assertEquals(1, profile.getRoundTrips());
+            assertFalse(profile.hasSuspectedNPlusOne());
+        }
+    }
+
+    @Test
+    public void testRepeatedShapesAreFlagged() throws SQLException {
+        execute("INSERT INTO items (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+
+        SqlProfile profile = profiler.profile("perRowLookups", () -> {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (int id = 1; id <= 3; id++) {
+                    statement.executeQuery("SELECT name FROM items WHERE id = " + id + " AND name <> 'x'").close();
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(3, profile.getSuspectedNPlusOne().get("SELECT name FROM items WHERE id = ? AND name <> ?"));
+        assertTrue(profile.toString().contains("likely N+1"));
+    }
+
+    @Test
+    public void testCommitAndRollbackAreRoundTrips() throws SQLException {
+        try (SqlProfile profile = profiler.start("transaction");
+             Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            connection.commit();
+            connection.rollback();
+
+            assertEquals(0, profile.getStatements());
+            assertEquals(2, profile.getRoundTrips());
+        }
+    }
+
+    @Test
+    public void testNestedProfilesBothRecord() throws SQLException {
+        try (SqlProfile outer = profiler.start("outer");
+             Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+            try (SqlProfile inner = profiler.start("inner")) {
+                statement.execute("SELECT 2");
+                assertEquals(1, inner.getStatements());
+            }
+            assertEquals(2, outer.getStatements());
+        }
+    }
+
+    @Test
+    public void testNothingIsRecordedOutsideAProfile() throws SQLException {
+        List<SqlProfile> closed = new ArrayList<>();
+        profiler.addListener(closed::add);
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+            try (SqlProfile profile = profiler.start("after")) {
+                statement.execute("SELECT 2");
+            }
+        }
+
+        assertEquals(1, closed.size());
+        assertEquals(1, closed.get(0).getStatements());
+    }
+
+    @Test
+    public void testProfilesMustBeClosedInOrder() {
+        SqlProfile outer = profiler.start("outer");
+        SqlProfile inner = profiler.start("inner");
+
+        assertThrows(IllegalStateException.class, outer::close);
+        inner.close();
+        outer.close();
+    }
+
+    @Test
+    public void testShapeReplacesLiterals() {
+        assertEquals("SELECT * FROM t1 WHERE a = ? AND b IN (?, ?) AND c = ?",
+                SqlProfile.shapeOf("SELECT *\n  FROM t1 WHERE a = 42 AND b IN (1, 2.5) AND c = 'it''s'"));
+    }
+
+    private void execute(String sql) throws SQLException {
+        try (Connection connection = h2.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
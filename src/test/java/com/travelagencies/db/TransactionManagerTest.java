@@ -0,0 +1,161 @@
+package com.travelagencies.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class TransactionManagerTest {
+
+    @Mock
+    private DataSource mockDataSource;
+
+    @Mock
+    private Connection mockConnection;
+
+    @Mock
+    private PreparedStatement mockPreparedStatement;
+
+    private TransactionManager transactionManager;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        MockitoAnnotations.openMocks(this);
+        when(mockDataSource.getConnection()).thenReturn(mockConnection);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockPreparedStatement);
+        transactionManager = new TransactionManager(mockDataSource);
+    }
+
+    @Test
+    public void testWorkSharesOneConnectionAndCommits() throws SQLException {
+        DataSource dataSource = transactionManager.getDataSource();
+
+        String result = transactionManager.execute(() -> {
+            try (Connection first = dataSource.getConnection();
+                 Connection second = dataSource.getConnection()) {
+                first.prepareStatement("UPDATE passengers SET balance = ?").executeUpdate();
+                second.prepareStatement("UPDATE activities SET capacity = ?").executeUpdate();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection).setAutoCommit(false);
+        verify(mockConnection).commit();
+        verify(mockConnection, never()).rollback();
+        verify(mockConnection, times(1)).close();
+        assertFalse(transactionManager.isTransactionActive());
+    }
+
+    @Test
+    public void testExceptionRollsBack() throws SQLException {
+        assertThrows(IllegalArgumentException.class, () -> transactionManager.run(() -> {
+            throw new IllegalArgumentException("Capacity is full");
+        }));
+
+        verify(mockConnection).rollback();
+        verify(mockConnection, never()).commit();
+        verify(mockConnection).close();
+    }
+
+    @Test
+    public void testSwallowedStatementFailureRollsBack() throws SQLException {
+        when(mockPreparedStatement.executeUpdate()).thenThrow(new SQLException("Deadlock found"));
+        DataSource dataSource = transactionManager.getDataSource();
+
+        assertThrows(IllegalStateException.class, () -> transactionManager.run(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.prepareStatement("UPDATE activities SET capacity = ?").executeUpdate();
+            } catch (SQLException e) {
+                // DAOs log and swallow SQLExceptions
+            }
+        }));
+
+        verify(mockConnection).rollback();
+        verify(mockConnection, never()).commit();
+    }
+
+    @Test
+    public void testNestedWorkJoinsOuterTransaction() throws SQLException {
+        transactionManager.run(() -> transactionManager.run(() -> assertTrue(transactionManager.isTransactionActive())));
+
+        verify(mockDataSource, times(1)).getConnection();
+        verify(mockConnection, times(1)).commit();
+    }
+
+    @Test
+    public void testAfterCommitActionsRunOnlyOnceCommitted() throws SQLException {
+        DataSource dataSource = transactionManager.getDataSource();
+        List<String> actions = new ArrayList<>();
+
+        transactionManager.run(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                TransactionManager.afterCommit(connection, () -> actions.add("committed"));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            assertTrue(actions.isEmpty());
+        });
+        assertEquals(List.of("committed"), actions);
+
+        assertThrows(IllegalArgumentException.class, () -> transactionManager.run(() -> {
+            try (Connection connection = dataSource.getConnection()) {
+                TransactionManager.afterCommit(connection, () -> actions.add("rolled back"));
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+            throw new IllegalArgumentException("Capacity is full");
+        }));
+        assertEquals(List.of("committed"), actions);
+
+        TransactionManager.afterCommit(mockConnection, () -> actions.add("auto-commit"));
+        assertEquals(List.of("committed", "auto-commit"), actions);
+    }
+
+    @Test
+    public void testCompletionActionsRunAgainWhetherCommittedOrRolledBack() {
+        DataSource dataSource = transactionManager.getDataSource();
+        List<String> actions = new ArrayList<>();
+
+        transactionManager.run(() -> {
+            TransactionManager.nowAndAfterCompletion(dataSource, () -> actions.add("evicted"));
+            assertEquals(List.of("evicted"), actions);
+        });
+        assertEquals(List.of("evicted", "evicted"), actions);
+
+        actions.clear();
+        assertThrows(IllegalArgumentException.class, () -> transactionManager.run(() -> {
+            TransactionManager.nowAndAfterCompletion(dataSource, () -> actions.add("evicted"));
+            throw new IllegalArgumentException("Capacity is full");
+        }));
+        assertEquals(List.of("evicted", "evicted"), actions);
+
+        actions.clear();
+        TransactionManager.nowAndAfterCompletion(mockDataSource, () -> actions.add("auto-commit"));
+        assertEquals(List.of("auto-commit"), actions);
+    }
+
+    @Test
+    public void testOutsideTransactionUsesUnderlyingDataSource() throws SQLException {
+        try (Connection connection = transactionManager.getDataSource().getConnection()) {
+            assertSame(mockConnection, connection);
+        }
+
+        verify(mockConnection).close();
+        verify(mockConnection, never()).setAutoCommit(false);
+    }
+}
@@ -0,0 +1,164 @@
+package com.travelagencies.jfr;
+
+import com.travelagencies.dao.InstrumentedActivityRepository;
+import com.travelagencies.dao.InstrumentedBookingRepository;
+import com.travelagencies.dao.InstrumentedPassengerRepository;
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.metrics.RepositoryMetrics;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import com.travelagencies.services.BookingService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TravelAgencyEventsTest {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int ACTIVITY_ID = 1;
+    private static final int PASSENGER_ID = 1;
+
+    @TempDir
+    Path tempDir;
+
+    private InstrumentedPassengerRepository passengerRepository;
+    private BookingService bookingService;
+
+    @BeforeEach
+    public void setUp() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        RepositoryMetrics metrics = new RepositoryMetrics();
+        passengerRepository = new InstrumentedPassengerRepository(new InMemoryPassengerRepository(database), metrics);
+        InstrumentedActivityRepository activityRepository =
+                new InstrumentedActivityRepository(new InMemoryActivityRepository(database), metrics);
+        InstrumentedBookingRepository bookingRepository =
+                new InstrumentedBookingRepository(new InMemoryBookingRepository(database), metrics);
+        bookingService = new BookingService(bookingRepository, passengerRepository, activityRepository,
+                database.getTransactionManager());
+
+        Destination goa = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new InMemoryDestinationRepository(database).save(goa);
+        activityRepository.save(Activity.builder()
+                .activityId(ACTIVITY_ID)
+                .name("Surfing")
+                .description("Waves")
+                .cost(20.0)
+                .capacity(1)
+                .destination(goa)
+                .build());
+        passengerRepository.save(Passenger.builder()
+                .passengerId(PASSENGER_ID)
+                .passengerName("Asha")
+                .passengerMobile("9999988888")
+                .passengerType(PassengerType.GOLD)
+                .balance(100.0)
+                .build());
+    }
+
+    @Test
+    public void testRecordsBookingRepositoryAndPricingEvents() throws IOException {
+        List<RecordedEvent> events = record(() -> {
+            bookingService.createBooking(PASSENGER_ID, ACTIVITY_ID, DESTINATION_ID);
+            assertThrows(IllegalArgumentException.class,
+                    () -> bookingService.createBooking(PASSENGER_ID, ACTIVITY_ID, DESTINATION_ID));
+        });
+
+        List<RecordedEvent> bookings = ofType(events, BookingEvent.NAME);
+        assertEquals(2, bookings.size());
+        RecordedEvent created = bookings.get(0);
+        assertEquals("createBooking", created.getString("operation"));
+        assertEquals(PASSENGER_ID, created.getInt("passengerId"));
+        assertEquals(ACTIVITY_ID, created.getInt("activityId"));
+        assertEquals(BookingStatus.PENDING.name(), created.getString("status"));
+        assertEquals(BookingEvent.SUCCESS, created.getString("outcome"));
+        assertEquals(18.0, created.getDouble("amount"));
+        assertEquals(BookingEvent.REJECTED, bookings.get(1).getString("outcome"));
+
+        // The sold-out booking is priced too: only the guarded capacity update turns it away.
+        List<RecordedEvent> pricing = ofType(events, PricingEvent.NAME);
+        assertEquals(2, pricing.size());
+        assertEquals("bookingCost", pricing.get(0).getString("calculation"));
+        assertEquals(PassengerType.GOLD.name(), pricing.get(0).getString("passengerType"));
+        assertEquals(18.0, pricing.get(0).getDouble("amount"));
+
+        List<String> calls = ofType(events, RepositoryEvent.NAME).stream()
+                .map(event -> event.getString("entity") + "." + event.getString("operation"))
+                .collect(Collectors.toList());
+        assertTrue(calls.contains("activity.reserveCapacity"), calls.toString());
+        assertTrue(calls.contains("booking.save"), calls.toString());
+        assertTrue(calls.contains("passenger.update"), calls.toString());
+    }
+
+    @Test
+    public void testRecordsCancellationWithRefund() throws IOException {
+        bookingService.createBooking(PASSENGER_ID, ACTIVITY_ID, DESTINATION_ID);
+        int bookingId = passengerRepository.getById(PASSENGER_ID, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow()
+                .getBookingList().get(0).getBookingId();
+
+        List<RecordedEvent> events = record(() -> bookingService.updateBookingStatus(bookingId, BookingStatus.CANCELLED));
+
+        List<RecordedEvent> bookings = ofType(events, BookingEvent.NAME);
+        assertEquals(1, bookings.size());
+        assertEquals("updateBookingStatus", bookings.get(0).getString("operation"));
+        assertEquals(bookingId, bookings.get(0).getInt("bookingId"));
+        assertEquals(PASSENGER_ID, bookings.get(0).getInt("passengerId"));
+        assertEquals(BookingStatus.CANCELLED.name(), bookings.get(0).getString("status"));
+        assertEquals(18.0, bookings.get(0).getDouble("amount"));
+        assertEquals("refundAmount", ofType(events, PricingEvent.NAME).get(0).getString("calculation"));
+    }
+
+    @Test
+    public void testDisabledEventsAreNotRecorded() throws IOException {
+        Path file = tempDir.resolve("disabled.jfr");
+        try (Recording recording = new Recording()) {
+            TravelAgencyEvents.enable(recording, Duration.ZERO);
+            TravelAgencyEvents.disable(recording);
+            recording.start();
+            assertFalse(new BookingEvent("createBooking").isEnabled());
+            bookingService.createBooking(PASSENGER_ID, ACTIVITY_ID, DESTINATION_ID);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> event.getEventType().getName().startsWith("com.travelagencies.")));
+    }
+
+    private List<RecordedEvent> record(Runnable work) throws IOException {
+        Path file = tempDir.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            TravelAgencyEvents.enable(recording, Duration.ZERO);
+            recording.start();
+            work.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file);
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
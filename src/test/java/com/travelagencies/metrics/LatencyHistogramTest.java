@@ -0,0 +1,76 @@
+package com.travelagencies.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentilesAreWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 / 64.0);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 / 64.0);
+        assertEquals(9_990_000, histogram.getValueAtPercentile(99.9), 9_990_000 / 64.0);
+        assertEquals(10_000_000, histogram.getMaxNanos());
+        assertEquals(5_000_500, histogram.getMeanNanos(), 1);
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (long value : new long[]{0, 1, 127, 128, 129, 1_000, 123_456_789, LatencyHistogram.HIGHEST_TRACKABLE_NANOS}) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(LatencyHistogram.highestValueInBucket(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestValueInBucket(index - 1) < value);
+        }
+    }
+
+    @Test
+    public void testValuesAboveTheRangeKeepTheExactMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+        histogram.record(-5);
+
+        assertEquals(Long.MAX_VALUE / 2, histogram.getMaxNanos());
+        assertEquals(Long.MAX_VALUE / 2, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testConcurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(80_000, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0, histogram.getMeanNanos());
+    }
+}
@@ -0,0 +1,83 @@
+package com.travelagencies.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrometheusExporterTest {
+
+    @Test
+    public void testScrapeRendersCountersAndSummary() {
+        RepositoryMetrics metrics = new RepositoryMetrics();
+        OperationMetrics getById = metrics.operation("activity", "getById");
+        getById.record(2_000_000, 1, false);
+        getById.record(4_000_000, 0, true);
+
+        String text = new PrometheusExporter(metrics).scrape();
+
+        assertTrue(text.contains("# TYPE travel_repository_calls_total counter\n"));
+        assertTrue(text.contains("travel_repository_calls_total{entity=\"activity\",operation=\"getById\"} 2\n"));
+        assertTrue(text.contains("travel_repository_errors_total{entity=\"activity\",operation=\"getById\"} 1\n"));
+        assertTrue(text.contains("travel_repository_rows_total{entity=\"activity\",operation=\"getById\"} 1\n"));
+        assertTrue(text.contains("# TYPE travel_repository_latency_seconds summary\n"));
+        assertTrue(text.contains("travel_repository_latency_seconds{entity=\"activity\",operation=\"getById\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("travel_repository_latency_seconds_sum{entity=\"activity\",operation=\"getById\"} 0.006\n"));
+        assertTrue(text.contains("travel_repository_latency_seconds_count{entity=\"activity\",operation=\"getById\"} 2\n"));
+        assertTrue(text.contains("travel_repository_latency_max_seconds{entity=\"activity\",operation=\"getById\"} 0.004\n"));
+    }
+
+    @Test
+    public void testLabelValuesAreEscaped() {
+        RepositoryMetrics metrics = new RepositoryMetrics();
+        metrics.operation("passenger", "getById[\"x\"]").record(1, 1, false);
+
+        String text = new PrometheusExporter(metrics).scrape();
+
+        assertTrue(text.contains("operation=\"getById[\\\"x\\\"]\""));
+    }
+
+    @Test
+    public void testWriteToReplacesFile(@TempDir Path directory) throws Exception {
+        RepositoryMetrics metrics = new RepositoryMetrics();
+        metrics.operation("booking", "save").record(1_000, 1, false);
+        Path file = directory.resolve("repositories.prom");
+        Files.writeString(file, "stale");
+
+        new PrometheusExporter(metrics).writeTo(file);
+
+        assertTrue(Files.readString(file).contains("entity=\"booking\",operation=\"save\""));
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    public void testServeExposesMetricsEndpoint() throws Exception {
+        RepositoryMetrics metrics = new RepositoryMetrics();
+        metrics.operation("destination", "getByIds").record(1_000, 3, false);
+        HttpServer server = new PrometheusExporter(metrics).serve(new InetSocketAddress("127.0.0.1", 0));
+        try {
+            URL url = new URL(String.format("http://127.0.0.1:%s/metrics", server.getAddress().getPort()));
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+
+            assertEquals(200, connection.getResponseCode());
+            assertEquals(PrometheusExporter.CONTENT_TYPE, connection.getContentType());
+            try (InputStream body = connection.getInputStream()) {
+                String text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                assertTrue(text.contains("travel_repository_rows_total{entity=\"destination\",operation=\"getByIds\"} 3\n"));
+            }
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.travelagencies.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeTrackingListTest {
+
+    @Test
+    public void testUnchangedListIsClean() {
+        ChangeTrackingList<Destination> destinations = new ChangeTrackingList<>(
+                List.of(destination(1), destination(2)), Destination::getDestinationId);
+
+        assertFalse(destinations.isDirty());
+        assertTrue(destinations.getAddedElements().isEmpty());
+        assertTrue(destinations.getRemovedKeys().isEmpty());
+    }
+
+    @Test
+    public void testAddedAndRemovedElementsAreReported() {
+        ChangeTrackingList<Destination> destinations = new ChangeTrackingList<>(
+                List.of(destination(1), destination(2), destination(3)), Destination::getDestinationId);
+
+        destinations.removeIf(destination -> destination.getDestinationId() == 2);
+        destinations.add(destination(4));
+        destinations.add(destination(4));
+
+        assertTrue(destinations.isDirty());
+        assertEquals(List.of(destination(4)), destinations.getAddedElements());
+        assertEquals(Set.of(2), destinations.getRemovedKeys());
+    }
+
+    @Test
+    public void testReplacingAnElementWithTheSameKeyIsNotAChange() {
+        ChangeTrackingList<Destination> destinations = new ChangeTrackingList<>(
+                List.of(destination(1)), Destination::getDestinationId);
+
+        destinations.set(0, Destination.builder().destinationId(1).name("Renamed").build());
+
+        assertFalse(destinations.isDirty());
+    }
+
+    @Test
+    public void testMarkCleanCapturesCurrentState() {
+        ChangeTrackingList<Destination> destinations = new ChangeTrackingList<>(
+                List.of(destination(1)), Destination::getDestinationId);
+        destinations.clear();
+        destinations.add(destination(2));
+
+        destinations.markClean();
+
+        assertFalse(destinations.isDirty());
+        assertTrue(destinations.getRemovedKeys().isEmpty());
+    }
+
+    @Test
+    public void testEqualsPlainListWithSameElements() {
+        ChangeTrackingList<Destination> destinations = new ChangeTrackingList<>(
+                List.of(destination(1)), Destination::getDestinationId);
+
+        assertEquals(List.of(destination(1)), destinations);
+    }
+
+    @Test
+    public void testLazyListLoadsOnceOnFirstRead() {
+        AtomicInteger loads = new AtomicInteger();
+        ChangeTrackingList<Destination> destinations = ChangeTrackingList.lazy(() -> {
+            loads.incrementAndGet();
+            return List.of(destination(1), destination(2));
+        }, Destination::getDestinationId);
+
+        assertFalse(destinations.isLoaded());
+        assertEquals(0, loads.get());
+
+        assertEquals(2, destinations.size());
+        assertEquals(destination(2), destinations.get(1));
+        assertTrue(destinations.isLoaded());
+        assertEquals(1, loads.get());
+        assertFalse(destinations.isDirty());
+    }
+
+    @Test
+    public void testAppendingToLazyListDoesNotLoad() {
+        AtomicInteger loads = new AtomicInteger();
+        ChangeTrackingList<Destination> destinations = ChangeTrackingList.lazy(() -> {
+            loads.incrementAndGet();
+            return List.of(destination(1));
+        }, Destination::getDestinationId);
+
+        destinations.add(destination(2));
+
+        assertTrue(destinations.isDirty());
+        assertEquals(List.of(destination(2)), destinations.getAddedElements());
+        assertTrue(destinations.getRemovedKeys().isEmpty());
+        assertEquals(0, loads.get());
+
+        destinations.markClean();
+
+        assertFalse(destinations.isDirty());
+        assertFalse(destinations.isLoaded());
+    }
+
+    @Test
+    public void testElementsAppendedBeforeLoadAreKept() {
+        ChangeTrackingList<Destination> destinations = ChangeTrackingList.lazy(
+                () -> List.of(destination(1)), Destination::getDestinationId);
+
+        destinations.add(destination(2));
+        destinations.removeIf(destination -> destination.getDestinationId() == 1);
+
+        assertEquals(List.of(destination(2)), destinations);
+        assertEquals(List.of(destination(2)), destinations.getAddedElements());
+        assertEquals(Set.of(1), destinations.getRemovedKeys());
+    }
+
+    private Destination destination(int destinationId) {
+        return Destination.builder().destinationId(destinationId).name("Destination " + destinationId).build();
+    }
+}
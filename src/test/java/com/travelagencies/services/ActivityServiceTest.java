@@ -9,6 +9,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -69,7 +73,8 @@ public class ActivityServiceTest {
 
         activityService.updateActivityCapacity(activityId, newCapacity);
 
-        assertEquals(newCapacity, mockActivity.getCapacity());
+        verify(activityDao, times(1)).updateCapacities(Map.of(activityId, newCapacity));
+        verify(activityDao, never()).update(any());
     }
 
     @Test
@@ -80,6 +85,7 @@ public class ActivityServiceTest {
 
         assertThrows(IllegalArgumentException.class,
                 () -> activityService.updateActivityCapacity(activityId, newCapacity));
+        verify(activityDao, never()).updateCapacities(anyMap());
     }
 
     @Test
@@ -91,7 +97,8 @@ public class ActivityServiceTest {
 
         activityService.updateActivityCost(activityId, newCost);
 
-        assertEquals(newCost, mockActivity.getCost());
+        verify(activityDao, times(1)).updateCosts(Map.of(activityId, newCost));
+        verify(activityDao, never()).update(any());
     }
 
     @Test
@@ -102,5 +109,37 @@ public class ActivityServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> activityService.updateActivityCost(activityId, newCost));
     }
-}
 
+    @Test
+    public void testUpdateActivitiesCost_Success() {
+        Activity first = Activity.builder().activityId(101).cost(50.0).build();
+        Activity second = Activity.builder().activityId(102).cost(70.0).build();
+        when(activityDao.getByIds(Set.of(101, 102))).thenReturn(Map.of(101, first, 102, second));
+
+        activityService.updateActivitiesCost(Map.of(101, 55.0, 102, 77.0));
+
+        verify(activityDao, times(1)).updateCosts(Map.of(101, 55.0, 102, 77.0));
+        verify(activityDao, never()).updateAll(anyCollection());
+        verify(activityDao, never()).update(any());
+    }
+
+    @Test
+    public void testUpdateActivitiesCapacity_ActivityNotFound() {
+        when(activityDao.getByIds(Set.of(101, 102)))
+                .thenReturn(Map.of(101, Activity.builder().activityId(101).capacity(5).build()));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> activityService.updateActivitiesCapacity(Map.of(101, 10, 102, 20)));
+        verify(activityDao, never()).updateCapacities(anyMap());
+    }
+
+    @Test
+    public void testGetActivitiesDetails_ActivityNotFound() {
+        when(activityDao.getByIds(List.of(101, 102)))
+                .thenReturn(Map.of(101, Activity.builder().activityId(101).build()));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> activityService.getActivitiesDetails(List.of(101, 102)));
+        assertEquals("activityIds: [102] not found.", exception.getMessage());
+    }
+}
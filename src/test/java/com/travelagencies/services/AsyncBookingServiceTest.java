@@ -0,0 +1,107 @@
+package com.travelagencies.services;
+
+import com.travelagencies.async.AsyncExecutor;
+import com.travelagencies.async.AsyncExecutorConfig;
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Fans out many bookings through the asynchronous service on the in-memory repositories.
+ */
+public class AsyncBookingServiceTest {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int ACTIVITY_ID = 1;
+    private static final int CAPACITY = 50;
+    private static final int PASSENGERS = 200;
+
+    private InMemoryActivityRepository activityRepository;
+    private AsyncExecutor executor;
+    private AsyncBookingService bookingService;
+
+    @BeforeEach
+    public void setUp() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        InMemoryPassengerRepository passengerRepository = new InMemoryPassengerRepository(database);
+        activityRepository = new InMemoryActivityRepository(database);
+        executor = new AsyncExecutor(AsyncExecutorConfig.builder().maxConcurrency(8).platformThreads(16).build());
+        bookingService = new AsyncBookingService(new BookingService(new InMemoryBookingRepository(database),
+                passengerRepository, activityRepository, database.getTransactionManager()), executor);
+
+        Destination goa = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new InMemoryDestinationRepository(database).save(goa);
+        activityRepository.save(Activity.builder()
+                .activityId(ACTIVITY_ID)
+                .name("Surfing")
+                .description("Waves")
+                .cost(20.0)
+                .capacity(CAPACITY)
+                .destination(goa)
+                .build());
+        List<Passenger> passengers = new ArrayList<>();
+        for (int passengerId = 1; passengerId <= PASSENGERS; passengerId++) {
+            passengers.add(Passenger.builder()
+                    .passengerId(passengerId)
+                    .passengerName("Passenger " + passengerId)
+                    .passengerMobile("9999988888")
+                    .passengerType(PassengerType.STANDARD)
+                    .balance(100.0)
+                    .build());
+        }
+        passengerRepository.saveAll(passengers);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    public void testConcurrentBookingsNeverOversell() {
+        List<CompletableFuture<Void>> bookings = new ArrayList<>();
+        for (int passengerId = 1; passengerId <= PASSENGERS; passengerId++) {
+            bookings.add(bookingService.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID));
+        }
+
+        int succeeded = 0;
+        int rejected = 0;
+        for (CompletableFuture<Void> booking : bookings) {
+            try {
+                booking.join();
+                succeeded++;
+            } catch (CompletionException e) {
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+                rejected++;
+            }
+        }
+
+        assertEquals(CAPACITY, succeeded);
+        assertEquals(PASSENGERS - CAPACITY, rejected);
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testGetBookingDetailsFailsForUnknownBooking() {
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> bookingService.getBookingDetails(404).join());
+
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+    }
+}
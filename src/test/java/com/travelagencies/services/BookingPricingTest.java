@@ -0,0 +1,24 @@
+package com.travelagencies.services;
+
+import com.travelagencies.enums.PassengerType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BookingPricingTest {
+
+    @Test
+    public void testBookingCostByPassengerType() {
+        assertEquals(100.0, BookingPricing.bookingCost(PassengerType.STANDARD, 100.0));
+        assertEquals(90.0, BookingPricing.bookingCost(PassengerType.GOLD, 100.0));
+        assertEquals(0.0, BookingPricing.bookingCost(PassengerType.PREMIUM, 100.0));
+    }
+
+    @Test
+    public void testRefundMatchesWhatWasCharged() {
+        for (PassengerType passengerType : PassengerType.values()) {
+            assertEquals(BookingPricing.bookingCost(passengerType, 42.5),
+                    BookingPricing.refundAmount(passengerType, 42.5));
+        }
+    }
+}
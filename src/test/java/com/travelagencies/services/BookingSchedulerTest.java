@@ -0,0 +1,305 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the BookingScheduler on the in-memory repositories, with spies to see which requests reach them.
+ */
+public class BookingSchedulerTest {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int ACTIVITY_ID = 1;
+
+    private InMemoryDatabase database;
+    private InMemoryPassengerRepository passengerRepository;
+    private InMemoryActivityRepository activityRepository;
+    private InMemoryBookingRepository bookingRepository;
+    private BookingScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        database = new InMemoryDatabase();
+        passengerRepository = spy(new InMemoryPassengerRepository(database));
+        activityRepository = spy(new InMemoryActivityRepository(database));
+        bookingRepository = spy(new InMemoryBookingRepository(database));
+
+        Destination goa = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new InMemoryDestinationRepository(database).save(goa);
+        activityRepository.save(Activity.builder()
+                .activityId(ACTIVITY_ID)
+                .name("Surfing")
+                .description("Waves")
+                .cost(20.0)
+                .capacity(10)
+                .destination(goa)
+                .build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    public void testBooksThroughTheLane() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(2).build());
+        int passengerId = savePassenger(50.0);
+
+        Booking booking = scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+
+        assertEquals(BookingStatus.PENDING, booking.getBookingStatus());
+        assertEquals(booking, bookingRepository.getById(booking.getBookingId()).orElseThrow());
+        Passenger passenger = passengerRepository.getById(passengerId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals(30.0, passenger.getBalance());
+        assertEquals(List.of(booking), passenger.getBookingList());
+        assertEquals(9, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        assertEquals(1, scheduler.getStats().getBooked());
+    }
+
+    @Test
+    public void testFlushesRequestsInMicroBatches() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).flushIntervalMillis(200).build());
+        List<Integer> passengerIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            passengerIds.add(savePassenger(50.0));
+        }
+
+        List<CompletableFuture<Booking>> results = new ArrayList<>();
+        for (Integer passengerId : passengerIds) {
+            results.add(scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID));
+        }
+        for (CompletableFuture<Booking> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, scheduler.getStats().getFlushes());
+        verify(activityRepository, times(1)).reserveCapacity(ACTIVITY_ID, 5);
+        verify(bookingRepository, times(1)).saveAll(anyCollection());
+        verify(passengerRepository, times(1)).updateAll(anyCollection());
+        assertEquals(5, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testSoldOutRequestsNeverTouchTheDatabase() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(4).refreshIntervalMillis(60_000).build());
+        List<CompletableFuture<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID));
+        }
+        for (CompletableFuture<Booking> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        int passengerId = savePassenger(50.0);
+        clearInvocations(passengerRepository, activityRepository, bookingRepository);
+
+        for (int i = 0; i < 1000; i++) {
+            CompletableFuture<Booking> rejected = scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID);
+            assertTrue(rejected.isCompletedExceptionally());
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            assertEquals(String.format("Capacity is full for activityId: %s.", ACTIVITY_ID), e.getCause().getMessage());
+        }
+
+        verifyNoInteractions(passengerRepository, activityRepository, bookingRepository);
+        assertEquals(1000, scheduler.getStats().getSoldOutRejections());
+        assertEquals(10, scheduler.getStats().getBooked());
+    }
+
+    @Test
+    public void testFailedRequestGivesItsSeatBack() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).flushIntervalMillis(200).build());
+        int richId = savePassenger(50.0);
+        int brokeId = savePassenger(10.0);
+        int goldId = savePassenger(20.0, PassengerType.GOLD);
+
+        CompletableFuture<Booking> rich = scheduler.createBooking(richId, ACTIVITY_ID, DESTINATION_ID);
+        CompletableFuture<Booking> broke = scheduler.createBooking(brokeId, ACTIVITY_ID, DESTINATION_ID);
+        CompletableFuture<Booking> unknown = scheduler.createBooking(404, ACTIVITY_ID, DESTINATION_ID);
+        CompletableFuture<Booking> gold = scheduler.createBooking(goldId, ACTIVITY_ID, DESTINATION_ID);
+
+        assertEquals(richId, rich.get(5, TimeUnit.SECONDS).getPassengerId());
+        assertEquals(goldId, gold.get(5, TimeUnit.SECONDS).getPassengerId());
+        ExecutionException insufficientBalance = assertThrows(ExecutionException.class, broke::get);
+        assertEquals(String.format("Insufficient balance for booking the activity: %s", ACTIVITY_ID),
+                insufficientBalance.getCause().getMessage());
+        ExecutionException unknownPassenger = assertThrows(ExecutionException.class, unknown::get);
+        assertEquals("Passenger 404 not found.", unknownPassenger.getCause().getMessage());
+
+        assertEquals(10.0, passengerRepository.getById(brokeId).orElseThrow().getBalance());
+        assertEquals(2.0, passengerRepository.getById(goldId).orElseThrow().getBalance(), 1e-9);
+        assertEquals(8, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        assertEquals(2, scheduler.getStats().getFailed());
+    }
+
+    @Test
+    public void testResyncsWhenSeatsWereTakenOutsideTheScheduler() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).flushIntervalMillis(0).build());
+        scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+        activityRepository.reserveCapacity(ACTIVITY_ID, 8);
+
+        scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID)
+                        .get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+
+        activityRepository.releaseCapacity(ACTIVITY_ID, 1);
+        scheduler.invalidate(ACTIVITY_ID);
+        scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testCancellationSellsTheSeatAgain() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).refreshIntervalMillis(60_000).build());
+        BookingService bookingService = new BookingService(bookingRepository, passengerRepository,
+                activityRepository, database.getTransactionManager(), null, scheduler);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bookings.add(scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID)
+                    .get(5, TimeUnit.SECONDS));
+        }
+        int passengerId = savePassenger(50.0);
+        assertTrue(scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID).isCompletedExceptionally());
+
+        bookingService.updateBookingStatus(bookings.get(0).getBookingId(), BookingStatus.CANCELLED);
+
+        assertEquals(passengerId, scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID)
+                .get(5, TimeUnit.SECONDS).getPassengerId());
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testRechecksSoldOutActivityOnTheLane() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).refreshIntervalMillis(50).build());
+        for (int i = 0; i < 10; i++) {
+            scheduler.createBooking(savePassenger(50.0), ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+        }
+        int passengerId = savePassenger(50.0);
+        assertTrue(scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID).isCompletedExceptionally());
+
+        // Given back behind the scheduler's back, without invalidate().
+        activityRepository.releaseCapacity(ACTIVITY_ID, 1);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        CompletableFuture<Booking> booking = scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID);
+        while (booking.isCompletedExceptionally() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            booking = scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID);
+        }
+        assertEquals(passengerId, booking.get(5, TimeUnit.SECONDS).getPassengerId());
+    }
+
+    @Test
+    public void testChargesTheCurrentCostAfterARefresh() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).refreshIntervalMillis(50).build());
+        int passengerId = savePassenger(50.0);
+        scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+
+        Activity activity = activityRepository.getById(ACTIVITY_ID).orElseThrow();
+        activity.setCost(10.0);
+        activityRepository.update(activity);
+        Thread.sleep(300);
+        scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID).get(5, TimeUnit.SECONDS);
+
+        assertEquals(20.0, passengerRepository.getById(passengerId).orElseThrow().getBalance());
+        verify(activityRepository, times(2)).getByIdForUpdate(ACTIVITY_ID);
+    }
+
+    @Test
+    public void testRejectsUnknownActivityAndFullQueueAndClosedScheduler() throws Exception {
+        scheduler = newScheduler(BookingSchedulerConfig.builder().lanes(1).queueCapacity(1).build());
+        int passengerId = savePassenger(50.0);
+
+        ExecutionException unknownActivity = assertThrows(ExecutionException.class,
+                () -> scheduler.createBooking(passengerId, 404, DESTINATION_ID).get(5, TimeUnit.SECONDS));
+        assertEquals("activityId 404 not found.", unknownActivity.getCause().getMessage());
+
+        // The lane is busy flushing this one while the queue takes one more request and rejects the rest.
+        doAnswer(invocation -> {
+            Thread.sleep(300);
+            return invocation.callRealMethod();
+        }).when(passengerRepository).getByIdsForUpdate(anyCollection());
+        List<CompletableFuture<Booking>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID));
+            Thread.sleep(20);
+        }
+        long rejected = results.stream().filter(CompletableFuture::isCompletedExceptionally).count();
+        assertTrue(rejected >= 3, "rejected: " + rejected);
+        ExecutionException queueFull = assertThrows(ExecutionException.class, () -> results.get(4).get());
+        assertInstanceOf(RejectedExecutionException.class, queueFull.getCause());
+        assertEquals(rejected, scheduler.getStats().getQueueFullRejections());
+
+        scheduler.close();
+        ExecutionException closed = assertThrows(ExecutionException.class,
+                () -> scheduler.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID).get());
+        assertInstanceOf(RejectedExecutionException.class, closed.getCause());
+        for (CompletableFuture<Booking> result : results) {
+            assertTrue(result.isDone());
+        }
+    }
+
+    @Test
+    public void testRejectsInvalidConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> newScheduler(BookingSchedulerConfig.builder().lanes(0).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> newScheduler(BookingSchedulerConfig.builder().queueCapacity(0).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> newScheduler(BookingSchedulerConfig.builder().flushIntervalMillis(-1).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> newScheduler(BookingSchedulerConfig.builder().maxBatchSize(0).build()));
+        assertThrows(IllegalArgumentException.class,
+                () -> newScheduler(BookingSchedulerConfig.builder().refreshIntervalMillis(-1).build()));
+    }
+
+    private BookingScheduler newScheduler(BookingSchedulerConfig config) {
+        return new BookingScheduler(bookingRepository, passengerRepository, activityRepository,
+                database.getTransactionManager(), config);
+    }
+
+    private int savePassenger(double balance) {
+        return savePassenger(balance, PassengerType.STANDARD);
+    }
+
+    private int savePassenger(double balance, PassengerType passengerType) {
+        int passengerId = passengerRepository.generatePassengerId();
+        passengerRepository.save(Passenger.builder()
+                .passengerId(passengerId)
+                .passengerName("Passenger " + passengerId)
+                .passengerMobile("98450")
+                .passengerType(passengerType)
+                .balance(balance)
+                .build());
+        return passengerId;
+    }
+}
@@ -0,0 +1,244 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the BookingService entirely on the in-memory repositories, without a database.
+ */
+public class BookingServiceInMemoryTest {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int ACTIVITY_ID = 1;
+
+    private InMemoryDatabase database;
+    private InMemoryPassengerRepository passengerRepository;
+    private InMemoryActivityRepository activityRepository;
+    private InMemoryBookingRepository bookingRepository;
+    private BookingService bookingService;
+
+    @BeforeEach
+    public void setUp() {
+        database = new InMemoryDatabase();
+        passengerRepository = new InMemoryPassengerRepository(database);
+        activityRepository = new InMemoryActivityRepository(database);
+        bookingRepository = new InMemoryBookingRepository(database);
+        bookingService = new BookingService(bookingRepository, passengerRepository, activityRepository,
+                database.getTransactionManager());
+
+        Destination goa = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new InMemoryDestinationRepository(database).save(goa);
+        activityRepository.save(Activity.builder()
+                .activityId(ACTIVITY_ID)
+                .name("Surfing")
+                .description("Waves")
+                .cost(20.0)
+                .capacity(3)
+                .destination(goa)
+                .build());
+    }
+
+    @Test
+    public void testCreateAndCancelBooking() {
+        int passengerId = savePassenger(50.0);
+
+        bookingService.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID);
+
+        Passenger passenger = passengerRepository.getById(passengerId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals(30.0, passenger.getBalance());
+        assertEquals(1, passenger.getBookingList().size());
+        assertEquals(2, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+
+        Booking booking = passenger.getBookingList().get(0);
+        bookingService.updateBookingStatus(booking.getBookingId(), BookingStatus.CANCELLED);
+
+        passenger = passengerRepository.getById(passengerId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals(50.0, passenger.getBalance());
+        assertTrue(passenger.getBookingList().isEmpty());
+        assertEquals(BookingStatus.CANCELLED, bookingService.getBookingDetails(booking.getBookingId()).getBookingStatus());
+        assertEquals(3, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+    }
+
+    @Test
+    public void testConcurrentBookingsNeverOversell() throws Exception {
+        List<Integer> passengerIds = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            passengerIds.add(savePassenger(50.0));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> results = new ArrayList<>();
+        for (Integer passengerId : passengerIds) {
+            results.add(executor.submit(() -> bookingService.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID)));
+        }
+
+        int booked = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                booked++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalArgumentException.class, e.getCause());
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(3, booked);
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        assertEquals(3, passengerRepository.getByIds(passengerIds).values().stream()
+                .filter(passenger -> passenger.getBalance() == 30.0)
+                .count());
+    }
+
+    @Test
+    public void testConcurrentCancelsRefundOnce() throws Exception {
+        int passengerId = savePassenger(50.0);
+        bookingService.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID);
+        int bookingId = passengerRepository.getById(passengerId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow()
+                .getBookingList().get(0).getBookingId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> bookingService.updateBookingStatus(bookingId, BookingStatus.CANCELLED)));
+        }
+        for (Future<?> result : results) {
+            result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(50.0, passengerRepository.getById(passengerId).orElseThrow().getBalance());
+        assertEquals(3, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.updateBookingStatus(bookingId, BookingStatus.CONFIRMED));
+    }
+
+    @Test
+    public void testRejectedBookingLeavesNothingBehind() {
+        int passengerId = savePassenger(10.0);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID));
+
+        assertEquals(10.0, passengerRepository.getById(passengerId).orElseThrow().getBalance());
+        assertEquals(3, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        assertTrue(bookingRepository.getById(1).isEmpty());
+    }
+
+    @Test
+    public void testParallelLookups() {
+        ExecutorService lookupExecutor = Executors.newFixedThreadPool(2);
+        try {
+            BookingService parallelService = new BookingService(bookingRepository, passengerRepository,
+                    activityRepository, database.getTransactionManager(), lookupExecutor);
+            int passengerId = savePassenger(50.0);
+
+            parallelService.createBooking(passengerId, ACTIVITY_ID, DESTINATION_ID);
+            Booking booking = passengerRepository.getById(passengerId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow()
+                    .getBookingList().get(0);
+            assertEquals(30.0, passengerRepository.getById(passengerId).orElseThrow().getBalance());
+
+            parallelService.updateBookingStatus(booking.getBookingId(), BookingStatus.CANCELLED);
+            assertEquals(50.0, passengerRepository.getById(passengerId).orElseThrow().getBalance());
+            assertEquals(3, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+
+            IllegalArgumentException unknownActivity = assertThrows(IllegalArgumentException.class,
+                    () -> parallelService.createBooking(passengerId, 404, DESTINATION_ID));
+            assertEquals("activityId 404 not found.", unknownActivity.getMessage());
+            IllegalArgumentException unknownPassenger = assertThrows(IllegalArgumentException.class,
+                    () -> parallelService.createBooking(404, ACTIVITY_ID, DESTINATION_ID));
+            assertEquals("Passenger 404 not found.", unknownPassenger.getMessage());
+        } finally {
+            lookupExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCreateGroupBooking() {
+        int standardId = savePassenger(50.0);
+        int goldId = savePassenger(18.0, PassengerType.GOLD);
+        int premiumId = savePassenger(0.0, PassengerType.PREMIUM);
+
+        List<Booking> bookings = bookingService.createGroupBooking(List.of(standardId, goldId, premiumId),
+                ACTIVITY_ID, DESTINATION_ID);
+
+        assertEquals(List.of(standardId, goldId, premiumId),
+                bookings.stream().map(Booking::getPassengerId).toList());
+        assertEquals(3, bookings.stream().map(Booking::getBookingId).distinct().count());
+        assertEquals(30.0, passengerRepository.getById(standardId).orElseThrow().getBalance());
+        assertEquals(0.0, passengerRepository.getById(goldId).orElseThrow().getBalance());
+        assertEquals(0.0, passengerRepository.getById(premiumId).orElseThrow().getBalance());
+        assertEquals(0, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        for (Booking booking : bookings) {
+            assertEquals(BookingStatus.PENDING, bookingService.getBookingDetails(booking.getBookingId()).getBookingStatus());
+            assertEquals(List.of(booking), passengerRepository.getById(booking.getPassengerId(),
+                    PassengerFetchPlan.WITH_BOOKINGS).orElseThrow().getBookingList());
+        }
+    }
+
+    @Test
+    public void testGroupBookingIsAllOrNothing() {
+        int firstId = savePassenger(50.0);
+        int brokeId = savePassenger(10.0);
+
+        IllegalArgumentException insufficientBalance = assertThrows(IllegalArgumentException.class,
+                () -> bookingService.createGroupBooking(List.of(firstId, brokeId), ACTIVITY_ID, DESTINATION_ID));
+        assertEquals(String.format("Insufficient balance for booking the activity: %s, passengers: [%s]",
+                ACTIVITY_ID, brokeId), insufficientBalance.getMessage());
+
+        int secondId = savePassenger(50.0);
+        int thirdId = savePassenger(50.0);
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createGroupBooking(
+                List.of(firstId, secondId, thirdId, brokeId), ACTIVITY_ID, DESTINATION_ID));
+        IllegalArgumentException unknownPassenger = assertThrows(IllegalArgumentException.class,
+                () -> bookingService.createGroupBooking(List.of(firstId, 404), ACTIVITY_ID, DESTINATION_ID));
+        assertEquals("Passengers [404] not found.", unknownPassenger.getMessage());
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.createGroupBooking(List.of(firstId, firstId), ACTIVITY_ID, DESTINATION_ID));
+
+        assertEquals(50.0, passengerRepository.getById(firstId).orElseThrow().getBalance());
+        assertEquals(10.0, passengerRepository.getById(brokeId).orElseThrow().getBalance());
+        assertTrue(passengerRepository.getById(firstId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow()
+                .getBookingList().isEmpty());
+        assertEquals(3, activityRepository.getById(ACTIVITY_ID).orElseThrow().getCapacity());
+        assertTrue(bookingRepository.getById(1).isEmpty());
+    }
+
+    private int savePassenger(double balance) {
+        return savePassenger(balance, PassengerType.STANDARD);
+    }
+
+    private int savePassenger(double balance, PassengerType passengerType) {
+        int passengerId = passengerRepository.generatePassengerId();
+        passengerRepository.save(Passenger.builder()
+                .passengerId(passengerId)
+                .passengerName("Passenger " + passengerId)
+                .passengerMobile("98450")
+                .passengerType(passengerType)
+                .balance(balance)
+                .build());
+        return passengerId;
+    }
+}
@@ -0,0 +1,159 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.DestinationDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.H2DatabaseExtension;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.MaxStatements;
+import com.travelagencies.db.SqlProfile;
+import com.travelagencies.db.SqlProfilerExtension;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Bounds the SQL the booking flow and the DAO lookups issue on H2, so a change that quietly adds queries or
+ * reintroduces a per-row lookup fails here.
+ */
+public class BookingServiceStatementCountTest {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int ACTIVITIES = 5;
+    private static final int PASSENGERS = 5;
+
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension();
+
+    @RegisterExtension
+    final SqlProfilerExtension sql = new SqlProfilerExtension();
+
+    private ActivityDao activityDao;
+    private PassengerDao passengerDao;
+    private BookingDao bookingDao;
+    private BookingService bookingService;
+
+    @BeforeEach
+    public void setUp() {
+        DataSource profiled = sql.wrap(h2.getConnectionPool());
+        TransactionManager transactionManager = new TransactionManager(profiled);
+        IdGenerator idGenerator = new IdGenerator(profiled);
+        DataSource dataSource = transactionManager.getDataSource();
+        activityDao = new ActivityDao(dataSource, idGenerator);
+        passengerDao = new PassengerDao(dataSource, idGenerator);
+        bookingDao = new BookingDao(dataSource, idGenerator);
+        bookingService = new BookingService(bookingDao, passengerDao, activityDao, transactionManager);
+
+        Destination goa = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new DestinationDao(dataSource, idGenerator).save(goa);
+        List<Activity> activities = new ArrayList<>();
+        for (int activityId = 1; activityId <= ACTIVITIES; activityId++) {
+            activities.add(Activity.builder()
+                    .activityId(activityId)
+                    .name("Activity " + activityId)
+                    .description("Statement count")
+                    .cost(10.0)
+                    .capacity(100)
+                    .destination(goa)
+                    .build());
+        }
+        activityDao.saveAll(activities);
+        List<Passenger> passengers = new ArrayList<>();
+        for (int passengerId = 1; passengerId <= PASSENGERS; passengerId++) {
+            passengers.add(Passenger.builder()
+                    .passengerId(passengerId)
+                    .passengerName("Passenger " + passengerId)
+                    .passengerMobile("9999988888")
+                    .passengerType(PassengerType.GOLD)
+                    .balance(1000.0)
+                    .build());
+        }
+        passengerDao.saveAll(passengers);
+
+        // Leases the first block of booking ids, which later bookings then take without a query.
+        bookingService.createBooking(1, 1, DESTINATION_ID);
+    }
+
+    @Test
+    public void testCreateBooking() {
+        SqlProfile profile = sql.assertMaxStatements(6, "createBooking",
+                () -> bookingService.createBooking(2, 2, DESTINATION_ID));
+
+        assertEquals(7, profile.getRoundTrips(), profile.toString());
+    }
+
+    @Test
+    public void testCreateGroupBookingIsBatched() {
+        List<Integer> passengerIds = IntStream.rangeClosed(2, PASSENGERS).boxed().toList();
+
+        // One locking read, one activity read, one capacity update and three batches: the round trips do not grow
+        // with the group, only the batched statements do.
+        SqlProfile profile = sql.assertMaxStatements(3 + 3 * passengerIds.size(), "createGroupBooking",
+                () -> bookingService.createGroupBooking(passengerIds, 2, DESTINATION_ID));
+
+        assertEquals(7, profile.getRoundTrips(), profile.toString());
+        assertFalse(profile.hasSuspectedNPlusOne(), profile.toString());
+    }
+
+    @Test
+    public void testCancelBooking() {
+        int bookingId = passengerDao.getById(1, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow()
+                .getBookingList().get(0).getBookingId();
+
+        sql.assertMaxStatements(8, "cancelBooking",
+                () -> bookingService.updateBookingStatus(bookingId, BookingStatus.CANCELLED));
+    }
+
+    @Test
+    @MaxStatements(1)
+    public void testActivityGetByIdJoinsItsDestination() {
+        assertEquals("Goa", activityDao.getById(1).orElseThrow().getDestination().getName());
+    }
+
+    @Test
+    @MaxStatements(2)
+    public void testPassengerWithBookingsIsTwoQueries() {
+        assertEquals(1, passengerDao.getById(1, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow().getBookingList().size());
+    }
+
+    @Test
+    @MaxStatements(2)
+    public void testPassengersWithBookingsAreLoadedTogether() {
+        List<Integer> passengerIds = IntStream.rangeClosed(1, PASSENGERS).boxed().toList();
+
+        assertEquals(PASSENGERS, passengerDao.getByIds(passengerIds, PassengerFetchPlan.WITH_BOOKINGS).size());
+    }
+
+    @Test
+    public void testLookupsInALoopAreReportedAsNPlusOne() {
+        SqlProfile profile = sql.getProfiler().profile("loop", () -> {
+            for (int activityId = 1; activityId <= ACTIVITIES; activityId++) {
+                activityDao.getById(activityId);
+            }
+        });
+
+        assertEquals(ACTIVITIES, profile.getStatements());
+        assertEquals(ACTIVITIES, profile.getRowsFetched());
+        assertTrue(profile.hasSuspectedNPlusOne(), profile.toString());
+        assertThrows(AssertionError.class, () -> sql.assertNoNPlusOne("loop", () -> {
+            for (int activityId = 1; activityId <= ACTIVITIES; activityId++) {
+                activityDao.getById(activityId);
+            }
+        }));
+    }
+}
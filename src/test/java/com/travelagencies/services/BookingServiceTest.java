@@ -3,7 +3,9 @@ package com.travelagencies.services;
 import com.travelagencies.dao.ActivityDao;
 import com.travelagencies.dao.BookingDao;
 import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.db.TransactionManager;
 import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
 import com.travelagencies.enums.PassengerType;
 import com.travelagencies.models.Activity;
 import com.travelagencies.models.Booking;
@@ -14,6 +16,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,9 +37,21 @@ public class BookingServiceTest {
     @Mock
     private ActivityDao activityDao;
 
+    @Mock
+    private TransactionManager transactionManager;
+
+    @Mock
+    private SeatReleaseListener seatReleaseListener;
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.initMocks(this);
+        doAnswer(invocation -> {
+            invocation.getArgument(0, Runnable.class).run();
+            return null;
+        }).when(transactionManager).run(any(Runnable.class));
+        doAnswer(invocation -> invocation.getArgument(0, Supplier.class).get())
+                .when(transactionManager).execute(any());
     }
 
     @Test
@@ -44,22 +62,24 @@ public class BookingServiceTest {
 
         Passenger mockPassenger = Passenger.builder().passengerId(1).passengerName("name").passengerMobile("1234")
                         .passengerType(PassengerType.STANDARD).balance(500.0).build();
-        when(passengerDao.getById(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
+        when(passengerDao.getByIdForUpdate(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
 
         Activity mockActivity = Activity.builder().activityId(2).name("aName")
                 .description("aDescription").cost(100.0).capacity(5).build();
         when(activityDao.getById(activityId)).thenReturn(java.util.Optional.of(mockActivity));
 
+        when(activityDao.reserveCapacity(activityId, 1)).thenReturn(true);
         when(bookingDao.generateBookingId()).thenReturn(101);
         doNothing().when(bookingDao).save(any(Booking.class));
 
         assertDoesNotThrow(() -> bookingService.createBooking(passengerId, activityId, destinationId));
 
-        verify(passengerDao, times(1)).getById(passengerId);
+        verify(passengerDao, times(1)).getByIdForUpdate(passengerId);
         verify(activityDao, times(1)).getById(activityId);
         verify(bookingDao, times(1)).save(any(Booking.class));
         verify(passengerDao, times(1)).update(any(Passenger.class));
-        verify(activityDao, times(1)).update(any(Activity.class));
+        verify(activityDao, times(1)).reserveCapacity(activityId, 1);
+        verify(activityDao, never()).update(any(Activity.class));
     }
 
     @Test
@@ -70,7 +90,7 @@ public class BookingServiceTest {
 
         Passenger mockPassenger = Passenger.builder().passengerId(1).passengerName("name").passengerMobile("1234")
                 .passengerType(PassengerType.GOLD).balance(50.0).build();
-        when(passengerDao.getById(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
+        when(passengerDao.getByIdForUpdate(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
 
         Activity mockActivity = Activity.builder().activityId(2).name("aName")
                 .description("aDescription").cost(100.0).capacity(5).build();
@@ -79,7 +99,7 @@ public class BookingServiceTest {
         assertThrows(IllegalArgumentException.class,
                 () -> bookingService.createBooking(passengerId, activityId, destinationId));
 
-        verify(passengerDao, times(1)).getById(passengerId);
+        verify(passengerDao, times(1)).getByIdForUpdate(passengerId);
         verify(activityDao, times(1)).getById(activityId);
         verify(bookingDao, never()).save(any(Booking.class));
     }
@@ -92,7 +112,7 @@ public class BookingServiceTest {
 
         Passenger mockPassenger = Passenger.builder().passengerId(1).passengerName("name").passengerMobile("1234")
                 .passengerType(PassengerType.GOLD).balance(400.0).build();
-        when(passengerDao.getById(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
+        when(passengerDao.getByIdForUpdate(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
 
         Activity mockActivity = Activity.builder().activityId(2).name("aName")
                 .description("aDescription").cost(100.0).capacity(0).build();
@@ -100,24 +120,46 @@ public class BookingServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> bookingService.createBooking(passengerId, activityId, destinationId));
 
-        verify(passengerDao, times(1)).getById(passengerId);
+        verify(passengerDao, times(1)).getByIdForUpdate(passengerId);
         verify(activityDao, times(1)).getById(activityId);
         verify(bookingDao, never()).save(any(Booking.class));
     }
 
+    @Test
+    public void testCreateBooking_LastSeatTakenConcurrently() {
+        int passengerId = 1;
+        int activityId = 2;
+        int destinationId = 3;
+
+        Passenger mockPassenger = Passenger.builder().passengerId(1).passengerName("name").passengerMobile("1234")
+                .passengerType(PassengerType.STANDARD).balance(500.0).build();
+        when(passengerDao.getByIdForUpdate(passengerId)).thenReturn(java.util.Optional.of(mockPassenger));
+
+        Activity mockActivity = Activity.builder().activityId(2).name("aName")
+                .description("aDescription").cost(100.0).capacity(1).build();
+        when(activityDao.getById(activityId)).thenReturn(java.util.Optional.of(mockActivity));
+        when(activityDao.reserveCapacity(activityId, 1)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> bookingService.createBooking(passengerId, activityId, destinationId));
+
+        verify(bookingDao, never()).save(any(Booking.class));
+        verify(passengerDao, never()).update(any(Passenger.class));
+        assertEquals(500.0, mockPassenger.getBalance());
+    }
+
     @Test
     public void testUpdateBookingStatus_CancelledBooking() {
         int bookingId = 101;
         BookingStatus newStatus = BookingStatus.CANCELLED;
 
         Booking mockBooking = Booking.builder().bookingId(101).passengerId(1).destinationId(2)
-                .activityId(3).bookingStatus(BookingStatus.CANCELLED).build();
-        when(bookingDao.getById(bookingId)).thenReturn(java.util.Optional.of(mockBooking));
+                .activityId(3).bookingStatus(BookingStatus.CONFIRMED).build();
+        when(bookingDao.getByIdForUpdate(bookingId)).thenReturn(java.util.Optional.of(mockBooking));
         doNothing().when(bookingDao).update(any(Booking.class));
 
         Passenger mockPassenger = Passenger.builder().passengerId(1).passengerName("name").passengerMobile("1234")
                 .passengerType(PassengerType.GOLD).balance(400.0).build();
-        when(passengerDao.getById(mockBooking.getPassengerId())).thenReturn(java.util.Optional.of(mockPassenger));
+        when(passengerDao.getByIdForUpdate(mockBooking.getPassengerId(), PassengerFetchPlan.WITH_BOOKINGS)).thenReturn(java.util.Optional.of(mockPassenger));
 
         Activity mockActivity = Activity.builder().activityId(2).name("aName")
                 .description("aDescription").cost(100.0).capacity(4).build();
@@ -126,8 +168,11 @@ public class BookingServiceTest {
         assertDoesNotThrow(() -> bookingService.updateBookingStatus(bookingId, newStatus));
 
         verify(bookingDao, times(1)).update(any(Booking.class));
-        verify(passengerDao, times(1)).getById(mockBooking.getPassengerId());
+        verify(passengerDao, times(1)).getByIdForUpdate(mockBooking.getPassengerId(), PassengerFetchPlan.WITH_BOOKINGS);
         verify(activityDao, times(1)).getById(mockBooking.getActivityId());
+        verify(activityDao, times(1)).releaseCapacity(mockBooking.getActivityId(), 1);
+        verify(activityDao, never()).update(any(Activity.class));
+        verify(seatReleaseListener, times(1)).seatsReleased(mockBooking.getActivityId());
     }
 
     @Test
@@ -137,14 +182,31 @@ public class BookingServiceTest {
 
         Booking mockBooking = Booking.builder().bookingId(101).passengerId(1).destinationId(2)
                 .activityId(3).bookingStatus(BookingStatus.CONFIRMED).build();
-        when(bookingDao.getById(bookingId)).thenReturn(java.util.Optional.of(mockBooking));
+        when(bookingDao.getByIdForUpdate(bookingId)).thenReturn(java.util.Optional.of(mockBooking));
         doNothing().when(bookingDao).update(any(Booking.class));
 
         assertDoesNotThrow(() -> bookingService.updateBookingStatus(bookingId, newStatus));
 
         verify(bookingDao, times(1)).update(any(Booking.class));
-        verify(passengerDao, never()).getById(anyInt());
+        verify(passengerDao, never()).getByIdForUpdate(anyInt(), any());
         verify(activityDao, never()).getById(anyInt());
+        verify(seatReleaseListener, never()).seatsReleased(anyInt());
+    }
+
+    @Test
+    public void testUpdateBookingStatus_AlreadyCancelledBooking() {
+        int bookingId = 101;
+        Booking mockBooking = Booking.builder().bookingId(101).passengerId(1).destinationId(2)
+                .activityId(3).bookingStatus(BookingStatus.CANCELLED).build();
+        when(bookingDao.getByIdForUpdate(bookingId)).thenReturn(java.util.Optional.of(mockBooking));
+
+        assertDoesNotThrow(() -> bookingService.updateBookingStatus(bookingId, BookingStatus.CANCELLED));
+        assertThrows(IllegalArgumentException.class,
+                () -> bookingService.updateBookingStatus(bookingId, BookingStatus.CONFIRMED));
+
+        verify(bookingDao, never()).update(any(Booking.class));
+        verify(passengerDao, never()).getByIdForUpdate(anyInt(), any());
+        verify(activityDao, never()).releaseCapacity(anyInt(), anyInt());
     }
 
     @Test
@@ -152,12 +214,12 @@ public class BookingServiceTest {
         int bookingId = 101;
         BookingStatus newStatus = BookingStatus.CANCELLED;
 
-        when(bookingDao.getById(bookingId)).thenReturn(java.util.Optional.empty());
+        when(bookingDao.getByIdForUpdate(bookingId)).thenReturn(java.util.Optional.empty());
 
         assertThrows(IllegalArgumentException.class, () -> bookingService.updateBookingStatus(bookingId, newStatus));
 
-        verify(bookingDao, times(1)).getById(bookingId);
-        verify(passengerDao, never()).getById(anyInt());
+        verify(bookingDao, times(1)).getByIdForUpdate(bookingId);
+        verify(passengerDao, never()).getByIdForUpdate(anyInt(), any());
         verify(activityDao, never()).getById(anyInt());
     }
 
@@ -183,4 +245,14 @@ public class BookingServiceTest {
 
         verify(bookingDao, times(1)).getById(bookingId);
     }
+
+    @Test
+    public void testGetBookingsDetails() {
+        Booking booking = Booking.builder().bookingId(1).bookingStatus(BookingStatus.CONFIRMED).build();
+        when(bookingDao.getByIds(List.of(1))).thenReturn(Map.of(1, booking));
+
+        Map<Integer, Booking> bookings = bookingService.getBookingsDetails(List.of(1));
+
+        assertSame(booking, bookings.get(1));
+    }
 }
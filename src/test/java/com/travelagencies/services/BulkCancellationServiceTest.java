@@ -0,0 +1,277 @@
+package com.travelagencies.services;
+
+import com.travelagencies.dao.ActivityDao;
+import com.travelagencies.dao.BookingDao;
+import com.travelagencies.dao.PassengerDao;
+import com.travelagencies.dao.memory.InMemoryActivityRepository;
+import com.travelagencies.dao.memory.InMemoryBookingRepository;
+import com.travelagencies.dao.memory.InMemoryDatabase;
+import com.travelagencies.dao.memory.InMemoryDestinationRepository;
+import com.travelagencies.dao.memory.InMemoryPassengerRepository;
+import com.travelagencies.db.ConnectionPool;
+import com.travelagencies.db.H2DatabaseExtension;
+import com.travelagencies.db.IdGenerator;
+import com.travelagencies.db.SqlProfile;
+import com.travelagencies.db.SqlProfilerExtension;
+import com.travelagencies.db.TransactionManager;
+import com.travelagencies.enums.BookingStatus;
+import com.travelagencies.enums.PassengerFetchPlan;
+import com.travelagencies.enums.PassengerType;
+import com.travelagencies.models.Activity;
+import com.travelagencies.models.Booking;
+import com.travelagencies.models.Destination;
+import com.travelagencies.models.Passenger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs bulk cancellations on H2, where the bookings are streamed from a real cursor, and once on the in-memory
+ * repositories.
+ */
+public class BulkCancellationServiceTest {
+
+    private static final int DESTINATION_ID = 1;
+    private static final int SURFING = 1;
+    private static final int DIVING = 2;
+    private static final int OTHER_DESTINATION_ACTIVITY = 3;
+
+    @RegisterExtension
+    final H2DatabaseExtension h2 = new H2DatabaseExtension();
+
+    @RegisterExtension
+    final SqlProfilerExtension sql = new SqlProfilerExtension();
+
+    private ConnectionPool connectionPool;
+    private TransactionManager transactionManager;
+    private ActivityDao activityDao;
+    private PassengerDao passengerDao;
+    private BookingDao bookingDao;
+    private BookingService bookingService;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        connectionPool = h2.getConnectionPool();
+        h2.execute("INSERT INTO destinations (destination_id, name) VALUES (1, 'Goa'), (2, 'Kerala')",
+                "INSERT INTO activities (activity_id, destination_id, name, description, cost, capacity) VALUES " +
+                        "(1, 1, 'Surfing', 'Waves', 20.0, 100000), (2, 1, 'Diving', 'Reef', 50.0, 100000), " +
+                        "(3, 2, 'Backwaters', 'Boats', 10.0, 100000)");
+
+        transactionManager = new TransactionManager(sql.wrap(connectionPool));
+        IdGenerator idGenerator = new IdGenerator(connectionPool);
+        activityDao = new ActivityDao(transactionManager.getDataSource(), idGenerator);
+        passengerDao = new PassengerDao(transactionManager.getDataSource(), idGenerator);
+        bookingDao = new BookingDao(transactionManager.getDataSource(), idGenerator);
+        bookingService = new BookingService(bookingDao, passengerDao, activityDao, transactionManager);
+    }
+
+    @Test
+    public void testCancelActivityBookings() {
+        int standardId = savePassenger(100.0, PassengerType.STANDARD);
+        int goldId = savePassenger(100.0, PassengerType.GOLD);
+        int premiumId = savePassenger(100.0, PassengerType.PREMIUM);
+        bookingService.createGroupBooking(List.of(standardId, goldId, premiumId), SURFING, DESTINATION_ID);
+        bookingService.createBooking(standardId, SURFING, DESTINATION_ID);
+        bookingService.createBooking(standardId, DIVING, DESTINATION_ID);
+        bookingService.createBooking(goldId, SURFING, DESTINATION_ID);
+        int alreadyCancelledId = latestBookingId(goldId);
+        bookingService.updateBookingStatus(alreadyCancelledId, BookingStatus.CANCELLED);
+
+        List<BulkCancellationProgress> reported = new ArrayList<>();
+        BulkCancellationProgress progress = new BulkCancellationService(bookingDao, passengerDao, activityDao,
+                transactionManager, 2).cancelActivityBookings(SURFING, 0, reported::add);
+
+        assertEquals(4, progress.getBookingsCancelled());
+        assertEquals(0, progress.getBookingsSkipped());
+        assertEquals(2, progress.getChunks());
+        assertEquals(List.of(2L, 4L), reported.stream().map(BulkCancellationProgress::getBookingsCancelled).toList());
+        assertEquals(20.0 + 18.0 + 20.0, progress.getAmountRefunded(), 1e-9);
+
+        // The standard passenger keeps the diving booking, everything else is refunded in full or as a discount.
+        Passenger standard = passengerDao.getById(standardId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals(50.0, standard.getBalance(), 1e-9);
+        assertEquals(List.of(DIVING), standard.getBookingList().stream().map(Booking::getActivityId).toList());
+        Passenger gold = passengerDao.getById(goldId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow();
+        assertEquals(100.0, gold.getBalance(), 1e-9);
+        assertTrue(gold.getBookingList().isEmpty());
+        assertEquals(100.0, passengerDao.getById(premiumId).orElseThrow().getBalance(), 1e-9);
+        assertEquals(100000, activityDao.getById(SURFING).orElseThrow().getCapacity());
+        assertEquals(99999, activityDao.getById(DIVING).orElseThrow().getCapacity());
+        assertEquals(BookingStatus.CANCELLED, bookingDao.getById(alreadyCancelledId).orElseThrow().getBookingStatus());
+    }
+
+    @Test
+    public void testCancelDestinationBookingsResumesAfterLastBookingId() {
+        List<Integer> passengerIds = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            passengerIds.add(savePassenger(1000.0, PassengerType.STANDARD));
+        }
+        bookingService.createGroupBooking(passengerIds, SURFING, DESTINATION_ID);
+        bookingService.createGroupBooking(passengerIds, DIVING, DESTINATION_ID);
+        bookingService.createGroupBooking(passengerIds, OTHER_DESTINATION_ACTIVITY, 2);
+
+        BulkCancellationService service = new BulkCancellationService(bookingDao, passengerDao, activityDao,
+                transactionManager, 5);
+        RuntimeException interrupted = new RuntimeException("interrupted");
+        List<BulkCancellationProgress> reported = new ArrayList<>();
+        assertSame(interrupted, assertThrows(RuntimeException.class,
+                () -> service.cancelDestinationBookings(DESTINATION_ID, 0, progress -> {
+                    reported.add(progress);
+                    throw interrupted;
+                })));
+        assertEquals(5, reported.get(0).getBookingsCancelled());
+
+        BulkCancellationProgress resumed = service.cancelDestinationBookings(DESTINATION_ID,
+                reported.get(0).getLastBookingId(), progress -> {
+                });
+
+        assertEquals(7, resumed.getBookingsCancelled());
+        assertEquals(2, resumed.getChunks());
+        for (Passenger passenger : passengerDao.getByIds(passengerIds, PassengerFetchPlan.WITH_BOOKINGS).values()) {
+            assertEquals(1000.0 - 10.0, passenger.getBalance(), 1e-9);
+            assertEquals(List.of(OTHER_DESTINATION_ACTIVITY),
+                    passenger.getBookingList().stream().map(Booking::getActivityId).toList());
+        }
+        assertEquals(0, service.cancelDestinationBookings(DESTINATION_ID).getBookingsCancelled());
+    }
+
+    @Test
+    public void testTensOfThousandsOfBookingsInFixedRoundTripsPerChunk() throws SQLException {
+        int passengers = 2_000;
+        int bookingsPerPassenger = 10;
+        insertBookings(passengers, bookingsPerPassenger);
+        BulkCancellationService service = new BulkCancellationService(bookingDao, passengerDao, activityDao,
+                transactionManager);
+
+        long start = System.nanoTime();
+        SqlProfile profile = sql.getProfiler().profile("cancelActivityBookings", () -> {
+            BulkCancellationProgress progress = service.cancelActivityBookings(SURFING);
+            assertEquals(passengers * bookingsPerPassenger, progress.getBookingsCancelled());
+            assertEquals(passengers * bookingsPerPassenger / BulkCancellationService.DEFAULT_CHUNK_SIZE,
+                    progress.getChunks());
+        });
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Per chunk of 500: lock the bookings, lock the passengers, 5 status update batches of 100, one balance batch,
+        // 5 link deletion batches, one capacity release and the commit.
+        int chunks = passengers * bookingsPerPassenger / BulkCancellationService.DEFAULT_CHUNK_SIZE;
+        assertTrue(profile.getRoundTrips() <= 2 + 15 * chunks, profile.toString());
+        // The cancelled links are deleted without reading the passengers' booking histories.
+        assertTrue(profile.getRoundTripsByShape().keySet().stream()
+                .noneMatch(shape -> shape.startsWith("SELECT") && shape.contains("passenger_bookings")),
+                profile.toString());
+        assertTrue(elapsedMillis < 30_000, elapsedMillis + " ms");
+        assertEquals(100000 + passengers * bookingsPerPassenger,
+                activityDao.getById(SURFING).orElseThrow().getCapacity());
+        assertEquals(passengers * bookingsPerPassenger * 20.0, passengerDao.getByIds(
+                IntStream.rangeClosed(1, passengers).boxed().toList()).values().stream()
+                .mapToDouble(passenger -> passenger.getBalance() - 1000.0)
+                .sum(), 1e-6);
+        assertEquals(0, h2.queryForInt("SELECT COUNT(*) FROM passenger_bookings"));
+    }
+
+    @Test
+    public void testRefusesToRunInsideATransaction() {
+        BulkCancellationService service = new BulkCancellationService(bookingDao, passengerDao, activityDao,
+                transactionManager);
+
+        assertThrows(IllegalStateException.class,
+                () -> transactionManager.run(() -> service.cancelActivityBookings(SURFING)));
+        assertThrows(IllegalArgumentException.class, () -> service.cancelActivityBookings(404));
+    }
+
+    @Test
+    public void testInMemoryRepositories() {
+        InMemoryDatabase database = new InMemoryDatabase();
+        InMemoryPassengerRepository passengerRepository = new InMemoryPassengerRepository(database);
+        InMemoryActivityRepository activityRepository = new InMemoryActivityRepository(database);
+        InMemoryBookingRepository bookingRepository = new InMemoryBookingRepository(database);
+        Destination goa = Destination.builder().destinationId(DESTINATION_ID).name("Goa").build();
+        new InMemoryDestinationRepository(database).save(goa);
+        activityRepository.save(Activity.builder().activityId(SURFING).name("Surfing").description("Waves")
+                .cost(20.0).capacity(10).destination(goa).build());
+        List<Integer> passengerIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int passengerId = passengerRepository.generatePassengerId();
+            passengerRepository.save(Passenger.builder().passengerId(passengerId).passengerName("Passenger")
+                    .passengerMobile("98450").passengerType(PassengerType.GOLD).balance(100.0).build());
+            passengerIds.add(passengerId);
+        }
+        new BookingService(bookingRepository, passengerRepository, activityRepository, database.getTransactionManager())
+                .createGroupBooking(passengerIds, SURFING, DESTINATION_ID);
+
+        List<Integer> released = new ArrayList<>();
+        BulkCancellationProgress progress = new BulkCancellationService(bookingRepository, passengerRepository,
+                activityRepository, database.getTransactionManager(), 2, released::add)
+                .cancelDestinationBookings(DESTINATION_ID);
+
+        assertEquals(5, progress.getBookingsCancelled());
+        assertEquals(3, progress.getChunks());
+        assertEquals(List.of(SURFING, SURFING, SURFING), released);
+        assertEquals(10, activityRepository.getById(SURFING).orElseThrow().getCapacity());
+        Map<Integer, Passenger> passengers = passengerRepository.getByIds(passengerIds, PassengerFetchPlan.WITH_BOOKINGS);
+        for (Passenger passenger : passengers.values()) {
+            assertEquals(100.0, passenger.getBalance(), 1e-9);
+            assertTrue(passenger.getBookingList().isEmpty());
+        }
+    }
+
+    private int savePassenger(double balance, PassengerType passengerType) {
+        int passengerId = passengerDao.generatePassengerId();
+        passengerDao.save(Passenger.builder()
+                .passengerId(passengerId)
+                .passengerName("Passenger " + passengerId)
+                .passengerMobile("9999988888")
+                .passengerType(passengerType)
+                .balance(balance)
+                .build());
+        return passengerId;
+    }
+
+    private int latestBookingId(int passengerId) {
+        List<Booking> bookings = passengerDao.getById(passengerId, PassengerFetchPlan.WITH_BOOKINGS).orElseThrow()
+                .getBookingList();
+        return bookings.stream().mapToInt(Booking::getBookingId).max().orElseThrow();
+    }
+
+    private void insertBookings(int passengers, int bookingsPerPassenger) throws SQLException {
+        try (Connection connection = connectionPool.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO passengers (passenger_id, " +
+                    "name, mobile, passenger_type, balance) VALUES (?, 'Passenger', '98450', 'STANDARD', 1000.0)")) {
+                for (int passengerId = 1; passengerId <= passengers; passengerId++) {
+                    statement.setInt(1, passengerId);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement bookingStatement = connection.prepareStatement("INSERT INTO bookings (booking_id, " +
+                    "passenger_id, destination_id, activity_id, booking_status) VALUES (?, ?, 1, 1, 'CONFIRMED')");
+                 PreparedStatement linkStatement = connection.prepareStatement(
+                         "INSERT INTO passenger_bookings (booking_id, passenger_id) VALUES (?, ?)")) {
+                int bookingId = 0;
+                for (int passengerId = 1; passengerId <= passengers; passengerId++) {
+                    for (int i = 0; i < bookingsPerPassenger; i++) {
+                        bookingId++;
+                        for (PreparedStatement statement : List.of(bookingStatement, linkStatement)) {
+                            statement.setInt(1, bookingId);
+                            statement.setInt(2, passengerId);
+                            statement.addBatch();
+                        }
+                    }
+                }
+                bookingStatement.executeBatch();
+                linkStatement.executeBatch();
+            }
+        }
+    }
+}
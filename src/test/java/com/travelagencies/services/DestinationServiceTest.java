@@ -8,6 +8,10 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -78,5 +82,15 @@ public class DestinationServiceTest {
         assertThrows(IllegalArgumentException.class,
                 () -> destinationService.updateDestinationName(destinationId, newName));
     }
-}
 
+    @Test
+    public void testUpdateDestinationNames() {
+        Destination destination = Destination.builder().destinationId(1).name("Old").build();
+        when(destinationDao.getByIds(Set.of(1))).thenReturn(Map.of(1, destination));
+
+        destinationService.updateDestinationNames(Map.of(1, "New"));
+
+        assertEquals("New", destination.getName());
+        verify(destinationDao, times(1)).updateAll(List.of(destination));
+    }
+}
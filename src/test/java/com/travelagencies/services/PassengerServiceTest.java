@@ -9,6 +9,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.List;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -96,5 +98,19 @@ public class PassengerServiceTest {
 
         assertThrows(IllegalArgumentException.class, () -> passengerService.getPassengerDetails(passengerId));
     }
-}
 
+    @Test
+    public void testCreatePassengers() {
+        when(passengerDao.generatePassengerId()).thenReturn(101, 102);
+        List<Passenger> passengers = List.of(
+                Passenger.builder().passengerName("First").passengerType(PassengerType.GOLD).balance(10.0).build(),
+                Passenger.builder().passengerName("Second").passengerType(PassengerType.STANDARD).balance(20.0).build());
+
+        passengerService.createPassengers(passengers);
+
+        assertEquals(101, passengers.get(0).getPassengerId());
+        assertEquals(102, passengers.get(1).getPassengerId());
+        verify(passengerDao, times(1)).saveAll(passengers);
+        verify(passengerDao, never()).save(any());
+    }
+}
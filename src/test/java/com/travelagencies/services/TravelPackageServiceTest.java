@@ -8,6 +8,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.util.Map;
+import java.util.Set;
+
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -112,5 +115,13 @@ public class TravelPackageServiceTest {
         assertThrows(IllegalArgumentException.class,
                 () -> travelPackageService.updateTravelPackagePassengerCapacity(packageId, newCapacity));
     }
-}
 
+    @Test
+    public void testUpdateTravelPackagesPassengerCapacity_PackageNotFound() {
+        when(travelPackageDao.getByIds(Set.of(1))).thenReturn(Map.of());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> travelPackageService.updateTravelPackagesPassengerCapacity(Map.of(1, 20)));
+        verify(travelPackageDao, never()).updateAll(anyCollection());
+    }
+}